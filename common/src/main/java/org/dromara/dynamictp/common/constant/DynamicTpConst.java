@@ -78,6 +78,26 @@ public final class DynamicTpConst {
 
     public static final String QUEUE_TIMEOUT = "queueTimeout";
 
+    public static final String TIMEOUT_SCAN_ENABLED = "timeoutScanEnabled";
+
+    public static final String SHED_EXPIRED_TASKS = "shedExpiredTasks";
+
+    public static final String EXPIRED_HANDLER_TYPE = "expiredHandlerType";
+
+    public static final String ADAPTIVE_LIMIT = "adaptiveLimit";
+
+    public static final String BATCH_SIZE = "batchSize";
+
+    public static final String TIME_QUANTUM = "timeQuantum";
+
+    public static final String ORDERED_MODE = "orderedMode";
+
+    public static final String MAX_ACTIVE_KEYS = "maxActiveKeys";
+
+    public static final String KEY_CAPACITY = "keyCapacity";
+
+    public static final String KEY_CONCURRENCY = "keyConcurrency";
+
     public static final String TASK_WRAPPERS = "taskWrappers";
 
     /**
@@ -94,7 +114,8 @@ public final class DynamicTpConst {
 
     public static final String ARR_RIGHT_BRACKET = "]";
 
-    public static final List<NotifyItemEnum> SCHEDULE_NOTIFY_ITEMS = ImmutableList.of(NotifyItemEnum.LIVENESS, NotifyItemEnum.CAPACITY);
+    public static final List<NotifyItemEnum> SCHEDULE_NOTIFY_ITEMS = ImmutableList.of(NotifyItemEnum.LIVENESS,
+            NotifyItemEnum.CAPACITY, NotifyItemEnum.LANE_SKEW);
 
     /**
      * unit
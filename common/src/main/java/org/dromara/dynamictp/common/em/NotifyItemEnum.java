@@ -57,7 +57,13 @@ public enum NotifyItemEnum {
     /**
      * Task queue wait timeout alarm.
      */
-    QUEUE_TIMEOUT("queue_timeout");
+    QUEUE_TIMEOUT("queue_timeout"),
+
+    /**
+     * Ordered executor lane skew alarm.
+     * skew = max lane load / mean lane load * 100, e.g. threshold 300 fires when a lane has 3x the mean load
+     */
+    LANE_SKEW("lane_skew");
 
     private final String value;
 
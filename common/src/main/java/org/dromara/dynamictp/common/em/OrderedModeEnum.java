@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.em;
+
+import lombok.Getter;
+
+/**
+ * OrderedModeEnum related
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Getter
+public enum OrderedModeEnum {
+
+    /**
+     * Keys share a fixed number of lanes, the tasks of all keys on a lane run in submission order.
+     */
+    LANE("lane"),
+
+    /**
+     * Each active key has its own serial queue, only the tasks of the same key run in submission order.
+     */
+    KEY("key"),
+
+    /**
+     * Each active key has its own FIFO queue and runs at most keyConcurrency tasks at a time, the tasks of
+     * a key start in submission order but may finish out of order.
+     */
+    KEY_LIMIT("key_limit");
+
+    private final String name;
+
+    OrderedModeEnum(String name) {
+        this.name = name;
+    }
+
+    public static OrderedModeEnum of(String name) {
+        for (OrderedModeEnum mode : OrderedModeEnum.values()) {
+            if (mode.name.equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return LANE;
+    }
+}
@@ -18,7 +18,14 @@
 package org.dromara.dynamictp.common.em;
 
 import org.dromara.dynamictp.common.ex.DtpException;
+import org.dromara.dynamictp.common.queue.BucketPriorityBlockingQueue;
+import org.dromara.dynamictp.common.queue.ByteBoundedBlockingQueue;
+import org.dromara.dynamictp.common.queue.CodelBlockingQueue;
+import org.dromara.dynamictp.common.queue.FairBlockingQueue;
 import org.dromara.dynamictp.common.queue.MemorySafeLinkedBlockingQueue;
+import org.dromara.dynamictp.common.queue.MpmcArrayBlockingQueue;
+import org.dromara.dynamictp.common.queue.ShardedBlockingQueue;
+import org.dromara.dynamictp.common.queue.VariableArrayBlockingQueue;
 import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -64,7 +71,21 @@ public enum QueueTypeEnum {
 
     VARIABLE_LINKED_BLOCKING_QUEUE(8, "VariableLinkedBlockingQueue"),
 
-    MEMORY_SAFE_LINKED_BLOCKING_QUEUE(9, "MemorySafeLinkedBlockingQueue");
+    MEMORY_SAFE_LINKED_BLOCKING_QUEUE(9, "MemorySafeLinkedBlockingQueue"),
+
+    BUCKET_PRIORITY_BLOCKING_QUEUE(10, "BucketPriorityBlockingQueue"),
+
+    MPMC_ARRAY_BLOCKING_QUEUE(11, "MpmcArrayBlockingQueue"),
+
+    VARIABLE_ARRAY_BLOCKING_QUEUE(12, "VariableArrayBlockingQueue"),
+
+    BYTE_BOUNDED_BLOCKING_QUEUE(13, "ByteBoundedBlockingQueue"),
+
+    SHARDED_BLOCKING_QUEUE(14, "ShardedBlockingQueue"),
+
+    CODEL_BLOCKING_QUEUE(15, "CodelBlockingQueue"),
+
+    FAIR_BLOCKING_QUEUE(16, "FairBlockingQueue");
 
     private final Integer code;
     private final String name;
@@ -99,6 +120,20 @@ public enum QueueTypeEnum {
             blockingQueue = new VariableLinkedBlockingQueue<>(capacity);
         } else if (Objects.equals(name, MEMORY_SAFE_LINKED_BLOCKING_QUEUE.getName())) {
             blockingQueue = new MemorySafeLinkedBlockingQueue<>(capacity, maxFreeMemory * M_1);
+        } else if (Objects.equals(name, BUCKET_PRIORITY_BLOCKING_QUEUE.getName())) {
+            blockingQueue = new BucketPriorityBlockingQueue<>(capacity);
+        } else if (Objects.equals(name, MPMC_ARRAY_BLOCKING_QUEUE.getName())) {
+            blockingQueue = new MpmcArrayBlockingQueue<>(capacity);
+        } else if (Objects.equals(name, VARIABLE_ARRAY_BLOCKING_QUEUE.getName())) {
+            blockingQueue = new VariableArrayBlockingQueue<>(capacity);
+        } else if (Objects.equals(name, BYTE_BOUNDED_BLOCKING_QUEUE.getName())) {
+            blockingQueue = new ByteBoundedBlockingQueue<>(capacity);
+        } else if (Objects.equals(name, SHARDED_BLOCKING_QUEUE.getName())) {
+            blockingQueue = new ShardedBlockingQueue<>(capacity);
+        } else if (Objects.equals(name, CODEL_BLOCKING_QUEUE.getName())) {
+            blockingQueue = new CodelBlockingQueue<>(capacity);
+        } else if (Objects.equals(name, FAIR_BLOCKING_QUEUE.getName())) {
+            blockingQueue = new FairBlockingQueue<>(capacity);
         }
         if (blockingQueue != null) {
             return blockingQueue;
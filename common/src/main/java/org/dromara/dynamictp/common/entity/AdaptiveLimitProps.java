@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.entity;
+
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Adaptive concurrency limit properties, the limit is adjusted by the measured task run time,
+ * and applied to both corePoolSize and maximumPoolSize of the executor.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Data
+public class AdaptiveLimitProps {
+
+    /**
+     * Limit algorithm, aimd or gradient, blank means disabled.
+     */
+    private String algorithm;
+
+    /**
+     * Lower bound of the limit.
+     */
+    private int minLimit = 1;
+
+    /**
+     * Upper bound of the limit, 0 means maximumPoolSize when adaptive limit enabled.
+     */
+    private int maxLimit = 0;
+
+    /**
+     * Window to aggregate run time samples before updating the limit, unit (ms).
+     */
+    private long windowMillis = 1000;
+
+    /**
+     * Minimum samples in a window to update the limit.
+     */
+    private int minWindowSamples = 10;
+
+    /**
+     * Aimd, ratio the limit multiplied by when overloaded.
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * Aimd, window is regarded as overloaded when average run time exceeds it, unit (ms),
+     * 0 means only run timeout tasks are regarded as overloaded.
+     */
+    private long latencyThreshold = 0;
+
+    /**
+     * Gradient, tolerated ratio of short term run time to long term run time before decreasing the limit.
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * Gradient, smoothing factor applied to the new limit, in (0, 1].
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Send change notice when the limit moves more than this ratio since last notice.
+     */
+    private double noticeThreshold = 0.5;
+
+    public boolean isEnabled() {
+        return StringUtils.isNotBlank(algorithm);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.entity;
+
+import lombok.Data;
+
+/**
+ * Auto tune properties, pool size and queue capacity are tuned within the guard rails
+ * by the stats sampled each monitor interval.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Data
+public class AutoTuneProps {
+
+    /**
+     * If enable auto tune.
+     */
+    private boolean enabled = false;
+
+    /**
+     * If only report recommendations without applying them.
+     */
+    private boolean dryRun = false;
+
+    /**
+     * Lower bound of corePoolSize and maximumPoolSize.
+     */
+    private int minPoolSize = 1;
+
+    /**
+     * Upper bound of corePoolSize and maximumPoolSize, 0 means configured maximumPoolSize.
+     */
+    private int maxPoolSize = 0;
+
+    /**
+     * Upper bound of queue capacity, 0 means queue capacity is not tuned.
+     */
+    private int maxQueueCapacity = 0;
+
+    /**
+     * Scale up when activeCount / max(corePoolSize, poolSize) reaches it and tasks are piling up in queue.
+     */
+    private double scaleUpUtilization = 0.8;
+
+    /**
+     * Scale down when activeCount / max(corePoolSize, poolSize) stays below it and queue is empty.
+     */
+    private double scaleDownUtilization = 0.3;
+
+    /**
+     * Scale up when queue wait p90 exceeds it, unit (ms), 0 means only queue size is considered.
+     */
+    private long queueWaitThreshold = 0;
+
+    /**
+     * Ratio of current value to change in one step, at least one.
+     */
+    private double stepRatio = 0.25;
+
+    /**
+     * Consecutive samples in the same direction required before changing.
+     */
+    private int stableSamples = 3;
+
+    /**
+     * Minimum interval between two changes, unit (s).
+     */
+    private long coolDownSeconds = 60;
+}
@@ -17,12 +17,15 @@
 
 package org.dromara.dynamictp.common.entity;
 
+import org.dromara.dynamictp.common.em.ExpiredHandlerTypeEnum;
+import org.dromara.dynamictp.common.em.OrderedModeEnum;
 import org.dromara.dynamictp.common.em.QueueTypeEnum;
 import org.dromara.dynamictp.common.em.RejectedTypeEnum;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -61,6 +64,41 @@ public class DtpExecutorProps extends TpExecutorProps {
      */
     private int maxFreeMemory = 16;
 
+    /**
+     * Max estimated bytes of queued tasks for ByteBoundedBlockingQueue, unit M
+     */
+    private int queueByteCapacity = 64;
+
+    /**
+     * Acceptable standing sojourn time for CodelBlockingQueue, unit (ms)
+     */
+    private long codelTarget = 5;
+
+    /**
+     * Interval CodelBlockingQueue tracks the minimum sojourn time over, unit (ms)
+     */
+    private long codelInterval = 100;
+
+    /**
+     * If CodelBlockingQueue serves the newest task first while overloaded
+     */
+    private boolean codelAdaptiveLifo = false;
+
+    /**
+     * Weights of tenants for FairBlockingQueue, tenants not configured have weight 1
+     */
+    private Map<String, Integer> tenantWeights;
+
+    /**
+     * Max queued tasks of tenants for FairBlockingQueue
+     */
+    private Map<String, Integer> tenantCapacities;
+
+    /**
+     * Max queued tasks of tenants not configured in tenantCapacities, 0 means no cap
+     */
+    private int defaultTenantCapacity = 0;
+
     /**
      * RejectedExecutionHandler type, see {@link RejectedTypeEnum}
      */
@@ -109,6 +147,62 @@ public class DtpExecutorProps extends TpExecutorProps {
      */
     private long queueTimeout = 0;
 
+    /**
+     * If detect run and queue timeout by a periodic scanner instead of registering timer for each task.
+     */
+    private boolean timeoutScanEnabled = false;
+
+    /**
+     * If drop tasks that exceeded queueTimeout or their own deadline when dequeued, instead of running them.
+     */
+    private boolean shedExpiredTasks = false;
+
+    /**
+     * Handler of the dropped expired tasks, see {@link ExpiredHandlerTypeEnum}
+     */
+    private String expiredHandlerType = ExpiredHandlerTypeEnum.CANCEL_POLICY.getName();
+
+    /**
+     * Max tasks a child executor of OrderedDtpExecutor runs per turn before yielding its thread
+     */
+    private int orderedBatchSize = 32;
+
+    /**
+     * Max time a child executor of OrderedDtpExecutor runs per turn before yielding its thread,
+     * unit (ms), 0 means no limit
+     */
+    private long orderedTimeQuantum = 0;
+
+    /**
+     * Ordered mode of OrderedDtpExecutor, see {@link OrderedModeEnum}, not refreshable
+     */
+    private String orderedMode = OrderedModeEnum.LANE.getName();
+
+    /**
+     * Max keys having queued or running tasks in key and key limit ordered mode
+     */
+    private int orderedMaxActiveKeys = 65536;
+
+    /**
+     * Max queued tasks of a key in key and key limit ordered mode, 0 means the queue capacity
+     */
+    private int orderedKeyCapacity = 0;
+
+    /**
+     * Max running tasks of a key in key limit ordered mode
+     */
+    private int orderedKeyConcurrency = 1;
+
+    /**
+     * Adaptive concurrency limit, adjusts corePoolSize and maximumPoolSize by task run time when enabled.
+     */
+    private AdaptiveLimitProps adaptiveLimit;
+
+    /**
+     * Auto tune pool size and queue capacity by monitor stats.
+     */
+    private AutoTuneProps autoTune;
+
     /**
      * Task wrapper names.
      */
@@ -21,6 +21,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.util.Map;
+
 /**
  * ThreadPoolStats related
  *
@@ -111,4 +113,214 @@ public class ThreadPoolStats extends Metrics {
      * 在队列等待超时任务数量
      */
     private long queueTimeoutCount;
+
+    /**
+     * 出队时已过期被丢弃的任务数量
+     */
+    private long expiredShedCount;
+
+    /**
+     * CoDel队列丢弃任务数量，仅CodelBlockingQueue队列
+     */
+    private Long codelDropCount;
+
+    /**
+     * CoDel队列上个周期最小排队耗时，单位（ms），仅CodelBlockingQueue队列
+     */
+    private Double codelMinSojourn;
+
+    /**
+     * CoDel队列是否处于过载状态，仅CodelBlockingQueue队列
+     */
+    private Boolean codelOverloaded;
+
+    /**
+     * 各租户队列任务数量，仅FairBlockingQueue队列
+     */
+    private Map<String, Integer> tenantQueueSize;
+
+    /**
+     * 各租户上个周期平均排队耗时，单位（ms），仅FairBlockingQueue队列
+     */
+    private Map<String, Double> tenantWaitAvg;
+
+    /**
+     * 各租户上个周期最大排队耗时，单位（ms），仅FairBlockingQueue队列
+     */
+    private Map<String, Double> tenantWaitMax;
+
+    /**
+     * 各租户超出容量被拒绝的任务数量，仅FairBlockingQueue队列
+     */
+    private Map<String, Long> tenantRejectCount;
+
+    /**
+     * 有排队或执行中任务的key数量，仅key和key_limit模式的ordered线程池
+     */
+    private Integer orderedActiveKeyCount;
+
+    /**
+     * 单个key最大积压任务数量，仅key和key_limit模式的ordered线程池
+     */
+    private Integer orderedMaxKeyBacklog;
+
+    /**
+     * 积压任务最多的若干key及其积压任务数量，仅key和key_limit模式的ordered线程池
+     */
+    private Map<String, Integer> orderedKeyBacklog;
+
+    /**
+     * 执行中任务数达到上限且仍有任务排队的key数量，仅key_limit模式的ordered线程池
+     */
+    private Integer orderedLimitedKeyCount;
+
+    /**
+     * 各lane排队任务数量，仅lane模式的ordered线程池
+     */
+    private Map<Integer, Integer> orderedLaneQueueSize;
+
+    /**
+     * 各lane上个监控周期内执行完成的任务数量，仅lane模式的ordered线程池
+     */
+    private Map<Integer, Long> orderedLaneThroughput;
+
+    /**
+     * 各lane上个监控周期内执行任务耗时，单位（ms），仅lane模式的ordered线程池
+     */
+    private Map<Integer, Double> orderedLaneBusyTime;
+
+    /**
+     * 上个监控周期内最大lane负载 / 平均lane负载，仅lane模式的ordered线程池
+     */
+    private Double orderedLaneSkew;
+
+    /**
+     * 上个监控周期内提交最频繁的若干key及其估算提交次数，仅ordered线程池
+     */
+    private Map<String, Long> orderedHotKeys;
+
+    /**
+     * 队列中任务估算占用字节数，仅ByteBoundedBlockingQueue
+     */
+    private Long queueBytes;
+
+    /**
+     * 队列字节容量，仅ByteBoundedBlockingQueue
+     */
+    private Long queueByteCapacity;
+
+    /**
+     * 队列接纳任务次数，仅ByteBoundedBlockingQueue
+     */
+    private Long queueAdmitCount;
+
+    /**
+     * 队列拒绝任务次数，仅ByteBoundedBlockingQueue
+     */
+    private Long queueRejectCount;
+
+    /**
+     * 是否因可用内存不足拒绝任务，仅MemorySafeLinkedBlockingQueue
+     */
+    private Boolean memoryExhausted;
+
+    /**
+     * 进入内存不足拒绝状态的次数，仅MemorySafeLinkedBlockingQueue
+     */
+    private Long memoryGuardTripCount;
+
+    /**
+     * 工作窃取次数，仅work-stealing线程池及ShardedBlockingQueue队列
+     */
+    private Long stealCount;
+
+    /**
+     * 外部提交尚未执行的任务数量，仅work-stealing线程池
+     */
+    private Long queuedSubmissionCount;
+
+    /**
+     * 未阻塞的运行线程数，仅work-stealing线程池
+     */
+    private Integer runningThreadCount;
+
+    /**
+     * 自适应并发限制当前值，未开启时为空
+     */
+    private Integer adaptiveLimit;
+
+    /**
+     * 自适应并发限制调整次数，未开启时为空
+     */
+    private Long adaptiveLimitAdjustCount;
+
+    /**
+     * 各优先级排队任务数量，key为优先级，仅priority线程池
+     */
+    private Map<Integer, Integer> priorityQueueSize;
+
+    /**
+     * 各优先级任务排队等待耗时 p90，单位（ms），仅priority线程池
+     */
+    private Map<Integer, Double> priorityQueueWaitP90;
+
+    /**
+     * 各优先级任务排队等待耗时 p99，单位（ms），仅priority线程池
+     */
+    private Map<Integer, Double> priorityQueueWaitP99;
+
+    /**
+     * 各分片排队任务数量，key为分片下标，仅ShardedBlockingQueue队列
+     */
+    private Map<Integer, Integer> shardQueueSize;
+
+    /**
+     * 任务排队等待耗时 p50，单位（ms），统计周期为一个监控间隔，下同
+     */
+    private double queueWaitP50;
+
+    /**
+     * 任务排队等待耗时 p90
+     */
+    private double queueWaitP90;
+
+    /**
+     * 任务排队等待耗时 p99
+     */
+    private double queueWaitP99;
+
+    /**
+     * 任务排队等待耗时 p999
+     */
+    private double queueWaitP999;
+
+    /**
+     * 任务排队等待最大耗时
+     */
+    private double queueWaitMax;
+
+    /**
+     * 任务执行耗时 p50，单位（ms）
+     */
+    private double runTimeP50;
+
+    /**
+     * 任务执行耗时 p90
+     */
+    private double runTimeP90;
+
+    /**
+     * 任务执行耗时 p99
+     */
+    private double runTimeP99;
+
+    /**
+     * 任务执行耗时 p999
+     */
+    private double runTimeP999;
+
+    /**
+     * 任务执行最大耗时
+     */
+    private double runTimeMax;
 }
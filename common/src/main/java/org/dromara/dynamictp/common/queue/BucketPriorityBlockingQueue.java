@@ -0,0 +1,470 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * A bounded blocking queue ordering elements by a small number of priority levels, lower level is retrieved first,
+ * elements of the same level are retrieved FIFO. Each level is kept in its own bucket, and a bitmap of non-empty
+ * buckets locates the highest priority element, so both insertion and retrieval are O(1).
+ * Capacity can be changed while in use like {@link VariableLinkedBlockingQueue}.
+ *
+ * @param <E> the type of elements held in this queue
+ * @author agent
+ * @since 1.1.4
+ **/
+public class BucketPriorityBlockingQueue<E> extends AbstractQueue<E> implements VariableCapacityQueue<E> {
+
+    public static final int DEFAULT_LEVELS = 8;
+
+    public static final int MAX_LEVELS = Long.SIZE;
+
+    private final int levels;
+
+    private final ArrayDeque<E>[] buckets;
+
+    /**
+     * Bit i is set if bucket i is not empty, guarded by lock.
+     */
+    private long nonEmptyBuckets;
+
+    private volatile int count;
+
+    private volatile int capacity;
+
+    private volatile ToIntFunction<? super E> priorityFunction;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    public BucketPriorityBlockingQueue(int capacity) {
+        this(capacity, DEFAULT_LEVELS);
+    }
+
+    public BucketPriorityBlockingQueue(int capacity, int levels) {
+        this(capacity, levels, e -> levels / 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BucketPriorityBlockingQueue(int capacity, int levels, ToIntFunction<? super E> priorityFunction) {
+        if (capacity <= 0 || levels <= 0 || levels > MAX_LEVELS) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.levels = levels;
+        this.priorityFunction = priorityFunction;
+        this.buckets = (ArrayDeque<E>[]) new ArrayDeque<?>[levels];
+        for (int i = 0; i < levels; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    public void setPriorityFunction(ToIntFunction<? super E> priorityFunction) {
+        this.priorityFunction = priorityFunction;
+    }
+
+    public int getLevels() {
+        return levels;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Set a new capacity for the queue. Increasing the capacity can
+     * cause any waiting {@link #put(Object)} invocations to succeed.
+     *
+     * @param capacity the new capacity for the queue
+     */
+    @Override
+    public void setCapacity(int capacity) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            this.capacity = capacity;
+            if (count < capacity) {
+                notFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the priority level of the element, out of range values are clamped.
+     *
+     * @param e the element
+     * @return priority level
+     */
+    public int levelOf(E e) {
+        int level = priorityFunction.applyAsInt(e);
+        return level < 0 ? 0 : Math.min(level, levels - 1);
+    }
+
+    /**
+     * Number of elements of the given priority level.
+     *
+     * @param level priority level
+     * @return number of elements
+     */
+    public int size(int level) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return buckets[level].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of elements of each priority level.
+     *
+     * @return number of elements indexed by level
+     */
+    public int[] sizes() {
+        int[] sizes = new int[levels];
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (int i = 0; i < levels; i++) {
+                sizes[i] = buckets[i].size();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return sizes;
+    }
+
+    private void enqueue(E e, int level) {
+        buckets[level].addLast(e);
+        nonEmptyBuckets |= 1L << level;
+        count++;
+        notEmpty.signal();
+    }
+
+    private E dequeue() {
+        int level = Long.numberOfTrailingZeros(nonEmptyBuckets);
+        ArrayDeque<E> bucket = buckets[level];
+        E e = bucket.pollFirst();
+        if (bucket.isEmpty()) {
+            nonEmptyBuckets &= ~(1L << level);
+        }
+        count--;
+        if (count < capacity) {
+            notFull.signal();
+        }
+        return e;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int level = levelOf(e);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (count >= capacity) {
+                return false;
+            }
+            enqueue(e, level);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int level = levelOf(e);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                notFull.await();
+            }
+            enqueue(e, level);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int level = levelOf(e);
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(e, level);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        if (count == 0) {
+            return null;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return count == 0 ? null : buckets[Long.numberOfTrailingZeros(nonEmptyBuckets)].peekFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - count);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (int level = 0; level < levels; level++) {
+                ArrayDeque<E> bucket = buckets[level];
+                if (bucket.remove(o)) {
+                    if (bucket.isEmpty()) {
+                        nonEmptyBuckets &= ~(1L << level);
+                    }
+                    count--;
+                    notFull.signal();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (ArrayDeque<E> bucket : buckets) {
+                if (bucket.contains(o)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (ArrayDeque<E> bucket : buckets) {
+                bucket.clear();
+            }
+            nonEmptyBuckets = 0;
+            count = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int n = Math.min(count, maxElements);
+            for (int i = 0; i < n; i++) {
+                c.add(dequeue());
+            }
+            if (n > 0) {
+                notFull.signalAll();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Object[] array = new Object[count];
+            int i = 0;
+            for (ArrayDeque<E> bucket : buckets) {
+                for (E e : bucket) {
+                    array[i++] = e;
+                }
+            }
+            return array;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in priority order,
+     * the iterator does not reflect later modifications.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(toArray());
+    }
+
+    private class Itr implements Iterator<E> {
+
+        private final Object[] array;
+
+        private int cursor;
+
+        private int lastRet = -1;
+
+        Itr(Object[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < array.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= array.length) {
+                throw new NoSuchElementException();
+            }
+            lastRet = cursor;
+            return (E) array[cursor++];
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            BucketPriorityBlockingQueue.this.remove(array[lastRet]);
+            lastRet = -1;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A FIFO blocking queue bounded by the estimated total bytes of queued elements as well as by element count,
+ * sizes are estimated by {@link TaskSizeEstimator} once when an element is offered.
+ * Both bounds can be changed while in use like {@link VariableLinkedBlockingQueue}.
+ *
+ * <p>An element larger than the whole byte capacity is only admitted into an empty queue,
+ * so it is not rejected forever.
+ *
+ * @param <E> the type of elements held in this queue
+ * @author agent
+ * @since 1.1.4
+ **/
+@Slf4j
+public class ByteBoundedBlockingQueue<E> extends AbstractQueue<E> implements VariableCapacityQueue<E> {
+
+    public static final long DEFAULT_BYTE_CAPACITY = 64L * 1024 * 1024;
+
+    private static final TaskSizeEstimator DEFAULT_ESTIMATOR = loadEstimator();
+
+    private final ArrayDeque<Node<E>> items = new ArrayDeque<>();
+
+    private volatile TaskSizeEstimator estimator = DEFAULT_ESTIMATOR;
+
+    private volatile int count;
+
+    private volatile int capacity;
+
+    private volatile long bytes;
+
+    private volatile long byteCapacity;
+
+    private volatile long admitCount;
+
+    private volatile long rejectCount;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    public ByteBoundedBlockingQueue(int capacity) {
+        this(capacity, DEFAULT_BYTE_CAPACITY);
+    }
+
+    public ByteBoundedBlockingQueue(int capacity, long byteCapacity) {
+        if (capacity <= 0 || byteCapacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.byteCapacity = byteCapacity;
+    }
+
+    private static TaskSizeEstimator loadEstimator() {
+        for (TaskSizeEstimator estimator : ServiceLoader.load(TaskSizeEstimator.class)) {
+            log.info("DynamicTp ByteBoundedBlockingQueue uses TaskSizeEstimator {}", estimator.getClass().getName());
+            return estimator;
+        }
+        return new SampledDeepSizeEstimator();
+    }
+
+    public void setEstimator(TaskSizeEstimator estimator) {
+        this.estimator = estimator;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Set a new element count capacity for the queue.
+     *
+     * @param capacity the new capacity for the queue
+     */
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            this.capacity = capacity;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getByteCapacity() {
+        return byteCapacity;
+    }
+
+    /**
+     * Set a new byte capacity for the queue, queued elements are kept even if they exceed it.
+     *
+     * @param byteCapacity the new byte capacity
+     */
+    public void setByteCapacity(long byteCapacity) {
+        if (byteCapacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            this.byteCapacity = byteCapacity;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estimated bytes of queued elements.
+     *
+     * @return bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Number of offers admitted.
+     *
+     * @return admit count
+     */
+    public long getAdmitCount() {
+        return admitCount;
+    }
+
+    /**
+     * Number of offers rejected, either by count or byte capacity, timed out offers included.
+     *
+     * @return reject count
+     */
+    public long getRejectCount() {
+        return rejectCount;
+    }
+
+    private boolean fits(long size) {
+        return count < capacity && (count == 0 || bytes + size <= byteCapacity);
+    }
+
+    private void enqueue(E e, long size) {
+        items.addLast(new Node<>(e, size));
+        count++;
+        bytes += size;
+        admitCount++;
+        notEmpty.signal();
+    }
+
+    private E dequeue() {
+        Node<E> node = items.pollFirst();
+        afterRemove(node);
+        return node.item;
+    }
+
+    private void afterRemove(Node<E> node) {
+        count--;
+        bytes -= node.size;
+        // waiters need different sizes, wake them all
+        notFull.signalAll();
+    }
+
+    private long estimate(E e) {
+        return Math.max(0, estimator.estimate(e));
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long size = estimate(e);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (!fits(size)) {
+                rejectCount++;
+                return false;
+            }
+            enqueue(e, size);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long size = estimate(e);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (!fits(size)) {
+                notFull.await();
+            }
+            enqueue(e, size);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long size = estimate(e);
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (!fits(size)) {
+                if (nanos <= 0L) {
+                    rejectCount++;
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(e, size);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Node<E> node = items.peekFirst();
+            return node == null ? null : node.item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Remaining element count capacity, the byte capacity may admit fewer elements.
+     */
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - count);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (Iterator<Node<E>> it = items.iterator(); it.hasNext();) {
+                Node<E> node = it.next();
+                if (o.equals(node.item)) {
+                    it.remove();
+                    afterRemove(node);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (Node<E> node : items) {
+                if (o.equals(node.item)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            items.clear();
+            count = 0;
+            bytes = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int n = Math.min(count, maxElements);
+            for (int i = 0; i < n; i++) {
+                c.add(dequeue());
+            }
+            if (n > 0) {
+                notFull.signalAll();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Object[] array = new Object[count];
+            int i = 0;
+            for (Node<E> node : items) {
+                array[i++] = node.item;
+            }
+            return array;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in FIFO order,
+     * the iterator does not reflect later modifications.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(toArray());
+    }
+
+    private static final class Node<E> {
+
+        private final E item;
+
+        private final long size;
+
+        Node(E item, long size) {
+            this.item = item;
+            this.size = size;
+        }
+    }
+
+    private class Itr implements Iterator<E> {
+
+        private final Object[] array;
+
+        private int cursor;
+
+        private int lastRet = -1;
+
+        Itr(Object[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < array.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= array.length) {
+                throw new NoSuchElementException();
+            }
+            lastRet = cursor;
+            return (E) array[cursor++];
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            ByteBoundedBlockingQueue.this.remove(array[lastRet]);
+            lastRet = -1;
+        }
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A bounded blocking queue managed by Controlled Delay (CoDel), keeps the standing queue short under overload.
+ *
+ * <p>The minimum sojourn time of head elements is tracked per interval, the queue is regarded as overloaded
+ * for the next interval if it stayed above target, and while overloaded head elements that waited longer than
+ * twice the target are dropped on dequeue and passed to the drop handler. With adaptive LIFO enabled, the
+ * newest element is served while overloaded, so fresh requests still meet their deadline and stale ones age out.
+ *
+ * <p>Capacity, target and interval can be changed at runtime.
+ *
+ * @param <E> the type of elements held in this queue
+ * @author agent
+ * @since 1.1.4
+ **/
+public class CodelBlockingQueue<E> extends AbstractQueue<E> implements VariableCapacityQueue<E> {
+
+    public static final long DEFAULT_TARGET_MILLIS = 5;
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 100;
+
+    private final ArrayDeque<Node<E>> deque = new ArrayDeque<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private volatile int capacity;
+
+    private volatile long targetNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TARGET_MILLIS);
+
+    private volatile long intervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_INTERVAL_MILLIS);
+
+    private volatile boolean adaptiveLifo;
+
+    /**
+     * Handler of dropped elements, called outside the lock, cancels futures by default.
+     */
+    private volatile Consumer<E> dropHandler = CodelBlockingQueue::cancelIfFuture;
+
+    /**
+     * Elements that may be dropped, a head element rejected by it stops the drops of the current dequeue.
+     */
+    private volatile Predicate<? super E> dropFilter = e -> true;
+
+    /**
+     * CoDel state, only changed under lock.
+     */
+    private long intervalEnd;
+
+    private long minDelay;
+
+    private volatile boolean overloaded;
+
+    /**
+     * Minimum sojourn time of the last finished interval, unit (ns).
+     */
+    private volatile long lastMinDelay;
+
+    private volatile long dropCount;
+
+    /**
+     * Elements dropped by the current dequeue, handed to the drop handler after unlock.
+     */
+    private List<E> dropped;
+
+    public CodelBlockingQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public CodelBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.intervalEnd = System.nanoTime() + intervalNanos;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Set a new capacity for the queue. Increasing the capacity can
+     * cause any waiting {@link #put(Object)} invocations to succeed,
+     * queued elements beyond a decreased capacity are kept.
+     *
+     * @param capacity the new capacity for the queue
+     */
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            this.capacity = capacity;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getTargetMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(targetNanos);
+    }
+
+    /**
+     * Set the acceptable standing sojourn time.
+     *
+     * @param targetMillis target, unit (ms)
+     */
+    public void setTargetMillis(long targetMillis) {
+        if (targetMillis <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+    }
+
+    public long getIntervalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(intervalNanos);
+    }
+
+    /**
+     * Set the interval the minimum sojourn time is tracked over, a shorter interval also ends the current one earlier.
+     *
+     * @param intervalMillis interval, unit (ms)
+     */
+    public void setIntervalMillis(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException();
+        }
+        long nanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            this.intervalNanos = nanos;
+            long end = System.nanoTime() + nanos;
+            if (intervalEnd - end > 0) {
+                intervalEnd = end;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isAdaptiveLifo() {
+        return adaptiveLifo;
+    }
+
+    public void setAdaptiveLifo(boolean adaptiveLifo) {
+        this.adaptiveLifo = adaptiveLifo;
+    }
+
+    public void setDropHandler(Consumer<E> dropHandler) {
+        this.dropHandler = dropHandler;
+    }
+
+    public void setDropFilter(Predicate<? super E> dropFilter) {
+        this.dropFilter = dropFilter;
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * Minimum sojourn time of the last finished interval.
+     *
+     * @return min sojourn time, unit (ns)
+     */
+    public long getMinSojourn() {
+        return lastMinDelay;
+    }
+
+    public long getDropCount() {
+        return dropCount;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (deque.size() >= capacity) {
+                return false;
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() >= capacity) {
+                notFull.await();
+            }
+            enqueue(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() >= capacity) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        E e;
+        List<E> drops;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            e = dequeue();
+        } finally {
+            drops = takeDropped();
+            lock.unlock();
+        }
+        handleDropped(drops);
+        return e;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        for (;;) {
+            E e;
+            List<E> drops;
+            lock.lockInterruptibly();
+            try {
+                // wake up to hand dropped elements to the handler before waiting again
+                while ((e = dequeue()) == null && dropped == null) {
+                    notEmpty.await();
+                }
+            } finally {
+                drops = takeDropped();
+                lock.unlock();
+            }
+            handleDropped(drops);
+            if (e != null) {
+                return e;
+            }
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        for (;;) {
+            E e;
+            List<E> drops;
+            lock.lockInterruptibly();
+            try {
+                while ((e = dequeue()) == null && dropped == null && nanos > 0L) {
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+            } finally {
+                drops = takeDropped();
+                lock.unlock();
+            }
+            handleDropped(drops);
+            if (e != null || nanos <= 0L) {
+                return e;
+            }
+        }
+    }
+
+    @Override
+    public E peek() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Node<E> node = deque.peekFirst();
+            return node == null ? null : node.item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return deque.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return Math.max(0, capacity - deque.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (Iterator<Node<E>> it = deque.iterator(); it.hasNext();) {
+                if (o.equals(it.next().item)) {
+                    it.remove();
+                    notFull.signal();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (Node<E> node : deque) {
+                if (o.equals(node.item)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Drains elements in FIFO order without dropping, used on shutdown.
+     */
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int n = 0;
+            Node<E> node;
+            while (n < maxElements && (node = deque.pollFirst()) != null) {
+                c.add(node.item);
+                n++;
+            }
+            if (n > 0) {
+                notFull.signalAll();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Object[] a = new Object[deque.size()];
+            int i = 0;
+            for (Node<E> node : deque) {
+                a[i++] = node.item;
+            }
+            return a;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in FIFO order,
+     * the iterator does not reflect later modifications.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(toArray());
+    }
+
+    private void enqueue(E e) {
+        deque.addLast(new Node<>(e, System.nanoTime()));
+        notEmpty.signal();
+    }
+
+    /**
+     * Drop stale head elements when overloaded, then take the head, or the tail in adaptive LIFO mode.
+     */
+    private E dequeue() {
+        long now = System.nanoTime();
+        Node<E> head;
+        Predicate<? super E> filter = dropFilter;
+        while ((head = deque.peekFirst()) != null && shouldDrop(now, now - head.time) && filter.test(head.item)) {
+            deque.pollFirst();
+            if (dropped == null) {
+                dropped = new ArrayList<>();
+            }
+            dropped.add(head.item);
+            dropCount++;
+        }
+        if (dropped != null) {
+            notFull.signalAll();
+        }
+        if (head == null) {
+            // no standing queue
+            minDelay = 0;
+            return null;
+        }
+        Node<E> node = adaptiveLifo && overloaded ? deque.pollLast() : deque.pollFirst();
+        notFull.signal();
+        return node.item;
+    }
+
+    private List<E> takeDropped() {
+        List<E> drops = dropped;
+        dropped = null;
+        return drops;
+    }
+
+    private boolean shouldDrop(long now, long delay) {
+        if (now - intervalEnd >= 0) {
+            overloaded = minDelay > targetNanos;
+            lastMinDelay = minDelay;
+            minDelay = delay;
+            intervalEnd = now + intervalNanos;
+        } else if (delay < minDelay) {
+            minDelay = delay;
+        }
+        return overloaded && delay > 2 * targetNanos;
+    }
+
+    private void handleDropped(List<E> drops) {
+        if (drops == null) {
+            return;
+        }
+        Consumer<E> handler = dropHandler;
+        for (E e : drops) {
+            handler.accept(e);
+        }
+    }
+
+    private static void cancelIfFuture(Object e) {
+        if (e instanceof Future) {
+            ((Future<?>) e).cancel(false);
+        }
+    }
+
+    private static final class Node<E> {
+
+        private final E item;
+
+        private final long time;
+
+        Node(E item, long time) {
+            this.item = item;
+            this.time = time;
+        }
+    }
+
+    private class Itr implements Iterator<E> {
+
+        private final Object[] array;
+
+        private int cursor;
+
+        private int lastRet = -1;
+
+        Itr(Object[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < array.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= array.length) {
+                throw new NoSuchElementException();
+            }
+            lastRet = cursor;
+            return (E) array[cursor++];
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            CodelBlockingQueue.this.remove(array[lastRet]);
+            lastRet = -1;
+        }
+    }
+}
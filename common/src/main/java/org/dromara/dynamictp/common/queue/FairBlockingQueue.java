@@ -0,0 +1,656 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import lombok.Getter;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A bounded blocking queue shared by many tenants, each tenant has its own FIFO sub queue and
+ * dequeue follows deficit round robin, a tenant with weight w gets w elements per round.
+ *
+ * <p>Besides the total capacity, each tenant can be capped, so one noisy tenant can't fill the whole queue.
+ * Elements are mapped to tenants by the tenant resolver, null tenant means {@link #DEFAULT_TENANT}.
+ * Weights, caps and capacity can be changed at runtime.
+ *
+ * <p>Per tenant wait time is aggregated until {@link #refreshStats()}, which publishes it and
+ * removes idle tenants without explicit config.
+ *
+ * @param <E> the type of elements held in this queue
+ * @author agent
+ * @since 1.1.4
+ **/
+public class FairBlockingQueue<E> extends AbstractQueue<E> implements VariableCapacityQueue<E> {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final Map<String, Flow<E>> flows = new HashMap<>();
+
+    /**
+     * Tenants with queued elements in round robin order.
+     */
+    private final ArrayDeque<Flow<E>> activeFlows = new ArrayDeque<>();
+
+    private volatile int capacity;
+
+    private int count;
+
+    private Map<String, Integer> weights = Collections.emptyMap();
+
+    private Map<String, Integer> capacities = Collections.emptyMap();
+
+    /**
+     * Cap of tenants not configured in capacities, 0 means only the total capacity applies.
+     */
+    private int defaultTenantCapacity;
+
+    private volatile Function<? super E, String> tenantResolver = e -> DEFAULT_TENANT;
+
+    public FairBlockingQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public FairBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Set a new capacity for the queue. Increasing the capacity can
+     * cause any waiting {@link #put(Object)} invocations to succeed,
+     * queued elements beyond a decreased capacity are kept.
+     *
+     * @param capacity the new capacity for the queue
+     */
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            this.capacity = capacity;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setTenantResolver(Function<? super E, String> tenantResolver) {
+        this.tenantResolver = tenantResolver;
+    }
+
+    /**
+     * Set weights of tenants, tenants not configured have weight 1.
+     *
+     * @param weights weight by tenant, non-positive values are treated as 1
+     */
+    public void setWeights(Map<String, Integer> weights) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            this.weights = weights == null ? Collections.emptyMap() : new HashMap<>(weights);
+            flows.values().forEach(this::applyConfig);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Set caps of queued elements of tenants.
+     *
+     * @param capacities            cap by tenant
+     * @param defaultTenantCapacity cap of tenants not configured, 0 means no cap
+     */
+    public void setCapacities(Map<String, Integer> capacities, int defaultTenantCapacity) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            this.capacities = capacities == null ? Collections.emptyMap() : new HashMap<>(capacities);
+            this.defaultTenantCapacity = Math.max(0, defaultTenantCapacity);
+            flows.values().forEach(this::applyConfig);
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Snapshot of all known tenants.
+     *
+     * @return stats by tenant
+     */
+    public Map<String, TenantStats> tenantStats() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Map<String, TenantStats> stats = new HashMap<>(flows.size());
+            for (Flow<E> flow : flows.values()) {
+                stats.put(flow.tenant, new TenantStats(flow));
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publish wait time aggregated since last refresh, and forget idle tenants without explicit config.
+     */
+    public void refreshStats() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (Iterator<Flow<E>> it = flows.values().iterator(); it.hasNext();) {
+                Flow<E> flow = it.next();
+                if (flow.items.isEmpty() && flow.waitCount == 0 && flow.windowRejects == 0
+                        && !weights.containsKey(flow.tenant) && !capacities.containsKey(flow.tenant)) {
+                    it.remove();
+                    continue;
+                }
+                flow.publish();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        Flow<E> flow;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            flow = flowOf(e);
+            if (isFull(flow)) {
+                flow.reject();
+                return false;
+            }
+            enqueue(flow, e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            Flow<E> flow;
+            while (isFull(flow = flowOf(e))) {
+                notFull.await();
+            }
+            enqueue(flow, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            Flow<E> flow;
+            while (isFull(flow = flowOf(e))) {
+                if (nanos <= 0L) {
+                    flow.reject();
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(flow, e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            E e;
+            while ((e = dequeue()) == null) {
+                notEmpty.await();
+            }
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            E e;
+            while ((e = dequeue()) == null) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Flow<E> flow = activeFlows.peekFirst();
+            return flow == null ? null : flow.items.peekFirst().item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return Math.max(0, capacity - count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (Flow<E> flow : activeFlows) {
+                for (Iterator<Node<E>> it = flow.items.iterator(); it.hasNext();) {
+                    if (o.equals(it.next().item)) {
+                        it.remove();
+                        count--;
+                        if (flow.items.isEmpty()) {
+                            deactivate(flow);
+                        }
+                        signalNotFull();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (Flow<E> flow : activeFlows) {
+                for (Node<E> node : flow.items) {
+                    if (o.equals(node.item)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int n = 0;
+            E e;
+            while (n < maxElements && (e = dequeue()) != null) {
+                c.add(e);
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            List<Object> list = new ArrayList<>(count);
+            for (Flow<E> flow : activeFlows) {
+                for (Node<E> node : flow.items) {
+                    list.add(node.item);
+                }
+            }
+            return list.toArray();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements, tenant by tenant,
+     * the iterator does not reflect later modifications.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(toArray());
+    }
+
+    private Flow<E> flowOf(E e) {
+        String tenant = tenantResolver.apply(e);
+        if (tenant == null) {
+            tenant = DEFAULT_TENANT;
+        }
+        Flow<E> flow = flows.get(tenant);
+        if (flow == null) {
+            flow = new Flow<>(tenant);
+            applyConfig(flow);
+            flows.put(tenant, flow);
+        }
+        return flow;
+    }
+
+    private void applyConfig(Flow<E> flow) {
+        Integer weight = weights.get(flow.tenant);
+        flow.weight = weight == null || weight <= 0 ? 1 : weight;
+        Integer cap = capacities.get(flow.tenant);
+        flow.capacity = cap == null ? defaultTenantCapacity : Math.max(0, cap);
+    }
+
+    private boolean isFull(Flow<E> flow) {
+        return count >= capacity || (flow.capacity > 0 && flow.items.size() >= flow.capacity);
+    }
+
+    private void enqueue(Flow<E> flow, E e) {
+        flow.items.addLast(new Node<>(e, System.nanoTime()));
+        if (flow.items.size() == 1) {
+            flow.deficit = 0;
+            activeFlows.addLast(flow);
+        }
+        count++;
+        notEmpty.signal();
+    }
+
+    /**
+     * Deficit round robin with unit cost, the head tenant serves until its deficit runs out,
+     * then moves to the tail and gets its weight added on its next turn.
+     */
+    private E dequeue() {
+        Flow<E> flow = activeFlows.peekFirst();
+        if (flow == null) {
+            return null;
+        }
+        if (flow.deficit <= 0) {
+            flow.deficit += flow.weight;
+        }
+        Node<E> node = flow.items.pollFirst();
+        flow.deficit--;
+        flow.recordWait(System.nanoTime() - node.time);
+        count--;
+        if (flow.items.isEmpty()) {
+            deactivate(flow);
+        } else if (flow.deficit <= 0) {
+            activeFlows.pollFirst();
+            activeFlows.addLast(flow);
+        }
+        signalNotFull();
+        return node.item;
+    }
+
+    /**
+     * Wake all waiting producers, a single signal may wake one of a capped tenant that can't proceed,
+     * while a producer of another tenant keeps waiting.
+     */
+    private void signalNotFull() {
+        notFull.signalAll();
+    }
+
+    private void deactivate(Flow<E> flow) {
+        flow.deficit = 0;
+        activeFlows.remove(flow);
+    }
+
+    /**
+     * Snapshot of a tenant.
+     */
+    @Getter
+    public static class TenantStats {
+
+        private final String tenant;
+
+        private final int size;
+
+        private final int weight;
+
+        /**
+         * Cap of queued elements, 0 means no cap.
+         */
+        private final int capacity;
+
+        private final long rejectCount;
+
+        /**
+         * Average and max wait time in the last refresh window, unit (ms).
+         */
+        private final double waitAvg;
+
+        private final double waitMax;
+
+        TenantStats(Flow<?> flow) {
+            this.tenant = flow.tenant;
+            this.size = flow.items.size();
+            this.weight = flow.weight;
+            this.capacity = flow.capacity;
+            this.rejectCount = flow.rejectCount;
+            this.waitAvg = flow.waitAvg;
+            this.waitMax = flow.waitMax;
+        }
+    }
+
+    private static final class Flow<E> {
+
+        private final String tenant;
+
+        private final ArrayDeque<Node<E>> items = new ArrayDeque<>();
+
+        private int weight = 1;
+
+        private int capacity;
+
+        private int deficit;
+
+        private long rejectCount;
+
+        private long windowRejects;
+
+        private long waitSum;
+
+        private long waitCount;
+
+        private long waitMaxNanos;
+
+        private double waitAvg;
+
+        private double waitMax;
+
+        Flow(String tenant) {
+            this.tenant = tenant;
+        }
+
+        void reject() {
+            rejectCount++;
+            windowRejects++;
+        }
+
+        void recordWait(long nanos) {
+            waitSum += nanos;
+            waitCount++;
+            if (nanos > waitMaxNanos) {
+                waitMaxNanos = nanos;
+            }
+        }
+
+        void publish() {
+            waitAvg = waitCount == 0 ? 0 : waitSum / (double) waitCount / 1_000_000;
+            waitMax = waitMaxNanos / 1_000_000.0;
+            waitSum = 0;
+            waitCount = 0;
+            waitMaxNanos = 0;
+            windowRejects = 0;
+        }
+    }
+
+    private static final class Node<E> {
+
+        private final E item;
+
+        private final long time;
+
+        Node(E item, long time) {
+            this.item = item;
+            this.time = time;
+        }
+    }
+
+    private class Itr implements Iterator<E> {
+
+        private final Object[] array;
+
+        private int cursor;
+
+        private int lastRet = -1;
+
+        Itr(Object[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < array.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= array.length) {
+                throw new NoSuchElementException();
+            }
+            lastRet = cursor;
+            return (E) array[cursor++];
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            FairBlockingQueue.this.remove(array[lastRet]);
+            lastRet = -1;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Tracks free old generation memory by {@link MemoryPoolMXBean} thresholds and GC notifications
+ * instead of polling {@link Runtime#freeMemory()}. Free memory is the max minus the usage of the tenured
+ * heap pool right after each GC, as reported by the GC notification, so a collection of the old generation
+ * reflects live data rather than garbage waiting to be collected, while a young collection keeps the
+ * occupancy of the old generation it left untouched. The usage threshold, which includes garbage, is
+ * only an early warning between GCs, the next GC corrects it.
+ *
+ * <p>Registered listeners are notified on each change, {@link MemorySafeLinkedBlockingQueue} keeps its
+ * own accept / reject state from these callbacks, so checking it costs a volatile read.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Slf4j
+public final class MemoryGuard {
+
+    private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+    private static final Set<Listener> LISTENERS = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private static final MemoryPoolMXBean TENURED_POOL = findTenuredPool();
+
+    private static volatile long freeMemory;
+
+    private static volatile boolean eventDriven;
+
+    static {
+        refresh();
+        eventDriven = registerNotifications();
+    }
+
+    private MemoryGuard() { }
+
+    /**
+     * Callback of free memory changes.
+     */
+    public interface Listener {
+
+        /**
+         * Called with the latest free memory.
+         *
+         * @param freeMemory free memory in bytes
+         */
+        void onFreeMemory(long freeMemory);
+
+        /**
+         * Free memory below which the listener rejects, used to set the pool usage threshold.
+         *
+         * @return free memory in bytes
+         */
+        long rejectThreshold();
+    }
+
+    /**
+     * Free memory of the tenured heap pool as of the last GC or threshold notification.
+     *
+     * @return free memory in bytes
+     */
+    public static long freeMemory() {
+        return freeMemory;
+    }
+
+    /**
+     * Whether free memory is updated by notifications, false if the JVM provides none,
+     * then listeners should call {@link #refresh()} themselves while rejecting.
+     *
+     * @return true if event driven
+     */
+    public static boolean isEventDriven() {
+        return eventDriven;
+    }
+
+    public static void register(Listener listener) {
+        synchronized (LISTENERS) {
+            LISTENERS.add(listener);
+        }
+        updateThreshold();
+        listener.onFreeMemory(freeMemory);
+    }
+
+    /**
+     * Recalculate the usage threshold after a listener changed its reject threshold.
+     */
+    public static void updateThreshold() {
+        if (Objects.isNull(TENURED_POOL) || !TENURED_POOL.isUsageThresholdSupported()) {
+            return;
+        }
+        long max = maxOf(TENURED_POOL);
+        long rejectAbove = Math.max(1, max - largestRejectThreshold());
+        try {
+            TENURED_POOL.setUsageThreshold(rejectAbove);
+            if (TENURED_POOL.isCollectionUsageThresholdSupported()) {
+                TENURED_POOL.setCollectionUsageThreshold(rejectAbove);
+            }
+        } catch (Exception e) {
+            log.warn("DynamicTp memory guard, set usage threshold of {} failed", TENURED_POOL.getName(), e);
+        }
+    }
+
+    /**
+     * Read the current usage, including garbage not yet collected, and notify listeners.
+     * Used as an early warning between GCs and when no GC notification is available.
+     */
+    public static void refresh() {
+        if (Objects.nonNull(TENURED_POOL)) {
+            update(maxOf(TENURED_POOL) - TENURED_POOL.getUsage().getUsed());
+        } else {
+            Runtime runtime = Runtime.getRuntime();
+            update(runtime.maxMemory() - runtime.totalMemory() + runtime.freeMemory());
+        }
+    }
+
+    /**
+     * Update free memory from the usage of the tenured pool right after a GC and notify listeners.
+     * A young collection reports the old generation as it left it, garbage included, so free memory only
+     * grows with collections of the old generation. The collection usage of the pool is not used here,
+     * it only changes with collections of the old generation.
+     *
+     * @param usageAfterGc usage of memory pools after the GC keyed by pool name, as reported by
+     *                     {@link GcInfo#getMemoryUsageAfterGc()}
+     */
+    public static void refreshAfterGc(Map<String, MemoryUsage> usageAfterGc) {
+        MemoryUsage usage = Objects.nonNull(TENURED_POOL) ? usageAfterGc.get(TENURED_POOL.getName()) : null;
+        if (Objects.isNull(usage)) {
+            refresh();
+            return;
+        }
+        update(maxOf(TENURED_POOL) - usage.getUsed());
+    }
+
+    private static void refreshAfterGc(Notification notification) {
+        if (!(notification.getUserData() instanceof CompositeData)) {
+            refresh();
+            return;
+        }
+        CompositeData data = (CompositeData) notification.getUserData();
+        GcInfo gcInfo = GarbageCollectionNotificationInfo.from(data).getGcInfo();
+        refreshAfterGc(gcInfo.getMemoryUsageAfterGc());
+    }
+
+    /**
+     * Read the usage right after the last collection of the tenured pool and notify listeners.
+     */
+    private static void refreshAfterCollection() {
+        MemoryUsage collectionUsage = Objects.nonNull(TENURED_POOL) ? TENURED_POOL.getCollectionUsage() : null;
+        if (Objects.isNull(collectionUsage)) {
+            refresh();
+            return;
+        }
+        update(maxOf(TENURED_POOL) - collectionUsage.getUsed());
+    }
+
+    private static void update(long free) {
+        freeMemory = Math.max(0, free);
+        for (Listener listener : listeners()) {
+            listener.onFreeMemory(freeMemory);
+        }
+    }
+
+    private static List<Listener> listeners() {
+        synchronized (LISTENERS) {
+            return new ArrayList<>(LISTENERS);
+        }
+    }
+
+    private static long largestRejectThreshold() {
+        long largest = 0;
+        for (Listener listener : listeners()) {
+            largest = Math.max(largest, listener.rejectThreshold());
+        }
+        return largest;
+    }
+
+    private static long maxOf(MemoryPoolMXBean pool) {
+        long max = pool.getUsage().getMax();
+        return max > 0 ? max : Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * The heap pool supporting usage threshold with the largest max, that is the old generation
+     * of generational collectors, or the whole heap of single generation ones.
+     */
+    private static MemoryPoolMXBean findTenuredPool() {
+        MemoryPoolMXBean tenured = null;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid() || !pool.isUsageThresholdSupported()) {
+                continue;
+            }
+            if (tenured == null || maxOf(pool) > maxOf(tenured)) {
+                tenured = pool;
+            }
+        }
+        return tenured;
+    }
+
+    private static boolean registerNotifications() {
+        NotificationListener gcListener = (Notification notification, Object handback) -> refreshAfterGc(notification);
+        boolean registered = false;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(gcListener,
+                        n -> GC_NOTIFICATION.equals(n.getType()), null);
+                registered = true;
+            }
+        }
+        if (ManagementFactory.getMemoryMXBean() instanceof NotificationEmitter) {
+            NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+            emitter.addNotificationListener((Notification notification, Object handback) -> refreshAfterCollection(),
+                    n -> MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(n.getType()), null);
+            emitter.addNotificationListener((Notification notification, Object handback) -> refresh(),
+                    n -> MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(n.getType()), null);
+        }
+        if (!registered) {
+            log.warn("DynamicTp memory guard, no GC notification available, free memory is refreshed on rejection.");
+        }
+        return registered;
+    }
+}
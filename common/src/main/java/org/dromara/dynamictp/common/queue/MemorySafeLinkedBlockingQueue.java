@@ -35,6 +35,7 @@
 package org.dromara.dynamictp.common.queue;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -43,13 +44,22 @@ import java.util.concurrent.TimeUnit;
  *
  * @see <a href="https://github.com/apache/incubator-shenyu/blob/master/shenyu-common/src/main/java/org/apache/shenyu/common/concurrent/MemorySafeLinkedBlockingQueue.java">MemorySafeLinkedBlockingQueue</a>
  */
-public class MemorySafeLinkedBlockingQueue<E> extends VariableLinkedBlockingQueue<E> {
+public class MemorySafeLinkedBlockingQueue<E> extends VariableLinkedBlockingQueue<E> implements MemoryGuard.Listener {
 
     private static final long serialVersionUID = 8032578371739960142L;
 
     public static final int THE_16_MB = 16 * 1024 * 1024;
 
-    private int maxFreeMemory;
+    /**
+     * Rejecting queue accepts again once free memory recovers to this ratio of maxFreeMemory.
+     */
+    public static final double RECOVER_RATIO = 1.25;
+
+    private volatile int maxFreeMemory;
+
+    private transient volatile boolean memoryExhausted;
+
+    private transient volatile long tripCount;
 
     public MemorySafeLinkedBlockingQueue() {
         this(THE_16_MB);
@@ -58,16 +68,19 @@ public class MemorySafeLinkedBlockingQueue<E> extends VariableLinkedBlockingQueu
     public MemorySafeLinkedBlockingQueue(final int maxFreeMemory) {
         super(Integer.MAX_VALUE);
         this.maxFreeMemory = maxFreeMemory;
+        MemoryGuard.register(this);
     }
 
     public MemorySafeLinkedBlockingQueue(final int capacity, final int maxFreeMemory) {
         super(capacity);
         this.maxFreeMemory = maxFreeMemory;
+        MemoryGuard.register(this);
     }
 
     public MemorySafeLinkedBlockingQueue(final Collection<? extends E> c, final int maxFreeMemory) {
         super(c);
         this.maxFreeMemory = maxFreeMemory;
+        MemoryGuard.register(this);
     }
 
     /**
@@ -77,6 +90,8 @@ public class MemorySafeLinkedBlockingQueue<E> extends VariableLinkedBlockingQueu
      */
     public void setMaxFreeMemory(final int maxFreeMemory) {
         this.maxFreeMemory = maxFreeMemory;
+        MemoryGuard.updateThreshold();
+        onFreeMemory(MemoryGuard.freeMemory());
     }
 
     /**
@@ -88,15 +103,60 @@ public class MemorySafeLinkedBlockingQueue<E> extends VariableLinkedBlockingQueu
         return maxFreeMemory;
     }
 
+    /**
+     * Whether the queue is rejecting because free memory fell below maxFreeMemory.
+     *
+     * @return true if rejecting
+     */
+    public boolean isMemoryExhausted() {
+        return memoryExhausted;
+    }
+
+    /**
+     * Number of times the queue switched from accepting to rejecting.
+     *
+     * @return trip count
+     */
+    public long getTripCount() {
+        return tripCount;
+    }
+
+    /**
+     * Switch to rejecting when free memory falls below maxFreeMemory, and back to accepting
+     * only when it recovers to {@link #RECOVER_RATIO} of maxFreeMemory.
+     *
+     * @param freeMemory free memory in bytes
+     */
+    @Override
+    public synchronized void onFreeMemory(final long freeMemory) {
+        if (!memoryExhausted && freeMemory < maxFreeMemory) {
+            memoryExhausted = true;
+            tripCount++;
+        } else if (memoryExhausted && freeMemory >= maxFreeMemory * RECOVER_RATIO) {
+            memoryExhausted = false;
+        }
+    }
+
+    @Override
+    public long rejectThreshold() {
+        return maxFreeMemory;
+    }
+
     /**
      * determine if there is any remaining free memory.
      *
      * @return true if has free memory
      */
     public boolean hasRemainedMemory() {
-        if (MemoryLimitCalculator.maxAvailable() > maxFreeMemory) {
+        if (!memoryExhausted) {
             return true;
         }
+        if (!MemoryGuard.isEventDriven()) {
+            MemoryGuard.refresh();
+            if (!memoryExhausted) {
+                return true;
+            }
+        }
         throw new RejectedExecutionException("No more memory can be used.");
     }
 
@@ -116,4 +176,9 @@ public class MemorySafeLinkedBlockingQueue<E> extends VariableLinkedBlockingQueu
     public boolean offer(final E e) {
         return hasRemainedMemory() && super.offer(e);
     }
+
+    @Override
+    public int offerAll(final List<? extends E> c) {
+        return hasRemainedMemory() ? super.offerAll(c) : 0;
+    }
 }
@@ -0,0 +1,617 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded lock-free multi-producer multi-consumer blocking queue, elements are kept in ring buffers of
+ * sequenced slots (Dmitry Vyukov's bounded MPMC queue), so offer and poll are a CAS on the tail or head
+ * position plus a slot write, without any lock and node allocation.
+ *
+ * <p>Capacity can be changed while in use like {@link VariableLinkedBlockingQueue}. The ring starts small
+ * and when it is full but the queue is still below capacity, it is closed and a ring of twice the size is linked after
+ * it, producers move to the new ring while consumers drain the old one first, so FIFO order is kept.
+ * Positions are global across rings, so the size is always tail minus head, less the slots removed
+ * by {@link #remove(Object)} and not yet skipped by consumers.
+ *
+ * <p>The lock is only used to park consumers on an empty queue and producers on a full one,
+ * the other side only touches it when someone is parked.
+ *
+ * @param <E> the type of elements held in this queue
+ * @author agent
+ * @since 1.1.4
+ **/
+public class MpmcArrayBlockingQueue<E> extends AbstractQueue<E> implements VariableCapacityQueue<E> {
+
+    private static final int INITIAL_RING_SIZE = 1024;
+
+    private static final int MAX_RING_SIZE = 1 << 30;
+
+    /**
+     * Set on the enqueue position of a ring once it is replaced by a larger one.
+     */
+    private static final long CLOSED = 1L << 62;
+
+    /**
+     * Left in a slot by {@link #remove(Object)}, skipped by consumers.
+     */
+    private static final Object REMOVED = new Object();
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<MpmcArrayBlockingQueue, Ring> HEAD_RING =
+            AtomicReferenceFieldUpdater.newUpdater(MpmcArrayBlockingQueue.class, Ring.class, "headRing");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<MpmcArrayBlockingQueue, Ring> TAIL_RING =
+            AtomicReferenceFieldUpdater.newUpdater(MpmcArrayBlockingQueue.class, Ring.class, "tailRing");
+
+    private volatile int capacity;
+
+    /**
+     * Number of slots marked by {@link #remove(Object)} that consumers have not skipped yet.
+     */
+    private final AtomicLong removed = new AtomicLong();
+
+    private volatile Ring headRing;
+
+    private volatile Ring tailRing;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * Number of parked consumers and producers, only changed under lock.
+     */
+    private volatile int takeWaiters;
+
+    private volatile int putWaiters;
+
+    public MpmcArrayBlockingQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public MpmcArrayBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        Ring ring = new Ring(Math.min(ringSizeFor(capacity), INITIAL_RING_SIZE), 0);
+        this.headRing = ring;
+        this.tailRing = ring;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Set a new capacity for the queue. Increasing the capacity can
+     * cause any waiting {@link #put(Object)} invocations to succeed.
+     *
+     * @param capacity the new capacity for the queue
+     */
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        if (putWaiters > 0) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!tryOffer(e)) {
+            return false;
+        }
+        signalNotEmpty();
+        return true;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (tryOffer(e)) {
+            signalNotEmpty();
+            return;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            putWaiters++;
+            try {
+                while (!tryOffer(e)) {
+                    awaitSignal(notFull, -1);
+                }
+            } finally {
+                putWaiters--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        signalNotEmpty();
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (tryOffer(e)) {
+            signalNotEmpty();
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            putWaiters++;
+            try {
+                while (!tryOffer(e)) {
+                    if (nanos <= 0L) {
+                        return false;
+                    }
+                    nanos = awaitSignal(notFull, nanos);
+                }
+            } finally {
+                putWaiters--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        signalNotEmpty();
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        E e = tryPoll();
+        if (e != null) {
+            signalNotFull();
+        }
+        return e;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e = tryPoll();
+        if (e == null) {
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                takeWaiters++;
+                try {
+                    while ((e = tryPoll()) == null) {
+                        awaitSignal(notEmpty, -1);
+                    }
+                } finally {
+                    takeWaiters--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        signalNotFull();
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = tryPoll();
+        if (e == null) {
+            long nanos = unit.toNanos(timeout);
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                takeWaiters++;
+                try {
+                    while ((e = tryPoll()) == null) {
+                        if (nanos <= 0L) {
+                            return null;
+                        }
+                        nanos = awaitSignal(notEmpty, nanos);
+                    }
+                } finally {
+                    takeWaiters--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        signalNotFull();
+        return e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        for (Ring r = headRing; r != null; r = r.next) {
+            long tail = r.enqueuePos.get() & ~CLOSED;
+            for (long pos = r.dequeuePos.get(); pos < tail; pos++) {
+                Object e = r.elementAt(pos);
+                if (e != null) {
+                    return (E) e;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        long head = headRing.dequeuePos.get();
+        long size = tailPosition() - head - removed.get();
+        return (int) Math.max(0, Math.min(size, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+
+    /**
+     * Removes a single instance of the specified element, the slot is marked and skipped by consumers.
+     *
+     * @param o element to be removed from this queue, if present
+     * @return true if this queue changed as a result of the call
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        for (Ring r = headRing; r != null; r = r.next) {
+            long tail = r.enqueuePos.get() & ~CLOSED;
+            for (long pos = r.dequeuePos.get(); pos < tail; pos++) {
+                Object e = r.elementAt(pos);
+                if (o.equals(e) && r.elements.compareAndSet(r.index(pos), e, REMOVED)) {
+                    removed.incrementAndGet();
+                    signalNotFull();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        for (Ring r = headRing; r != null; r = r.next) {
+            long tail = r.enqueuePos.get() & ~CLOSED;
+            for (long pos = r.dequeuePos.get(); pos < tail; pos++) {
+                if (o.equals(r.elementAt(pos))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = tryPoll()) != null) {
+            c.add(e);
+            n++;
+        }
+        if (n > 0) {
+            signalNotFull();
+        }
+        return n;
+    }
+
+    /**
+     * Returns a weakly consistent iterator over a snapshot of the queued elements,
+     * {@link Iterator#remove()} is supported.
+     *
+     * @return an iterator over the elements in this queue in proper sequence
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(snapshot());
+    }
+
+    @Override
+    public Object[] toArray() {
+        return snapshot().toArray();
+    }
+
+    @Override
+    @SuppressWarnings("SuspiciousToArrayCall")
+    public <T> T[] toArray(T[] a) {
+        return snapshot().toArray(a);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<E> snapshot() {
+        List<E> list = new ArrayList<>();
+        for (Ring r = headRing; r != null; r = r.next) {
+            long tail = r.enqueuePos.get() & ~CLOSED;
+            for (long pos = r.dequeuePos.get(); pos < tail; pos++) {
+                Object e = r.elementAt(pos);
+                if (e != null) {
+                    list.add((E) e);
+                }
+            }
+        }
+        return list;
+    }
+
+    private boolean tryOffer(E e) {
+        for (;;) {
+            Ring r = tailRing;
+            long pos = r.enqueuePos.get();
+            if ((pos & CLOSED) != 0) {
+                advanceTail(r);
+                continue;
+            }
+            if (pos - headRing.dequeuePos.get() - removed.get() >= capacity) {
+                return false;
+            }
+            int index = r.index(pos);
+            long diff = r.sequences.get(index) - pos;
+            if (diff == 0) {
+                if (r.enqueuePos.compareAndSet(pos, pos + 1)) {
+                    r.elements.lazySet(index, e);
+                    r.sequences.set(index, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0 && pos - r.dequeuePos.get() >= r.length) {
+                // ring is full but the queue is not, replace it with a larger one
+                grow(r, pos);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E tryPoll() {
+        for (;;) {
+            Ring r = headRing;
+            long pos = r.dequeuePos.get();
+            int index = r.index(pos);
+            long diff = r.sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (r.dequeuePos.compareAndSet(pos, pos + 1)) {
+                    Object e = r.elements.getAndSet(index, null);
+                    r.sequences.set(index, pos + r.length);
+                    if (e != REMOVED) {
+                        return (E) e;
+                    }
+                    removed.decrementAndGet();
+                }
+            } else if (diff < 0) {
+                long tail = r.enqueuePos.get();
+                if ((tail & CLOSED) == 0 || pos != (tail & ~CLOSED)) {
+                    // empty, or the producer of this slot is still writing and will signal
+                    return null;
+                }
+                Ring next = r.next;
+                if (next == null) {
+                    return null;
+                }
+                HEAD_RING.compareAndSet(this, r, next);
+            }
+        }
+    }
+
+    private void grow(Ring r, long pos) {
+        if (!r.enqueuePos.compareAndSet(pos, pos | CLOSED)) {
+            return;
+        }
+        // double the ring, so a large capacity is only allocated as the queue actually fills up
+        int size = (int) Math.min(Math.min((long) r.length << 1, ringSizeFor(capacity)), MAX_RING_SIZE);
+        Ring next = new Ring(Math.max(size, r.length), pos);
+        r.next = next;
+        TAIL_RING.compareAndSet(this, r, next);
+    }
+
+    private void advanceTail(Ring r) {
+        Ring next = r.next;
+        if (next == null) {
+            // the closing producer is publishing the next ring
+            Thread.yield();
+        } else {
+            TAIL_RING.compareAndSet(this, r, next);
+        }
+    }
+
+    private long tailPosition() {
+        Ring r = tailRing;
+        for (;;) {
+            long pos = r.enqueuePos.get();
+            Ring next = r.next;
+            if ((pos & CLOSED) == 0 || next == null) {
+                return pos & ~CLOSED;
+            }
+            r = next;
+        }
+    }
+
+    private long awaitSignal(Condition condition, long nanos) throws InterruptedException {
+        try {
+            if (nanos < 0) {
+                condition.await();
+                return -1;
+            }
+            return condition.awaitNanos(nanos);
+        } catch (InterruptedException ie) {
+            // pass a possibly consumed signal on
+            condition.signal();
+            throw ie;
+        }
+    }
+
+    private void signalNotEmpty() {
+        if (takeWaiters > 0) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void signalNotFull() {
+        if (putWaiters > 0) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static int ringSizeFor(int capacity) {
+        if (capacity >= MAX_RING_SIZE) {
+            return MAX_RING_SIZE;
+        }
+        return Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+    }
+
+    private static final class Ring {
+
+        final int length;
+
+        final int mask;
+
+        final AtomicLongArray sequences;
+
+        final AtomicReferenceArray<Object> elements;
+
+        final AtomicLong enqueuePos;
+
+        final AtomicLong dequeuePos;
+
+        volatile Ring next;
+
+        Ring(int length, long start) {
+            this.length = length;
+            this.mask = length - 1;
+            this.sequences = new AtomicLongArray(length);
+            this.elements = new AtomicReferenceArray<>(length);
+            for (long pos = start; pos < start + length; pos++) {
+                sequences.set(index(pos), pos);
+            }
+            this.enqueuePos = new AtomicLong(start);
+            this.dequeuePos = new AtomicLong(start);
+        }
+
+        int index(long pos) {
+            return (int) pos & mask;
+        }
+
+        /**
+         * Element published at the position, or null if it is not published yet, taken or removed.
+         */
+        Object elementAt(long pos) {
+            int index = index(pos);
+            if (sequences.get(index) != pos + 1) {
+                return null;
+            }
+            Object e = elements.get(index);
+            if (e == REMOVED || sequences.get(index) != pos + 1) {
+                return null;
+            }
+            return e;
+        }
+    }
+
+    private class Itr implements Iterator<E> {
+
+        private final List<E> elements;
+
+        private int cursor;
+
+        private E lastRet;
+
+        Itr(List<E> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < elements.size();
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastRet = elements.get(cursor++);
+            return lastRet;
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet == null) {
+                throw new IllegalStateException();
+            }
+            MpmcArrayBlockingQueue.this.remove(lastRet);
+            lastRet = null;
+        }
+    }
+}
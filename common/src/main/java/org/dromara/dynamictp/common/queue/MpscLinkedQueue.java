@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * An unbounded lock-free multi-producer single-consumer linked queue, offer costs one atomic
+ * exchange and poll no atomic operation at all.
+ *
+ * <p>Only one thread may consume (poll, peek, isEmpty, remove) at a time, when the consumer role moves
+ * between threads, the handoff must establish a happens-before edge, e.g. by a CAS on a running flag.
+ * The iterator is weakly consistent and may be used from any thread, it does not support removal.
+ * {@link #size()} walks the queue, callers should keep their own count.
+ *
+ * @param <E> the type of elements held in this queue
+ * @author agent
+ * @since 1.1.4
+ **/
+public class MpscLinkedQueue<E> extends AbstractQueue<E> {
+
+    private final AtomicReference<Node<E>> tail;
+
+    /**
+     * Stub node, only accessed by the consumer.
+     */
+    private Node<E> head;
+
+    public MpscLinkedQueue() {
+        Node<E> stub = new Node<>(null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        Node<E> node = new Node<>(e);
+        Node<E> prev = tail.getAndSet(node);
+        // between exchange and link the consumer sees a gap, and waits for the link
+        Node.NEXT.lazySet(prev, node);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        Node<E> next = first();
+        if (next == null) {
+            return null;
+        }
+        E item = next.item;
+        next.item = null;
+        head = next;
+        return item;
+    }
+
+    @Override
+    public E peek() {
+        Node<E> next = first();
+        return next == null ? null : next.item;
+    }
+
+    /**
+     * Whether the queue is empty, an element whose producer has not finished linking counts as present.
+     *
+     * @return true if no element is queued
+     */
+    @Override
+    public boolean isEmpty() {
+        Node<E> h = head;
+        Node<E> next;
+        while ((next = h.next) != null && next.item == null) {
+            h = next;
+        }
+        head = h;
+        return h == tail.get();
+    }
+
+    /**
+     * Remove the first occurrence of the element, only by the consumer. The node stays linked with
+     * its element cleared, as a producer may be linking to it, and is skipped by poll.
+     *
+     * @param o element to be removed
+     * @return true if the element was queued
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        for (Node<E> p = head.next; p != null; p = p.next) {
+            if (o.equals(p.item)) {
+                p.item = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Node<E> p = head.next; p != null && size < Integer.MAX_VALUE; p = p.next) {
+            if (p.item != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Weakly consistent iterator, walks from the head as of its creation, elements polled meanwhile are skipped.
+     *
+     * @return iterator over the queued elements
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(head.next);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size = " + size() + "]";
+    }
+
+    /**
+     * The first node holding an element, skips the nodes of removed elements.
+     */
+    private Node<E> first() {
+        for (;;) {
+            Node<E> next = nextOfHead();
+            if (next == null || next.item != null) {
+                return next;
+            }
+            head = next;
+        }
+    }
+
+    private Node<E> nextOfHead() {
+        Node<E> h = head;
+        Node<E> next = h.next;
+        if (next == null && h != tail.get()) {
+            // a producer swapped the tail but not yet linked its node
+            while ((next = h.next) == null) {
+                Thread.yield();
+            }
+        }
+        return next;
+    }
+
+    private final class Itr implements Iterator<E> {
+
+        private Node<E> node;
+
+        private E nextItem;
+
+        Itr(Node<E> first) {
+            advance(first);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextItem != null;
+        }
+
+        @Override
+        public E next() {
+            E item = nextItem;
+            if (item == null) {
+                throw new NoSuchElementException();
+            }
+            advance(node.next);
+            return item;
+        }
+
+        /**
+         * Move to the first node from p whose element is not polled yet.
+         */
+        private void advance(Node<E> p) {
+            while (p != null) {
+                E item = p.item;
+                if (item != null) {
+                    node = p;
+                    nextItem = item;
+                    return;
+                }
+                p = p.next;
+            }
+            nextItem = null;
+        }
+    }
+
+    private static final class Node<E> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+        private E item;
+
+        private volatile Node<E> next;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
+}
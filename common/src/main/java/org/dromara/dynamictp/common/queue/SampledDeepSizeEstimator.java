@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import org.dromara.dynamictp.common.timer.Timeout;
+import org.dromara.dynamictp.common.timer.Timer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Default {@link TaskSizeEstimator}, walks the object graph reachable from the task and sums approximate
+ * shallow sizes, assuming 64-bit JVM with compressed oops. Field layouts are cached per class.
+ *
+ * <p>To keep the cost bounded, elements of large arrays and collections are sampled and the result is
+ * extrapolated, and the walk stops after a fixed number of objects. Shared infrastructure such as classes,
+ * threads, executors, timers, enums and Spring components is not counted. The enclosing instance captured
+ * by a lambda or an inner class is not followed either, as it is the owner of the task rather than its
+ * payload. Fields of JDK classes that can't be accessed reflectively are counted by their shallow size
+ * only, except strings, collections and maps. So on JDK 9+ a {@link java.util.concurrent.FutureTask} is
+ * counted without its callable, unless a subclass keeps the submitted task in a field of its own,
+ * as futures created by DtpExecutor do.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class SampledDeepSizeEstimator implements TaskSizeEstimator {
+
+    private static final int OBJECT_HEADER = 12;
+
+    private static final int ARRAY_HEADER = 16;
+
+    private static final int REFERENCE = 4;
+
+    private static final int ALIGNMENT = 8;
+
+    /**
+     * Arrays and collections larger than this are sampled.
+     */
+    private static final int SAMPLE_THRESHOLD = 400;
+
+    private static final int SAMPLE_SIZE = 100;
+
+    private static final int MAX_OBJECTS = 2_000;
+
+    private final Map<Class<?>, ClassInfo> classInfos = new ConcurrentHashMap<>();
+
+    @Override
+    public long estimate(Object task) {
+        if (task == null) {
+            return 0;
+        }
+        return new Walk().sizeOf(task);
+    }
+
+    private class Walk {
+
+        private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private int objects;
+
+        long sizeOf(Object root) {
+            long size = 0;
+            Deque<Object> stack = new ArrayDeque<>();
+            if (!isShared(root)) {
+                // the task itself is counted even if it is a component
+                visited.add(root);
+                stack.push(root);
+            }
+            while (!stack.isEmpty() && objects < MAX_OBJECTS) {
+                size += safeVisit(stack.pop(), stack);
+            }
+            return size;
+        }
+
+        private void push(Deque<Object> stack, Object obj) {
+            if (obj != null && !isShared(obj) && !isComponent(obj) && visited.add(obj)) {
+                stack.push(obj);
+            }
+        }
+
+        private long safeVisit(Object obj, Deque<Object> stack) {
+            try {
+                return visit(obj, stack);
+            } catch (RuntimeException e) {
+                // e.g. a collection modified concurrently, skip it
+                return 0;
+            }
+        }
+
+        private long visit(Object obj, Deque<Object> stack) {
+            objects++;
+            Class<?> clazz = obj.getClass();
+            if (clazz.isArray()) {
+                return visitArray(obj, clazz.getComponentType(), stack);
+            }
+            if (obj instanceof String) {
+                return align(OBJECT_HEADER + 12L) + align(ARRAY_HEADER + (long) ((String) obj).length());
+            }
+            ClassInfo info = classInfos.computeIfAbsent(clazz, ClassInfo::new);
+            long size = info.shallowSize;
+            for (Field field : info.referenceFields) {
+                try {
+                    push(stack, field.get(obj));
+                } catch (IllegalAccessException ignored) {
+                    // counted by shallow size only
+                }
+            }
+            if (!info.accessible) {
+                if (obj instanceof Collection) {
+                    size += visitElements((Collection<?>) obj, stack);
+                } else if (obj instanceof Map) {
+                    Map<?, ?> map = (Map<?, ?>) obj;
+                    // table slot and entry node of hash based maps
+                    size += (long) map.size() * (REFERENCE + align(OBJECT_HEADER + 4L + 3 * REFERENCE));
+                    size += visitElements(map.keySet(), stack);
+                    size += visitElements(map.values(), stack);
+                }
+            }
+            return size;
+        }
+
+        private long visitArray(Object array, Class<?> componentType, Deque<Object> stack) {
+            int length = Array.getLength(array);
+            if (componentType.isPrimitive()) {
+                return align(ARRAY_HEADER + (long) length * primitiveSize(componentType));
+            }
+            long size = align(ARRAY_HEADER + (long) length * REFERENCE);
+            if (length <= SAMPLE_THRESHOLD) {
+                for (int i = 0; i < length; i++) {
+                    push(stack, Array.get(array, i));
+                }
+                return size;
+            }
+            List<Object> samples = new ArrayList<>(SAMPLE_SIZE);
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                samples.add(Array.get(array, (int) ((long) i * length / SAMPLE_SIZE)));
+            }
+            return size + sampled(samples, length);
+        }
+
+        /**
+         * Size of the elements reachable from a collection whose own fields are not accessible.
+         */
+        private long visitElements(Collection<?> elements, Deque<Object> stack) {
+            int count = elements.size();
+            long size = (long) count * REFERENCE;
+            if (count <= SAMPLE_THRESHOLD) {
+                for (Object e : elements) {
+                    push(stack, e);
+                }
+                return size;
+            }
+            List<Object> samples = new ArrayList<>(SAMPLE_SIZE);
+            int step = count / SAMPLE_SIZE;
+            Iterator<?> it = elements.iterator();
+            for (int i = 0; it.hasNext() && samples.size() < SAMPLE_SIZE; i++) {
+                Object e = it.next();
+                if (i % step == 0) {
+                    samples.add(e);
+                }
+            }
+            return size + sampled(samples, count);
+        }
+
+        /**
+         * Walk the sampled elements with the shared visited set and extrapolate to all elements.
+         */
+        private long sampled(List<Object> samples, int total) {
+            long sampledSize = 0;
+            for (Object sample : samples) {
+                if (objects >= MAX_OBJECTS) {
+                    break;
+                }
+                if (sample != null && !isShared(sample) && !isComponent(sample) && visited.add(sample)) {
+                    Deque<Object> stack = new ArrayDeque<>();
+                    stack.push(sample);
+                    while (!stack.isEmpty() && objects < MAX_OBJECTS) {
+                        sampledSize += safeVisit(stack.pop(), stack);
+                    }
+                }
+            }
+            return sampledSize * total / samples.size();
+        }
+    }
+
+    private static boolean isShared(Object obj) {
+        return obj instanceof Class
+                || obj instanceof ClassLoader
+                || obj instanceof Thread
+                || obj instanceof ThreadGroup
+                || obj instanceof Executor
+                || obj instanceof Timer
+                || obj instanceof Timeout
+                || obj instanceof Enum;
+    }
+
+    private boolean isComponent(Object obj) {
+        Class<?> clazz = obj.getClass();
+        if (clazz.isArray() || obj instanceof String) {
+            return false;
+        }
+        return classInfos.computeIfAbsent(clazz, ClassInfo::new).component;
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static final class ClassInfo {
+
+        private final long shallowSize;
+
+        private final List<Field> referenceFields = new ArrayList<>();
+
+        /**
+         * False if any instance field can't be read, then the object is counted by its shallow size.
+         */
+        private boolean accessible = true;
+
+        /**
+         * True for Spring components, which are shared by all tasks.
+         */
+        private final boolean component;
+
+        ClassInfo(Class<?> clazz) {
+            this.component = isSpringComponent(clazz);
+            String lambdaHost = lambdaHost(clazz);
+            long fieldsSize = 0;
+            for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Class<?> type = field.getType();
+                    if (type.isPrimitive()) {
+                        fieldsSize += primitiveSize(type);
+                        continue;
+                    }
+                    fieldsSize += REFERENCE;
+                    if (isCapturedOwner(clazz, field, lambdaHost)) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        referenceFields.add(field);
+                    } catch (RuntimeException e) {
+                        // inaccessible module member
+                        accessible = false;
+                    }
+                }
+            }
+            this.shallowSize = align(OBJECT_HEADER + fieldsSize);
+        }
+
+        private static boolean isSpringComponent(Class<?> clazz) {
+            if (clazz.isArray() || clazz.isPrimitive() || clazz.getName().startsWith("java.")) {
+                return false;
+            }
+            try {
+                return AnnotatedElementUtils.hasAnnotation(clazz, Component.class);
+            } catch (RuntimeException | LinkageError e) {
+                return false;
+            }
+        }
+
+        /**
+         * Name of the class that declares the lambda, or null if the class isn't a lambda.
+         */
+        private static String lambdaHost(Class<?> clazz) {
+            String name = clazz.getName();
+            int idx = name.indexOf("$$Lambda");
+            return idx > 0 ? name.substring(0, idx) : null;
+        }
+
+        /**
+         * Whether the field holds the enclosing instance captured by a lambda or an inner class.
+         * JDK inner classes such as map views are skipped, their outer instance is the payload.
+         */
+        private static boolean isCapturedOwner(Class<?> clazz, Field field, String lambdaHost) {
+            if (lambdaHost != null) {
+                return field.getType().getName().equals(lambdaHost);
+            }
+            return field.isSynthetic() && field.getName().startsWith("this$")
+                    && !clazz.getName().startsWith("java.");
+        }
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded blocking queue split into shards, each guarded by its own lock, so consumers don't serialize
+ * on one take lock. Each consumer thread is given a home shard on its first poll and drains it first,
+ * then steals from the other shards when it's empty. A producer which is itself a consumer of this queue
+ * offers to its home shard, other producers pick the shorter of two random shards.
+ *
+ * <p>Capacity applies to all shards together and can be changed while in use like
+ * {@link VariableLinkedBlockingQueue}. Elements are FIFO within a shard only.
+ *
+ * <p>The global lock is only used to park consumers on an empty queue and producers on a full one,
+ * the other side only touches it when someone is parked.
+ *
+ * @param <E> the type of elements held in this queue
+ * @author agent
+ * @since 1.1.4
+ **/
+public class ShardedBlockingQueue<E> extends AbstractQueue<E> implements VariableCapacityQueue<E> {
+
+    private final Shard<E>[] shards;
+
+    private final ThreadLocal<Integer> homeShard = new ThreadLocal<>();
+
+    private final AtomicInteger nextHome = new AtomicInteger();
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final LongAdder stealCount = new LongAdder();
+
+    private volatile int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * Number of parked consumers and producers, only changed under lock.
+     */
+    private volatile int takeWaiters;
+
+    private volatile int putWaiters;
+
+    public ShardedBlockingQueue(int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    public ShardedBlockingQueue(int capacity, int shardCount) {
+        if (capacity <= 0 || shardCount <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.shards = (Shard<E>[]) new Shard<?>[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard<>();
+        }
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Set a new capacity for the queue. Increasing the capacity can
+     * cause any waiting {@link #put(Object)} invocations to succeed.
+     *
+     * @param capacity the new capacity for the queue
+     */
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        if (putWaiters > 0) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Number of elements in each shard.
+     *
+     * @return number of elements indexed by shard
+     */
+    public int[] shardSizes() {
+        int[] sizes = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            sizes[i] = shards[i].size;
+        }
+        return sizes;
+    }
+
+    /**
+     * Number of elements taken from a shard other than the consumer's home shard.
+     *
+     * @return steal count
+     */
+    public long getStealCount() {
+        return stealCount.sum();
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!tryOffer(e)) {
+            return false;
+        }
+        signalNotEmpty();
+        return true;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!tryOffer(e)) {
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                putWaiters++;
+                try {
+                    while (!tryOffer(e)) {
+                        awaitSignal(notFull, -1);
+                    }
+                } finally {
+                    putWaiters--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        signalNotEmpty();
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!tryOffer(e)) {
+            long nanos = unit.toNanos(timeout);
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                putWaiters++;
+                try {
+                    while (!tryOffer(e)) {
+                        if (nanos <= 0L) {
+                            return false;
+                        }
+                        nanos = awaitSignal(notFull, nanos);
+                    }
+                } finally {
+                    putWaiters--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        signalNotEmpty();
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        E e = tryPoll();
+        if (e != null) {
+            signalNotFull();
+        }
+        return e;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e = tryPoll();
+        if (e == null) {
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                takeWaiters++;
+                try {
+                    while ((e = tryPoll()) == null) {
+                        awaitSignal(notEmpty, -1);
+                    }
+                } finally {
+                    takeWaiters--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        signalNotFull();
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = tryPoll();
+        if (e == null) {
+            long nanos = unit.toNanos(timeout);
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                takeWaiters++;
+                try {
+                    while ((e = tryPoll()) == null) {
+                        if (nanos <= 0L) {
+                            return null;
+                        }
+                        nanos = awaitSignal(notEmpty, nanos);
+                    }
+                } finally {
+                    takeWaiters--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        signalNotFull();
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        for (Shard<E> shard : shards) {
+            E e = shard.peek();
+            if (e != null) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - count.get());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        for (Shard<E> shard : shards) {
+            if (shard.remove(o)) {
+                count.decrementAndGet();
+                signalNotFull();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        for (Shard<E> shard : shards) {
+            if (shard.contains(o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        for (int i = 0; i < shards.length && n < maxElements; i++) {
+            E e;
+            while (n < maxElements && (e = shards[i].poll()) != null) {
+                count.decrementAndGet();
+                c.add(e);
+                n++;
+            }
+        }
+        if (n > 0 && putWaiters > 0) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public Object[] toArray() {
+        List<Object> list = new ArrayList<>();
+        for (Shard<E> shard : shards) {
+            shard.copyTo(list);
+        }
+        return list.toArray();
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements, shard by shard,
+     * the iterator does not reflect later modifications.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(toArray());
+    }
+
+    private boolean tryOffer(E e) {
+        for (;;) {
+            int c = count.get();
+            if (c >= capacity) {
+                return false;
+            }
+            if (count.compareAndSet(c, c + 1)) {
+                break;
+            }
+        }
+        shards[offerShard()].offer(e);
+        return true;
+    }
+
+    private E tryPoll() {
+        int home = homeShard();
+        if (count.get() == 0) {
+            return null;
+        }
+        E e = shards[home].poll();
+        if (e == null) {
+            for (int i = 1; i < shards.length && e == null; i++) {
+                e = shards[(home + i) % shards.length].poll();
+            }
+            if (e == null) {
+                return null;
+            }
+            stealCount.increment();
+        }
+        count.decrementAndGet();
+        return e;
+    }
+
+    private int homeShard() {
+        Integer home = homeShard.get();
+        if (home == null) {
+            home = (nextHome.getAndIncrement() & Integer.MAX_VALUE) % shards.length;
+            homeShard.set(home);
+        }
+        return home;
+    }
+
+    /**
+     * The home shard if the producer is a consumer of this queue, else the shorter of two random shards.
+     */
+    private int offerShard() {
+        Integer home = homeShard.get();
+        if (home != null) {
+            return home;
+        }
+        if (shards.length == 1) {
+            return 0;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(shards.length);
+        int second = random.nextInt(shards.length - 1);
+        if (second >= first) {
+            second++;
+        }
+        return shards[first].size <= shards[second].size ? first : second;
+    }
+
+    private long awaitSignal(Condition condition, long nanos) throws InterruptedException {
+        try {
+            if (nanos < 0) {
+                condition.await();
+                return -1;
+            }
+            return condition.awaitNanos(nanos);
+        } catch (InterruptedException ie) {
+            // pass a possibly consumed signal on
+            condition.signal();
+            throw ie;
+        }
+    }
+
+    private void signalNotEmpty() {
+        if (takeWaiters > 0) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void signalNotFull() {
+        if (putWaiters > 0) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Shard<E> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final ArrayDeque<E> deque = new ArrayDeque<>();
+
+        private volatile int size;
+
+        void offer(E e) {
+            lock.lock();
+            try {
+                deque.addLast(e);
+                size++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        E poll() {
+            if (size == 0) {
+                return null;
+            }
+            lock.lock();
+            try {
+                E e = deque.pollFirst();
+                if (e != null) {
+                    size--;
+                }
+                return e;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        E peek() {
+            lock.lock();
+            try {
+                return deque.peekFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean remove(Object o) {
+            lock.lock();
+            try {
+                if (deque.removeFirstOccurrence(o)) {
+                    size--;
+                    return true;
+                }
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean contains(Object o) {
+            lock.lock();
+            try {
+                return deque.contains(o);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void copyTo(List<Object> list) {
+            lock.lock();
+            try {
+                list.addAll(deque);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private class Itr implements Iterator<E> {
+
+        private final Object[] array;
+
+        private int cursor;
+
+        private int lastRet = -1;
+
+        Itr(Object[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < array.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= array.length) {
+                throw new NoSuchElementException();
+            }
+            lastRet = cursor;
+            return (E) array[cursor++];
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            ShardedBlockingQueue.this.remove(array[lastRet]);
+            lastRet = -1;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+/**
+ * Estimates the memory retained by a queued task, used by {@link ByteBoundedBlockingQueue}.
+ * Implementations are loaded by {@link java.util.ServiceLoader}, the first one found is used,
+ * {@link SampledDeepSizeEstimator} is the default.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public interface TaskSizeEstimator {
+
+    /**
+     * Estimate the size of the task, called before the task is queued, outside any queue lock.
+     *
+     * @param task the task to be queued
+     * @return estimated size in bytes
+     */
+    long estimate(Object task);
+}
@@ -0,0 +1,455 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded FIFO blocking queue backed by a ring buffer like {@link java.util.concurrent.ArrayBlockingQueue},
+ * with the addition of a {@link #setCapacity(int)} method like {@link VariableLinkedBlockingQueue}, so there
+ * is no node allocated for each element.
+ *
+ * <p>Growing the capacity reallocates the ring and keeps queued elements in order. Shrinking it below the
+ * current size keeps queued elements and rejects new ones until the backlog drains below the new capacity,
+ * then the ring is reallocated to the new size.
+ *
+ * @param <E> the type of elements held in this queue
+ * @author agent
+ * @since 1.1.4
+ **/
+public class VariableArrayBlockingQueue<E> extends AbstractQueue<E> implements VariableCapacityQueue<E> {
+
+    private Object[] items;
+
+    /**
+     * Index of the next element to take, poll, peek or remove.
+     */
+    private int takeIndex;
+
+    /**
+     * Index of the next element to put, offer or add.
+     */
+    private int putIndex;
+
+    private volatile int count;
+
+    private volatile int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    public VariableArrayBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.items = new Object[capacity];
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Set a new capacity for the queue. Increasing the capacity can
+     * cause any waiting {@link #put(Object)} invocations to succeed.
+     *
+     * @param capacity the new capacity for the queue
+     */
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            this.capacity = capacity;
+            if (count <= capacity) {
+                resize(capacity);
+            }
+            if (count < capacity) {
+                notFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copy queued elements in order to a ring of the given length, called under lock.
+     */
+    private void resize(int length) {
+        if (length == items.length) {
+            return;
+        }
+        Object[] newItems = new Object[length];
+        for (int i = 0, index = takeIndex; i < count; i++) {
+            newItems[i] = items[index];
+            index = inc(index);
+        }
+        items = newItems;
+        takeIndex = 0;
+        putIndex = count == length ? 0 : count;
+    }
+
+    private int inc(int index) {
+        return ++index == items.length ? 0 : index;
+    }
+
+    private void enqueue(E e) {
+        items[putIndex] = e;
+        putIndex = inc(putIndex);
+        count++;
+        notEmpty.signal();
+    }
+
+    @SuppressWarnings("unchecked")
+    private E dequeue() {
+        E e = (E) items[takeIndex];
+        items[takeIndex] = null;
+        takeIndex = inc(takeIndex);
+        count--;
+        afterDequeue();
+        return e;
+    }
+
+    private void afterDequeue() {
+        if (count < capacity) {
+            if (items.length > capacity) {
+                // backlog of a shrink has drained
+                resize(capacity);
+            }
+            notFull.signal();
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (count >= capacity) {
+                return false;
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                notFull.await();
+            }
+            enqueue(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return (E) items[takeIndex];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - count);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (int i = 0, index = takeIndex; i < count; i++) {
+                if (o.equals(items[index])) {
+                    removeAt(index);
+                    return true;
+                }
+                index = inc(index);
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the element at the index by shifting later elements forward, called under lock.
+     */
+    private void removeAt(int removeIndex) {
+        if (removeIndex == takeIndex) {
+            dequeue();
+            return;
+        }
+        for (int i = removeIndex;;) {
+            int next = inc(i);
+            if (next == putIndex) {
+                items[i] = null;
+                putIndex = i;
+                break;
+            }
+            items[i] = items[next];
+            i = next;
+        }
+        count--;
+        afterDequeue();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (int i = 0, index = takeIndex; i < count; i++) {
+                if (o.equals(items[index])) {
+                    return true;
+                }
+                index = inc(index);
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            while (count > 0) {
+                items[takeIndex] = null;
+                takeIndex = inc(takeIndex);
+                count--;
+            }
+            takeIndex = 0;
+            putIndex = 0;
+            resize(capacity);
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int n = Math.min(count, maxElements);
+            for (int i = 0; i < n; i++) {
+                c.add((E) items[takeIndex]);
+                items[takeIndex] = null;
+                takeIndex = inc(takeIndex);
+                count--;
+            }
+            if (n > 0) {
+                if (count < capacity && items.length > capacity) {
+                    resize(capacity);
+                }
+                notFull.signalAll();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Object[] array = new Object[count];
+            for (int i = 0, index = takeIndex; i < count; i++) {
+                array[i] = items[index];
+                index = inc(index);
+            }
+            return array;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in FIFO order,
+     * the iterator does not reflect later modifications.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(toArray());
+    }
+
+    private class Itr implements Iterator<E> {
+
+        private final Object[] array;
+
+        private int cursor;
+
+        private int lastRet = -1;
+
+        Itr(Object[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < array.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= array.length) {
+                throw new NoSuchElementException();
+            }
+            lastRet = cursor;
+            return (E) array[cursor++];
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            VariableArrayBlockingQueue.this.remove(array[lastRet]);
+            lastRet = -1;
+        }
+    }
+}
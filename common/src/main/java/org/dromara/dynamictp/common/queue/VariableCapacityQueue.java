@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.common.queue;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded {@link BlockingQueue} whose capacity can be changed while it is in use.
+ *
+ * @param <E> the type of elements held in this queue
+ * @author agent
+ * @since 1.1.4
+ **/
+public interface VariableCapacityQueue<E> extends BlockingQueue<E> {
+
+    /**
+     * Get the current capacity of the queue.
+     *
+     * @return capacity
+     */
+    int getCapacity();
+
+    /**
+     * Set a new capacity for the queue, elements already queued are kept even if
+     * the new capacity is smaller than the current size.
+     *
+     * @param capacity the new capacity
+     */
+    void setCapacity(int capacity);
+}
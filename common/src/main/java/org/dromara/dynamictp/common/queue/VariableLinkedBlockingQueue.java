@@ -45,6 +45,7 @@ package org.dromara.dynamictp.common.queue;
 import java.util.AbstractQueue;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Spliterator;
 import java.util.Spliterators;
@@ -481,6 +482,87 @@ public class VariableLinkedBlockingQueue<E> extends AbstractQueue<E>
         return c >= 0;
     }
 
+    /**
+     * Inserts the leading elements of the specified list at the tail of this
+     * queue, as many as possible without exceeding the queue's capacity.
+     * Unlike calling {@link #offer(Object)} for each element, putLock is
+     * acquired only once and waiting takes are signalled at most once.
+     *
+     * @param c the elements to insert
+     * @return the number of leading elements inserted
+     * @throws NullPointerException if the list or any element is null
+     */
+    public int offerAll(List<? extends E> c) {
+        int size = c.size();
+        if (size == 0 || count.get() >= capacity) {
+            return 0;
+        }
+        // link nodes before locking, keep critical section short
+        return enqueueAll(link(c), size);
+    }
+
+    /**
+     * Links the elements into a chain of new nodes.
+     *
+     * @param c the non-empty elements to link
+     * @return the first node of the chain
+     */
+    private Node<E> link(List<? extends E> c) {
+        Node<E> first = null;
+        Node<E> tail = null;
+        for (E e : c) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            Node<E> node = new Node<E>(e);
+            if (first == null) {
+                first = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+        return first;
+    }
+
+    /**
+     * Appends the leading nodes of a chain at the tail of this queue under putLock,
+     * as many as the remaining capacity allows.
+     *
+     * @param first the first node of the chain
+     * @param size the length of the chain
+     * @return the number of nodes appended
+     */
+    private int enqueueAll(Node<E> first, int size) {
+        final AtomicInteger count = this.count;
+        int n;
+        int prev = -1;
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
+        try {
+            n = Math.min(capacity - count.get(), size);
+            if (n > 0) {
+                Node<E> end = first;
+                for (int i = 1; i < n; i++) {
+                    end = end.next;
+                }
+                end.next = null;
+                last.next = first;
+                last = end;
+                prev = count.getAndAdd(n);
+                if (prev + n < capacity) {
+                    notFull.signal();
+                }
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (prev == 0) {
+            signalNotEmpty();
+        }
+        return Math.max(n, 0);
+    }
+
     public E take() throws InterruptedException {
         E x;
         int c = -1;
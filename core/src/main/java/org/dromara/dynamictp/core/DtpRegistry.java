@@ -29,7 +29,11 @@ import org.dromara.dynamictp.common.entity.DtpExecutorProps;
 import org.dromara.dynamictp.common.entity.TpMainFields;
 import org.dromara.dynamictp.common.ex.DtpException;
 import org.dromara.dynamictp.common.properties.DtpProperties;
+import org.dromara.dynamictp.common.queue.ByteBoundedBlockingQueue;
+import org.dromara.dynamictp.common.queue.CodelBlockingQueue;
+import org.dromara.dynamictp.common.queue.FairBlockingQueue;
 import org.dromara.dynamictp.common.queue.MemorySafeLinkedBlockingQueue;
+import org.dromara.dynamictp.common.queue.VariableCapacityQueue;
 import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
 import org.dromara.dynamictp.common.util.StreamUtil;
 import org.dromara.dynamictp.core.converter.ExecutorConverter;
@@ -38,9 +42,11 @@ import org.dromara.dynamictp.core.notifier.manager.NotifyHelper;
 import org.dromara.dynamictp.core.reject.RejectHandlerGetter;
 import org.dromara.dynamictp.core.support.ExecutorAdapter;
 import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.support.limit.AdaptiveConcurrencyLimiter;
 import org.dromara.dynamictp.core.support.task.wrapper.TaskWrapper;
 import org.dromara.dynamictp.core.support.task.wrapper.TaskWrappers;
 import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 
@@ -215,7 +221,14 @@ public class DtpRegistry implements ApplicationRunner {
 
     private static void doRefresh(ExecutorWrapper executorWrapper, DtpExecutorProps props) {
         ExecutorAdapter<?> executor = executorWrapper.getExecutor();
-        doRefreshPoolSize(executor, props);
+        if (!isAdaptiveLimited(executor, props)) {
+            doRefreshPoolSize(executor, props);
+        } else if (executor.getCorePoolSize() != props.getCorePoolSize()
+                || executor.getMaximumPoolSize() != props.getMaximumPoolSize()) {
+            log.info("DynamicTp refresh, pool size is owned by the adaptive limiter, ignore corePoolSize: {}, " +
+                    "maximumPoolSize: {}, poolName: {}", props.getCorePoolSize(), props.getMaximumPoolSize(),
+                    executorWrapper.getThreadPoolName());
+        }
         if (!Objects.equals(executor.getKeepAliveTime(props.getUnit()), props.getKeepAliveTime())) {
             executor.setKeepAliveTime(props.getKeepAliveTime(), props.getUnit());
         }
@@ -266,6 +279,21 @@ public class DtpRegistry implements ApplicationRunner {
         executor.setPreStartAllCoreThreads(props.isPreStartAllCoreThreads());
         executor.setRunTimeout(props.getRunTimeout());
         executor.setQueueTimeout(props.getQueueTimeout());
+        if (executor.isTimeoutScanEnabled() != props.isTimeoutScanEnabled()) {
+            executor.setTimeoutScanEnabled(props.isTimeoutScanEnabled());
+        }
+        executor.setShedExpiredTasks(props.isShedExpiredTasks());
+        if (!Objects.equals(executor.getExpiredHandlerType(), props.getExpiredHandlerType())) {
+            executor.setExpiredHandlerType(props.getExpiredHandlerType());
+        }
+        executor.setAdaptiveLimit(props.getAdaptiveLimit());
+        if (executor instanceof OrderedDtpExecutor) {
+            ((OrderedDtpExecutor) executor).setBatchSize(props.getOrderedBatchSize());
+            ((OrderedDtpExecutor) executor).setTimeQuantum(props.getOrderedTimeQuantum());
+            ((OrderedDtpExecutor) executor).setMaxActiveKeys(props.getOrderedMaxActiveKeys());
+            ((OrderedDtpExecutor) executor).setKeyCapacity(props.getOrderedKeyCapacity());
+            ((OrderedDtpExecutor) executor).setKeyConcurrency(props.getOrderedKeyConcurrency());
+        }
         List<TaskWrapper> taskWrappers = TaskWrappers.getInstance().getByNames(props.getTaskWrapperNames());
         executor.setTaskWrappers(taskWrappers);
 
@@ -281,6 +309,18 @@ public class DtpRegistry implements ApplicationRunner {
         executorWrapper.setNotifyEnabled(executor.isNotifyEnabled());
     }
 
+    /**
+     * Pool size is owned by the adaptive limiter while adaptive limit properties unchanged,
+     * otherwise pool size is reset by properties, and a new limiter starts from it.
+     */
+    private static boolean isAdaptiveLimited(ExecutorAdapter<?> executor, DtpExecutorProps props) {
+        if (!(executor instanceof DtpExecutor)) {
+            return false;
+        }
+        AdaptiveConcurrencyLimiter limiter = ((DtpExecutor) executor).getAdaptiveLimiter();
+        return limiter != null && limiter.getProps().equals(props.getAdaptiveLimit());
+    }
+
     /**
      * Why does it seem so complicated to handle this?
      * Although JDK9 solves this bug, we need to ensure that corePoolSize is less than or equal to maximumPoolSize,
@@ -314,6 +354,20 @@ public class DtpRegistry implements ApplicationRunner {
         if (blockingQueue instanceof MemorySafeLinkedBlockingQueue) {
             ((MemorySafeLinkedBlockingQueue<Runnable>) blockingQueue).setMaxFreeMemory(props.getMaxFreeMemory() * M_1);
         }
+        if (blockingQueue instanceof ByteBoundedBlockingQueue) {
+            ((ByteBoundedBlockingQueue<Runnable>) blockingQueue).setByteCapacity((long) props.getQueueByteCapacity() * M_1);
+        }
+        if (blockingQueue instanceof CodelBlockingQueue) {
+            val codelQueue = (CodelBlockingQueue<Runnable>) blockingQueue;
+            codelQueue.setTargetMillis(props.getCodelTarget());
+            codelQueue.setIntervalMillis(props.getCodelInterval());
+            codelQueue.setAdaptiveLifo(props.isCodelAdaptiveLifo());
+        }
+        if (blockingQueue instanceof FairBlockingQueue) {
+            val fairQueue = (FairBlockingQueue<Runnable>) blockingQueue;
+            fairQueue.setWeights(props.getTenantWeights());
+            fairQueue.setCapacities(props.getTenantCapacities(), props.getDefaultTenantCapacity());
+        }
         if (blockingQueue instanceof VariableLinkedBlockingQueue) {
             int capacity = blockingQueue.size() + blockingQueue.remainingCapacity();
             if (!Objects.equals(capacity, props.getQueueCapacity())) {
@@ -322,6 +376,14 @@ public class DtpRegistry implements ApplicationRunner {
             }
             return;
         }
+        if (blockingQueue instanceof VariableCapacityQueue) {
+            VariableCapacityQueue<Runnable> variableQueue = (VariableCapacityQueue<Runnable>) blockingQueue;
+            if (!Objects.equals(variableQueue.getCapacity(), props.getQueueCapacity())) {
+                variableQueue.setCapacity(props.getQueueCapacity());
+                executor.onRefreshQueueCapacity(props.getQueueCapacity());
+            }
+            return;
+        }
         log.warn("DynamicTp refresh, the blockingqueue capacity cannot be reset, poolName: {}, queueType {}",
                 props.getThreadPoolName(), blockingQueue.getClass().getSimpleName());
     }
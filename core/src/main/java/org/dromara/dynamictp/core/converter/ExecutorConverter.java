@@ -17,13 +17,24 @@
 
 package org.dromara.dynamictp.core.converter;
 
+import org.dromara.dynamictp.common.em.OrderedModeEnum;
 import org.dromara.dynamictp.common.entity.ThreadPoolStats;
 import org.dromara.dynamictp.common.entity.TpMainFields;
+import org.dromara.dynamictp.common.queue.ByteBoundedBlockingQueue;
+import org.dromara.dynamictp.common.queue.CodelBlockingQueue;
+import org.dromara.dynamictp.common.queue.FairBlockingQueue;
+import org.dromara.dynamictp.common.queue.MemorySafeLinkedBlockingQueue;
+import org.dromara.dynamictp.common.queue.ShardedBlockingQueue;
 import org.dromara.dynamictp.core.support.ExecutorAdapter;
 import org.dromara.dynamictp.core.support.ExecutorWrapper;
 import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
+import org.dromara.dynamictp.core.thread.PriorityDtpExecutor;
+import org.dromara.dynamictp.core.thread.WorkStealingDtpExecutor;
 import lombok.val;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -34,6 +45,11 @@ import java.util.concurrent.TimeUnit;
  **/
 public class ExecutorConverter {
 
+    /**
+     * Max keys reported with their backlog, keeps the stats small when there are many active keys.
+     */
+    private static final int TOP_KEY_LIMIT = 10;
+
     private ExecutorConverter() { }
 
     public static TpMainFields toMainFields(ExecutorWrapper executorWrapper) {
@@ -57,10 +73,40 @@ public class ExecutorConverter {
         }
         ThreadPoolStats poolStats = convertCommon(executor);
         poolStats.setPoolName(wrapper.getThreadPoolName());
+        if (executor.getQueue() instanceof MemorySafeLinkedBlockingQueue) {
+            val queue = (MemorySafeLinkedBlockingQueue<Runnable>) executor.getQueue();
+            poolStats.setMemoryExhausted(queue.isMemoryExhausted());
+            poolStats.setMemoryGuardTripCount(queue.getTripCount());
+        } else if (executor.getQueue() instanceof ByteBoundedBlockingQueue) {
+            val queue = (ByteBoundedBlockingQueue<Runnable>) executor.getQueue();
+            poolStats.setQueueBytes(queue.getBytes());
+            poolStats.setQueueByteCapacity(queue.getByteCapacity());
+            poolStats.setQueueAdmitCount(queue.getAdmitCount());
+            poolStats.setQueueRejectCount(queue.getRejectCount());
+        } else if (executor.getQueue() instanceof CodelBlockingQueue) {
+            val queue = (CodelBlockingQueue<Runnable>) executor.getQueue();
+            poolStats.setCodelDropCount(queue.getDropCount());
+            poolStats.setCodelMinSojourn(queue.getMinSojourn() / 1_000_000.0);
+            poolStats.setCodelOverloaded(queue.isOverloaded());
+        } else if (executor.getQueue() instanceof ShardedBlockingQueue) {
+            fillShard(poolStats, (ShardedBlockingQueue<Runnable>) executor.getQueue());
+        } else if (executor.getQueue() instanceof FairBlockingQueue) {
+            fillTenant(poolStats, (FairBlockingQueue<Runnable>) executor.getQueue());
+        }
         if (executor instanceof DtpExecutor) {
             DtpExecutor dtpExecutor = (DtpExecutor) executor;
             poolStats.setRunTimeoutCount(dtpExecutor.getRunTimeoutCount());
             poolStats.setQueueTimeoutCount(dtpExecutor.getQueueTimeoutCount());
+            poolStats.setExpiredShedCount(dtpExecutor.getExpiredShedCount());
+            fillLatency(poolStats, dtpExecutor);
+            fillAdaptiveLimit(poolStats, dtpExecutor);
+            if (dtpExecutor instanceof WorkStealingDtpExecutor) {
+                fillWorkStealing(poolStats, (WorkStealingDtpExecutor) dtpExecutor);
+            } else if (dtpExecutor instanceof PriorityDtpExecutor) {
+                fillPriority(poolStats, (PriorityDtpExecutor) dtpExecutor);
+            } else if (dtpExecutor instanceof OrderedDtpExecutor) {
+                fillOrdered(poolStats, (OrderedDtpExecutor) dtpExecutor);
+            }
             poolStats.setDynamic(true);
         } else {
             poolStats.setDynamic(false);
@@ -68,6 +114,110 @@ public class ExecutorConverter {
         return poolStats;
     }
 
+    private static void fillLatency(ThreadPoolStats poolStats, DtpExecutor dtpExecutor) {
+        val queueWait = dtpExecutor.getQueueWaitRecorder().getSnapshot();
+        poolStats.setQueueWaitP50(queueWait.getP50());
+        poolStats.setQueueWaitP90(queueWait.getP90());
+        poolStats.setQueueWaitP99(queueWait.getP99());
+        poolStats.setQueueWaitP999(queueWait.getP999());
+        poolStats.setQueueWaitMax(queueWait.getMax());
+        val runTime = dtpExecutor.getRunTimeRecorder().getSnapshot();
+        poolStats.setRunTimeP50(runTime.getP50());
+        poolStats.setRunTimeP90(runTime.getP90());
+        poolStats.setRunTimeP99(runTime.getP99());
+        poolStats.setRunTimeP999(runTime.getP999());
+        poolStats.setRunTimeMax(runTime.getMax());
+    }
+
+    private static void fillAdaptiveLimit(ThreadPoolStats poolStats, DtpExecutor executor) {
+        val limiter = executor.getAdaptiveLimiter();
+        if (limiter != null) {
+            poolStats.setAdaptiveLimit(limiter.getLimit());
+            poolStats.setAdaptiveLimitAdjustCount(limiter.getAdjustCount());
+        }
+    }
+
+    private static void fillWorkStealing(ThreadPoolStats poolStats, WorkStealingDtpExecutor executor) {
+        poolStats.setStealCount(executor.getStealCount());
+        poolStats.setQueuedSubmissionCount(executor.getQueuedSubmissionCount());
+        poolStats.setRunningThreadCount(executor.getRunningThreadCount());
+    }
+
+    private static void fillOrdered(ThreadPoolStats poolStats, OrderedDtpExecutor executor) {
+        poolStats.setOrderedHotKeys(executor.getHotKeys());
+        if (OrderedModeEnum.LANE.getName().equals(executor.getOrderedMode())) {
+            fillLanes(poolStats, executor);
+            return;
+        }
+        if (OrderedModeEnum.KEY_LIMIT.getName().equals(executor.getOrderedMode())) {
+            poolStats.setOrderedLimitedKeyCount(executor.getLimitedKeyCount());
+        }
+        val keyBacklog = executor.getTopKeyBacklogs(TOP_KEY_LIMIT);
+        poolStats.setOrderedActiveKeyCount(executor.getActiveKeyCount());
+        poolStats.setOrderedMaxKeyBacklog(keyBacklog.isEmpty() ? 0 : keyBacklog.values().iterator().next());
+        poolStats.setOrderedKeyBacklog(keyBacklog);
+    }
+
+    private static void fillLanes(ThreadPoolStats poolStats, OrderedDtpExecutor executor) {
+        val laneStats = executor.getLaneStats();
+        Map<Integer, Integer> queueSize = new LinkedHashMap<>(laneStats.size());
+        Map<Integer, Long> throughput = new LinkedHashMap<>(laneStats.size());
+        Map<Integer, Double> busyTime = new LinkedHashMap<>(laneStats.size());
+        for (int i = 0; i < laneStats.size(); i++) {
+            queueSize.put(i, laneStats.get(i).getQueueSize());
+            throughput.put(i, laneStats.get(i).getThroughput());
+            busyTime.put(i, laneStats.get(i).getBusyTime());
+        }
+        poolStats.setOrderedLaneQueueSize(queueSize);
+        poolStats.setOrderedLaneThroughput(throughput);
+        poolStats.setOrderedLaneBusyTime(busyTime);
+        poolStats.setOrderedLaneSkew(executor.getLaneSkew());
+    }
+
+    private static void fillPriority(ThreadPoolStats poolStats, PriorityDtpExecutor executor) {
+        int[] sizes = executor.getPriorityQueueSizes();
+        Map<Integer, Integer> queueSize = new LinkedHashMap<>(sizes.length);
+        Map<Integer, Double> waitP90 = new LinkedHashMap<>(sizes.length);
+        Map<Integer, Double> waitP99 = new LinkedHashMap<>(sizes.length);
+        for (int i = 0; i < sizes.length; i++) {
+            val snapshot = executor.getPriorityWaitRecorder(i).getSnapshot();
+            queueSize.put(i, sizes[i]);
+            waitP90.put(i, snapshot.getP90());
+            waitP99.put(i, snapshot.getP99());
+        }
+        poolStats.setPriorityQueueSize(queueSize);
+        poolStats.setPriorityQueueWaitP90(waitP90);
+        poolStats.setPriorityQueueWaitP99(waitP99);
+    }
+
+    private static void fillShard(ThreadPoolStats poolStats, ShardedBlockingQueue<Runnable> queue) {
+        int[] sizes = queue.shardSizes();
+        Map<Integer, Integer> queueSize = new LinkedHashMap<>(sizes.length);
+        for (int i = 0; i < sizes.length; i++) {
+            queueSize.put(i, sizes[i]);
+        }
+        poolStats.setShardQueueSize(queueSize);
+        poolStats.setStealCount(queue.getStealCount());
+    }
+
+    private static void fillTenant(ThreadPoolStats poolStats, FairBlockingQueue<Runnable> queue) {
+        val tenantStats = queue.tenantStats();
+        Map<String, Integer> queueSize = new LinkedHashMap<>(tenantStats.size());
+        Map<String, Double> waitAvg = new LinkedHashMap<>(tenantStats.size());
+        Map<String, Double> waitMax = new LinkedHashMap<>(tenantStats.size());
+        Map<String, Long> rejectCount = new LinkedHashMap<>(tenantStats.size());
+        tenantStats.forEach((tenant, stats) -> {
+            queueSize.put(tenant, stats.getSize());
+            waitAvg.put(tenant, stats.getWaitAvg());
+            waitMax.put(tenant, stats.getWaitMax());
+            rejectCount.put(tenant, stats.getRejectCount());
+        });
+        poolStats.setTenantQueueSize(queueSize);
+        poolStats.setTenantWaitAvg(waitAvg);
+        poolStats.setTenantWaitMax(waitMax);
+        poolStats.setTenantRejectCount(rejectCount);
+    }
+
     private static ThreadPoolStats convertCommon(ExecutorAdapter<?> executor) {
         return ThreadPoolStats.builder()
                 .corePoolSize(executor.getCorePoolSize())
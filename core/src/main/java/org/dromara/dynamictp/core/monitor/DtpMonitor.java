@@ -25,8 +25,10 @@ import org.dromara.dynamictp.common.properties.DtpProperties;
 import org.dromara.dynamictp.core.DtpRegistry;
 import org.dromara.dynamictp.core.converter.ExecutorConverter;
 import org.dromara.dynamictp.core.handler.CollectorHandler;
+import org.dromara.dynamictp.core.monitor.tuner.AutoTuner;
 import org.dromara.dynamictp.core.notifier.manager.AlarmManager;
 import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
 import org.dromara.dynamictp.core.thread.NamedThreadFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.ApplicationArguments;
@@ -53,8 +55,11 @@ public class DtpMonitor implements ApplicationRunner {
 
     private final DtpProperties dtpProperties;
 
+    private final AutoTuner autoTuner;
+
     public DtpMonitor(DtpProperties dtpProperties) {
         this.dtpProperties = dtpProperties;
+        this.autoTuner = new AutoTuner(dtpProperties);
     }
 
     @Override
@@ -65,8 +70,19 @@ public class DtpMonitor implements ApplicationRunner {
 
     private void run() {
         Set<String> executorNames = DtpRegistry.listAllExecutorNames();
+        refreshLatency(executorNames);
         checkAlarm(executorNames);
         collect(executorNames);
+        autoTuner.tune(executorNames);
+    }
+
+    private void refreshLatency(Set<String> executorNames) {
+        executorNames.forEach(x -> {
+            ExecutorWrapper wrapper = DtpRegistry.getExecutorWrapper(x);
+            if (wrapper.isDtpExecutor()) {
+                ((DtpExecutor) wrapper.getExecutor()).refreshLatency();
+            }
+        });
     }
 
     private void collect(Set<String> executorNames) {
@@ -106,6 +122,10 @@ public class DtpMonitor implements ApplicationRunner {
         ApplicationContextHolder.publishEvent(event);
     }
 
+    public AutoTuner getAutoTuner() {
+        return autoTuner;
+    }
+
     public static void destroy() {
         MONITOR_EXECUTOR.shutdownNow();
     }
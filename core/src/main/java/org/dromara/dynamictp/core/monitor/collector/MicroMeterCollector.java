@@ -21,6 +21,7 @@ import cn.hutool.core.bean.BeanUtil;
 import org.dromara.dynamictp.common.em.CollectorTypeEnum;
 import org.dromara.dynamictp.common.entity.ThreadPoolStats;
 import org.dromara.dynamictp.common.util.CommonUtil;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tag;
@@ -28,6 +29,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -48,8 +50,30 @@ public class MicroMeterCollector extends AbstractCollector {
 
     public static final String APP_NAME_TAG = "app.name";
 
+    public static final String PRIORITY_TAG = "priority";
+
+    public static final String SHARD_TAG = "shard";
+
+    public static final String TENANT_TAG = "tenant";
+
+    public static final String LANE_TAG = "lane";
+
+    public static final String RANK_TAG = "rank";
+
+    /**
+     * Tag value of the tenants beyond {@link #MAX_TENANT_TAGS}.
+     */
+    public static final String OTHER_TENANT = "other";
+
+    /**
+     * Max tenants tagged individually per pool.
+     */
+    public static final int MAX_TENANT_TAGS = 50;
+
     private static final Map<String, ThreadPoolStats> GAUGE_CACHE = new ConcurrentHashMap<>();
 
+    private static final Map<String, Set<String>> TAGGED_TENANTS = new ConcurrentHashMap<>();
+
     @Override
     public void collect(ThreadPoolStats threadPoolStats) {
         // metrics must be held with a strong reference, even though it is never referenced within this class
@@ -90,6 +114,267 @@ public class MicroMeterCollector extends AbstractCollector {
         Metrics.gauge(metricName("reject.count"), tags, poolStats, ThreadPoolStats::getRejectCount);
         Metrics.gauge(metricName("run.timeout.count"), tags, poolStats, ThreadPoolStats::getRunTimeoutCount);
         Metrics.gauge(metricName("queue.timeout.count"), tags, poolStats, ThreadPoolStats::getQueueTimeoutCount);
+        Metrics.gauge(metricName("expired.shed.count"), tags, poolStats, ThreadPoolStats::getExpiredShedCount);
+
+        latencyGauge(tags, poolStats);
+        featureGauge(tags, poolStats);
+
+        breakdownGauge(poolStats);
+    }
+
+    /**
+     * Gauges of queue and executor types, only registered for the pools whose stats have them.
+     */
+    private void featureGauge(Iterable<Tag> tags, ThreadPoolStats poolStats) {
+        if (Objects.nonNull(poolStats.getQueueByteCapacity())) {
+            queueBytesGauge(tags, poolStats);
+        }
+        if (Objects.nonNull(poolStats.getCodelDropCount())) {
+            codelGauge(tags, poolStats);
+        }
+        if (Objects.nonNull(poolStats.getMemoryGuardTripCount())) {
+            memoryGauge(tags, poolStats);
+        }
+        if (Objects.nonNull(poolStats.getOrderedActiveKeyCount())) {
+            orderedKeyGauge(tags, poolStats);
+        }
+        if (Objects.nonNull(poolStats.getOrderedLaneSkew())) {
+            Metrics.gauge(metricName("ordered.lane.skew"), tags, poolStats, s -> valueOf(s.getOrderedLaneSkew()));
+        }
+        if (Objects.nonNull(poolStats.getStealCount())) {
+            Metrics.gauge(metricName("steal.count"), tags, poolStats, s -> valueOf(s.getStealCount()));
+        }
+        if (Objects.nonNull(poolStats.getQueuedSubmissionCount())) {
+            workStealingGauge(tags, poolStats);
+        }
+        if (Objects.nonNull(poolStats.getAdaptiveLimit())) {
+            adaptiveLimitGauge(tags, poolStats);
+        }
+    }
+
+    private void queueBytesGauge(Iterable<Tag> tags, ThreadPoolStats poolStats) {
+        Metrics.gauge(metricName("queue.bytes"), tags, poolStats, s -> valueOf(s.getQueueBytes()));
+        Metrics.gauge(metricName("queue.byte.capacity"), tags, poolStats, s -> valueOf(s.getQueueByteCapacity()));
+        Metrics.gauge(metricName("queue.admit.count"), tags, poolStats, s -> valueOf(s.getQueueAdmitCount()));
+        Metrics.gauge(metricName("queue.reject.count"), tags, poolStats, s -> valueOf(s.getQueueRejectCount()));
+    }
+
+    private void codelGauge(Iterable<Tag> tags, ThreadPoolStats poolStats) {
+        Metrics.gauge(metricName("codel.drop.count"), tags, poolStats, s -> valueOf(s.getCodelDropCount()));
+        Metrics.gauge(metricName("codel.min.sojourn"), tags, poolStats, s -> valueOf(s.getCodelMinSojourn()));
+        Metrics.gauge(metricName("codel.overloaded"), tags, poolStats, s -> valueOf(s.getCodelOverloaded()));
+    }
+
+    private void memoryGauge(Iterable<Tag> tags, ThreadPoolStats poolStats) {
+        Metrics.gauge(metricName("memory.exhausted"), tags, poolStats, s -> valueOf(s.getMemoryExhausted()));
+        Metrics.gauge(metricName("memory.guard.trip.count"), tags, poolStats, s -> valueOf(s.getMemoryGuardTripCount()));
+    }
+
+    private void orderedKeyGauge(Iterable<Tag> tags, ThreadPoolStats poolStats) {
+        Metrics.gauge(metricName("ordered.active.key.count"), tags, poolStats, s -> valueOf(s.getOrderedActiveKeyCount()));
+        Metrics.gauge(metricName("ordered.max.key.backlog"), tags, poolStats, s -> valueOf(s.getOrderedMaxKeyBacklog()));
+        if (Objects.nonNull(poolStats.getOrderedLimitedKeyCount())) {
+            Metrics.gauge(metricName("ordered.limited.key.count"), tags, poolStats,
+                    s -> valueOf(s.getOrderedLimitedKeyCount()));
+        }
+    }
+
+    private void workStealingGauge(Iterable<Tag> tags, ThreadPoolStats poolStats) {
+        Metrics.gauge(metricName("queued.submission.count"), tags, poolStats, s -> valueOf(s.getQueuedSubmissionCount()));
+        Metrics.gauge(metricName("running.thread.count"), tags, poolStats, s -> valueOf(s.getRunningThreadCount()));
+    }
+
+    private void adaptiveLimitGauge(Iterable<Tag> tags, ThreadPoolStats poolStats) {
+        Metrics.gauge(metricName("adaptive.limit"), tags, poolStats, s -> valueOf(s.getAdaptiveLimit()));
+        Metrics.gauge(metricName("adaptive.limit.adjust.count"), tags, poolStats, s -> valueOf(s.getAdaptiveLimitAdjustCount()));
+    }
+
+    private void latencyGauge(Iterable<Tag> tags, ThreadPoolStats poolStats) {
+        Metrics.gauge(metricName("queue.wait.p50"), tags, poolStats, ThreadPoolStats::getQueueWaitP50);
+        Metrics.gauge(metricName("queue.wait.p90"), tags, poolStats, ThreadPoolStats::getQueueWaitP90);
+        Metrics.gauge(metricName("queue.wait.p99"), tags, poolStats, ThreadPoolStats::getQueueWaitP99);
+        Metrics.gauge(metricName("queue.wait.p999"), tags, poolStats, ThreadPoolStats::getQueueWaitP999);
+        Metrics.gauge(metricName("queue.wait.max"), tags, poolStats, ThreadPoolStats::getQueueWaitMax);
+
+        Metrics.gauge(metricName("run.time.p50"), tags, poolStats, ThreadPoolStats::getRunTimeP50);
+        Metrics.gauge(metricName("run.time.p90"), tags, poolStats, ThreadPoolStats::getRunTimeP90);
+        Metrics.gauge(metricName("run.time.p99"), tags, poolStats, ThreadPoolStats::getRunTimeP99);
+        Metrics.gauge(metricName("run.time.p999"), tags, poolStats, ThreadPoolStats::getRunTimeP999);
+        Metrics.gauge(metricName("run.time.max"), tags, poolStats, ThreadPoolStats::getRunTimeMax);
+    }
+
+    /**
+     * Gauges broken down by priority, shard, tenant, lane and hot key, only for the executors that have them.
+     */
+    private void breakdownGauge(ThreadPoolStats poolStats) {
+        if (Objects.nonNull(poolStats.getPriorityQueueSize())) {
+            priorityGauge(poolStats);
+        }
+        if (Objects.nonNull(poolStats.getShardQueueSize())) {
+            shardGauge(poolStats);
+        }
+        if (Objects.nonNull(poolStats.getTenantQueueSize())) {
+            tenantGauge(poolStats);
+        }
+        if (Objects.nonNull(poolStats.getOrderedLaneQueueSize())) {
+            laneGauge(poolStats);
+        }
+        if (Objects.nonNull(poolStats.getOrderedHotKeys())) {
+            hotKeyGauge(poolStats);
+        }
+    }
+
+    private void priorityGauge(ThreadPoolStats poolStats) {
+        for (Integer priority : poolStats.getPriorityQueueSize().keySet()) {
+            Iterable<Tag> tags = Lists.newArrayList(
+                    Tag.of(POOL_NAME_TAG, poolStats.getPoolName()),
+                    Tag.of(APP_NAME_TAG, CommonUtil.getInstance().getServiceName()),
+                    Tag.of(PRIORITY_TAG, String.valueOf(priority)));
+            Metrics.gauge(metricName("priority.queue.size"), tags, poolStats,
+                    s -> valueOf(s.getPriorityQueueSize(), priority));
+            Metrics.gauge(metricName("priority.queue.wait.p90"), tags, poolStats,
+                    s -> valueOf(s.getPriorityQueueWaitP90(), priority));
+            Metrics.gauge(metricName("priority.queue.wait.p99"), tags, poolStats,
+                    s -> valueOf(s.getPriorityQueueWaitP99(), priority));
+        }
+    }
+
+    private void shardGauge(ThreadPoolStats poolStats) {
+        for (Integer shard : poolStats.getShardQueueSize().keySet()) {
+            Iterable<Tag> tags = Lists.newArrayList(
+                    Tag.of(POOL_NAME_TAG, poolStats.getPoolName()),
+                    Tag.of(APP_NAME_TAG, CommonUtil.getInstance().getServiceName()),
+                    Tag.of(SHARD_TAG, String.valueOf(shard)));
+            Metrics.gauge(metricName("shard.queue.size"), tags, poolStats,
+                    s -> valueOf(s.getShardQueueSize(), shard));
+        }
+    }
+
+    /**
+     * Tenants are tagged in the order they are first seen, up to {@link #MAX_TENANT_TAGS} per pool,
+     * the rest are aggregated under {@link #OTHER_TENANT} to bound the tag cardinality.
+     */
+    private void tenantGauge(ThreadPoolStats poolStats) {
+        Set<String> tagged = TAGGED_TENANTS.computeIfAbsent(poolStats.getPoolName(),
+                k -> ConcurrentHashMap.newKeySet());
+        boolean overflow = false;
+        for (String tenant : poolStats.getTenantQueueSize().keySet()) {
+            if (!tagged.contains(tenant) && (tagged.size() >= MAX_TENANT_TAGS || !tagged.add(tenant))) {
+                overflow = true;
+                continue;
+            }
+            Iterable<Tag> tags = tenantTags(poolStats, tenant);
+            Metrics.gauge(metricName("tenant.queue.size"), tags, poolStats,
+                    s -> valueOf(s.getTenantQueueSize(), tenant));
+            Metrics.gauge(metricName("tenant.queue.wait.avg"), tags, poolStats,
+                    s -> valueOf(s.getTenantWaitAvg(), tenant));
+            Metrics.gauge(metricName("tenant.queue.wait.max"), tags, poolStats,
+                    s -> valueOf(s.getTenantWaitMax(), tenant));
+            Metrics.gauge(metricName("tenant.reject.count"), tags, poolStats,
+                    s -> valueOf(s.getTenantRejectCount(), tenant));
+        }
+        if (overflow) {
+            // sizes and rejects of untagged tenants are summed, waits take the worst of them
+            Iterable<Tag> tags = tenantTags(poolStats, OTHER_TENANT);
+            Metrics.gauge(metricName("tenant.queue.size"), tags, poolStats,
+                    s -> sumOfOthers(s.getTenantQueueSize(), tagged));
+            Metrics.gauge(metricName("tenant.queue.wait.avg"), tags, poolStats,
+                    s -> maxOfOthers(s.getTenantWaitAvg(), tagged));
+            Metrics.gauge(metricName("tenant.queue.wait.max"), tags, poolStats,
+                    s -> maxOfOthers(s.getTenantWaitMax(), tagged));
+            Metrics.gauge(metricName("tenant.reject.count"), tags, poolStats,
+                    s -> sumOfOthers(s.getTenantRejectCount(), tagged));
+        }
+    }
+
+    private static Iterable<Tag> tenantTags(ThreadPoolStats poolStats, String tenant) {
+        return Lists.newArrayList(
+                Tag.of(POOL_NAME_TAG, poolStats.getPoolName()),
+                Tag.of(APP_NAME_TAG, CommonUtil.getInstance().getServiceName()),
+                Tag.of(TENANT_TAG, tenant));
+    }
+
+    private static double sumOfOthers(Map<String, ? extends Number> values, Set<String> tagged) {
+        if (Objects.isNull(values)) {
+            return 0;
+        }
+        double sum = 0;
+        for (Map.Entry<String, ? extends Number> entry : values.entrySet()) {
+            if (!tagged.contains(entry.getKey()) && Objects.nonNull(entry.getValue())) {
+                sum += entry.getValue().doubleValue();
+            }
+        }
+        return sum;
+    }
+
+    private static double maxOfOthers(Map<String, ? extends Number> values, Set<String> tagged) {
+        if (Objects.isNull(values)) {
+            return 0;
+        }
+        double max = 0;
+        for (Map.Entry<String, ? extends Number> entry : values.entrySet()) {
+            if (!tagged.contains(entry.getKey()) && Objects.nonNull(entry.getValue())) {
+                max = Math.max(max, entry.getValue().doubleValue());
+            }
+        }
+        return max;
+    }
+
+    private void laneGauge(ThreadPoolStats poolStats) {
+        for (Integer lane : poolStats.getOrderedLaneQueueSize().keySet()) {
+            Iterable<Tag> tags = Lists.newArrayList(
+                    Tag.of(POOL_NAME_TAG, poolStats.getPoolName()),
+                    Tag.of(APP_NAME_TAG, CommonUtil.getInstance().getServiceName()),
+                    Tag.of(LANE_TAG, String.valueOf(lane)));
+            Metrics.gauge(metricName("ordered.lane.queue.size"), tags, poolStats,
+                    s -> valueOf(s.getOrderedLaneQueueSize(), lane));
+            Metrics.gauge(metricName("ordered.lane.throughput"), tags, poolStats,
+                    s -> valueOf(s.getOrderedLaneThroughput(), lane));
+            Metrics.gauge(metricName("ordered.lane.busy.time"), tags, poolStats,
+                    s -> valueOf(s.getOrderedLaneBusyTime(), lane));
+        }
+    }
+
+    /**
+     * Hot keys are tagged by rank instead of key to bound the tag cardinality,
+     * key identities are exposed by the endpoint.
+     */
+    private void hotKeyGauge(ThreadPoolStats poolStats) {
+        for (int rank = 1; rank <= poolStats.getOrderedHotKeys().size(); rank++) {
+            Iterable<Tag> tags = Lists.newArrayList(
+                    Tag.of(POOL_NAME_TAG, poolStats.getPoolName()),
+                    Tag.of(APP_NAME_TAG, CommonUtil.getInstance().getServiceName()),
+                    Tag.of(RANK_TAG, String.valueOf(rank)));
+            final int index = rank - 1;
+            Metrics.gauge(metricName("ordered.hot.key.count"), tags, poolStats,
+                    s -> rankedValueOf(s.getOrderedHotKeys(), index));
+        }
+    }
+
+    private static double rankedValueOf(Map<String, Long> values, int index) {
+        if (Objects.isNull(values) || index >= values.size()) {
+            return 0;
+        }
+        return Iterables.get(values.values(), index);
+    }
+
+    /**
+     * Value of a gauge registered before, 0 once the stats no longer have it, e.g. adaptive limit turned off.
+     */
+    private static double valueOf(Number value) {
+        return Objects.isNull(value) ? 0 : value.doubleValue();
+    }
+
+    private static double valueOf(Boolean value) {
+        return Boolean.TRUE.equals(value) ? 1 : 0;
+    }
+
+    private static <K> double valueOf(Map<K, ? extends Number> values, K key) {
+        if (Objects.isNull(values)) {
+            return 0;
+        }
+        Number value = values.get(key);
+        return Objects.isNull(value) ? 0 : value.doubleValue();
     }
 
     private static String metricName(String name) {
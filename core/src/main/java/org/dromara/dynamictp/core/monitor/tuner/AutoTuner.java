@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.monitor.tuner;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.dynamictp.common.entity.AutoTuneProps;
+import org.dromara.dynamictp.common.entity.DtpExecutorProps;
+import org.dromara.dynamictp.common.entity.ThreadPoolStats;
+import org.dromara.dynamictp.common.properties.DtpProperties;
+import org.dromara.dynamictp.common.queue.VariableCapacityQueue;
+import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
+import org.dromara.dynamictp.core.DtpRegistry;
+import org.dromara.dynamictp.core.converter.ExecutorConverter;
+import org.dromara.dynamictp.core.monitor.tuner.TuneRecommendation.Direction;
+import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.beans.BeanUtils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop auto tuner, driven by the stats sampled by DtpMonitor each monitor interval.
+ * A pool is scaled up when it is highly utilized and tasks pile up in queue, and scaled down when
+ * it is lightly utilized with an empty queue. The gap between the two utilization thresholds,
+ * the consecutive samples requirement and the cool-down interval keep it from oscillating.
+ * Changes are applied through {@link DtpRegistry#refresh(DtpProperties)}, so diff logging and
+ * change notices happen as for config center changes.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Slf4j
+public class AutoTuner {
+
+    private final DtpProperties dtpProperties;
+
+    private final Map<String, TuneState> states = new ConcurrentHashMap<>();
+
+    private final Map<String, TuneRecommendation> recommendations = new ConcurrentHashMap<>();
+
+    public AutoTuner(DtpProperties dtpProperties) {
+        this.dtpProperties = dtpProperties;
+    }
+
+    public void tune(Set<String> executorNames) {
+        if (CollectionUtils.isEmpty(dtpProperties.getExecutors())) {
+            return;
+        }
+        dtpProperties.getExecutors().forEach(props -> {
+            if (props.getAutoTune() == null || !props.getAutoTune().isEnabled()
+                    || !executorNames.contains(props.getThreadPoolName())) {
+                return;
+            }
+            try {
+                tune(DtpRegistry.getExecutorWrapper(props.getThreadPoolName()), props);
+            } catch (Exception e) {
+                log.error("DynamicTp auto tune, tune error, poolName: {}", props.getThreadPoolName(), e);
+            }
+        });
+    }
+
+    /**
+     * Evaluate one sample of the executor, and apply the recommendation if not in dry run mode.
+     *
+     * @param wrapper executor wrapper
+     * @param props   properties of the executor, including auto tune guard rails
+     * @return the recommendation, null if nothing to change
+     */
+    public TuneRecommendation tune(ExecutorWrapper wrapper, DtpExecutorProps props) {
+        AutoTuneProps tuneProps = props.getAutoTune();
+        if (isAdaptiveLimited(wrapper)) {
+            return null;
+        }
+        ThreadPoolStats stats = ExecutorConverter.toMetrics(wrapper);
+        TuneState state = states.computeIfAbsent(wrapper.getThreadPoolName(), k -> new TuneState());
+        Direction direction = evaluate(stats, tuneProps, state);
+        state.lastQueueSize = stats.getQueueSize();
+        if (direction == state.direction) {
+            state.samples++;
+        } else {
+            state.direction = direction;
+            state.samples = 1;
+        }
+        long now = System.currentTimeMillis();
+        if (direction == Direction.NONE || state.samples < tuneProps.getStableSamples()
+                || now - state.lastChangeTime < TimeUnit.SECONDS.toMillis(tuneProps.getCoolDownSeconds())) {
+            return null;
+        }
+        TuneRecommendation recommendation = recommend(wrapper, stats, props, direction);
+        if (recommendation == null) {
+            return null;
+        }
+        state.lastChangeTime = now;
+        state.samples = 0;
+        recommendation.setTimestamp(now);
+        recommendations.put(wrapper.getThreadPoolName(), recommendation);
+        if (tuneProps.isDryRun()) {
+            log.info("DynamicTp auto tune, dry run recommendation: {}", recommendation);
+            return recommendation;
+        }
+        apply(props, recommendation);
+        recommendation.setApplied(true);
+        log.info("DynamicTp auto tune, applied recommendation: {}", recommendation);
+        return recommendation;
+    }
+
+    public Map<String, TuneRecommendation> getRecommendations() {
+        return Collections.unmodifiableMap(recommendations);
+    }
+
+    private Direction evaluate(ThreadPoolStats stats, AutoTuneProps tuneProps, TuneState state) {
+        // threads above core only start once the queue is full, so measure against the threads that take work
+        int workers = Math.max(1, Math.max(stats.getCorePoolSize(), stats.getPoolSize()));
+        double utilization = (double) stats.getActiveCount() / workers;
+        int queueSize = stats.getQueueSize();
+        boolean queueGrowing = queueSize > 0 && queueSize >= state.lastQueueSize;
+        long waitThreshold = tuneProps.getQueueWaitThreshold();
+        boolean waitExceeded = waitThreshold > 0 && stats.getQueueWaitP90() > waitThreshold;
+        if (utilization >= tuneProps.getScaleUpUtilization() && (queueGrowing || waitExceeded)) {
+            return Direction.UP;
+        }
+        if (utilization <= tuneProps.getScaleDownUtilization() && queueSize == 0 && !waitExceeded) {
+            return Direction.DOWN;
+        }
+        return Direction.NONE;
+    }
+
+    private TuneRecommendation recommend(ExecutorWrapper wrapper, ThreadPoolStats stats,
+                                         DtpExecutorProps props, Direction direction) {
+        AutoTuneProps tuneProps = props.getAutoTune();
+        int upper = tuneProps.getMaxPoolSize() > 0 ? tuneProps.getMaxPoolSize() : props.getMaximumPoolSize();
+        int lower = Math.min(Math.max(1, tuneProps.getMinPoolSize()), upper);
+        int core = stats.getCorePoolSize();
+        int max = stats.getMaximumPoolSize();
+        int capacity = stats.getQueueCapacity();
+        int newCore;
+        int newMax;
+        int newCapacity = capacity;
+        String reason;
+        if (direction == Direction.UP) {
+            newCore = Math.min(upper, core + step(core, tuneProps));
+            newMax = Math.max(max, newCore);
+            if (newCore == core && canTuneQueue(wrapper, tuneProps)) {
+                newCapacity = Math.min(tuneProps.getMaxQueueCapacity(), capacity + step(capacity, tuneProps));
+            }
+            reason = String.format("activeCount: %d, queueSize: %d, queueWaitP90: %.2fms",
+                    stats.getActiveCount(), stats.getQueueSize(), stats.getQueueWaitP90());
+        } else {
+            newCore = Math.max(lower, core - step(core, tuneProps));
+            newMax = Math.max(newCore, Math.max(lower, max - step(max, tuneProps)));
+            reason = String.format("activeCount: %d, maximumPoolSize: %d, queue empty",
+                    stats.getActiveCount(), max);
+        }
+        if (newCore == core && newMax == max && newCapacity == capacity) {
+            return null;
+        }
+        TuneRecommendation recommendation = new TuneRecommendation();
+        recommendation.setPoolName(wrapper.getThreadPoolName());
+        recommendation.setDirection(direction);
+        recommendation.setOldCorePoolSize(core);
+        recommendation.setOldMaximumPoolSize(max);
+        recommendation.setOldQueueCapacity(capacity);
+        recommendation.setCorePoolSize(newCore);
+        recommendation.setMaximumPoolSize(newMax);
+        recommendation.setQueueCapacity(newCapacity);
+        recommendation.setReason(reason);
+        return recommendation;
+    }
+
+    private void apply(DtpExecutorProps props, TuneRecommendation recommendation) {
+        DtpExecutorProps tuned = new DtpExecutorProps();
+        BeanUtils.copyProperties(props, tuned);
+        tuned.setCorePoolSize(recommendation.getCorePoolSize());
+        tuned.setMaximumPoolSize(recommendation.getMaximumPoolSize());
+        tuned.setQueueCapacity(recommendation.getQueueCapacity());
+        DtpProperties tunedProperties = new DtpProperties();
+        tunedProperties.setExecutors(Collections.singletonList(tuned));
+        DtpRegistry.refresh(tunedProperties);
+    }
+
+    private static int step(int value, AutoTuneProps tuneProps) {
+        return Math.max(1, (int) Math.ceil(value * tuneProps.getStepRatio()));
+    }
+
+    private static boolean canTuneQueue(ExecutorWrapper wrapper, AutoTuneProps tuneProps) {
+        BlockingQueue<Runnable> queue = wrapper.getExecutor().getQueue();
+        return tuneProps.getMaxQueueCapacity() > 0
+                && (queue instanceof VariableLinkedBlockingQueue || queue instanceof VariableCapacityQueue);
+    }
+
+    private static boolean isAdaptiveLimited(ExecutorWrapper wrapper) {
+        return wrapper.isDtpExecutor() && Objects.nonNull(((DtpExecutor) wrapper.getExecutor()).getAdaptiveLimiter());
+    }
+
+    private static class TuneState {
+
+        private Direction direction = Direction.NONE;
+
+        private int samples;
+
+        private int lastQueueSize;
+
+        private long lastChangeTime;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.monitor.tuner;
+
+import lombok.Data;
+
+/**
+ * Pool size and queue capacity recommended by {@link AutoTuner}.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Data
+public class TuneRecommendation {
+
+    private String poolName;
+
+    private Direction direction;
+
+    private int oldCorePoolSize;
+
+    private int oldMaximumPoolSize;
+
+    private int oldQueueCapacity;
+
+    private int corePoolSize;
+
+    private int maximumPoolSize;
+
+    private int queueCapacity;
+
+    private String reason;
+
+    /**
+     * Whether the recommendation has been applied, false in dry run mode.
+     */
+    private boolean applied;
+
+    private long timestamp;
+
+    public enum Direction {
+
+        /**
+         * Tune direction.
+         */
+        UP, DOWN, NONE
+    }
+}
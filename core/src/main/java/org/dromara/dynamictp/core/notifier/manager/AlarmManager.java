@@ -32,6 +32,7 @@ import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
 import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
 import org.dromara.dynamictp.core.support.task.wrapper.TaskWrappers;
 import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
 import com.google.common.collect.Sets;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -112,6 +113,8 @@ public class AlarmManager {
                 return checkCapacity(executor, notifyItem);
             case LIVENESS:
                 return checkLiveness(executor, notifyItem);
+            case LANE_SKEW:
+                return checkLaneSkew(executor, notifyItem);
             case REJECT:
             case RUN_TIMEOUT:
             case QUEUE_TIMEOUT:
@@ -139,6 +142,14 @@ public class AlarmManager {
         return div >= notifyItem.getThreshold();
     }
 
+    private static boolean checkLaneSkew(ExecutorWrapper executorWrapper, NotifyItem notifyItem) {
+        if (!(executorWrapper.getExecutor().getOriginal() instanceof OrderedDtpExecutor)) {
+            return false;
+        }
+        val executor = (OrderedDtpExecutor) executorWrapper.getExecutor().getOriginal();
+        return executor.getLaneSkew() * 100 >= notifyItem.getThreshold();
+    }
+
     private static boolean checkWithAlarmInfo(ExecutorWrapper executorWrapper, NotifyItem notifyItem) {
         AlarmInfo alarmInfo = AlarmCounter.getAlarmInfo(executorWrapper.getThreadPoolName(), notifyItem.getType());
         return alarmInfo.getCount() >= notifyItem.getThreshold();
@@ -44,6 +44,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.dromara.dynamictp.common.em.NotifyItemEnum.CAPACITY;
+import static org.dromara.dynamictp.common.em.NotifyItemEnum.LANE_SKEW;
 import static org.dromara.dynamictp.common.em.NotifyItemEnum.LIVENESS;
 import static org.dromara.dynamictp.common.em.NotifyItemEnum.QUEUE_TIMEOUT;
 import static org.dromara.dynamictp.common.em.NotifyItemEnum.REJECT;
@@ -74,6 +75,8 @@ public class NotifyHelper {
 
     private static final Set<String> QUEUE_TIMEOUT_ALARM_KEYS = Sets.newHashSet("queueTimeoutCount");
 
+    private static final Set<String> LANE_SKEW_ALARM_KEYS = Sets.newHashSet("queueSize", "activeCount");
+
     private static final Set<String> ALL_ALARM_KEYS;
 
     private static final Map<String, Set<String>> ALARM_KEYS = Maps.newHashMap();
@@ -84,6 +87,7 @@ public class NotifyHelper {
         ALARM_KEYS.put(REJECT.name(), REJECT_ALARM_KEYS);
         ALARM_KEYS.put(RUN_TIMEOUT.name(), RUN_TIMEOUT_ALARM_KEYS);
         ALARM_KEYS.put(QUEUE_TIMEOUT.name(), QUEUE_TIMEOUT_ALARM_KEYS);
+        ALARM_KEYS.put(LANE_SKEW.name(), LANE_SKEW_ALARM_KEYS);
 
         ALL_ALARM_KEYS = ALARM_KEYS.values().stream().flatMap(Collection::stream).collect(Collectors.toSet());
         ALL_ALARM_KEYS.addAll(COMMON_ALARM_KEYS);
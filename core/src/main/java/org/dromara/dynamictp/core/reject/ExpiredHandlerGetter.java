@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.reject;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.dynamictp.common.ex.DtpException;
+
+import java.util.Objects;
+import java.util.ServiceLoader;
+
+import static org.dromara.dynamictp.common.em.ExpiredHandlerTypeEnum.CANCEL_POLICY;
+import static org.dromara.dynamictp.common.em.ExpiredHandlerTypeEnum.DISCARD_POLICY;
+
+/**
+ * ExpiredHandlerGetter related
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Slf4j
+public class ExpiredHandlerGetter {
+
+    private ExpiredHandlerGetter() { }
+
+    public static ExpiredTaskHandler buildExpiredHandler(String name) {
+        if (Objects.equals(name, CANCEL_POLICY.getName())) {
+            return new ExpiredTaskHandler.CancelPolicy();
+        } else if (Objects.equals(name, DISCARD_POLICY.getName())) {
+            return new ExpiredTaskHandler.DiscardPolicy();
+        }
+
+        ServiceLoader<ExpiredTaskHandler> serviceLoader = ServiceLoader.load(ExpiredTaskHandler.class);
+        for (ExpiredTaskHandler handler : serviceLoader) {
+            String handlerName = handler.getClass().getSimpleName();
+            if (name.equalsIgnoreCase(handlerName)) {
+                return handler;
+            }
+        }
+
+        log.error("Cannot find specified expiredHandler {}", name);
+        throw new DtpException("Cannot find specified expiredHandler " + name);
+    }
+}
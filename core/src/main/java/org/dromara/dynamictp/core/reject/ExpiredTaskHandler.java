@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.reject;
+
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+
+import java.util.concurrent.Future;
+
+/**
+ * Handler of tasks dropped because they exceeded queueTimeout or their deadline before being run,
+ * custom handlers are loaded by SPI and specified by simple class name.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public interface ExpiredTaskHandler {
+
+    /**
+     * Handle the expired task, called by the worker that dequeued it.
+     *
+     * @param task     the task as submitted, a {@link Future} if submitted by submit
+     * @param executor the executor
+     */
+    void handle(Runnable task, DtpExecutor executor);
+
+    /**
+     * Cancel the future of the task so callers waiting on it fail fast, other tasks are just dropped.
+     */
+    class CancelPolicy implements ExpiredTaskHandler {
+
+        @Override
+        public void handle(Runnable task, DtpExecutor executor) {
+            if (task instanceof Future) {
+                ((Future<?>) task).cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Drop the task silently, futures of submitted tasks never complete, only for fire-and-forget tasks.
+     */
+    class DiscardPolicy implements ExpiredTaskHandler {
+
+        @Override
+        public void handle(Runnable task, DtpExecutor executor) {
+            // discard
+        }
+    }
+}
@@ -19,6 +19,10 @@ package org.dromara.dynamictp.core.spring;
 
 import org.dromara.dynamictp.common.entity.DtpExecutorProps;
 import org.dromara.dynamictp.common.properties.DtpProperties;
+import org.dromara.dynamictp.common.queue.BucketPriorityBlockingQueue;
+import org.dromara.dynamictp.common.queue.ByteBoundedBlockingQueue;
+import org.dromara.dynamictp.common.queue.CodelBlockingQueue;
+import org.dromara.dynamictp.common.queue.FairBlockingQueue;
 import org.dromara.dynamictp.common.util.BeanUtil;
 import org.dromara.dynamictp.core.reject.RejectHandlerGetter;
 import org.dromara.dynamictp.core.support.ExecutorType;
@@ -26,6 +30,8 @@ import org.dromara.dynamictp.core.support.TaskQueue;
 import org.dromara.dynamictp.core.support.task.wrapper.TaskWrappers;
 import org.dromara.dynamictp.core.thread.EagerDtpExecutor;
 import org.dromara.dynamictp.core.thread.NamedThreadFactory;
+import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
+import org.dromara.dynamictp.core.thread.PriorityDtpExecutor;
 import com.google.common.collect.Maps;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -39,19 +45,30 @@ import org.springframework.core.type.AnnotationMetadata;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.ADAPTIVE_LIMIT;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.ALLOW_CORE_THREAD_TIMEOUT;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.AWAIT_TERMINATION_SECONDS;
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.BATCH_SIZE;
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.EXPIRED_HANDLER_TYPE;
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.KEY_CAPACITY;
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.KEY_CONCURRENCY;
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.MAX_ACTIVE_KEYS;
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.M_1;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.NOTIFY_ENABLED;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.NOTIFY_ITEMS;
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.ORDERED_MODE;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.PLATFORM_IDS;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.PRE_START_ALL_CORE_THREADS;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.QUEUE_TIMEOUT;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.REJECT_ENHANCED;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.REJECT_HANDLER_TYPE;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.RUN_TIMEOUT;
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.SHED_EXPIRED_TASKS;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.TASK_WRAPPERS;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.THREAD_POOL_ALIAS_NAME;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.THREAD_POOL_NAME;
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.TIME_QUANTUM;
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.TIMEOUT_SCAN_ENABLED;
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.WAIT_FOR_TASKS_TO_COMPLETE_ON_SHUTDOWN;
 import static org.dromara.dynamictp.common.em.QueueTypeEnum.buildLbq;
 import static org.dromara.dynamictp.common.entity.NotifyItem.mergeAllNotifyItems;
@@ -102,6 +119,18 @@ public class DtpBeanDefinitionRegistrar implements ImportBeanDefinitionRegistrar
         propertyValues.put(REJECT_ENHANCED, props.isRejectEnhanced());
         propertyValues.put(RUN_TIMEOUT, props.getRunTimeout());
         propertyValues.put(QUEUE_TIMEOUT, props.getQueueTimeout());
+        propertyValues.put(TIMEOUT_SCAN_ENABLED, props.isTimeoutScanEnabled());
+        propertyValues.put(SHED_EXPIRED_TASKS, props.isShedExpiredTasks());
+        propertyValues.put(EXPIRED_HANDLER_TYPE, props.getExpiredHandlerType());
+        propertyValues.put(ADAPTIVE_LIMIT, props.getAdaptiveLimit());
+        if (OrderedDtpExecutor.class.isAssignableFrom(ExecutorType.getClass(props.getExecutorType()))) {
+            propertyValues.put(BATCH_SIZE, props.getOrderedBatchSize());
+            propertyValues.put(TIME_QUANTUM, props.getOrderedTimeQuantum());
+            propertyValues.put(ORDERED_MODE, props.getOrderedMode());
+            propertyValues.put(MAX_ACTIVE_KEYS, props.getOrderedMaxActiveKeys());
+            propertyValues.put(KEY_CAPACITY, props.getOrderedKeyCapacity());
+            propertyValues.put(KEY_CONCURRENCY, props.getOrderedKeyConcurrency());
+        }
 
         val notifyItems = mergeAllNotifyItems(props.getNotifyItems());
         propertyValues.put(NOTIFY_ITEMS, notifyItems);
@@ -118,11 +147,25 @@ public class DtpBeanDefinitionRegistrar implements ImportBeanDefinitionRegistrar
         BlockingQueue<Runnable> taskQueue;
         if (clazz.equals(EagerDtpExecutor.class)) {
             taskQueue = new TaskQueue(props.getQueueCapacity());
+        } else if (clazz.equals(PriorityDtpExecutor.class)) {
+            taskQueue = new BucketPriorityBlockingQueue<>(props.getQueueCapacity());
         } else {
             taskQueue = buildLbq(props.getQueueType(),
                     props.getQueueCapacity(),
                     props.isFair(),
                     props.getMaxFreeMemory());
+            if (taskQueue instanceof ByteBoundedBlockingQueue) {
+                ((ByteBoundedBlockingQueue<Runnable>) taskQueue).setByteCapacity((long) props.getQueueByteCapacity() * M_1);
+            } else if (taskQueue instanceof CodelBlockingQueue) {
+                CodelBlockingQueue<Runnable> codelQueue = (CodelBlockingQueue<Runnable>) taskQueue;
+                codelQueue.setTargetMillis(props.getCodelTarget());
+                codelQueue.setIntervalMillis(props.getCodelInterval());
+                codelQueue.setAdaptiveLifo(props.isCodelAdaptiveLifo());
+            } else if (taskQueue instanceof FairBlockingQueue) {
+                FairBlockingQueue<Runnable> fairQueue = (FairBlockingQueue<Runnable>) taskQueue;
+                fairQueue.setWeights(props.getTenantWeights());
+                fairQueue.setCapacities(props.getTenantCapacities(), props.getDefaultTenantCapacity());
+            }
         }
 
         return new Object[] {
@@ -22,6 +22,7 @@ import org.dromara.dynamictp.core.monitor.DtpMonitor;
 import org.dromara.dynamictp.core.notifier.manager.AlarmManager;
 import org.dromara.dynamictp.core.notifier.manager.NoticeManager;
 import org.dromara.dynamictp.core.support.DtpLifecycleSupport;
+import org.dromara.dynamictp.core.timer.TimeoutScanner;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.SmartLifecycle;
 
@@ -62,5 +63,6 @@ public class DtpLifecycle implements SmartLifecycle {
         DtpMonitor.destroy();
         AlarmManager.destroy();
         NoticeManager.destroy();
+        TimeoutScanner.destroy();
     }
 }
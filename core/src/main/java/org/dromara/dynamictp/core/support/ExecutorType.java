@@ -21,6 +21,9 @@ import org.dromara.dynamictp.core.thread.DtpExecutor;
 import org.dromara.dynamictp.core.thread.ScheduledDtpExecutor;
 import org.dromara.dynamictp.core.thread.EagerDtpExecutor;
 import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
+import org.dromara.dynamictp.core.thread.PriorityDtpExecutor;
+import org.dromara.dynamictp.core.thread.WorkStealingDtpExecutor;
+import org.dromara.dynamictp.core.thread.VirtualThreadDtpExecutor;
 import lombok.Getter;
 
 /**
@@ -38,7 +41,10 @@ public enum ExecutorType {
     COMMON("common", DtpExecutor.class),
     EAGER("eager", EagerDtpExecutor.class),
     SCHEDULED("scheduled", ScheduledDtpExecutor.class),
-    ORDERED("ordered", OrderedDtpExecutor.class);
+    ORDERED("ordered", OrderedDtpExecutor.class),
+    WORK_STEALING("work-stealing", WorkStealingDtpExecutor.class),
+    VIRTUAL("virtual", VirtualThreadDtpExecutor.class),
+    PRIORITY("priority", PriorityDtpExecutor.class);
 
     private final String name;
 
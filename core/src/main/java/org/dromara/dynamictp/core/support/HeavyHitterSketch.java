@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support;
+
+import org.dromara.dynamictp.common.util.HashUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the most frequent keys in fixed memory, counts are estimated by a count-min sketch and
+ * a few candidates with the highest estimates are kept as heavy hitters. Recording is lock-free,
+ * a candidate is only replaced when the lock is free, which may drop a few updates but never blocks.
+ * Counts are accumulated per interval, {@link #refresh()} swaps the interval and publishes the top keys of it.
+ * With a sample rate of N only about 1/N of the occurrences are recorded and the published counts are scaled back,
+ * which keeps hot paths off the shared counters at the cost of precision for rare keys.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class HeavyHitterSketch {
+
+    public static final int DEFAULT_TOP_N = 10;
+
+    private static final int DEPTH = 4;
+
+    /**
+     * Counters per row, must be a power of two.
+     */
+    private static final int WIDTH = 1024;
+
+    private final int topN;
+
+    private final int sampleRate;
+
+    private volatile Window window = new Window();
+
+    private volatile Map<String, Long> topKeys = Collections.emptyMap();
+
+    public HeavyHitterSketch() {
+        this(DEFAULT_TOP_N);
+    }
+
+    public HeavyHitterSketch(int topN) {
+        this(topN, 1);
+    }
+
+    public HeavyHitterSketch(int topN, int sampleRate) {
+        if (topN <= 0) {
+            throw new IllegalArgumentException("topN must be positive");
+        }
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate must be positive");
+        }
+        this.topN = topN;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Record an occurrence of the key, or skip it if it is not sampled.
+     *
+     * @param key the key
+     */
+    public void record(Object key) {
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+        window.add(key);
+    }
+
+    /**
+     * Swap the current interval and publish the top keys of it.
+     */
+    public synchronized void refresh() {
+        Window current = window;
+        window = new Window();
+        topKeys = current.top();
+    }
+
+    /**
+     * Get the top keys published by the last refresh.
+     *
+     * @return estimated count by key scaled by the sample rate, in descending order
+     */
+    public Map<String, Long> getTopKeys() {
+        return topKeys;
+    }
+
+    private final class Window {
+
+        private final AtomicLongArray counts = new AtomicLongArray(DEPTH * WIDTH);
+
+        /**
+         * Keys with the highest estimates, twice the reported number to absorb estimate noise.
+         */
+        private final Map<Object, Long> candidates = new ConcurrentHashMap<>();
+
+        private final ReentrantLock admitLock = new ReentrantLock();
+
+        /**
+         * Lowest estimate among the candidates once full, keys not above it are not admitted.
+         */
+        private volatile long floor;
+
+        void add(Object key) {
+            long hash = HashUtil.mix(key.hashCode());
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                int idx = row * WIDTH + (int) ((hash >>> (row * 16)) & (WIDTH - 1));
+                estimate = Math.min(estimate, counts.incrementAndGet(idx));
+            }
+            if (estimate <= floor) {
+                return;
+            }
+            final long count = estimate;
+            if (candidates.computeIfPresent(key, (k, v) -> Math.max(v, count)) == null && admitLock.tryLock()) {
+                try {
+                    admit(key, count);
+                } finally {
+                    admitLock.unlock();
+                }
+            }
+        }
+
+        private void admit(Object key, long estimate) {
+            int capacity = topN * 2;
+            if (candidates.size() >= capacity) {
+                Map.Entry<Object, Long> min = minCandidate();
+                if (min.getValue() >= estimate) {
+                    return;
+                }
+                candidates.remove(min.getKey());
+            }
+            candidates.put(key, estimate);
+            if (candidates.size() >= capacity) {
+                floor = minCandidate().getValue();
+            }
+        }
+
+        private Map.Entry<Object, Long> minCandidate() {
+            Map.Entry<Object, Long> min = null;
+            for (Map.Entry<Object, Long> entry : candidates.entrySet()) {
+                if (min == null || entry.getValue() < min.getValue()) {
+                    min = entry;
+                }
+            }
+            return min;
+        }
+
+        Map<String, Long> top() {
+            List<Map.Entry<Object, Long>> entries = new ArrayList<>(candidates.entrySet());
+            entries.sort(Map.Entry.<Object, Long>comparingByValue().reversed());
+            Map<String, Long> top = new LinkedHashMap<>(topN);
+            for (int i = 0; i < entries.size() && i < topN; i++) {
+                top.put(String.valueOf(entries.get(i).getKey()), entries.get(i).getValue() * sampleRate);
+            }
+            return Collections.unmodifiableMap(top);
+        }
+    }
+}
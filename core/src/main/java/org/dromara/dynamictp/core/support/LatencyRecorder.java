@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.dynamictp.core.support;
+
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records task latency into a fixed-memory histogram, recording is lock-free and allocation-free.
+ * Values are accumulated per interval, {@link #refresh()} swaps the interval and publishes a new snapshot.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class LatencyRecorder {
+
+    /**
+     * Max trackable latency in microseconds, larger values are clamped to it.
+     */
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    /**
+     * Reused by each refresh, only accessed under lock.
+     */
+    private Histogram intervalHistogram;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        if (micros < 0) {
+            micros = 0;
+        } else if (micros > HIGHEST_TRACKABLE_MICROS) {
+            micros = HIGHEST_TRACKABLE_MICROS;
+        }
+        recorder.recordValue(micros);
+    }
+
+    /**
+     * Swap the current interval and publish the percentiles of it.
+     */
+    public synchronized void refresh() {
+        intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+        snapshot = new Snapshot(intervalHistogram);
+    }
+
+    /**
+     * Get the snapshot published by the last refresh.
+     *
+     * @return latency snapshot
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Latency percentiles of one interval, unit (ms).
+     */
+    @Getter
+    public static class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot();
+
+        private final long count;
+
+        private final double p50;
+
+        private final double p90;
+
+        private final double p99;
+
+        private final double p999;
+
+        private final double max;
+
+        private Snapshot() {
+            this.count = 0;
+            this.p50 = 0;
+            this.p90 = 0;
+            this.p99 = 0;
+            this.p999 = 0;
+            this.max = 0;
+        }
+
+        private Snapshot(Histogram histogram) {
+            this.count = histogram.getTotalCount();
+            this.p50 = toMillis(histogram.getValueAtPercentile(50));
+            this.p90 = toMillis(histogram.getValueAtPercentile(90));
+            this.p99 = toMillis(histogram.getValueAtPercentile(99));
+            this.p999 = toMillis(histogram.getValueAtPercentile(99.9));
+            this.max = toMillis(histogram.getMaxValue());
+        }
+
+        private static double toMillis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -21,13 +21,26 @@ import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
 import org.dromara.dynamictp.core.thread.EagerDtpExecutor;
 import org.springframework.lang.NonNull;
 
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TaskQueue in the EagerDtpExecutor。
  * Mainly used in io intensive scenario.
  *
+ * <p>The queue keeps idleWorkers = workers waiting in take / poll - queued tasks, updated lock-free.
+ * A task is queued only if it can claim a waiting worker, otherwise offer returns false to let
+ * the executor create a new worker, and {@link EagerDtpExecutor} queues it anyway when the pool
+ * is already at maximum size. A worker whose poll times out leaves only if no producer claimed it
+ * meanwhile, otherwise it takes the claimed task instead of exiting with the task left queued.
+ * Once it left, the executor still counts it until it exits, so a task finding the pool at maximum
+ * size in that moment is queued for the remaining workers, the same keep alive boundary as
+ * {@link java.util.concurrent.ThreadPoolExecutor} has.
+ *
  * @author yanhom
  * @since 1.0.3
  **/
@@ -37,6 +50,11 @@ public class TaskQueue extends VariableLinkedBlockingQueue<Runnable> {
 
     private transient EagerDtpExecutor executor;
 
+    /**
+     * Waiting workers not claimed by queued tasks, negative when tasks queued without waiting workers.
+     */
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+
     public TaskQueue(int queueCapacity) {
         super(queueCapacity);
     }
@@ -45,25 +63,33 @@ public class TaskQueue extends VariableLinkedBlockingQueue<Runnable> {
         executor = exec;
     }
 
+    /**
+     * Get the number of waiting workers not claimed by queued tasks.
+     *
+     * @return idle worker count
+     */
+    public int getIdleWorkerCount() {
+        return Math.max(0, idleWorkers.get());
+    }
+
     @Override
     public boolean offer(@NonNull Runnable runnable) {
         if (executor == null) {
             throw new RejectedExecutionException("The task queue does not have executor.");
         }
-        int currentPoolThreadSize = executor.getPoolSize();
-        if (currentPoolThreadSize == executor.getMaximumPoolSize()) {
-            return super.offer(runnable);
-        }
-        // have free worker. put task into queue to let the worker deal with task.
-        if (executor.getSubmittedTaskCount() < currentPoolThreadSize) {
-            return super.offer(runnable);
+        // have free worker, claim it and put task into queue to let the worker deal with task.
+        int idle;
+        while ((idle = idleWorkers.get()) > 0) {
+            if (idleWorkers.compareAndSet(idle, idle - 1)) {
+                if (super.offer(runnable)) {
+                    return true;
+                }
+                idleWorkers.incrementAndGet();
+                return false;
+            }
         }
         // return false to let executor create new worker.
-        if (currentPoolThreadSize < executor.getMaximumPoolSize()) {
-            return false;
-        }
-        // currentPoolThreadSize >= max
-        return super.offer(runnable);
+        return false;
     }
 
     /**
@@ -80,6 +106,153 @@ public class TaskQueue extends VariableLinkedBlockingQueue<Runnable> {
         if (executor.isShutdown()) {
             throw new RejectedExecutionException("Executor is shutdown.");
         }
-        return super.offer(o, timeout, unit);
+        if (super.offer(o, timeout, unit)) {
+            idleWorkers.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Force offer task without waiting, used when the executor failed to create a new worker.
+     *
+     * @param o task
+     * @return false if executor is shutdown or queue is full
+     */
+    public boolean force(Runnable o) {
+        if (executor == null || executor.isShutdown()) {
+            return false;
+        }
+        if (super.offer(o)) {
+            idleWorkers.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean offer(Runnable runnable, long timeout, TimeUnit unit) throws InterruptedException {
+        if (super.offer(runnable, timeout, unit)) {
+            idleWorkers.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void put(Runnable runnable) throws InterruptedException {
+        super.put(runnable);
+        idleWorkers.decrementAndGet();
+    }
+
+    @Override
+    public int offerAll(List<? extends Runnable> c) {
+        int n = super.offerAll(c);
+        idleWorkers.addAndGet(-n);
+        return n;
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        idleWorkers.incrementAndGet();
+        try {
+            return super.take();
+        } catch (InterruptedException e) {
+            idleWorkers.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        idleWorkers.incrementAndGet();
+        Runnable r;
+        try {
+            r = super.poll(timeout, unit);
+        } catch (InterruptedException e) {
+            idleWorkers.decrementAndGet();
+            throw e;
+        }
+        return r != null ? r : leaveOrTakeClaimed();
+    }
+
+    /**
+     * Called after a poll timed out. No idle worker left means a producer claimed this one between
+     * the timeout and now, its task is queued or about to be, or the claim is given back if the
+     * queue is full.
+     *
+     * @return null if the worker left, or the claimed task
+     */
+    private Runnable leaveOrTakeClaimed() {
+        for (;;) {
+            int idle = idleWorkers.get();
+            if (idle > 0) {
+                if (idleWorkers.compareAndSet(idle, idle - 1)) {
+                    return null;
+                }
+                continue;
+            }
+            Runnable r = super.poll();
+            if (r != null) {
+                return r;
+            }
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        Runnable r = super.poll();
+        if (r != null) {
+            idleWorkers.incrementAndGet();
+        }
+        return r;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (super.remove(o)) {
+            idleWorkers.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        int n = super.drainTo(c, maxElements);
+        idleWorkers.addAndGet(n);
+        return n;
+    }
+
+    @Override
+    public void clear() {
+        int n = 0;
+        while (super.poll() != null) {
+            n++;
+        }
+        idleWorkers.addAndGet(n);
+    }
+
+    @Override
+    public Iterator<Runnable> iterator() {
+        Iterator<Runnable> it = super.iterator();
+        return new Iterator<Runnable>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                return it.next();
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+                idleWorkers.incrementAndGet();
+            }
+        };
     }
 }
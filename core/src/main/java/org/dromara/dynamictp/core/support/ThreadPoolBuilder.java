@@ -20,10 +20,17 @@ package org.dromara.dynamictp.core.support;
 import com.alibaba.ttl.TtlRunnable;
 import com.alibaba.ttl.threadpool.TtlExecutors;
 import org.dromara.dynamictp.common.constant.DynamicTpConst;
+import org.dromara.dynamictp.common.em.ExpiredHandlerTypeEnum;
 import org.dromara.dynamictp.common.em.NotifyItemEnum;
+import org.dromara.dynamictp.common.em.OrderedModeEnum;
 import org.dromara.dynamictp.common.em.QueueTypeEnum;
 import org.dromara.dynamictp.common.em.RejectedTypeEnum;
+import org.dromara.dynamictp.common.entity.AdaptiveLimitProps;
 import org.dromara.dynamictp.common.entity.NotifyItem;
+import org.dromara.dynamictp.common.queue.BucketPriorityBlockingQueue;
+import org.dromara.dynamictp.common.queue.ByteBoundedBlockingQueue;
+import org.dromara.dynamictp.common.queue.CodelBlockingQueue;
+import org.dromara.dynamictp.common.queue.FairBlockingQueue;
 import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
 import org.dromara.dynamictp.core.reject.RejectHandlerGetter;
 import org.dromara.dynamictp.core.support.task.wrapper.TaskWrapper;
@@ -31,13 +38,17 @@ import org.dromara.dynamictp.core.thread.DtpExecutor;
 import org.dromara.dynamictp.core.thread.EagerDtpExecutor;
 import org.dromara.dynamictp.core.thread.NamedThreadFactory;
 import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
+import org.dromara.dynamictp.core.thread.PriorityDtpExecutor;
 import org.dromara.dynamictp.core.thread.ScheduledDtpExecutor;
+import org.dromara.dynamictp.core.thread.VirtualThreadDtpExecutor;
+import org.dromara.dynamictp.core.thread.WorkStealingDtpExecutor;
 import com.google.common.collect.Lists;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.Assert;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
@@ -46,6 +57,8 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.M_1;
+
 /**
  * Builder for creating a ThreadPoolExecutor gracefully.
  *
@@ -96,6 +109,41 @@ public class ThreadPoolBuilder {
      */
     private int maxFreeMemory = 256;
 
+    /**
+     * Max estimated bytes of queued tasks for ByteBoundedBlockingQueue, unit M
+     */
+    private int queueByteCapacity = 64;
+
+    /**
+     * Acceptable standing sojourn time for CodelBlockingQueue, unit (ms)
+     */
+    private long codelTarget = CodelBlockingQueue.DEFAULT_TARGET_MILLIS;
+
+    /**
+     * Interval CodelBlockingQueue tracks the minimum sojourn time over, unit (ms)
+     */
+    private long codelInterval = CodelBlockingQueue.DEFAULT_INTERVAL_MILLIS;
+
+    /**
+     * If CodelBlockingQueue serves the newest task first while overloaded
+     */
+    private boolean codelAdaptiveLifo = false;
+
+    /**
+     * Weights of tenants for FairBlockingQueue, tenants not configured have weight 1
+     */
+    private Map<String, Integer> tenantWeights;
+
+    /**
+     * Max queued tasks of tenants for FairBlockingQueue
+     */
+    private Map<String, Integer> tenantCapacities;
+
+    /**
+     * Max queued tasks of tenants not configured in tenantCapacities, 0 means no cap
+     */
+    private int defaultTenantCapacity = 0;
+
     /**
      * RejectedExecutionHandler, see {@link RejectedTypeEnum}
      */
@@ -146,6 +194,22 @@ public class ThreadPoolBuilder {
      */
     private boolean scheduled = false;
 
+    /**
+     * If work stealing executor backed by ForkJoinPool, default false.
+     * Workers are ForkJoinWorkerThreads, only name prefix, daemon and priority of the thread factory are applied.
+     */
+    private boolean workStealing = false;
+
+    /**
+     * If virtual thread executor, default false.
+     */
+    private boolean virtual = false;
+
+    /**
+     * If priority executor, default false.
+     */
+    private boolean priority = false;
+
     /**
      * If pre start all core threads.
      */
@@ -166,6 +230,57 @@ public class ThreadPoolBuilder {
      */
     private long queueTimeout = 0;
 
+    /**
+     * If detect run and queue timeout by a periodic scanner instead of registering timer for each task.
+     */
+    private boolean timeoutScanEnabled = false;
+
+    /**
+     * If drop tasks that exceeded queueTimeout or their own deadline when dequeued, instead of running them.
+     */
+    private boolean shedExpiredTasks = false;
+
+    /**
+     * Handler of the dropped expired tasks, see {@link ExpiredHandlerTypeEnum}
+     */
+    private String expiredHandlerType = ExpiredHandlerTypeEnum.CANCEL_POLICY.getName();
+
+    /**
+     * Max tasks a child executor of OrderedDtpExecutor runs per turn before yielding its thread
+     */
+    private int orderedBatchSize = OrderedDtpExecutor.DEFAULT_BATCH_SIZE;
+
+    /**
+     * Max time a child executor of OrderedDtpExecutor runs per turn before yielding its thread,
+     * unit (ms), 0 means no limit
+     */
+    private long orderedTimeQuantum = 0;
+
+    /**
+     * Ordered mode of OrderedDtpExecutor, see {@link OrderedModeEnum}
+     */
+    private String orderedMode = OrderedModeEnum.LANE.getName();
+
+    /**
+     * Max keys having queued or running tasks in key and key limit ordered mode
+     */
+    private int orderedMaxActiveKeys = OrderedDtpExecutor.DEFAULT_MAX_ACTIVE_KEYS;
+
+    /**
+     * Max queued tasks of a key in key and key limit ordered mode, 0 means the queue capacity
+     */
+    private int orderedKeyCapacity = 0;
+
+    /**
+     * Max running tasks of a key in key limit ordered mode
+     */
+    private int orderedKeyConcurrency = 1;
+
+    /**
+     * Adaptive concurrency limit, disabled by default.
+     */
+    private AdaptiveLimitProps adaptiveLimit;
+
     /**
      * Task wrappers.
      */
@@ -277,6 +392,37 @@ public class ThreadPoolBuilder {
         return this;
     }
 
+    public ThreadPoolBuilder queueByteCapacity(int queueByteCapacity) {
+        this.queueByteCapacity = queueByteCapacity;
+        return this;
+    }
+
+    public ThreadPoolBuilder codelTarget(long codelTarget) {
+        this.codelTarget = codelTarget;
+        return this;
+    }
+
+    public ThreadPoolBuilder codelInterval(long codelInterval) {
+        this.codelInterval = codelInterval;
+        return this;
+    }
+
+    public ThreadPoolBuilder codelAdaptiveLifo(boolean codelAdaptiveLifo) {
+        this.codelAdaptiveLifo = codelAdaptiveLifo;
+        return this;
+    }
+
+    public ThreadPoolBuilder tenantWeights(Map<String, Integer> tenantWeights) {
+        this.tenantWeights = tenantWeights;
+        return this;
+    }
+
+    public ThreadPoolBuilder tenantCapacities(Map<String, Integer> tenantCapacities, int defaultTenantCapacity) {
+        this.tenantCapacities = tenantCapacities;
+        this.defaultTenantCapacity = defaultTenantCapacity;
+        return this;
+    }
+
     public ThreadPoolBuilder rejectedExecutionHandler(String rejectedName) {
         if (StringUtils.isNotBlank(rejectedName)) {
             rejectedExecutionHandler = RejectHandlerGetter.buildRejectedHandler(rejectedName);
@@ -333,6 +479,21 @@ public class ThreadPoolBuilder {
         return this;
     }
 
+    public ThreadPoolBuilder workStealing(boolean workStealing) {
+        this.workStealing = workStealing;
+        return this;
+    }
+
+    public ThreadPoolBuilder virtual(boolean virtual) {
+        this.virtual = virtual;
+        return this;
+    }
+
+    public ThreadPoolBuilder priority(boolean priority) {
+        this.priority = priority;
+        return this;
+    }
+
     public ThreadPoolBuilder preStartAllCoreThreads(boolean preStartAllCoreThreads) {
         this.preStartAllCoreThreads = preStartAllCoreThreads;
         return this;
@@ -353,6 +514,56 @@ public class ThreadPoolBuilder {
         return this;
     }
 
+    public ThreadPoolBuilder timeoutScanEnabled(boolean timeoutScanEnabled) {
+        this.timeoutScanEnabled = timeoutScanEnabled;
+        return this;
+    }
+
+    public ThreadPoolBuilder shedExpiredTasks(boolean shedExpiredTasks) {
+        this.shedExpiredTasks = shedExpiredTasks;
+        return this;
+    }
+
+    public ThreadPoolBuilder expiredHandlerType(String expiredHandlerType) {
+        this.expiredHandlerType = expiredHandlerType;
+        return this;
+    }
+
+    public ThreadPoolBuilder orderedBatchSize(int orderedBatchSize) {
+        this.orderedBatchSize = orderedBatchSize;
+        return this;
+    }
+
+    public ThreadPoolBuilder orderedTimeQuantum(long orderedTimeQuantum) {
+        this.orderedTimeQuantum = orderedTimeQuantum;
+        return this;
+    }
+
+    public ThreadPoolBuilder orderedMode(String orderedMode) {
+        this.orderedMode = orderedMode;
+        return this;
+    }
+
+    public ThreadPoolBuilder orderedMaxActiveKeys(int orderedMaxActiveKeys) {
+        this.orderedMaxActiveKeys = orderedMaxActiveKeys;
+        return this;
+    }
+
+    public ThreadPoolBuilder orderedKeyCapacity(int orderedKeyCapacity) {
+        this.orderedKeyCapacity = orderedKeyCapacity;
+        return this;
+    }
+
+    public ThreadPoolBuilder orderedKeyConcurrency(int orderedKeyConcurrency) {
+        this.orderedKeyConcurrency = orderedKeyConcurrency;
+        return this;
+    }
+
+    public ThreadPoolBuilder adaptiveLimit(AdaptiveLimitProps adaptiveLimit) {
+        this.adaptiveLimit = adaptiveLimit;
+        return this;
+    }
+
     public ThreadPoolBuilder taskWrappers(List<TaskWrapper> taskWrappers) {
         this.taskWrappers.addAll(taskWrappers);
         return this;
@@ -436,6 +647,7 @@ public class ThreadPoolBuilder {
      */
     private DtpExecutor buildDtpExecutor(ThreadPoolBuilder builder) {
         Assert.notNull(builder.threadPoolName, "The thread pool name must not be null.");
+        builder.initQueueProps();
         DtpExecutor dtpExecutor = createInternal(builder);
         dtpExecutor.setThreadPoolName(builder.threadPoolName);
         dtpExecutor.allowCoreThreadTimeOut(builder.allowCoreThreadTimeOut);
@@ -445,56 +657,139 @@ public class ThreadPoolBuilder {
         dtpExecutor.setRejectEnhanced(builder.rejectEnhanced);
         dtpExecutor.setRunTimeout(builder.runTimeout);
         dtpExecutor.setQueueTimeout(builder.queueTimeout);
+        if (builder.timeoutScanEnabled) {
+            dtpExecutor.setTimeoutScanEnabled(true);
+        }
+        dtpExecutor.setShedExpiredTasks(builder.shedExpiredTasks);
+        dtpExecutor.setExpiredHandlerType(builder.expiredHandlerType);
         dtpExecutor.setTaskWrappers(builder.taskWrappers);
         dtpExecutor.setNotifyItems(builder.notifyItems);
         dtpExecutor.setPlatformIds(builder.platformIds);
         dtpExecutor.setNotifyEnabled(builder.notifyEnabled);
         dtpExecutor.setRejectHandler(builder.rejectedExecutionHandler);
+        dtpExecutor.setAdaptiveLimit(builder.adaptiveLimit);
         return dtpExecutor;
     }
 
+    private void initQueueProps() {
+        if (workQueue instanceof ByteBoundedBlockingQueue) {
+            ((ByteBoundedBlockingQueue<Runnable>) workQueue).setByteCapacity((long) queueByteCapacity * M_1);
+        } else if (workQueue instanceof CodelBlockingQueue) {
+            CodelBlockingQueue<Runnable> codelQueue = (CodelBlockingQueue<Runnable>) workQueue;
+            codelQueue.setTargetMillis(codelTarget);
+            codelQueue.setIntervalMillis(codelInterval);
+            codelQueue.setAdaptiveLifo(codelAdaptiveLifo);
+        } else if (workQueue instanceof FairBlockingQueue) {
+            FairBlockingQueue<Runnable> fairQueue = (FairBlockingQueue<Runnable>) workQueue;
+            fairQueue.setWeights(tenantWeights);
+            fairQueue.setCapacities(tenantCapacities, defaultTenantCapacity);
+        }
+    }
+
     private DtpExecutor createInternal(ThreadPoolBuilder builder) {
-        DtpExecutor dtpExecutor;
         if (ioIntensive) {
-            TaskQueue taskQueue = new TaskQueue(builder.queueCapacity);
-            dtpExecutor = new EagerDtpExecutor(
-                    builder.corePoolSize,
-                    builder.maximumPoolSize,
-                    builder.keepAliveTime,
-                    builder.timeUnit,
-                    taskQueue,
-                    builder.threadFactory,
-                    builder.rejectedExecutionHandler);
-            taskQueue.setExecutor((EagerDtpExecutor) dtpExecutor);
+            return createEagerExecutor(builder);
         } else if (ordered) {
-            dtpExecutor = new OrderedDtpExecutor(
-                    builder.corePoolSize,
-                    builder.maximumPoolSize,
-                    builder.keepAliveTime,
-                    builder.timeUnit,
-                    builder.workQueue,
-                    builder.threadFactory,
-                    builder.rejectedExecutionHandler);
+            return createOrderedExecutor(builder);
         } else if (scheduled) {
-            dtpExecutor = new ScheduledDtpExecutor(
-                    builder.corePoolSize,
-                    builder.maximumPoolSize,
-                    builder.keepAliveTime,
-                    builder.timeUnit,
-                    builder.workQueue,
-                    builder.threadFactory,
-                    builder.rejectedExecutionHandler);
-        } else {
-            dtpExecutor = new DtpExecutor(
-                    builder.corePoolSize,
-                    builder.maximumPoolSize,
-                    builder.keepAliveTime,
-                    builder.timeUnit,
-                    builder.workQueue,
-                    builder.threadFactory,
-                    builder.rejectedExecutionHandler);
+            return createScheduledExecutor(builder);
+        } else if (workStealing) {
+            return createWorkStealingExecutor(builder);
+        } else if (priority) {
+            return createPriorityExecutor(builder);
+        } else if (virtual) {
+            return createVirtualThreadExecutor(builder);
         }
-        return dtpExecutor;
+        return createDefaultExecutor(builder);
+    }
+
+    private DtpExecutor createEagerExecutor(ThreadPoolBuilder builder) {
+        TaskQueue taskQueue = new TaskQueue(builder.queueCapacity);
+        EagerDtpExecutor executor = new EagerDtpExecutor(
+                builder.corePoolSize,
+                builder.maximumPoolSize,
+                builder.keepAliveTime,
+                builder.timeUnit,
+                taskQueue,
+                builder.threadFactory,
+                builder.rejectedExecutionHandler);
+        taskQueue.setExecutor(executor);
+        return executor;
+    }
+
+    private DtpExecutor createOrderedExecutor(ThreadPoolBuilder builder) {
+        OrderedDtpExecutor executor = new OrderedDtpExecutor(
+                builder.corePoolSize,
+                builder.maximumPoolSize,
+                builder.keepAliveTime,
+                builder.timeUnit,
+                builder.workQueue,
+                builder.threadFactory,
+                builder.rejectedExecutionHandler);
+        executor.setBatchSize(builder.orderedBatchSize);
+        executor.setTimeQuantum(builder.orderedTimeQuantum);
+        executor.setOrderedMode(builder.orderedMode);
+        executor.setMaxActiveKeys(builder.orderedMaxActiveKeys);
+        executor.setKeyCapacity(builder.orderedKeyCapacity);
+        executor.setKeyConcurrency(builder.orderedKeyConcurrency);
+        return executor;
+    }
+
+    private DtpExecutor createScheduledExecutor(ThreadPoolBuilder builder) {
+        return new ScheduledDtpExecutor(
+                builder.corePoolSize,
+                builder.maximumPoolSize,
+                builder.keepAliveTime,
+                builder.timeUnit,
+                builder.workQueue,
+                builder.threadFactory,
+                builder.rejectedExecutionHandler);
+    }
+
+    private DtpExecutor createWorkStealingExecutor(ThreadPoolBuilder builder) {
+        return new WorkStealingDtpExecutor(
+                builder.corePoolSize,
+                builder.maximumPoolSize,
+                builder.keepAliveTime,
+                builder.timeUnit,
+                builder.workQueue,
+                builder.threadFactory,
+                builder.rejectedExecutionHandler);
+    }
+
+    private DtpExecutor createPriorityExecutor(ThreadPoolBuilder builder) {
+        BlockingQueue<Runnable> queue = builder.workQueue instanceof BucketPriorityBlockingQueue ?
+                builder.workQueue : new BucketPriorityBlockingQueue<>(builder.queueCapacity);
+        return new PriorityDtpExecutor(
+                builder.corePoolSize,
+                builder.maximumPoolSize,
+                builder.keepAliveTime,
+                builder.timeUnit,
+                queue,
+                builder.threadFactory,
+                builder.rejectedExecutionHandler);
+    }
+
+    private DtpExecutor createVirtualThreadExecutor(ThreadPoolBuilder builder) {
+        return new VirtualThreadDtpExecutor(
+                builder.corePoolSize,
+                builder.maximumPoolSize,
+                builder.keepAliveTime,
+                builder.timeUnit,
+                builder.workQueue,
+                builder.threadFactory,
+                builder.rejectedExecutionHandler);
+    }
+
+    private DtpExecutor createDefaultExecutor(ThreadPoolBuilder builder) {
+        return new DtpExecutor(
+                builder.corePoolSize,
+                builder.maximumPoolSize,
+                builder.keepAliveTime,
+                builder.timeUnit,
+                builder.workQueue,
+                builder.threadFactory,
+                builder.rejectedExecutionHandler);
     }
 
     /**
@@ -504,6 +799,7 @@ public class ThreadPoolBuilder {
      * @return the newly created ThreadPoolExecutor instance
      */
     private ThreadPoolExecutor buildCommonExecutor(ThreadPoolBuilder builder) {
+        builder.initQueueProps();
         ThreadPoolExecutor executor = new ThreadPoolExecutor(
                 builder.corePoolSize,
                 builder.maximumPoolSize,
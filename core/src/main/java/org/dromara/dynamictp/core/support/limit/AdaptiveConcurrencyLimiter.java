@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.limit;
+
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.dynamictp.common.entity.AdaptiveLimitProps;
+import org.dromara.dynamictp.common.entity.TpMainFields;
+import org.dromara.dynamictp.core.DtpRegistry;
+import org.dromara.dynamictp.core.converter.ExecutorConverter;
+import org.dromara.dynamictp.core.notifier.manager.NoticeManager;
+import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adjusts the concurrency limit of a {@link DtpExecutor} by the run time of its tasks.
+ * Samples are aggregated per window, the thread completing the first task after a window ends
+ * computes the new limit and applies it through setCorePoolSize / setMaximumPoolSize,
+ * work exceeding the limit is queued or rejected by the executor as usual.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final List<String> CHANGED_KEYS = Lists.newArrayList("corePoolSize", "maxPoolSize");
+
+    private final DtpExecutor executor;
+
+    private final AdaptiveLimitProps props;
+
+    private final LimitAlgorithm algorithm;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long windowNanos;
+
+    private volatile int limit;
+
+    private volatile long windowStart = System.nanoTime();
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final AtomicInteger maxInflight = new AtomicInteger();
+
+    private final LongAdder rttSum = new LongAdder();
+
+    private final LongAdder samples = new LongAdder();
+
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    private final LongAdder adjustCount = new LongAdder();
+
+    private long lastDroppedCount;
+
+    private int lastNoticedLimit;
+
+    public AdaptiveConcurrencyLimiter(DtpExecutor executor, AdaptiveLimitProps props) {
+        this.executor = executor;
+        this.props = props;
+        this.algorithm = LimitAlgorithm.of(props);
+        this.maxLimit = props.getMaxLimit() > 0 ? props.getMaxLimit() : executor.getMaximumPoolSize();
+        this.minLimit = Math.max(1, Math.min(props.getMinLimit(), maxLimit));
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(props.getWindowMillis());
+        this.lastDroppedCount = droppedCount();
+        int initialLimit = clamp(executor.getCorePoolSize());
+        this.lastNoticedLimit = initialLimit;
+        applyLimit(initialLimit);
+    }
+
+    public AdaptiveLimitProps getProps() {
+        return props;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public long getAdjustCount() {
+        return adjustCount.sum();
+    }
+
+    /**
+     * Called before a task runs.
+     */
+    public void onStart() {
+        int current = inflight.incrementAndGet();
+        if (current > maxInflight.get()) {
+            maxInflight.accumulateAndGet(current, Math::max);
+        }
+    }
+
+    /**
+     * Called after a task completes.
+     *
+     * @param rttNanos run time of the task
+     */
+    public void onComplete(long rttNanos) {
+        // limiter may be replaced while tasks running
+        inflight.updateAndGet(x -> x > 0 ? x - 1 : 0);
+        rttSum.add(rttNanos);
+        samples.increment();
+        long now = System.nanoTime();
+        if (now - windowStart < windowNanos || !updating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (samples.sum() >= props.getMinWindowSamples()) {
+                update(now);
+            }
+        } catch (Exception e) {
+            log.error("DynamicTp adaptive limit, update limit error, poolName: {}", executor.getThreadPoolName(), e);
+        } finally {
+            updating.set(false);
+        }
+    }
+
+    private void update(long now) {
+        long count = samples.sumThenReset();
+        long sum = rttSum.sumThenReset();
+        int windowMaxInflight = maxInflight.getAndSet(inflight.get());
+        long dropped = droppedCount();
+        LimitWindow window = new LimitWindow(sum / Math.max(1, count), windowMaxInflight, count,
+                dropped > lastDroppedCount);
+        lastDroppedCount = dropped;
+        windowStart = now;
+        int newLimit = clamp(algorithm.update(limit, window));
+        if (newLimit != limit) {
+            adjust(newLimit);
+        }
+    }
+
+    private void adjust(int newLimit) {
+        int oldLimit = limit;
+        ExecutorWrapper wrapper = null;
+        TpMainFields oldFields = null;
+        if (Math.abs(newLimit - lastNoticedLimit) > lastNoticedLimit * props.getNoticeThreshold()) {
+            wrapper = registeredWrapper();
+            if (wrapper != null) {
+                oldFields = ExecutorConverter.toMainFields(wrapper);
+            }
+            lastNoticedLimit = newLimit;
+        }
+        applyLimit(newLimit);
+        adjustCount.increment();
+        log.debug("DynamicTp adaptive limit, poolName: {}, limit: {} => {}",
+                executor.getThreadPoolName(), oldLimit, newLimit);
+        if (oldFields != null) {
+            NoticeManager.doNoticeAsync(wrapper, oldFields, CHANGED_KEYS);
+        }
+    }
+
+    private void applyLimit(int newLimit) {
+        if (newLimit > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(newLimit);
+            executor.setCorePoolSize(newLimit);
+        } else {
+            executor.setCorePoolSize(newLimit);
+            executor.setMaximumPoolSize(newLimit);
+        }
+        limit = newLimit;
+    }
+
+    private ExecutorWrapper registeredWrapper() {
+        if (!executor.isNotifyEnabled()) {
+            return null;
+        }
+        ExecutorWrapper wrapper = DtpRegistry.listAllExecutors().get(executor.getThreadPoolName());
+        return wrapper != null && wrapper.getExecutor() == executor ? wrapper : null;
+    }
+
+    /**
+     * Only run timeouts are a latency signal, rejections are excluded as a burst rejected by a full queue
+     * would otherwise keep shrinking the limit, making rejections even more likely.
+     */
+    private long droppedCount() {
+        return executor.getRunTimeoutCount();
+    }
+
+    private int clamp(int value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
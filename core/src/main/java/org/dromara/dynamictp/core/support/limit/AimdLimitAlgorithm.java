@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.limit;
+
+import org.dromara.dynamictp.common.entity.AdaptiveLimitProps;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Additive increase multiplicative decrease, the limit is increased by one when the window
+ * is not overloaded and the limit is utilized, and multiplied by backoffRatio when overloaded.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class AimdLimitAlgorithm implements LimitAlgorithm {
+
+    private final double backoffRatio;
+
+    private final long latencyThreshold;
+
+    public AimdLimitAlgorithm(AdaptiveLimitProps props) {
+        this.backoffRatio = props.getBackoffRatio();
+        this.latencyThreshold = TimeUnit.MILLISECONDS.toNanos(props.getLatencyThreshold());
+    }
+
+    @Override
+    public int update(int limit, LimitWindow window) {
+        boolean overloaded = window.isDropped() || (latencyThreshold > 0 && window.getAvgRtt() > latencyThreshold);
+        if (overloaded) {
+            return (int) (limit * backoffRatio);
+        }
+        if (window.getMaxInflight() * 2 >= limit) {
+            return limit + 1;
+        }
+        return limit;
+    }
+}
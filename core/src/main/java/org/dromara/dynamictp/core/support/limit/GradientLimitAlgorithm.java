@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.limit;
+
+import org.dromara.dynamictp.common.entity.AdaptiveLimitProps;
+
+/**
+ * Gradient limit, compares the short term (last window) run time with an exponentially averaged long term
+ * run time, the limit is decreased when tasks slow down, and grows by sqrt(limit) while run time is stable.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class GradientLimitAlgorithm implements LimitAlgorithm {
+
+    private static final double LONG_RTT_DECAY = 0.9;
+
+    private final double rttTolerance;
+
+    private final double smoothing;
+
+    private double longRtt;
+
+    private double estimatedLimit;
+
+    public GradientLimitAlgorithm(AdaptiveLimitProps props) {
+        this.rttTolerance = props.getRttTolerance();
+        this.smoothing = props.getSmoothing();
+    }
+
+    @Override
+    public int update(int limit, LimitWindow window) {
+        double shortRtt = Math.max(1, window.getAvgRtt());
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt = longRtt * LONG_RTT_DECAY + shortRtt * (1 - LONG_RTT_DECAY);
+        }
+        // speed up recovery of long term run time after a long period of slow tasks
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if ((int) estimatedLimit != limit) {
+            estimatedLimit = limit;
+        }
+        // app limited, there is no evidence that a higher limit is safe
+        if (!window.isDropped() && window.getMaxInflight() * 2 < limit) {
+            return limit;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double queueSize = Math.sqrt(estimatedLimit);
+        if (window.isDropped()) {
+            gradient = Math.min(gradient, 0.9);
+            queueSize = 0;
+        }
+        double newLimit = estimatedLimit * gradient + queueSize;
+        estimatedLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        return (int) estimatedLimit;
+    }
+}
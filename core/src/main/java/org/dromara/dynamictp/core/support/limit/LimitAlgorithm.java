@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.limit;
+
+import org.dromara.dynamictp.common.entity.AdaptiveLimitProps;
+import org.dromara.dynamictp.common.ex.DtpException;
+
+/**
+ * Algorithm to compute the concurrency limit by samples of a window.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public interface LimitAlgorithm {
+
+    String AIMD = "aimd";
+
+    String GRADIENT = "gradient";
+
+    /**
+     * Compute the new limit, the result will be clamped to the configured bounds.
+     *
+     * @param limit  current limit
+     * @param window samples of last window
+     * @return new limit
+     */
+    int update(int limit, LimitWindow window);
+
+    static LimitAlgorithm of(AdaptiveLimitProps props) {
+        if (AIMD.equalsIgnoreCase(props.getAlgorithm())) {
+            return new AimdLimitAlgorithm(props);
+        } else if (GRADIENT.equalsIgnoreCase(props.getAlgorithm())) {
+            return new GradientLimitAlgorithm(props);
+        }
+        throw new DtpException("Unsupported adaptive limit algorithm: " + props.getAlgorithm());
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.limit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Samples aggregated in a limit window.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Getter
+@AllArgsConstructor
+public class LimitWindow {
+
+    /**
+     * Average task run time, unit (ns).
+     */
+    private final long avgRtt;
+
+    /**
+     * Max tasks running at the same time.
+     */
+    private final int maxInflight;
+
+    /**
+     * Number of samples.
+     */
+    private final long samples;
+
+    /**
+     * Whether tasks run timeout in the window.
+     */
+    private final boolean dropped;
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.selector;
+
+import org.dromara.dynamictp.common.util.HashUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable consistent hash ring, each member is placed on the ring by virtual nodes derived from
+ * its index in the member list. Rings built from lists sharing a prefix agree on most keys, appending
+ * or removing the last of n members moves about 1/n of the keys.
+ *
+ * @param <T> the type of members
+ * @author agent
+ * @since 1.1.4
+ **/
+public class ConsistentHashRing<T> {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    /**
+     * Salt of virtual node hashes, keeps them apart from the hashes of small integer keys.
+     */
+    private static final long NODE_SEED = 0x9E3779B97F4A7C15L;
+
+    private final List<T> members;
+
+    /**
+     * Sorted virtual node positions, each packs the hash in the high 32 bits and member index in the low bits.
+     */
+    private final long[] nodes;
+
+    public ConsistentHashRing(List<T> members) {
+        this(members, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(List<T> members, int virtualNodes) {
+        if (members.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.members = members;
+        this.nodes = new long[members.size() * virtualNodes];
+        int n = 0;
+        for (int i = 0; i < members.size(); i++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int hash = (int) HashUtil.mix((((long) i << 32) | v) ^ NODE_SEED);
+                nodes[n++] = ((long) hash << 32) | i;
+            }
+        }
+        Arrays.sort(nodes);
+    }
+
+    /**
+     * Select the member owning the key, i.e. the first virtual node clockwise from the key hash.
+     *
+     * @param key the key
+     * @return member
+     */
+    public T select(Object key) {
+        long position = ((long) (int) HashUtil.mix(key.hashCode())) << 32;
+        int idx = Arrays.binarySearch(nodes, position);
+        if (idx < 0) {
+            idx = -idx - 1;
+        }
+        if (idx == nodes.length) {
+            idx = 0;
+        }
+        return members.get((int) nodes[idx]);
+    }
+
+    public List<T> getMembers() {
+        return members;
+    }
+
+    public int size() {
+        return members.size();
+    }
+}
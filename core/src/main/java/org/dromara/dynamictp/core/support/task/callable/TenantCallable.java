@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.task.callable;
+
+import org.dromara.dynamictp.core.support.task.Tenanted;
+
+import java.util.concurrent.Callable;
+
+/**
+ * TenantCallable related
+ *
+ * @param <C> the result type of method
+ * @author agent
+ * @since 1.1.4
+ **/
+public interface TenantCallable<C> extends Tenanted, Callable<C> {
+
+    static <C> TenantCallable<C> of(Callable<C> callable, String tenant) {
+        return new TenantCallable<C>() {
+            @Override
+            public String tenant() {
+                return tenant;
+            }
+
+            @Override
+            public C call() throws Exception {
+                return callable.call();
+            }
+        };
+    }
+}
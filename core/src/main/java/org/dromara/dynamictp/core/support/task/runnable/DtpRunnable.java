@@ -17,15 +17,17 @@
 
 package org.dromara.dynamictp.core.support.task.runnable;
 
-import org.dromara.dynamictp.common.ApplicationContextHolder;
-import org.dromara.dynamictp.common.timer.HashedWheelTimer;
 import org.dromara.dynamictp.common.timer.Timeout;
 import org.dromara.dynamictp.core.thread.DtpExecutor;
 import org.dromara.dynamictp.core.timer.QueueTimeoutTimerTask;
 import org.dromara.dynamictp.core.timer.RunTimeoutTimerTask;
+import org.dromara.dynamictp.core.support.task.wrapper.MdcTaskWrapper;
 import org.slf4j.MDC;
 
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static org.dromara.dynamictp.common.constant.DynamicTpConst.TRACE_ID;
 
@@ -37,65 +39,302 @@ import static org.dromara.dynamictp.common.constant.DynamicTpConst.TRACE_ID;
  */
 public class DtpRunnable implements Runnable {
 
-    private final Runnable runnable;
+    private static final AtomicIntegerFieldUpdater<DtpRunnable> TIMEOUT_STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(DtpRunnable.class, "timeoutState");
+
+    private static final int QUEUE_TIMEOUT_MARKED = 1;
+
+    private static final int RUN_TIMEOUT_MARKED = 1 << 1;
 
-    private final String taskName;
+    private static final int SHED_MARKED = 1 << 2;
+
+    private static final int NON_EXPIRABLE = 1 << 3;
+
+    private final Runnable runnable;
 
+    /**
+     * Trace id of the submitter, null if the mdc is propagated with the task, then looked up from it.
+     */
     private final String traceId;
 
-    private Timeout runTimeoutTimer;
+    /**
+     * Submit time, unit (ns), used to calculate queue wait time.
+     */
+    private final long submitTime;
 
-    private Timeout queueTimeoutTimer;
+    /**
+     * Start time, unit (ns), used to calculate run time.
+     */
+    private long startTime;
+
+    /**
+     * Info of the submitted task, only allocated when there is any, keeps common tasks small.
+     */
+    private SourceInfo sourceInfo;
+
+    /**
+     * State of the timeout checks, only allocated when run or queue timeout is set.
+     */
+    private TimeoutInfo timeoutInfo;
+
+    /**
+     * Marks of timeout already handled in timeout scan mode, avoid counting a task twice,
+     * the shed mark of a task dropped as expired when dequeued, and whether it may be dropped at all.
+     */
+    private volatile int timeoutState;
 
     public DtpRunnable(Runnable runnable, String taskName) {
         this.runnable = runnable;
-        this.taskName = taskName;
-        this.traceId = MDC.get(TRACE_ID);
+        if (taskName != null) {
+            sourceInfo().taskName = taskName;
+        }
+        this.traceId = propagatedMdc(runnable) == null ? MDC.get(TRACE_ID) : null;
+        this.submitTime = System.nanoTime();
     }
 
     public void startQueueTimeoutTask(DtpExecutor executor) {
         long queueTimeout = executor.getQueueTimeout();
-        if (queueTimeout <= 0) {
+        if (queueTimeout <= 0 || executor.isTimeoutScanEnabled()) {
             return;
         }
-        HashedWheelTimer hashedWheelTimer = ApplicationContextHolder.getBean(HashedWheelTimer.class);
         QueueTimeoutTimerTask queueTimeoutTimerTask = new QueueTimeoutTimerTask(executor, this);
-        queueTimeoutTimer = hashedWheelTimer.newTimeout(queueTimeoutTimerTask, queueTimeout, TimeUnit.MILLISECONDS);
+        timeoutInfo().queueTimeoutTimer = executor.getTimeoutTimer()
+                .newTimeout(queueTimeoutTimerTask, queueTimeout, TimeUnit.MILLISECONDS);
     }
 
     public void cancelQueueTimeoutTask() {
-        if (queueTimeoutTimer != null) {
-            queueTimeoutTimer.cancel();
+        TimeoutInfo info = timeoutInfo;
+        if (info != null && info.queueTimeoutTimer != null) {
+            info.queueTimeoutTimer.cancel();
         }
     }
 
     public void startRunTimeoutTask(DtpExecutor executor, Thread thread) {
         long runTimeout = executor.getRunTimeout();
-        if (runTimeout <= 0) {
+        if (runTimeout <= 0 || executor.isTimeoutScanEnabled()) {
             return;
         }
-        HashedWheelTimer hashedWheelTimer = ApplicationContextHolder.getBean(HashedWheelTimer.class);
         RunTimeoutTimerTask runTimeoutTimerTask = new RunTimeoutTimerTask(executor, this, thread);
-        runTimeoutTimer = hashedWheelTimer.newTimeout(runTimeoutTimerTask, runTimeout, TimeUnit.MILLISECONDS);
+        timeoutInfo().runTimeoutTimer = executor.getTimeoutTimer()
+                .newTimeout(runTimeoutTimerTask, runTimeout, TimeUnit.MILLISECONDS);
     }
 
     public void cancelRunTimeoutTask() {
-        if (runTimeoutTimer != null) {
-            runTimeoutTimer.cancel();
+        TimeoutInfo info = timeoutInfo;
+        if (info != null && info.runTimeoutTimer != null) {
+            info.runTimeoutTimer.cancel();
+        }
+    }
+
+    public boolean markQueueTimeout() {
+        return mark(QUEUE_TIMEOUT_MARKED);
+    }
+
+    public boolean markRunTimeout() {
+        return mark(RUN_TIMEOUT_MARKED);
+    }
+
+    /**
+     * Clear the timeout marks, so that a task run repeatedly is counted once per run.
+     */
+    protected void resetTimeoutMarks() {
+        for (;;) {
+            int state = timeoutState;
+            if ((state & ~NON_EXPIRABLE) == 0
+                    || TIMEOUT_STATE_UPDATER.compareAndSet(this, state, state & NON_EXPIRABLE)) {
+                return;
+            }
+        }
+    }
+
+    private boolean mark(int flag) {
+        for (;;) {
+            int state = timeoutState;
+            if ((state & flag) != 0) {
+                return false;
+            }
+            if (TIMEOUT_STATE_UPDATER.compareAndSet(this, state, state | flag)) {
+                return true;
+            }
         }
     }
 
     @Override
     public void run() {
+        if (isShed()) {
+            return;
+        }
         runnable.run();
     }
 
     public String getTaskName() {
-        return taskName;
+        SourceInfo info = sourceInfo;
+        return info == null ? null : info.taskName;
     }
 
+    /**
+     * Trace id of the submitter, read from the mdc propagated with this task if the mdc task wrapper is
+     * applied, so submits do not read the mdc once more.
+     */
     public String getTraceId() {
-        return traceId;
+        if (traceId != null) {
+            return traceId;
+        }
+        Map<String, String> mdc = propagatedMdc(runnable);
+        return mdc == null ? null : mdc.get(TRACE_ID);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> propagatedMdc(Runnable runnable) {
+        if (runnable instanceof ContextSnapshotRunnable) {
+            return (Map<String, String>) ((ContextSnapshotRunnable) runnable).getSnapshot().get(MdcTaskWrapper.class);
+        } else if (runnable instanceof MdcRunnable) {
+            return ((MdcRunnable) runnable).getParentMdc();
+        }
+        return null;
+    }
+
+    public long getSubmitTime() {
+        return submitTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public AtomicReferenceArray<DtpRunnable> getSlots() {
+        TimeoutInfo info = timeoutInfo;
+        return info == null ? null : info.slots;
+    }
+
+    public int getSlotIndex() {
+        TimeoutInfo info = timeoutInfo;
+        return info == null ? -1 : info.slotIndex;
+    }
+
+    public void setSlot(AtomicReferenceArray<DtpRunnable> slots, int slotIndex) {
+        if (slots == null && timeoutInfo == null) {
+            return;
+        }
+        TimeoutInfo info = timeoutInfo();
+        info.slots = slots;
+        info.slotIndex = slotIndex;
+    }
+
+    public Thread getRunThread() {
+        TimeoutInfo info = timeoutInfo;
+        return info == null ? null : info.runThread;
     }
 
+    public void setRunThread(Thread runThread) {
+        if (runThread == null && timeoutInfo == null) {
+            return;
+        }
+        timeoutInfo().runThread = runThread;
+    }
+
+    /**
+     * The task as submitted, the wrapped task if the origin was not kept.
+     *
+     * @return the task as submitted
+     */
+    public Runnable getOrigin() {
+        SourceInfo info = sourceInfo;
+        return info != null && info.origin != null ? info.origin : runnable;
+    }
+
+    public void setOrigin(Runnable origin) {
+        sourceInfo().origin = origin;
+    }
+
+    public long getDeadline() {
+        SourceInfo info = sourceInfo;
+        return info == null ? 0 : info.deadline;
+    }
+
+    public void setDeadline(long deadline) {
+        sourceInfo().deadline = deadline;
+    }
+
+    public String getTenant() {
+        SourceInfo info = sourceInfo;
+        return info == null ? null : info.tenant;
+    }
+
+    public void setTenant(String tenant) {
+        sourceInfo().tenant = tenant;
+    }
+
+    public boolean isShed() {
+        return (timeoutState & SHED_MARKED) != 0;
+    }
+
+    public void markShed() {
+        mark(SHED_MARKED);
+    }
+
+    public boolean isNonExpirable() {
+        return (timeoutState & NON_EXPIRABLE) != 0;
+    }
+
+    public void markNonExpirable() {
+        mark(NON_EXPIRABLE);
+    }
+
+    private SourceInfo sourceInfo() {
+        if (sourceInfo == null) {
+            sourceInfo = new SourceInfo();
+        }
+        return sourceInfo;
+    }
+
+    private TimeoutInfo timeoutInfo() {
+        if (timeoutInfo == null) {
+            timeoutInfo = new TimeoutInfo();
+        }
+        return timeoutInfo;
+    }
+
+    private static final class SourceInfo {
+
+        /**
+         * Name of a {@link NamedRunnable}, null for other tasks.
+         */
+        private String taskName;
+
+        /**
+         * The task as submitted, passed to the expired task handler.
+         */
+        private Runnable origin;
+
+        /**
+         * Deadline of the task, unit (ns), 0 means no deadline.
+         */
+        private long deadline;
+
+        /**
+         * Tenant of the task, used by FairBlockingQueue.
+         */
+        private String tenant;
+    }
+
+    private static final class TimeoutInfo {
+
+        private Timeout runTimeoutTimer;
+
+        private Timeout queueTimeoutTimer;
+
+        /**
+         * Running task slots occupied in timeout scan mode, and the index in it.
+         */
+        private AtomicReferenceArray<DtpRunnable> slots;
+
+        private int slotIndex = -1;
+
+        private Thread runThread;
+    }
 }
@@ -48,6 +48,10 @@ public class MdcRunnable implements Runnable {
         return new MdcRunnable(runnable);
     }
 
+    public Map<String, String> getParentMdc() {
+        return parentMdc;
+    }
+
     @Override
     public void run() {
 
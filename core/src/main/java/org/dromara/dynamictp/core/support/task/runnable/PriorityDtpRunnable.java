@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.task.runnable;
+
+import org.dromara.dynamictp.core.support.task.Prioritized;
+
+/**
+ * DtpRunnable keeping the priority level of the original task, used in PriorityDtpExecutor.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class PriorityDtpRunnable extends DtpRunnable implements Prioritized {
+
+    private final int priority;
+
+    public PriorityDtpRunnable(Runnable runnable, String taskName, int priority) {
+        super(runnable, taskName);
+        this.priority = priority;
+    }
+
+    @Override
+    public int priority() {
+        return priority;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.task.wrapper;
+
+/**
+ * Capture thread context on task submission and apply it on the worker thread.
+ * TaskWrappers that also implement this interface are merged into one {@link ContextSnapshotTaskWrapper},
+ * so a task carries a single snapshot of all enabled contexts instead of a wrapper layer per context.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public interface ContextCapturer {
+
+    /**
+     * Capture context of current thread, captured value must not be modified afterwards,
+     * since it is replayed on the worker thread later.
+     *
+     * @return captured context, null if nothing to propagate
+     */
+    Object capture();
+
+    /**
+     * Apply captured context to current thread before task runs.
+     *
+     * @param captured value returned by {@link #capture()}
+     * @return backup of current thread context, passed to {@link #restore(Object, Object)},
+     *         null if the context was already applied and nothing needs to be restored
+     */
+    Object replay(Object captured);
+
+    /**
+     * Restore context of current thread after task finished.
+     *
+     * @param captured value returned by {@link #capture()}
+     * @param backup   value returned by {@link #replay(Object)}
+     */
+    void restore(Object captured, Object backup);
+
+    /**
+     * Whether mdc should be propagated together with this context.
+     *
+     * @return true if mdc capturer is required
+     */
+    default boolean requireMdc() {
+        return false;
+    }
+}
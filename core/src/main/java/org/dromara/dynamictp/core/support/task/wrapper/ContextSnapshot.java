@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.task.wrapper;
+
+/**
+ * Immutable snapshot of all contexts captured on task submission.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class ContextSnapshot {
+
+    private final ContextCapturer[] capturers;
+
+    private final Object[] values;
+
+    ContextSnapshot(ContextCapturer[] capturers, Object[] values) {
+        this.capturers = capturers;
+        this.values = values;
+    }
+
+    /**
+     * Apply all captured contexts to current thread.
+     *
+     * @return backups of current thread contexts, null if no context needs to be restored
+     */
+    public Object[] replay() {
+        Object[] backups = null;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            Object backup = capturers[i].replay(values[i]);
+            if (backup != null) {
+                if (backups == null) {
+                    backups = new Object[values.length];
+                }
+                backups[i] = backup;
+            }
+        }
+        return backups;
+    }
+
+    /**
+     * Restore current thread contexts in reverse order of replay, contexts replayed without backup are skipped.
+     *
+     * @param backups value returned by {@link #replay()}
+     */
+    public void restore(Object[] backups) {
+        if (backups == null) {
+            return;
+        }
+        for (int i = values.length - 1; i >= 0; i--) {
+            if (backups[i] != null) {
+                capturers[i].restore(values[i], backups[i]);
+            }
+        }
+    }
+
+    /**
+     * Get the context captured by the given type of capturer.
+     *
+     * @param capturerType type of capturer
+     * @return captured context, null if not captured
+     */
+    public Object get(Class<? extends ContextCapturer> capturerType) {
+        for (int i = 0; i < capturers.length; i++) {
+            if (capturerType.isInstance(capturers[i])) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the values are the same instances as captured in this snapshot.
+     */
+    boolean sameValues(Object[] others) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != others[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
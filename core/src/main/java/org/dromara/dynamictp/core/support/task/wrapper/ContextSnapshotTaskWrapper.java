@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.support.task.wrapper;
+
+import org.dromara.dynamictp.core.support.task.runnable.ContextSnapshotRunnable;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * Merged wrapper of all {@link ContextCapturer}s enabled for an executor, captures them into one snapshot.
+ * The last snapshot of each submitting thread is reused as long as every captured value is the same instance,
+ * e.g. the copy on write mdc map of logback is unchanged, so successive submits with the same context share it.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class ContextSnapshotTaskWrapper implements TaskWrapper {
+
+    private final ContextCapturer[] capturers;
+
+    private final ThreadLocal<SnapshotCache> caches = ThreadLocal.withInitial(SnapshotCache::new);
+
+    public ContextSnapshotTaskWrapper(List<ContextCapturer> capturers) {
+        this.capturers = capturers.toArray(new ContextCapturer[0]);
+    }
+
+    /**
+     * Replace task wrappers that implement {@link ContextCapturer} with one {@link ContextSnapshotTaskWrapper},
+     * placed at the position of the first one.
+     *
+     * @param taskWrappers configured task wrappers
+     * @return merged task wrappers
+     */
+    public static List<TaskWrapper> merge(List<TaskWrapper> taskWrappers) {
+        List<TaskWrapper> merged = Lists.newArrayListWithCapacity(taskWrappers.size());
+        List<ContextCapturer> capturers = Lists.newArrayList();
+        int position = -1;
+        boolean requireMdc = false;
+        for (TaskWrapper taskWrapper : taskWrappers) {
+            if (!(taskWrapper instanceof ContextCapturer)) {
+                merged.add(taskWrapper);
+                continue;
+            }
+            if (position < 0) {
+                position = merged.size();
+            }
+            ContextCapturer capturer = (ContextCapturer) taskWrapper;
+            requireMdc |= capturer.requireMdc();
+            capturers.add(capturer);
+        }
+        if (capturers.isEmpty()) {
+            return taskWrappers;
+        }
+        if (requireMdc && capturers.stream().noneMatch(MdcTaskWrapper.class::isInstance)) {
+            capturers.add(0, new MdcTaskWrapper());
+        }
+        merged.add(position, new ContextSnapshotTaskWrapper(capturers));
+        return merged;
+    }
+
+    @Override
+    public Runnable wrap(Runnable runnable) {
+        ContextSnapshot snapshot = capture();
+        return snapshot == null ? runnable : new ContextSnapshotRunnable(runnable, snapshot);
+    }
+
+    private ContextSnapshot capture() {
+        SnapshotCache cache = caches.get();
+        Object[] values = cache.scratch != null ? cache.scratch : new Object[capturers.length];
+        boolean empty = true;
+        for (int i = 0; i < capturers.length; i++) {
+            values[i] = capturers[i].capture();
+            empty &= values[i] == null;
+        }
+        ContextSnapshot last = cache.last;
+        if (empty || (last != null && last.sameValues(values))) {
+            cache.scratch = values;
+            return empty ? null : last;
+        }
+        // the snapshot takes the array over, the next capture allocates a new one
+        cache.scratch = null;
+        cache.last = new ContextSnapshot(capturers, values);
+        return cache.last;
+    }
+
+    /**
+     * Last snapshot of a submitting thread, and the array values are captured into before comparing with it.
+     */
+    private static final class SnapshotCache {
+
+        private ContextSnapshot last;
+
+        private Object[] scratch;
+    }
+}
@@ -18,6 +18,15 @@
 package org.dromara.dynamictp.core.support.task.wrapper;
 
 import org.dromara.dynamictp.core.support.task.runnable.MdcRunnable;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import org.apache.commons.collections4.MapUtils;
+import org.slf4j.MDC;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.TRACE_ID;
 
 /**
  * MdcTaskWrapper related
@@ -25,10 +34,17 @@ import org.dromara.dynamictp.core.support.task.runnable.MdcRunnable;
  * @author yanhom
  * @since 1.0.8
  **/
-public class MdcTaskWrapper implements TaskWrapper {
+public class MdcTaskWrapper implements TaskWrapper, ContextCapturer {
 
     private static final String NAME = "mdc";
 
+    private static final String LOGBACK_MDC_ADAPTER = "ch.qos.logback.classic.util.LogbackMDCAdapter";
+
+    /**
+     * Backup of a replay where the worker had none of the captured keys, they are removed on restore.
+     */
+    private static final Object ABSENT = new Object();
+
     @Override
     public String name() {
         return NAME;
@@ -38,4 +54,95 @@ public class MdcTaskWrapper implements TaskWrapper {
     public Runnable wrap(Runnable runnable) {
         return MdcRunnable.get(runnable);
     }
+
+    /**
+     * Logback's mdc map is copy on write, so it is captured without copying,
+     * other adapters fall back to a copy.
+     */
+    @Override
+    public Object capture() {
+        Map<String, String> mdc;
+        if (isLogback()) {
+            mdc = LogbackMdc.propertyMap();
+        } else {
+            mdc = MDC.getCopyOfContextMap();
+        }
+        return MapUtils.isEmpty(mdc) ? null : mdc;
+    }
+
+    /**
+     * Put captured entries only, other entries of the worker thread are kept. Nothing is put or backed up
+     * if the worker has the same entries already, a backup map is only created if the worker has some of
+     * the captured keys.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object replay(Object captured) {
+        Map<String, String> mdc = (Map<String, String>) captured;
+        if (isLogback() && LogbackMdc.propertyMap() == mdc) {
+            return null;
+        }
+        boolean same = true;
+        boolean absent = true;
+        for (Map.Entry<String, String> entry : mdc.entrySet()) {
+            String current = MDC.get(entry.getKey());
+            same &= Objects.equals(entry.getValue(), current);
+            absent &= current == null;
+        }
+        if (same) {
+            return null;
+        }
+        if (absent) {
+            mdc.forEach(MDC::put);
+            return ABSENT;
+        }
+        Map<String, String> backup = new HashMap<>(mdc.size() * 2);
+        for (Map.Entry<String, String> entry : mdc.entrySet()) {
+            String current = MDC.get(entry.getKey());
+            if (!Objects.equals(entry.getValue(), current)) {
+                backup.put(entry.getKey(), current);
+                MDC.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return backup;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void restore(Object captured, Object backup) {
+        if (backup == ABSENT) {
+            for (String key : ((Map<String, String>) captured).keySet()) {
+                remove(key);
+            }
+            return;
+        }
+        for (Map.Entry<String, String> entry : ((Map<String, String>) backup).entrySet()) {
+            if (entry.getValue() != null) {
+                MDC.put(entry.getKey(), entry.getValue());
+            } else {
+                remove(entry.getKey());
+            }
+        }
+    }
+
+    private static void remove(String key) {
+        // keep traceId as MdcRunnable does, removed after execute
+        if (!TRACE_ID.equals(key)) {
+            MDC.remove(key);
+        }
+    }
+
+    private static boolean isLogback() {
+        return MDC.getMDCAdapter() != null && LOGBACK_MDC_ADAPTER.equals(MDC.getMDCAdapter().getClass().getName());
+    }
+
+    /**
+     * Isolates logback classes, only loaded when logback is the mdc adapter.
+     */
+    private static class LogbackMdc {
+
+        static Map<String, String> propertyMap() {
+            return ((LogbackMDCAdapter) MDC.getMDCAdapter()).getPropertyMap();
+        }
+    }
 }
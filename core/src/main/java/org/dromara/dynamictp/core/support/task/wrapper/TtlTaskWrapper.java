@@ -17,6 +17,7 @@
 
 package org.dromara.dynamictp.core.support.task.wrapper;
 
+import com.alibaba.ttl.TransmittableThreadLocal.Transmitter;
 import com.alibaba.ttl.TtlRunnable;
 
 /**
@@ -25,7 +26,7 @@ import com.alibaba.ttl.TtlRunnable;
  * @author yanhom
  * @since 1.0.4
  **/
-public class TtlTaskWrapper implements TaskWrapper {
+public class TtlTaskWrapper implements TaskWrapper, ContextCapturer {
 
     private static final String NAME = "ttl";
 
@@ -38,4 +39,19 @@ public class TtlTaskWrapper implements TaskWrapper {
     public Runnable wrap(Runnable runnable) {
         return TtlRunnable.get(runnable);
     }
+
+    @Override
+    public Object capture() {
+        return Transmitter.capture();
+    }
+
+    @Override
+    public Object replay(Object captured) {
+        return Transmitter.replay(captured);
+    }
+
+    @Override
+    public void restore(Object captured, Object backup) {
+        Transmitter.restore(backup);
+    }
 }
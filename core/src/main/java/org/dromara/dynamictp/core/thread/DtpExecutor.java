@@ -17,27 +17,50 @@
 
 package org.dromara.dynamictp.core.thread;
 
+import org.dromara.dynamictp.common.ApplicationContextHolder;
+import org.dromara.dynamictp.common.em.ExpiredHandlerTypeEnum;
 import org.dromara.dynamictp.common.em.NotifyItemEnum;
+import org.dromara.dynamictp.common.entity.AdaptiveLimitProps;
 import org.dromara.dynamictp.common.entity.NotifyItem;
+import org.dromara.dynamictp.common.queue.CodelBlockingQueue;
+import org.dromara.dynamictp.common.queue.FairBlockingQueue;
+import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
+import org.dromara.dynamictp.common.timer.HashedWheelTimer;
 import org.dromara.dynamictp.core.notifier.manager.NotifyHelper;
+import org.dromara.dynamictp.core.reject.ExpiredHandlerGetter;
+import org.dromara.dynamictp.core.reject.ExpiredTaskHandler;
 import org.dromara.dynamictp.core.reject.RejectHandlerGetter;
 import org.dromara.dynamictp.core.spring.SpringExecutor;
 import org.dromara.dynamictp.core.support.ExecutorAdapter;
+import org.dromara.dynamictp.core.support.LatencyRecorder;
+import org.dromara.dynamictp.core.support.limit.AdaptiveConcurrencyLimiter;
+import org.dromara.dynamictp.core.support.task.Deadlined;
+import org.dromara.dynamictp.core.support.task.NonExpirable;
+import org.dromara.dynamictp.core.support.task.Tenanted;
 import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
 import org.dromara.dynamictp.core.support.task.runnable.NamedRunnable;
+import org.dromara.dynamictp.core.support.task.wrapper.ContextSnapshotTaskWrapper;
 import org.dromara.dynamictp.core.support.task.wrapper.TaskWrapper;
+import org.dromara.dynamictp.core.timer.QueueTimeoutTimerTask;
+import org.dromara.dynamictp.core.timer.RunTimeoutTimerTask;
+import org.dromara.dynamictp.core.timer.RunningTaskSlots;
+import org.dromara.dynamictp.core.timer.TimeoutScanner;
 import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.MDC;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -85,6 +108,17 @@ public class DtpExecutor extends ThreadPoolExecutor
      */
     private List<TaskWrapper> taskWrappers = Lists.newArrayList();
 
+    /**
+     * Snapshot of task wrappers, rebuilt when wrappers change, avoid iterating the list on each submission.
+     * Context capturing wrappers are merged into one, see {@link ContextSnapshotTaskWrapper}.
+     */
+    private volatile TaskWrapper[] wrapperArray = new TaskWrapper[0];
+
+    /**
+     * Timer used for run and queue timeout detection, resolved once on first use.
+     */
+    private volatile HashedWheelTimer timeoutTimer;
+
     /**
      * If pre start all core threads.
      */
@@ -110,6 +144,33 @@ public class DtpExecutor extends ThreadPoolExecutor
      */
     private long queueTimeout;
 
+    /**
+     * If detect run and queue timeout by scanning running task slots instead of registering timer for each task.
+     */
+    private volatile boolean timeoutScanEnabled;
+
+    /**
+     * If drop tasks that exceeded queueTimeout or their own deadline when dequeued, instead of running them.
+     */
+    private volatile boolean shedExpiredTasks;
+
+    /**
+     * Expired task handler type.
+     */
+    private String expiredHandlerType = ExpiredHandlerTypeEnum.CANCEL_POLICY.getName();
+
+    private volatile ExpiredTaskHandler expiredTaskHandler = new ExpiredTaskHandler.CancelPolicy();
+
+    /**
+     * Running task slots, only created in timeout scan mode.
+     */
+    private volatile RunningTaskSlots runningTaskSlots;
+
+    /**
+     * Adaptive concurrency limiter, only created when adaptive limit enabled.
+     */
+    private volatile AdaptiveConcurrencyLimiter adaptiveLimiter;
+
     /**
      * Total reject count.
      */
@@ -125,6 +186,21 @@ public class DtpExecutor extends ThreadPoolExecutor
      */
     private final LongAdder queueTimeoutCount = new LongAdder();
 
+    /**
+     * Count tasks dropped as expired when dequeued.
+     */
+    private final LongAdder expiredShedCount = new LongAdder();
+
+    /**
+     * Task queue wait time histogram.
+     */
+    private final LatencyRecorder queueWaitRecorder = new LatencyRecorder();
+
+    /**
+     * Task run time histogram.
+     */
+    private final LatencyRecorder runTimeRecorder = new LatencyRecorder();
+
     /**
      * Whether to wait for scheduled tasks to complete on shutdown,
      * not interrupting running tasks and executing all tasks in the queue.
@@ -175,6 +251,13 @@ public class DtpExecutor extends ThreadPoolExecutor
                        ThreadFactory threadFactory,
                        RejectedExecutionHandler handler) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+        if (workQueue instanceof CodelBlockingQueue) {
+            CodelBlockingQueue<Runnable> codelQueue = (CodelBlockingQueue<Runnable>) workQueue;
+            codelQueue.setDropHandler(this::onQueueDropped);
+            codelQueue.setDropFilter(DtpExecutor::isDroppable);
+        } else if (workQueue instanceof FairBlockingQueue) {
+            ((FairBlockingQueue<Runnable>) workQueue).setTenantResolver(DtpExecutor::tenantOf);
+        }
     }
 
     @Override
@@ -194,18 +277,147 @@ public class DtpExecutor extends ThreadPoolExecutor
         super.execute(dtpRunnable);
     }
 
+    /**
+     * Execute a batch of tasks, equivalent to calling {@link #execute(Runnable)} for each task,
+     * but tasks that go to the queue are enqueued under a single lock acquisition when the queue
+     * is a {@link VariableLinkedBlockingQueue}.
+     *
+     * @param commands the tasks to execute
+     */
+    public void executeAll(Collection<? extends Runnable> commands) {
+        if (CollectionUtils.isEmpty(commands)) {
+            return;
+        }
+        if (!(getQueue() instanceof VariableLinkedBlockingQueue) || getCorePoolSize() == 0) {
+            commands.forEach(this::execute);
+            return;
+        }
+        List<Runnable> tasks = new ArrayList<>(commands.size());
+        for (Runnable command : commands) {
+            if (command == null) {
+                throw new NullPointerException();
+            }
+            DtpRunnable dtpRunnable = (DtpRunnable) wrapTasks(command);
+            dtpRunnable.startQueueTimeoutTask(this);
+            tasks.add(dtpRunnable);
+        }
+        int size = tasks.size();
+        // start core threads as execute does, but only as many as tasks
+        int i = 0;
+        int coreToStart = Math.min(getCorePoolSize() - getPoolSize(), size);
+        for (; i < coreToStart; i++) {
+            super.execute(tasks.get(i));
+        }
+        if (i < size && !isShutdown()) {
+            List<Runnable> rest = tasks.subList(i, size);
+            @SuppressWarnings("unchecked")
+            int accepted = ((VariableLinkedBlockingQueue<Runnable>) getQueue()).offerAll(rest);
+            if (accepted > 0) {
+                recheckEnqueued(rest.subList(0, accepted));
+                i += accepted;
+            }
+        }
+        // queue is full or executor is shutdown, try to add non-core threads or reject each task
+        for (; i < size; i++) {
+            super.execute(tasks.get(i));
+        }
+    }
+
+    /**
+     * Submit a batch of tasks, see {@link #executeAll(Collection)}.
+     *
+     * @param tasks the tasks to submit
+     * @param <T>   the type of the task's result
+     * @return futures representing pending completion of the tasks, in the same order
+     */
+    public <T> List<Future<T>> submitAll(Collection<? extends Callable<T>> tasks) {
+        if (CollectionUtils.isEmpty(tasks)) {
+            return new ArrayList<>();
+        }
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        List<Runnable> commands = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            if (task == null) {
+                throw new NullPointerException();
+            }
+            RunnableFuture<T> futureTask = newTaskFor(task);
+            futures.add(futureTask);
+            commands.add(futureTask);
+        }
+        executeAll(commands);
+        return futures;
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new SourceAwareTask<>(runnable, value);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new SourceAwareTask<>(callable);
+    }
+
+    /**
+     * Same recheck as execute does after enqueue, reject tasks if shutdown meanwhile,
+     * or start a thread if there is none.
+     */
+    private void recheckEnqueued(List<Runnable> enqueued) {
+        if (isShutdown()) {
+            for (Runnable task : enqueued) {
+                if (remove(task)) {
+                    getRejectedExecutionHandler().rejectedExecution(task, this);
+                }
+            }
+        } else if (getPoolSize() == 0) {
+            prestartCoreThread();
+        }
+    }
+
     @Override
     protected void beforeExecute(Thread t, Runnable r) {
         super.beforeExecute(t, r);
         DtpRunnable runnable = (DtpRunnable) r;
+        long now = System.nanoTime();
+        runnable.setStartTime(now);
+        queueWaitRecorder.record(now - runnable.getSubmitTime());
         runnable.cancelQueueTimeoutTask();
+        if (shedExpiredTasks && isExpired(runnable, now)) {
+            shed(runnable);
+            return;
+        }
+        AdaptiveConcurrencyLimiter limiter = adaptiveLimiter;
+        if (limiter != null) {
+            limiter.onStart();
+        }
+        RunningTaskSlots slots = runningTaskSlots;
+        if (timeoutScanEnabled && slots != null) {
+            checkQueueTimeout(runnable, now);
+            slots.occupy(runnable);
+            return;
+        }
         runnable.startRunTimeoutTask(this, t);
     }
 
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
         super.afterExecute(r, t);
-        ((DtpRunnable) r).cancelRunTimeoutTask();
+        DtpRunnable runnable = (DtpRunnable) r;
+        if (runnable.isShed()) {
+            return;
+        }
+        long runTime = System.nanoTime() - runnable.getStartTime();
+        runTimeRecorder.record(runTime);
+        runnable.cancelRunTimeoutTask();
+        AdaptiveConcurrencyLimiter limiter = adaptiveLimiter;
+        if (limiter != null) {
+            limiter.onComplete(runTime);
+        }
+        if (runnable.getRunThread() != null) {
+            // tracked in timeout scan mode, with or without a free slot
+            RunningTaskSlots.release(runnable);
+            checkRunTimeout(runnable, runTime);
+        }
         tryPrintError(r, t);
         clearContext();
     }
@@ -220,14 +432,132 @@ public class DtpExecutor extends ThreadPoolExecutor
     }
 
     protected Runnable wrapTasks(Runnable command) {
-        if (CollectionUtils.isNotEmpty(taskWrappers)) {
-            for (TaskWrapper t : taskWrappers) {
-                command = t.wrap(command);
-            }
+        Runnable origin = command instanceof SourceAwareRunnable ? ((SourceAwareRunnable) command).source : command;
+        Object source = origin instanceof SourceAwareTask ? ((SourceAwareTask<?>) origin).source : origin;
+        String taskName = (source instanceof NamedRunnable) ? ((NamedRunnable) source).getName() : null;
+        Runnable wrapped = command;
+        for (TaskWrapper t : wrapperArray) {
+            wrapped = t.wrap(wrapped);
+        }
+        DtpRunnable dtpRunnable = newDtpRunnable(command, wrapped, taskName);
+        if (command instanceof NonExpirable) {
+            dtpRunnable.markNonExpirable();
+        } else if (wrapped != origin && canDropExpired()) {
+            // the expired task handler gets the task as submitted
+            dtpRunnable.setOrigin(origin);
+        }
+        if (source instanceof Deadlined) {
+            dtpRunnable.setDeadline(((Deadlined) source).deadline());
+        }
+        if (source instanceof Tenanted) {
+            dtpRunnable.setTenant(((Tenanted) source).tenant());
+        }
+        return dtpRunnable;
+    }
+
+    /**
+     * Create the DtpRunnable of a task, subclasses may keep extra info of the original task.
+     *
+     * @param command  the original task
+     * @param wrapped  the task wrapped by task wrappers
+     * @param taskName task name
+     * @return DtpRunnable
+     */
+    protected DtpRunnable newDtpRunnable(Runnable command, Runnable wrapped, String taskName) {
+        return new DtpRunnable(wrapped, taskName);
+    }
+
+    /**
+     * Get the timer used to detect run and queue timeout, only looked up from spring context once.
+     *
+     * @return the timer
+     */
+    public HashedWheelTimer getTimeoutTimer() {
+        HashedWheelTimer timer = timeoutTimer;
+        if (timer == null) {
+            timer = ApplicationContextHolder.getBean(HashedWheelTimer.class);
+            timeoutTimer = timer;
+        }
+        return timer;
+    }
+
+    /**
+     * In timeout scan mode, tasks not caught by {@link TimeoutScanner} are counted when dequeued.
+     */
+    private void checkQueueTimeout(DtpRunnable runnable, long now) {
+        if (queueTimeout > 0 && now - runnable.getSubmitTime() > TimeUnit.MILLISECONDS.toNanos(queueTimeout)
+                && runnable.markQueueTimeout()) {
+            new QueueTimeoutTimerTask(this, runnable).handle();
+        }
+    }
+
+    /**
+     * Whether the dequeued task is past its deadline or has waited longer than queueTimeout,
+     * {@link NonExpirable} tasks never expire.
+     */
+    protected boolean isExpired(DtpRunnable runnable, long now) {
+        if (runnable.isNonExpirable()) {
+            return false;
+        }
+        long deadline = runnable.getDeadline();
+        if (deadline != 0 && now - deadline > 0) {
+            return true;
+        }
+        return queueTimeout > 0 && now - runnable.getSubmitTime() > TimeUnit.MILLISECONDS.toNanos(queueTimeout);
+    }
+
+    private boolean canDropExpired() {
+        return shedExpiredTasks || getQueue() instanceof CodelBlockingQueue;
+    }
+
+    /**
+     * Drop the expired task instead of running it, counted as queue timeout, reject and shed.
+     */
+    private void shed(DtpRunnable runnable) {
+        runnable.markShed();
+        if (runnable.markQueueTimeout()) {
+            new QueueTimeoutTimerTask(this, runnable).handle();
+        }
+        dropExpired(runnable);
+    }
+
+    /**
+     * {@link NonExpirable} tasks are kept by {@link CodelBlockingQueue} even when stale.
+     */
+    private static boolean isDroppable(Runnable r) {
+        return !(r instanceof DtpRunnable) || !((DtpRunnable) r).isNonExpirable();
+    }
+
+    /**
+     * Tasks dropped by {@link CodelBlockingQueue} never reach the worker, shed them here.
+     */
+    private void onQueueDropped(Runnable r) {
+        if (r instanceof DtpRunnable) {
+            DtpRunnable runnable = (DtpRunnable) r;
+            runnable.cancelQueueTimeoutTask();
+            dropExpired(runnable);
+        }
+    }
+
+    private void dropExpired(DtpRunnable runnable) {
+        expiredShedCount.increment();
+        rejectCount.increment();
+        try {
+            expiredTaskHandler.handle(runnable.getOrigin(), this);
+        } catch (Exception e) {
+            log.error("DynamicTp execute, expired task handler error, tpName: {}, taskName: {}",
+                    threadPoolName, runnable.getTaskName(), e);
+        }
+    }
+
+    /**
+     * In timeout scan mode, tasks finished before being scanned or without a free slot are counted when finished.
+     */
+    private void checkRunTimeout(DtpRunnable runnable, long runTime) {
+        if (runTimeout > 0 && runTime > TimeUnit.MILLISECONDS.toNanos(runTimeout)
+                && runnable.markRunTimeout()) {
+            new RunTimeoutTimerTask(this, runnable, Thread.currentThread()).handle();
         }
-        String taskName = (command instanceof NamedRunnable) ? ((NamedRunnable) command).getName() : null;
-        command = new DtpRunnable(command, taskName);
-        return command;
     }
 
     private void clearContext() {
@@ -306,6 +636,8 @@ public class DtpExecutor extends ThreadPoolExecutor
 
     public void setTaskWrappers(List<TaskWrapper> taskWrappers) {
         this.taskWrappers = taskWrappers;
+        this.wrapperArray = CollectionUtils.isEmpty(taskWrappers) ?
+                new TaskWrapper[0] : ContextSnapshotTaskWrapper.merge(taskWrappers).toArray(new TaskWrapper[0]);
     }
 
     public boolean isPreStartAllCoreThreads() {
@@ -354,6 +686,87 @@ public class DtpExecutor extends ThreadPoolExecutor
         this.queueTimeout = queueTimeout;
     }
 
+    public boolean isTimeoutScanEnabled() {
+        return timeoutScanEnabled;
+    }
+
+    public void setTimeoutScanEnabled(boolean timeoutScanEnabled) {
+        if (timeoutScanEnabled) {
+            if (runningTaskSlots == null) {
+                runningTaskSlots = new RunningTaskSlots(getMaximumPoolSize());
+            }
+            TimeoutScanner.register(this);
+        } else {
+            TimeoutScanner.unregister(this);
+        }
+        this.timeoutScanEnabled = timeoutScanEnabled;
+    }
+
+    public boolean isShedExpiredTasks() {
+        return shedExpiredTasks;
+    }
+
+    public void setShedExpiredTasks(boolean shedExpiredTasks) {
+        this.shedExpiredTasks = shedExpiredTasks;
+    }
+
+    public String getExpiredHandlerType() {
+        return expiredHandlerType;
+    }
+
+    public void setExpiredHandlerType(String expiredHandlerType) {
+        this.expiredTaskHandler = ExpiredHandlerGetter.buildExpiredHandler(expiredHandlerType);
+        this.expiredHandlerType = expiredHandlerType;
+    }
+
+    public ExpiredTaskHandler getExpiredTaskHandler() {
+        return expiredTaskHandler;
+    }
+
+    public void setExpiredTaskHandler(ExpiredTaskHandler expiredTaskHandler) {
+        this.expiredTaskHandler = expiredTaskHandler;
+        this.expiredHandlerType = expiredTaskHandler.getClass().getSimpleName();
+    }
+
+    public RunningTaskSlots getRunningTaskSlots() {
+        return runningTaskSlots;
+    }
+
+    public AdaptiveConcurrencyLimiter getAdaptiveLimiter() {
+        return adaptiveLimiter;
+    }
+
+    /**
+     * Enable, update or disable adaptive concurrency limit, once enabled the limit is applied
+     * to both corePoolSize and maximumPoolSize.
+     *
+     * @param adaptiveLimit adaptive limit properties, null or blank algorithm means disabled
+     */
+    public void setAdaptiveLimit(AdaptiveLimitProps adaptiveLimit) {
+        if (adaptiveLimit == null || !adaptiveLimit.isEnabled()) {
+            adaptiveLimiter = null;
+            return;
+        }
+        AdaptiveConcurrencyLimiter limiter = adaptiveLimiter;
+        if (limiter != null && limiter.getProps().equals(adaptiveLimit)) {
+            return;
+        }
+        adaptiveLimiter = new AdaptiveConcurrencyLimiter(this, adaptiveLimit);
+    }
+
+    @Override
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        super.setMaximumPoolSize(maximumPoolSize);
+        resizeRunningTaskSlots(maximumPoolSize);
+    }
+
+    protected void resizeRunningTaskSlots(int maximumPoolSize) {
+        RunningTaskSlots slots = runningTaskSlots;
+        if (slots != null) {
+            slots.resize(maximumPoolSize);
+        }
+    }
+
     public void incRejectCount(int count) {
         rejectCount.add(count);
     }
@@ -374,6 +787,29 @@ public class DtpExecutor extends ThreadPoolExecutor
         queueTimeoutCount.add(count);
     }
 
+    public long getExpiredShedCount() {
+        return expiredShedCount.sum();
+    }
+
+    public LatencyRecorder getQueueWaitRecorder() {
+        return queueWaitRecorder;
+    }
+
+    public LatencyRecorder getRunTimeRecorder() {
+        return runTimeRecorder;
+    }
+
+    /**
+     * Publish latency percentiles of the last monitor interval.
+     */
+    public void refreshLatency() {
+        queueWaitRecorder.refresh();
+        runTimeRecorder.refresh();
+        if (getQueue() instanceof FairBlockingQueue) {
+            ((FairBlockingQueue<Runnable>) getQueue()).refreshStats();
+        }
+    }
+
     public boolean isWaitForTasksToCompleteOnShutdown() {
         return waitForTasksToCompleteOnShutdown;
     }
@@ -398,4 +834,46 @@ public class DtpExecutor extends ThreadPoolExecutor
     public void setAllowCoreThreadTimeOut(boolean allowCoreThreadTimeOut) {
         allowCoreThreadTimeOut(allowCoreThreadTimeOut);
     }
+
+    private static String tenantOf(Runnable r) {
+        return r instanceof DtpRunnable ? ((DtpRunnable) r).getTenant() : null;
+    }
+
+    /**
+     * Adapter of a submitted task, such as the one giving it a priority, keeps the submitted task visible to
+     * {@link #wrapTasks(Runnable)}, so its name, deadline and tenant are kept and the expired task handler gets it.
+     */
+    protected static class SourceAwareRunnable implements Runnable {
+
+        private final Runnable source;
+
+        protected SourceAwareRunnable(Runnable source) {
+            this.source = source;
+        }
+
+        @Override
+        public void run() {
+            source.run();
+        }
+    }
+
+    /**
+     * Future of submitted task, keeps the submitted task visible to {@link #wrapTasks(Runnable)} for its deadline
+     * and tenant, and to the task size estimator of byte bounded queues, which can't read the fields of
+     * {@link FutureTask} on JDK 9+. Subclasses creating their own futures in newTaskFor should extend it.
+     */
+    protected static class SourceAwareTask<V> extends FutureTask<V> {
+
+        private final Object source;
+
+        protected SourceAwareTask(Callable<V> callable) {
+            super(callable);
+            this.source = callable;
+        }
+
+        protected SourceAwareTask(Runnable runnable, V result) {
+            super(runnable, result);
+            this.source = runnable;
+        }
+    }
 }
@@ -19,28 +19,27 @@ package org.dromara.dynamictp.core.thread;
 
 import org.dromara.dynamictp.core.support.TaskQueue;
 
+import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
-import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * When core threads are all in busy,
  * create new thread instead of putting task into blocking queue,
  * mainly used in io intensive scenario.
  *
+ * <p>Whether to queue or spawn is decided by {@link TaskQueue} from its lock-free idle worker count.
+ * Tasks that fail to spawn because the pool reached maximum size are queued before the
+ * reject handler is consulted, so no task is rejected while the queue has room.
+ *
  * @author yanhom
  * @since 1.0.3
  **/
 public class EagerDtpExecutor extends DtpExecutor {
-
-    /**
-     * The number of tasks submitted but not yet finished.
-     */
-    private final AtomicInteger submittedTaskCount = new AtomicInteger(0);
     
     public EagerDtpExecutor(int corePoolSize,
                             int maximumPoolSize,
@@ -79,46 +78,57 @@ public class EagerDtpExecutor extends DtpExecutor {
                             ThreadFactory threadFactory,
                             RejectedExecutionHandler handler) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+        setRejectedExecutionHandler(handler);
     }
 
+    /**
+     * Get the number of tasks submitted but not yet finished, for monitoring only.
+     *
+     * @return submitted task count
+     */
     public int getSubmittedTaskCount() {
-        return submittedTaskCount.get();
+        return getActiveCount() + getQueue().size();
     }
 
     @Override
-    protected void afterExecute(Runnable r, Throwable t) {
-        submittedTaskCount.decrementAndGet();
-        super.afterExecute(r, t);
+    public void executeAll(Collection<? extends Runnable> commands) {
+        commands.forEach(this::execute);
     }
 
     @Override
-    public void execute(Runnable command) {
-        if (command == null) {
-            throw new NullPointerException();
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        if (handler instanceof EagerRejectHandler) {
+            super.setRejectedExecutionHandler(handler);
+            return;
         }
-        submittedTaskCount.incrementAndGet();
-        try {
-            super.execute(command);
-        } catch (RejectedExecutionException rx) {
-            if (getQueue() instanceof TaskQueue) {
-                // If the Executor is close to maximum pool size, concurrent
-                // calls to execute() may result (due to use of TaskQueue) in
-                // some tasks being rejected rather than queued.
-                // If this happens, add them to the queue.
-                final TaskQueue queue = (TaskQueue) getQueue();
-                try {
-                    if (!queue.force(command, 0, TimeUnit.MILLISECONDS)) {
-                        submittedTaskCount.decrementAndGet();
-                        throw new RejectedExecutionException("Queue capacity is full.", rx);
-                    }
-                } catch (InterruptedException x) {
-                    submittedTaskCount.decrementAndGet();
-                    throw new RejectedExecutionException(x);
-                }
-            } else {
-                submittedTaskCount.decrementAndGet();
-                throw rx;
+        super.setRejectedExecutionHandler(new EagerRejectHandler(handler));
+    }
+
+    @Override
+    public RejectedExecutionHandler getRejectedExecutionHandler() {
+        RejectedExecutionHandler handler = super.getRejectedExecutionHandler();
+        return handler instanceof EagerRejectHandler ? ((EagerRejectHandler) handler).delegate : handler;
+    }
+
+    /**
+     * If the executor is at maximum pool size, TaskQueue offer declined only to let the executor
+     * create a new worker, queue such tasks and reject only if the queue is full.
+     */
+    private static class EagerRejectHandler implements RejectedExecutionHandler {
+
+        private final RejectedExecutionHandler delegate;
+
+        EagerRejectHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (!executor.isShutdown() && executor.getQueue() instanceof TaskQueue
+                    && ((TaskQueue) executor.getQueue()).force(r)) {
+                return;
             }
+            delegate.rejectedExecution(r, executor);
         }
     }
 }
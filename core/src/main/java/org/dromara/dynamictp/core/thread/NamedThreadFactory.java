@@ -78,4 +78,12 @@ public class NamedThreadFactory implements ThreadFactory {
     public String getNamePrefix() {
         return namePrefix;
     }
+
+    public boolean isDaemon() {
+        return daemon;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
 }
@@ -17,27 +17,41 @@
 
 package org.dromara.dynamictp.core.thread;
 
-import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
-import org.dromara.dynamictp.core.support.selector.ExecutorSelector;
-import org.dromara.dynamictp.core.support.selector.HashedExecutorSelector;
+import org.dromara.dynamictp.common.em.OrderedModeEnum;
+import org.dromara.dynamictp.common.queue.MpscLinkedQueue;
+import org.dromara.dynamictp.core.support.HeavyHitterSketch;
+import org.dromara.dynamictp.core.support.selector.ConsistentHashRing;
+import org.dromara.dynamictp.core.support.task.NonExpirable;
 import org.dromara.dynamictp.core.support.task.Ordered;
 import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
-import com.google.common.collect.Lists;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Executor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.RunnableFuture;
-import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
 /**
@@ -46,15 +60,88 @@ import java.util.concurrent.atomic.LongAdder;
  * where the throughput is improved through parallel processing and the tasks
  * are run in a certain order.
  *
+ * <p>Keys are mapped to child executors (lanes) by a consistent hash ring, the number of lanes
+ * follows corePoolSize. When it changes, only the keys on the moved part of the ring change lanes,
+ * and the tasks submitted to a lane that may receive moved keys after the change wait until the lanes
+ * that may lose keys have run the tasks submitted before it, so per-key ordering holds through resizing.
+ *
+ * <p>In {@link OrderedModeEnum#KEY} mode each active key has its own serial queue instead, created on
+ * demand and evicted once the key has no queued or running task, so a slow key only delays itself.
+ * {@link OrderedModeEnum#KEY_LIMIT} mode drops the ordering for a concurrency limit, each key runs at
+ * most keyConcurrency tasks at a time, the excess waits in its FIFO queue while other keys keep flowing.
+ *
  * @author yanhom
  * @since 1.1.3
  */
 @Slf4j
 public class OrderedDtpExecutor extends DtpExecutor {
 
-    private final ExecutorSelector selector = new HashedExecutorSelector();
+    public static final int DEFAULT_BATCH_SIZE = 32;
+
+    public static final int DEFAULT_MAX_ACTIVE_KEYS = 65536;
+
+    /**
+     * About one in this many submits is recorded by the hot key sketch.
+     */
+    public static final int HOT_KEY_SAMPLE_RATE = 16;
+
+    private volatile ConsistentHashRing<ChildExecutor> ring;
+
+    /**
+     * Set while resizing, holds off ordered submissions until the new ring is published.
+     */
+    private volatile boolean resizing;
+
+    private final Object resizeLock = new Object();
+
+    private final LongAdder childCompletedCount = new LongAdder();
+
+    private final LongAdder childRejectedCount = new LongAdder();
+
+    private volatile int childCapacity;
+
+    /**
+     * Max tasks a child executor runs per turn before yielding its parent thread.
+     */
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Max time a child executor runs per turn before yielding its parent thread, unit (ms), 0 means no limit.
+     */
+    private volatile long timeQuantum = 0;
+
+    private volatile OrderedModeEnum orderedMode = OrderedModeEnum.LANE;
+
+    /**
+     * Executors of the keys having queued or running tasks in key and key limit mode.
+     */
+    private final ConcurrentHashMap<Object, KeyExecutor> keyExecutors = new ConcurrentHashMap<>();
+
+    /**
+     * Max keys having queued or running tasks in key and key limit mode.
+     */
+    private volatile int maxActiveKeys = DEFAULT_MAX_ACTIVE_KEYS;
 
-    private final List<Executor> childExecutors = Lists.newArrayList();
+    /**
+     * Max queued tasks of a key in key and key limit mode, 0 means the queue capacity.
+     */
+    private volatile int keyCapacity = 0;
+
+    /**
+     * Max running tasks of a key in key limit mode.
+     */
+    private volatile int keyConcurrency = 1;
+
+    /**
+     * Most frequently submitted hash keys of each monitor interval, sampled to keep submits off the shared counters.
+     */
+    private final HeavyHitterSketch hotKeySketch = new HeavyHitterSketch(HeavyHitterSketch.DEFAULT_TOP_N,
+            HOT_KEY_SAMPLE_RATE);
+
+    /**
+     * Max lane load / mean lane load of the last monitor interval.
+     */
+    private volatile double laneSkew;
 
     public OrderedDtpExecutor(int corePoolSize,
                               int maximumPoolSize,
@@ -93,10 +180,12 @@ public class OrderedDtpExecutor extends DtpExecutor {
                               ThreadFactory threadFactory,
                               RejectedExecutionHandler handler) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
-        for (int i = 0; i < corePoolSize; i++) {
-            ChildExecutor childExecutor = new ChildExecutor(workQueue.size() + workQueue.remainingCapacity());
-            childExecutors.add(childExecutor);
+        this.childCapacity = workQueue.size() + workQueue.remainingCapacity();
+        List<ChildExecutor> childExecutors = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, corePoolSize); i++) {
+            childExecutors.add(new ChildExecutor(childCapacity));
         }
+        this.ring = new ConsistentHashRing<>(childExecutors);
     }
 
     @Override
@@ -111,6 +200,11 @@ public class OrderedDtpExecutor extends DtpExecutor {
         }
     }
 
+    @Override
+    public void executeAll(Collection<? extends Runnable> commands) {
+        commands.forEach(this::execute);
+    }
+
     public void execute(Runnable command, Object hashKey) {
         if (Objects.nonNull(hashKey)) {
             doOrderedExecute(command, hashKey);
@@ -140,8 +234,51 @@ public class OrderedDtpExecutor extends DtpExecutor {
     }
 
     private void doOrderedExecute(Runnable command, Object hashKey) {
-        Executor executor = selector.select(childExecutors, hashKey);
-        executor.execute(command);
+        hotKeySketch.record(hashKey);
+        if (orderedMode != OrderedModeEnum.LANE) {
+            doKeyedExecute(command, hashKey);
+            return;
+        }
+        ChildExecutor child;
+        for (;;) {
+            ConsistentHashRing<ChildExecutor> current = ring;
+            child = current.select(hashKey);
+            child.inFlight.incrementAndGet();
+            // resize waits for the in-flight submissions of the lanes on the old ring,
+            // so the ring and the flag are checked again after entering
+            if (!resizing && ring == current) {
+                break;
+            }
+            child.inFlight.decrementAndGet();
+            Thread.yield();
+        }
+        try {
+            child.reserve(command);
+            child.offer(getEnhancedTask(command));
+        } finally {
+            child.inFlight.decrementAndGet();
+        }
+        child.schedule();
+    }
+
+    private void doKeyedExecute(Runnable command, Object hashKey) {
+        // the backlog is reserved under the map bin lock, so an executor is never evicted with tasks reserved
+        KeyExecutor executor = keyExecutors.compute(hashKey, (key, current) -> {
+            KeyExecutor keyExecutor = current;
+            if (keyExecutor == null) {
+                if (keyExecutors.size() >= maxActiveKeys) {
+                    childRejectedCount.increment();
+                    throw new RejectedExecutionException("Task " + command.toString() + " rejected from " +
+                            this + ", active keys exceed " + maxActiveKeys);
+                }
+                keyExecutor = new KeyExecutor(key, orderedMode == OrderedModeEnum.KEY_LIMIT);
+            }
+            keyExecutor.reserve(command);
+            return keyExecutor;
+        });
+        DtpRunnable task = getEnhancedTask(command);
+        executor.taskQueue.offer(task);
+        executor.schedule(task);
     }
 
     private void doUnorderedExecute(Runnable command) {
@@ -156,39 +293,190 @@ public class OrderedDtpExecutor extends DtpExecutor {
         afterExecute(r, t);
     }
 
+    @Override
+    public void setCorePoolSize(int corePoolSize) {
+        super.setCorePoolSize(corePoolSize);
+        resizeChildren(Math.max(1, corePoolSize));
+    }
+
+    /**
+     * Grow or shrink the lanes to the given count. Lanes are appended or removed at the tail so that
+     * only the keys of the changed lanes move. Ordered submissions are held off for the moment the
+     * new ring is published, then the tasks submitted afterwards to every lane that may receive moved
+     * keys wait until the lanes that may lose keys have run all tasks submitted before.
+     */
+    private void resizeChildren(int count) {
+        synchronized (resizeLock) {
+            List<ChildExecutor> old = ring.getMembers();
+            if (old.size() == count) {
+                return;
+            }
+            List<ChildExecutor> childExecutors = new ArrayList<>(old.subList(0, Math.min(old.size(), count)));
+            for (int i = old.size(); i < count; i++) {
+                childExecutors.add(new ChildExecutor(childCapacity));
+            }
+            // growing moves keys from any old lane to the new lanes, shrinking from the removed lanes to any lane left
+            List<ChildExecutor> losing = count > old.size() ? old : old.subList(count, old.size());
+            List<ChildExecutor> gaining = count > old.size() ? childExecutors.subList(old.size(), count) : childExecutors;
+
+            resizing = true;
+            try {
+                for (ChildExecutor child : old) {
+                    while (child.inFlight.get() > 0) {
+                        Thread.yield();
+                    }
+                }
+                List<Barrier> barriers = new ArrayList<>(losing.size());
+                for (ChildExecutor child : losing) {
+                    barriers.add(new Barrier(child, child.enqueuedCount.get()));
+                    // a lane reaches the threshold without passing the barriers gating only tasks after it,
+                    // so the moved keys must also wait for what the lane itself still waits for
+                    barriers.addAll(child.pendingBarriers());
+                }
+                for (ChildExecutor child : gaining) {
+                    child.addBarriers(barriers, child.enqueuedCount.get());
+                }
+                ring = new ConsistentHashRing<>(childExecutors);
+            } finally {
+                resizing = false;
+            }
+            for (ChildExecutor child : gaining) {
+                child.scheduleIfReady();
+            }
+            log.info("DynamicTp ordered executor [{}] resized child executors from {} to {}",
+                    getThreadPoolName(), old.size(), count);
+        }
+    }
+
+    public int getChildCount() {
+        return ring.size();
+    }
+
     @Override
     public long getCompletedTaskCount() {
-        long count = 0;
-        for (Executor executor : childExecutors) {
-            count += ((ChildExecutor) executor).getCompletedTaskCount();
+        return super.getCompletedTaskCount() + childCompletedCount.sum();
+    }
+
+    /**
+     * Number of keys having queued or running tasks in key and key limit mode.
+     */
+    public int getActiveKeyCount() {
+        return keyExecutors.size();
+    }
+
+    /**
+     * Number of keys running keyConcurrency tasks with more waiting in key limit mode.
+     */
+    public int getLimitedKeyCount() {
+        int count = 0;
+        for (KeyExecutor executor : keyExecutors.values()) {
+            if (executor.limited && executor.running.get() >= keyConcurrency
+                    && executor.backlog.get() > keyConcurrency) {
+                count++;
+            }
         }
-        return super.getCompletedTaskCount() + count;
+        return count;
+    }
+
+    /**
+     * Number of queued and running tasks of the key in key and key limit mode.
+     */
+    public int getKeyBacklog(Object hashKey) {
+        KeyExecutor executor = keyExecutors.get(hashKey);
+        return executor == null ? 0 : executor.backlog.get();
+    }
+
+    /**
+     * The keys with the most queued and running tasks in key and key limit mode.
+     *
+     * @param limit max number of keys returned
+     * @return backlog by key, in descending order
+     */
+    public Map<String, Integer> getTopKeyBacklogs(int limit) {
+        PriorityQueue<KeyExecutor> top = new PriorityQueue<>(Comparator.comparingInt(e -> e.backlog.get()));
+        for (KeyExecutor executor : keyExecutors.values()) {
+            top.offer(executor);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<KeyExecutor> sorted = new ArrayList<>(top);
+        sorted.sort(Comparator.comparingInt((KeyExecutor e) -> e.backlog.get()).reversed());
+        Map<String, Integer> backlogs = new LinkedHashMap<>(sorted.size());
+        for (KeyExecutor executor : sorted) {
+            backlogs.put(String.valueOf(executor.key), executor.backlog.get());
+        }
+        return backlogs;
+    }
+
+    /**
+     * The most frequently submitted hash keys of the last monitor interval, counts are estimated.
+     *
+     * @return count by key, in descending order
+     */
+    public Map<String, Long> getHotKeys() {
+        return hotKeySketch.getTopKeys();
+    }
+
+    /**
+     * Max lane load / mean lane load of the last monitor interval, where lane load is the number of
+     * tasks run in the interval plus those queued at its end, 0 if there is only one lane or no load.
+     */
+    public double getLaneSkew() {
+        return laneSkew;
+    }
+
+    /**
+     * Stats of the lanes in the last monitor interval, in ring order.
+     */
+    public List<LaneStats> getLaneStats() {
+        List<ChildExecutor> children = ring.getMembers();
+        List<LaneStats> stats = new ArrayList<>(children.size());
+        for (ChildExecutor child : children) {
+            stats.add(new LaneStats(child));
+        }
+        return stats;
+    }
+
+    @Override
+    public void refreshLatency() {
+        super.refreshLatency();
+        hotKeySketch.refresh();
+        List<ChildExecutor> children = ring.getMembers();
+        long total = 0;
+        long max = 0;
+        for (ChildExecutor child : children) {
+            child.refreshInterval();
+            long load = child.intervalCompleted + child.getQueueSize();
+            total += load;
+            max = Math.max(max, load);
+        }
+        laneSkew = children.size() < 2 || total == 0 ? 0 : (double) max * children.size() / total;
     }
 
     @Override
     public long getTaskCount() {
-        long count = 0;
-        for (Executor executor : childExecutors) {
-            count += ((ChildExecutor) executor).getTaskCount();
+        long count = childCompletedCount.sum();
+        for (ChildExecutor child : ring.getMembers()) {
+            count += child.getQueueSize();
+        }
+        for (KeyExecutor executor : keyExecutors.values()) {
+            count += executor.backlog.get();
         }
         return super.getTaskCount() + count;
     }
 
     @Override
     public long getRejectedTaskCount() {
-        long count = 0;
-        for (Executor executor : childExecutors) {
-            count += ((ChildExecutor) executor).getRejectedTaskCount();
-        }
-        return super.getRejectedTaskCount() + count;
+        return super.getRejectedTaskCount() + childRejectedCount.sum();
     }
 
     @Override
     public void onRefreshQueueCapacity(int capacity) {
-        for (Executor executor : childExecutors) {
-            ChildExecutor childExecutor = (ChildExecutor) executor;
-            if (childExecutor.getTaskQueue() instanceof VariableLinkedBlockingQueue) {
-                ((VariableLinkedBlockingQueue<Runnable>) childExecutor.getTaskQueue()).setCapacity(capacity);
+        synchronized (resizeLock) {
+            childCapacity = capacity;
+            for (ChildExecutor child : ring.getMembers()) {
+                child.setCapacity(capacity);
             }
         }
     }
@@ -199,100 +487,559 @@ public class OrderedDtpExecutor extends DtpExecutor {
         return dtpRunnable;
     }
 
-    private final class ChildExecutor implements Executor, Runnable {
+    public int getBatchSize() {
+        return batchSize;
+    }
 
-        private final BlockingQueue<Runnable> taskQueue;
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
 
-        private final LongAdder completedTaskCount = new LongAdder();
+    public long getTimeQuantum() {
+        return timeQuantum;
+    }
 
-        private final LongAdder rejectedTaskCount = new LongAdder();
+    public void setTimeQuantum(long timeQuantum) {
+        this.timeQuantum = Math.max(0, timeQuantum);
+    }
 
-        private boolean running;
+    public String getOrderedMode() {
+        return orderedMode.getName();
+    }
 
-        ChildExecutor(int queueSize) {
-            if (queueSize <= 0) {
-                taskQueue = new SynchronousQueue<>();
-                return;
+    /**
+     * Set the ordered mode, meant to be called before submitting tasks, the order between
+     * tasks queued before and after a switch is not kept.
+     *
+     * @param orderedMode mode name, see {@link OrderedModeEnum}
+     */
+    public void setOrderedMode(String orderedMode) {
+        this.orderedMode = OrderedModeEnum.of(orderedMode);
+    }
+
+    public int getMaxActiveKeys() {
+        return maxActiveKeys;
+    }
+
+    public void setMaxActiveKeys(int maxActiveKeys) {
+        this.maxActiveKeys = maxActiveKeys > 0 ? maxActiveKeys : DEFAULT_MAX_ACTIVE_KEYS;
+    }
+
+    public int getKeyCapacity() {
+        return keyCapacity;
+    }
+
+    public void setKeyCapacity(int keyCapacity) {
+        this.keyCapacity = Math.max(0, keyCapacity);
+    }
+
+    public int getKeyConcurrency() {
+        return keyConcurrency;
+    }
+
+    /**
+     * Set the max running tasks of a key in key limit mode. Keys over a lowered limit stop
+     * taking new tasks until they are back under it, keys with waiting tasks start more
+     * runners on a raised one.
+     */
+    public void setKeyConcurrency(int keyConcurrency) {
+        int old = this.keyConcurrency;
+        this.keyConcurrency = Math.max(1, keyConcurrency);
+        for (int i = old; i < this.keyConcurrency; i++) {
+            for (KeyExecutor executor : keyExecutors.values()) {
+                executor.scheduleIfReady();
             }
-            taskQueue = new VariableLinkedBlockingQueue<>(queueSize);
+        }
+    }
+
+    /**
+     * The tasks of a lane from the given position on must not run until the predecessor has
+     * run the given number of tasks. A barrier only ever waits for tasks submitted before it,
+     * so barriers taken by successive resizes can not wait on each other.
+     */
+    private static final class Barrier {
+
+        private final ChildExecutor predecessor;
+
+        private final long threshold;
+
+        private final long from;
+
+        Barrier(ChildExecutor predecessor, long threshold) {
+            this(predecessor, threshold, 0);
+        }
+
+        Barrier(ChildExecutor predecessor, long threshold, long from) {
+            this.predecessor = predecessor;
+            this.threshold = threshold;
+            this.from = from;
+        }
+
+        Barrier from(long position) {
+            return new Barrier(predecessor, threshold, position);
+        }
+
+        boolean passed() {
+            return predecessor.completed >= threshold;
+        }
+    }
+
+    /**
+     * Runs its tasks on the parent pool. Producers append to a lock-free queue and schedule the
+     * executor by a CAS on the running count, so at most {@link #maxRunning()} parent threads drain
+     * it at a time, one by default, which keeps ordering. A turn drains up to batchSize tasks or
+     * timeQuantum, then the executor is re-queued to the parent to let others run if any is waiting.
+     * It is never shed by the parent, the tasks it runs are expired one by one instead,
+     * a skipped turn would leave it marked running with its tasks stuck.
+     */
+    private abstract class SerialExecutor implements Runnable, NonExpirable {
+
+        protected final Queue<Runnable> taskQueue;
+
+        protected final AtomicInteger running = new AtomicInteger();
+
+        SerialExecutor() {
+            this(new MpscLinkedQueue<>());
+        }
+
+        /**
+         * @param taskQueue must allow concurrent consumers if {@link #maxRunning()} may exceed one
+         */
+        SerialExecutor(Queue<Runnable> taskQueue) {
+            this.taskQueue = taskQueue;
         }
 
         @Override
-        public void execute(Runnable command) {
-            boolean start = false;
-            synchronized (this) {
-                try {
-                    if (!taskQueue.add(getEnhancedTask(command))) {
-                        rejectedTaskCount.increment();
-                        throw new RejectedExecutionException("Task " + command.toString() + " rejected from " + this);
+        public void run() {
+            Thread thread = Thread.currentThread();
+            long start = System.nanoTime();
+            boolean yielded = false;
+            try {
+                while (drain(thread)) {
+                    if (yieldParent()) {
+                        yielded = true;
+                        return;
                     }
-                } catch (IllegalStateException ex) {
-                    rejectedTaskCount.increment();
-                    throw ex;
                 }
+            } finally {
+                recordBusyTime(System.nanoTime() - start);
+                if (!yielded) {
+                    running.decrementAndGet();
+                    // a task offered or a barrier passed after the last check saw it running, schedule it here
+                    scheduleIfReady();
+                }
+            }
+        }
+
+        void schedule() {
+            schedule(null);
+        }
 
-                if (!running) {
-                    running = true;
-                    start = true;
+        /**
+         * Schedule this executor on the parent pool unless enough runners drain it already.
+         *
+         * @param queued the task just queued by the caller, taken back if the parent rejects
+         */
+        void schedule(Runnable queued) {
+            int current;
+            while (gateOpen() && (current = running.get()) < maxRunning()) {
+                if (running.compareAndSet(current, current + 1)) {
+                    try {
+                        doUnorderedExecute(this);
+                    } catch (RejectedExecutionException ex) {
+                        // still marked running, so no other runner polls the queue unless maxRunning exceeds one
+                        boolean takenBack = queued != null && takeBack(queued);
+                        running.decrementAndGet();
+                        if (queued == null || takenBack) {
+                            throw ex;
+                        }
+                    }
+                    return;
                 }
             }
-            if (start) {
-                doUnorderedExecute(this);
+        }
+
+        /**
+         * Remove the task queued by a submission whose schedule was rejected by the parent.
+         *
+         * @return false if the task is kept queued, or was taken by another runner and will run
+         */
+        protected boolean takeBack(Runnable task) {
+            return false;
+        }
+
+        protected void scheduleIfReady() {
+            if (!taskQueue.isEmpty()) {
+                schedule();
             }
         }
 
-        @Override
-        public void run() {
-            Thread thread = Thread.currentThread();
+        /**
+         * Whether the task at the queue head may run.
+         */
+        protected boolean gateOpen() {
+            return true;
+        }
+
+        /**
+         * Max parent threads draining at a time.
+         */
+        protected int maxRunning() {
+            return 1;
+        }
+
+        /**
+         * Called by the draining thread after each task ran.
+         */
+        protected abstract void afterRun();
+
+        /**
+         * Called by the runner at the end of each turn with the time it spent draining.
+         */
+        protected void recordBusyTime(long nanos) { }
+
+        /**
+         * Run queued tasks until the queue is empty, the turn ends or the gate closes.
+         *
+         * @return true if the turn ended with tasks left
+         */
+        private boolean drain(Thread thread) {
+            int batch = batchSize;
+            long quantum = TimeUnit.MILLISECONDS.toNanos(timeQuantum);
+            long start = quantum > 0 ? System.nanoTime() : 0;
+            int count = 0;
             Runnable task;
-            while ((task = getTask()) != null) {
-                onBeforeExecute(thread, task);
-                Throwable thrown = null;
+            // a runner over a lowered limit ends its turn, the others keep draining
+            while (gateOpen() && running.get() <= maxRunning() && (task = taskQueue.poll()) != null) {
                 try {
-                    task.run();
-                } catch (RuntimeException x) {
-                    thrown = x;
-                    throw x;
+                    runTask(thread, task);
                 } finally {
-                    onAfterExecute(task, thrown);
-                    completedTaskCount.increment();
+                    afterRun();
+                }
+                if (++count >= batch || (quantum > 0 && System.nanoTime() - start >= quantum)) {
+                    return !taskQueue.isEmpty();
                 }
             }
+            return false;
         }
 
-        private synchronized Runnable getTask() {
-            Runnable task = taskQueue.poll();
-            if (task == null) {
-                running = false;
+        private void runTask(Thread thread, Runnable task) {
+            onBeforeExecute(thread, task);
+            Throwable thrown = null;
+            try {
+                task.run();
+            } catch (RuntimeException x) {
+                thrown = x;
+                throw x;
+            } finally {
+                onAfterExecute(task, thrown);
+                childCompletedCount.increment();
             }
-            return task;
         }
 
-        public BlockingQueue<Runnable> getTaskQueue() {
-            return taskQueue;
+        /**
+         * Hand the rest of the work back to the parent queue, keep running here if nothing else waits
+         * there or it has no room.
+         */
+        private boolean yieldParent() {
+            BlockingQueue<Runnable> parentQueue = getQueue();
+            return !isShutdown() && !parentQueue.isEmpty() && parentQueue.remainingCapacity() > 0
+                    && parentQueue.offer(wrapTasks(this));
+        }
+    }
+
+    /**
+     * A lane of the consistent hash ring, runs the tasks of all keys mapped to it in submission order.
+     */
+    private final class ChildExecutor extends SerialExecutor {
+
+        private final AtomicInteger queueSize = new AtomicInteger();
+
+        /**
+         * Number of submissions between lane selection and enqueue.
+         */
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final AtomicLong enqueuedCount = new AtomicLong();
+
+        /**
+         * Number of dequeued tasks, i.e. the position of the queue head, only written by the thread draining this lane.
+         */
+        private volatile long completed;
+
+        /**
+         * Lanes gated on this lane.
+         */
+        private final CopyOnWriteArrayList<ChildExecutor> waiters = new CopyOnWriteArrayList<>();
+
+        private volatile Barrier[] barriers;
+
+        /**
+         * Time spent draining, added by runners that may overlap, a yielding runner re-queues the lane
+         * before it records its turn.
+         */
+        private final LongAdder busyNanos = new LongAdder();
+
+        private long lastCompleted;
+
+        private long lastBusyNanos;
+
+        /**
+         * Tasks run and time spent in the last monitor interval.
+         */
+        private volatile long intervalCompleted;
+
+        private volatile long intervalBusyNanos;
+
+        private volatile int capacity;
+
+        ChildExecutor(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void reserve(Runnable command) {
+            int size;
+            do {
+                size = queueSize.get();
+                if (size >= capacity) {
+                    childRejectedCount.increment();
+                    throw new RejectedExecutionException("Task " + command.toString() + " rejected from " + this);
+                }
+            } while (!queueSize.compareAndSet(size, size + 1));
         }
 
-        public long getTaskCount() {
-            return completedTaskCount.sum() + taskQueue.size();
+        void offer(Runnable task) {
+            taskQueue.offer(task);
+            enqueuedCount.incrementAndGet();
         }
 
-        public long getCompletedTaskCount() {
-            return completedTaskCount.sum();
+        synchronized void addBarriers(List<Barrier> added, long position) {
+            Barrier[] current = barriers;
+            List<Barrier> merged = new ArrayList<>(current == null ? Collections.emptyList() : Arrays.asList(current));
+            for (Barrier barrier : added) {
+                if (barrier.predecessor != this && !barrier.passed()) {
+                    merged.add(barrier.from(position));
+                    barrier.predecessor.waiters.addIfAbsent(this);
+                }
+            }
+            barriers = merged.isEmpty() ? null : merged.toArray(new Barrier[0]);
         }
 
-        public long getRejectedTaskCount() {
-            return rejectedTaskCount.sum();
+        List<Barrier> pendingBarriers() {
+            Barrier[] current = barriers;
+            List<Barrier> pending = new ArrayList<>();
+            if (current != null) {
+                for (Barrier barrier : current) {
+                    if (!barrier.passed()) {
+                        pending.add(barrier);
+                    }
+                }
+            }
+            return pending;
+        }
+
+        /**
+         * Stop waiting on the predecessor once all barriers on it have passed.
+         */
+        synchronized boolean release(ChildExecutor predecessor) {
+            Barrier[] current = barriers;
+            if (current != null) {
+                for (Barrier barrier : current) {
+                    if (barrier.predecessor == predecessor && !barrier.passed()) {
+                        return false;
+                    }
+                }
+            }
+            predecessor.waiters.remove(this);
+            return true;
+        }
+
+        /**
+         * Whether the task at the queue head may run, drops the barriers passed meanwhile.
+         */
+        @Override
+        protected boolean gateOpen() {
+            Barrier[] current = barriers;
+            if (current == null) {
+                return true;
+            }
+            long position = completed;
+            boolean open = true;
+            boolean passed = false;
+            for (Barrier barrier : current) {
+                if (barrier.passed()) {
+                    passed = true;
+                } else if (position >= barrier.from) {
+                    open = false;
+                }
+            }
+            if (passed) {
+                removePassed(current);
+            }
+            return open;
+        }
+
+        private synchronized void removePassed(Barrier[] current) {
+            if (barriers != current) {
+                return;
+            }
+            List<Barrier> left = new ArrayList<>(current.length);
+            for (Barrier barrier : current) {
+                if (!barrier.passed()) {
+                    left.add(barrier);
+                }
+            }
+            barriers = left.isEmpty() ? null : left.toArray(new Barrier[0]);
+        }
+
+        @Override
+        protected void afterRun() {
+            queueSize.decrementAndGet();
+            completed++;
+            if (!waiters.isEmpty()) {
+                wakeWaiters();
+            }
+        }
+
+        @Override
+        protected void recordBusyTime(long nanos) {
+            busyNanos.add(nanos);
+        }
+
+        private void wakeWaiters() {
+            for (ChildExecutor waiter : waiters) {
+                if (waiter.release(this)) {
+                    waiter.scheduleIfReady();
+                }
+            }
+        }
+
+        /**
+         * Publish the tasks run and time spent since the last call, only called by the monitor.
+         */
+        synchronized void refreshInterval() {
+            long currentCompleted = completed;
+            long currentBusyNanos = busyNanos.sum();
+            intervalCompleted = currentCompleted - lastCompleted;
+            intervalBusyNanos = currentBusyNanos - lastBusyNanos;
+            lastCompleted = currentCompleted;
+            lastBusyNanos = currentBusyNanos;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getQueueSize() {
+            return queueSize.get();
         }
 
         @Override
         public String toString() {
             return super.toString() +
-                    "[queue size = " + taskQueue.size() +
-                    ", completed tasks = " + completedTaskCount +
-                    ", rejected tasks = " + rejectedTaskCount +
-                    ", running = " + running +
+                    "[queue size = " + queueSize.get() +
+                    ", completed tasks = " + completed +
+                    ", running = " + running.get() +
                     "]";
         }
     }
-}
 
+    /**
+     * Queue of a single key, run one by one in key mode or up to keyConcurrency at a time in key limit mode.
+     */
+    private final class KeyExecutor extends SerialExecutor {
+
+        private final Object key;
+
+        /**
+         * Whether it runs up to keyConcurrency tasks at a time instead of one by one.
+         */
+        private final boolean limited;
+
+        /**
+         * Number of queued and running tasks, only incremented while this executor is mapped to the key.
+         */
+        private final AtomicInteger backlog = new AtomicInteger();
+
+        KeyExecutor(Object key, boolean limited) {
+            super(limited ? new ConcurrentLinkedQueue<>() : new MpscLinkedQueue<>());
+            this.key = key;
+            this.limited = limited;
+        }
+
+        @Override
+        protected int maxRunning() {
+            return limited ? keyConcurrency : 1;
+        }
+
+        void reserve(Runnable command) {
+            int capacity = keyCapacity > 0 ? keyCapacity : childCapacity;
+            if (backlog.get() >= capacity) {
+                childRejectedCount.increment();
+                throw new RejectedExecutionException("Task " + command.toString() + " rejected from " + this);
+            }
+            backlog.incrementAndGet();
+        }
+
+        @Override
+        protected void afterRun() {
+            release();
+        }
+
+        /**
+         * The caller's task is removed and its backlog released, so the rejection reaches the caller
+         * with nothing left behind. In key limit mode a concurrent runner may have polled it already,
+         * then it runs and the rejection is not surfaced.
+         */
+        @Override
+        protected boolean takeBack(Runnable task) {
+            if (!taskQueue.remove(task)) {
+                return false;
+            }
+            ((DtpRunnable) task).cancelQueueTimeoutTask();
+            release();
+            return true;
+        }
+
+        private void release() {
+            if (backlog.decrementAndGet() == 0) {
+                // keep it if a task was reserved meanwhile, otherwise the next task of the key creates a new one
+                keyExecutors.computeIfPresent(key, (k, current) -> current == this && backlog.get() == 0 ? null : current);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() +
+                    "[key = " + key +
+                    ", backlog = " + backlog.get() +
+                    ", running = " + running.get() +
+                    "]";
+        }
+    }
+
+    /**
+     * Snapshot of a lane.
+     */
+    @Getter
+    public static class LaneStats {
+
+        private final int queueSize;
+
+        /**
+         * Tasks run in the last monitor interval.
+         */
+        private final long throughput;
+
+        /**
+         * Time spent running tasks in the last monitor interval, unit (ms).
+         */
+        private final double busyTime;
+
+        LaneStats(ChildExecutor child) {
+            this.queueSize = child.getQueueSize();
+            this.throughput = child.intervalCompleted;
+            this.busyTime = child.intervalBusyNanos / 1_000_000.0;
+        }
+    }
+}
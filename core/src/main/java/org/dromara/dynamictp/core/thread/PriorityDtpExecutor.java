@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.thread;
+
+import org.dromara.dynamictp.common.queue.BucketPriorityBlockingQueue;
+import org.dromara.dynamictp.core.support.LatencyRecorder;
+import org.dromara.dynamictp.core.support.task.Prioritized;
+import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
+import org.dromara.dynamictp.core.support.task.runnable.PriorityDtpRunnable;
+import org.dromara.dynamictp.core.support.task.runnable.PriorityRunnable;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PriorityDtpExecutor} executes queued tasks by priority, tasks declare priority by implementing
+ * {@link Prioritized}, or by {@link #execute(Runnable, int)} / {@link #submit(Callable, int)}, lower value
+ * means higher priority, tasks of the same priority are executed in submission order.
+ * Tasks without priority are given the middle level. Must be used with {@link BucketPriorityBlockingQueue}.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class PriorityDtpExecutor extends DtpExecutor {
+
+    private final BucketPriorityBlockingQueue<Runnable> priorityQueue;
+
+    private final int defaultPriority;
+
+    /**
+     * Queue wait time of each priority level.
+     */
+    private final LatencyRecorder[] priorityWaitRecorders;
+
+    public PriorityDtpExecutor(int corePoolSize,
+                               int maximumPoolSize,
+                               long keepAliveTime,
+                               TimeUnit unit,
+                               BlockingQueue<Runnable> workQueue) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                Executors.defaultThreadFactory(), new AbortPolicy());
+    }
+
+    public PriorityDtpExecutor(int corePoolSize,
+                               int maximumPoolSize,
+                               long keepAliveTime,
+                               TimeUnit unit,
+                               BlockingQueue<Runnable> workQueue,
+                               ThreadFactory threadFactory,
+                               RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+        if (!(workQueue instanceof BucketPriorityBlockingQueue)) {
+            throw new IllegalArgumentException("PriorityDtpExecutor must be used with BucketPriorityBlockingQueue");
+        }
+        this.priorityQueue = (BucketPriorityBlockingQueue<Runnable>) workQueue;
+        this.defaultPriority = priorityQueue.getLevels() / 2;
+        this.priorityWaitRecorders = new LatencyRecorder[priorityQueue.getLevels()];
+        for (int i = 0; i < priorityWaitRecorders.length; i++) {
+            priorityWaitRecorders[i] = new LatencyRecorder();
+        }
+        priorityQueue.setPriorityFunction(this::priorityOf);
+    }
+
+    public void execute(Runnable command, int priority) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        execute(new PriorityRunnableAdapter(command, priority));
+    }
+
+    public <T> Future<T> submit(Callable<T> task, int priority) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        PriorityTask<T> futureTask = new PriorityTask<>(task, priority);
+        execute(futureTask);
+        return futureTask;
+    }
+
+    @Override
+    public void executeAll(Collection<? extends Runnable> commands) {
+        commands.forEach(this::execute);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new PriorityTask<>(runnable, value, priorityOf(runnable));
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        int priority = callable instanceof Prioritized ? ((Prioritized) callable).priority() : defaultPriority;
+        return new PriorityTask<>(callable, priority);
+    }
+
+    @Override
+    protected DtpRunnable newDtpRunnable(Runnable command, Runnable wrapped, String taskName) {
+        return new PriorityDtpRunnable(wrapped, taskName, priorityOf(command));
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        if (r instanceof PriorityDtpRunnable) {
+            PriorityDtpRunnable runnable = (PriorityDtpRunnable) r;
+            priorityWaitRecorders[clamp(runnable.priority())].record(runnable.getStartTime() - runnable.getSubmitTime());
+        }
+    }
+
+    @Override
+    public void refreshLatency() {
+        super.refreshLatency();
+        for (LatencyRecorder recorder : priorityWaitRecorders) {
+            recorder.refresh();
+        }
+    }
+
+    public int getPriorityLevels() {
+        return priorityWaitRecorders.length;
+    }
+
+    /**
+     * Queue size of each priority level.
+     *
+     * @return queue size indexed by priority
+     */
+    public int[] getPriorityQueueSizes() {
+        return priorityQueue.sizes();
+    }
+
+    public LatencyRecorder getPriorityWaitRecorder(int priority) {
+        return priorityWaitRecorders[clamp(priority)];
+    }
+
+    private int priorityOf(Runnable r) {
+        return r instanceof Prioritized ? clamp(((Prioritized) r).priority()) : defaultPriority;
+    }
+
+    private int clamp(int priority) {
+        return priority < 0 ? 0 : Math.min(priority, priorityWaitRecorders.length - 1);
+    }
+
+    /**
+     * Source aware, so name, deadline and tenant of executed tasks are kept as well.
+     */
+    private static class PriorityRunnableAdapter extends SourceAwareRunnable implements PriorityRunnable {
+
+        private final int priority;
+
+        PriorityRunnableAdapter(Runnable runnable, int priority) {
+            super(runnable);
+            this.priority = priority;
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+    }
+
+    /**
+     * Source aware, so deadline and tenant of submitted tasks are kept as well.
+     */
+    private static class PriorityTask<V> extends SourceAwareTask<V> implements Prioritized {
+
+        private final int priority;
+
+        PriorityTask(Callable<V> callable, int priority) {
+            super(callable);
+            this.priority = priority;
+        }
+
+        PriorityTask(Runnable runnable, V result, int priority) {
+            super(runnable, result);
+            this.priority = priority;
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+    }
+}
@@ -18,15 +18,21 @@
 package org.dromara.dynamictp.core.thread;
 
 import org.dromara.dynamictp.common.em.JreEnum;
+import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
+import org.dromara.dynamictp.core.timer.QueueTimeoutTimerTask;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableScheduledFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -39,11 +45,16 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 /**
  * Support ScheduledDtpExecutor.
  *
+ * <p>Tasks run on an internal {@link ScheduledThreadPoolExecutor}, the work queue passed in is not used,
+ * queue metrics come from the delayed work queue of it. Tasks are wrapped by task wrappers when scheduled
+ * and go through {@link #beforeExecute} / {@link #afterExecute} on each run like other DtpExecutor tasks,
+ * the queue wait of a run is counted from the time it is due. Periodic runs are never shed as expired.
+ *
  * @author windsearcher
  **/
 public class ScheduledDtpExecutor extends DtpExecutor implements ScheduledExecutorService {
 
-    private final ScheduledThreadPoolExecutor delegate;
+    private final DelegateExecutor delegate;
 
     public ScheduledDtpExecutor(int corePoolSize,
                                 int maximumPoolSize,
@@ -53,32 +64,44 @@ public class ScheduledDtpExecutor extends DtpExecutor implements ScheduledExecut
                                 ThreadFactory threadFactory,
                                 RejectedExecutionHandler handler) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
-        // 如果是JDK8, corePoolSize为0时, ScheduledThreadPoolExecutor会导致"死循环", CPU100%
-        // https://bugs.openjdk.org/browse/JDK-8065320
-        if (JreEnum.JAVA_8.isCurrentVersion()) {
-            corePoolSize = corePoolSize == 0 ? 1 : corePoolSize;
-        }
-        delegate = new ScheduledThreadPoolExecutor(corePoolSize, threadFactory, handler);
+        delegate = new DelegateExecutor(safeCorePoolSize(corePoolSize), threadFactory);
     }
 
     @Override
     public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
-        return delegate.schedule(command, delay, unit);
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        return delegate.schedule(scheduledCommand(command), delay, unit);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-        return delegate.schedule(callable, delay, unit);
+        if (callable == null || unit == null) {
+            throw new NullPointerException();
+        }
+        ResultTask<V> resultTask = new ResultTask<>(callable);
+        ScheduledDtpTask<?> task = (ScheduledDtpTask<?>) wrapTasks(resultTask);
+        // the origin is only kept by default when tasks may be dropped, the result is read from it
+        task.setOrigin(resultTask);
+        return (ScheduledFuture<V>) delegate.schedule(task.command, delay, unit);
     }
 
     @Override
     public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
-        return delegate.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        return delegate.scheduleWithFixedDelay(scheduledCommand(command), initialDelay, delay, unit);
     }
 
     @Override
     public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
-        return delegate.scheduleAtFixedRate(command, initialDelay, period, unit);
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        return delegate.scheduleAtFixedRate(scheduledCommand(command), initialDelay, period, unit);
     }
 
     @Override
@@ -86,6 +109,11 @@ public class ScheduledDtpExecutor extends DtpExecutor implements ScheduledExecut
         schedule(command, 0, NANOSECONDS);
     }
 
+    @Override
+    public void executeAll(Collection<? extends Runnable> commands) {
+        commands.forEach(this::execute);
+    }
+
     @Override
     public Future<?> submit(Runnable task) {
         return schedule(task, 0, NANOSECONDS);
@@ -102,25 +130,49 @@ public class ScheduledDtpExecutor extends DtpExecutor implements ScheduledExecut
     }
 
     @Override
-    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
-        return delegate.invokeAll(tasks);
+    protected DtpRunnable newDtpRunnable(Runnable command, Runnable wrapped, String taskName) {
+        return new ScheduledDtpTask<>(wrapped, taskName);
     }
 
-    @Override
-    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
-            throws InterruptedException {
-        return delegate.invokeAll(tasks, timeout, unit);
+    /**
+     * Wrap the task once, the delegate executor is given the command of it and decorates it back to the task.
+     */
+    private Runnable scheduledCommand(Runnable command) {
+        return ((ScheduledDtpTask<?>) wrapTasks(command)).command;
     }
 
     @Override
-    public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
-        return delegate.invokeAny(tasks);
+    protected boolean isExpired(DtpRunnable runnable, long now) {
+        // shedding a periodic run would cancel the whole schedule
+        return !((ScheduledDtpTask<?>) runnable).isPeriodic() && super.isExpired(runnable, now);
     }
 
-    @Override
-    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
-            throws InterruptedException, ExecutionException, TimeoutException {
-        return delegate.invokeAny(tasks, timeout, unit);
+    private void beforeRun(Thread t, ScheduledDtpTask<?> task) {
+        // the queue timeout timer of a task would count its delay, so the wait is checked when it runs
+        long queueTimeout = getQueueTimeout();
+        if (queueTimeout > 0 && !isTimeoutScanEnabled()
+                && System.nanoTime() - task.getSubmitTime() > TimeUnit.MILLISECONDS.toNanos(queueTimeout)
+                && task.markQueueTimeout()) {
+            new QueueTimeoutTimerTask(this, task).handle();
+        }
+        beforeExecute(t, task);
+    }
+
+    private void afterRun(ScheduledDtpTask<?> task, Throwable t) {
+        Throwable thrown = t;
+        if (thrown == null && task.isDone() && !task.isCancelled()) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                thrown = e.getCause();
+            } catch (CancellationException ignored) {
+                // cancelled meanwhile
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        afterExecute(task, thrown);
+        task.afterRun();
     }
 
     @Override
@@ -148,19 +200,11 @@ public class ScheduledDtpExecutor extends DtpExecutor implements ScheduledExecut
         return delegate.awaitTermination(timeout, unit);
     }
 
-    @Override
-    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
-        delegate.setRejectedExecutionHandler(handler);
-    }
-
-    @Override
-    public RejectedExecutionHandler getRejectedExecutionHandler() {
-        return delegate.getRejectedExecutionHandler();
-    }
-
     @Override
     public void setCorePoolSize(int corePoolSize) {
-        delegate.setCorePoolSize(corePoolSize);
+        delegate.setCorePoolSize(safeCorePoolSize(corePoolSize));
+        // at most corePoolSize tasks run at a time
+        resizeRunningTaskSlots(corePoolSize);
     }
 
     @Override
@@ -178,6 +222,12 @@ public class ScheduledDtpExecutor extends DtpExecutor implements ScheduledExecut
         return delegate.getMaximumPoolSize();
     }
 
+    @Override
+    public void setTimeoutScanEnabled(boolean timeoutScanEnabled) {
+        super.setTimeoutScanEnabled(timeoutScanEnabled);
+        resizeRunningTaskSlots(getCorePoolSize());
+    }
+
     @Override
     public int getQueueCapacity() {
         int capacity = delegate.getQueue().size() + delegate.getQueue().remainingCapacity();
@@ -258,6 +308,175 @@ public class ScheduledDtpExecutor extends DtpExecutor implements ScheduledExecut
     public long getCompletedTaskCount() {
         return delegate.getCompletedTaskCount();
     }
-}
 
+    private static int safeCorePoolSize(int corePoolSize) {
+        // 如果是JDK8, corePoolSize为0时, ScheduledThreadPoolExecutor会导致"死循环", CPU100%
+        // https://bugs.openjdk.org/browse/JDK-8065320
+        if (JreEnum.JAVA_8.isCurrentVersion()) {
+            return corePoolSize == 0 ? 1 : corePoolSize;
+        }
+        return corePoolSize;
+    }
+
+    /**
+     * Runs the tasks, rejects with the reject handler of the outer executor so that rejections are counted
+     * and alarmed, so a refreshed reject handler takes effect here too.
+     */
+    private final class DelegateExecutor extends ScheduledThreadPoolExecutor {
+
+        DelegateExecutor(int corePoolSize, ThreadFactory threadFactory) {
+            super(corePoolSize, threadFactory, (r, executor) -> ScheduledDtpExecutor.this
+                    .getRejectedExecutionHandler().rejectedExecution(r, ScheduledDtpExecutor.this));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+            ScheduledDtpTask<V> dtpTask = (ScheduledDtpTask<V>) ((ScheduledCommand) runnable).task;
+            dtpTask.bind(task);
+            return dtpTask;
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            beforeRun(t, (ScheduledDtpTask<?>) r);
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            afterRun((ScheduledDtpTask<?>) r, t);
+        }
+    }
+
+    /**
+     * A scheduled task, queued in the delayed work queue and passed to {@link #beforeExecute} on each run.
+     * Created by {@link #wrapTasks} and bound to the future of the delegate executor when it is decorated.
+     */
+    private final class ScheduledDtpTask<V> extends DtpRunnable implements RunnableScheduledFuture<V> {
+
+        /**
+         * Scheduled on the delegate executor, runs the wrapped task.
+         */
+        private final ScheduledCommand command = new ScheduledCommand(this);
 
+        private RunnableScheduledFuture<V> task;
+
+        /**
+         * Holds the result of a callable, the task itself for runnables.
+         */
+        private Future<V> result;
+
+        ScheduledDtpTask(Runnable wrapped, String taskName) {
+            super(wrapped, taskName);
+        }
+
+        @SuppressWarnings("unchecked")
+        void bind(RunnableScheduledFuture<V> task) {
+            this.task = task;
+            this.result = getOrigin() instanceof ResultTask ? (Future<V>) getOrigin() : task;
+            setOrigin(this);
+        }
+
+        @Override
+        public void run() {
+            if (!isShed()) {
+                task.run();
+            }
+        }
+
+        void runCommand() {
+            super.run();
+        }
+
+        /**
+         * The time the current run is due, unit (ns), so queue wait excludes the delay.
+         */
+        @Override
+        public long getSubmitTime() {
+            return System.nanoTime() + task.getDelay(NANOSECONDS);
+        }
+
+        void afterRun() {
+            resetTimeoutMarks();
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return task.isPeriodic();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return task.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return task.compareTo(other instanceof ScheduledDtpTask ? ((ScheduledDtpTask<?>) other).task : other);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = task.cancel(mayInterruptIfRunning);
+            if (result != task) {
+                result.cancel(false);
+            }
+            if (cancelled && delegate.getRemoveOnCancelPolicy()) {
+                delegate.remove(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return task.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return task.isDone();
+        }
+
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            V value = task.get();
+            return result == task ? value : result.get();
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            V value = task.get(timeout, unit);
+            return result == task ? value : result.get(timeout, unit);
+        }
+    }
+
+    /**
+     * The runnable given to the delegate executor, runs the wrapped task of a {@link ScheduledDtpTask}.
+     */
+    private static final class ScheduledCommand implements Runnable {
+
+        private final ScheduledDtpTask<?> task;
+
+        ScheduledCommand(ScheduledDtpTask<?> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.runCommand();
+        }
+    }
+
+    /**
+     * Runs a callable scheduled, so it can be wrapped by task wrappers as a runnable.
+     */
+    private static final class ResultTask<V> extends FutureTask<V> {
+
+        ResultTask(Callable<V> callable) {
+            super(callable);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.thread;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor that runs each task on a new virtual thread (JDK21+), concurrency is bounded by a
+ * semaphore sized from maximumPoolSize, which can be refreshed dynamically like other executors.
+ * Tasks that can not get a permit wait in the work queue, and are rejected when the queue is full.
+ * Virtual threads are looked up reflectively, so this class still compiles and loads on JDK8,
+ * on JDK without virtual thread support it falls back to a new platform thread per task.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Slf4j
+public class VirtualThreadDtpExecutor extends DtpExecutor {
+
+    private final ThreadFactory taskThreadFactory;
+
+    private final boolean virtual;
+
+    private final BlockingQueue<Runnable> workQueue;
+
+    private final ResizableSemaphore permits;
+
+    private volatile int corePoolSize;
+
+    private volatile int maximumPoolSize;
+
+    private volatile int largestPoolSize;
+
+    private volatile boolean shutdown;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final Set<Thread> runningThreads = ConcurrentHashMap.newKeySet();
+
+    private final CountDownLatch termination = new CountDownLatch(1);
+
+    private final LongAdder taskCount = new LongAdder();
+
+    private final LongAdder completedTaskCount = new LongAdder();
+
+    public VirtualThreadDtpExecutor(int corePoolSize,
+                                    int maximumPoolSize,
+                                    long keepAliveTime,
+                                    TimeUnit unit,
+                                    BlockingQueue<Runnable> workQueue) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                Executors.defaultThreadFactory(), new AbortPolicy());
+    }
+
+    public VirtualThreadDtpExecutor(int corePoolSize,
+                                    int maximumPoolSize,
+                                    long keepAliveTime,
+                                    TimeUnit unit,
+                                    BlockingQueue<Runnable> workQueue,
+                                    ThreadFactory threadFactory,
+                                    RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+        String namePrefix = threadFactory instanceof NamedThreadFactory ?
+                ((NamedThreadFactory) threadFactory).getNamePrefix() : "dtp-virtual";
+        ThreadFactory virtualThreadFactory = newVirtualThreadFactory(namePrefix);
+        if (virtualThreadFactory == null) {
+            log.warn("DynamicTp virtual executor, virtual thread is not supported by current jre, "
+                    + "fallback to platform thread per task, poolNamePrefix: {}", namePrefix);
+            this.taskThreadFactory = threadFactory;
+        } else {
+            this.taskThreadFactory = virtualThreadFactory;
+        }
+        this.virtual = virtualThreadFactory != null;
+        this.workQueue = workQueue;
+        this.corePoolSize = corePoolSize;
+        this.maximumPoolSize = maximumPoolSize;
+        this.permits = new ResizableSemaphore(maximumPoolSize);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        DtpRunnable dtpRunnable = (DtpRunnable) wrapTasks(command);
+        if (shutdown) {
+            getRejectedExecutionHandler().rejectedExecution(dtpRunnable, this);
+            return;
+        }
+        dtpRunnable.startQueueTimeoutTask(this);
+        taskCount.increment();
+        if (permits.tryAcquire()) {
+            addWorker();
+            // recheck after counted as active, so shutdown either waits for it or is seen here
+            if (shutdown) {
+                activeCount.decrementAndGet();
+                permits.release();
+                dispatch();
+                reject(dtpRunnable);
+                return;
+            }
+            startWorker(dtpRunnable);
+            return;
+        }
+        if (!workQueue.offer(dtpRunnable)) {
+            reject(dtpRunnable);
+            return;
+        }
+        if (shutdown && workQueue.remove(dtpRunnable)) {
+            reject(dtpRunnable);
+            return;
+        }
+        // permits may be released between tryAcquire and offer
+        dispatch();
+    }
+
+    @Override
+    public void executeAll(Collection<? extends Runnable> commands) {
+        commands.forEach(this::execute);
+    }
+
+    /**
+     * Start queued tasks as long as there are permits available, a worker is counted before polling,
+     * so the pool is never seen idle with a task between the queue and its thread.
+     */
+    private void dispatch() {
+        while (!workQueue.isEmpty() && permits.tryAcquire()) {
+            addWorker();
+            Runnable next = workQueue.poll();
+            if (next == null) {
+                activeCount.decrementAndGet();
+                permits.release();
+                tryTerminate();
+                continue;
+            }
+            startWorker(next);
+        }
+    }
+
+    private void addWorker() {
+        int active = activeCount.incrementAndGet();
+        if (active > largestPoolSize) {
+            largestPoolSize = active;
+        }
+    }
+
+    private void reject(DtpRunnable task) {
+        taskCount.decrement();
+        task.cancelQueueTimeoutTask();
+        tryTerminate();
+        getRejectedExecutionHandler().rejectedExecution(task, this);
+    }
+
+    /**
+     * Start a new thread to run the task, the caller must hold a permit and be counted as active.
+     *
+     * @param task the task to run
+     */
+    private void startWorker(Runnable task) {
+        boolean started = false;
+        try {
+            Thread thread = taskThreadFactory.newThread(() -> runWorker((DtpRunnable) task));
+            if (thread != null) {
+                thread.start();
+                started = true;
+            }
+        } finally {
+            if (!started) {
+                activeCount.decrementAndGet();
+                permits.release();
+                taskCount.decrement();
+            }
+        }
+        if (!started) {
+            tryTerminate();
+            getRejectedExecutionHandler().rejectedExecution(task, this);
+        }
+    }
+
+    private void runWorker(DtpRunnable task) {
+        Thread current = Thread.currentThread();
+        runningThreads.add(current);
+        try {
+            runTask(current, task);
+        } finally {
+            runningThreads.remove(current);
+            // hand the permit over to the next queued task, unless the limit has been lowered
+            Runnable next = permits.availablePermits() < 0 ? null : workQueue.poll();
+            if (next != null) {
+                startWorker(next);
+            } else {
+                activeCount.decrementAndGet();
+                permits.release();
+                dispatch();
+                tryTerminate();
+            }
+        }
+    }
+
+    private void runTask(Thread thread, DtpRunnable task) {
+        beforeExecute(thread, task);
+        Throwable thrown = null;
+        try {
+            task.run();
+        } catch (RuntimeException | Error x) {
+            thrown = x;
+            throw x;
+        } finally {
+            afterExecute(task, thrown);
+            completedTaskCount.increment();
+        }
+    }
+
+    private void tryTerminate() {
+        if (shutdown && activeCount.get() == 0 && workQueue.isEmpty()) {
+            termination.countDown();
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    @Override
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+    }
+
+    @Override
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    @Override
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        if (maximumPoolSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        synchronized (permits) {
+            permits.resize(maximumPoolSize - this.maximumPoolSize);
+            this.maximumPoolSize = maximumPoolSize;
+        }
+        resizeRunningTaskSlots(maximumPoolSize);
+        dispatch();
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    @Override
+    public int getPoolSize() {
+        return activeCount.get();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return runningThreads.size();
+    }
+
+    @Override
+    public int getLargestPoolSize() {
+        return largestPoolSize;
+    }
+
+    @Override
+    public long getTaskCount() {
+        return taskCount.sum();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return completedTaskCount.sum();
+    }
+
+    @Override
+    public boolean prestartCoreThread() {
+        return false;
+    }
+
+    @Override
+    public int prestartAllCoreThreads() {
+        return 0;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        tryTerminate();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> tasks = new ArrayList<>();
+        workQueue.drainTo(tasks);
+        runningThreads.forEach(Thread::interrupt);
+        tryTerminate();
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminating() {
+        return shutdown && !isTerminated();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return termination.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return termination.await(timeout, unit);
+    }
+
+    /**
+     * Create a virtual thread factory by {@code Thread.ofVirtual().name(prefix, 1).factory()}.
+     *
+     * @param namePrefix thread name prefix
+     * @return the factory, or null if virtual thread is not supported
+     */
+    private static ThreadFactory newVirtualThreadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix + "-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static class ResizableSemaphore extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        void resize(int delta) {
+            if (delta > 0) {
+                release(delta);
+            } else if (delta < 0) {
+                reducePermits(-delta);
+            }
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.thread;
+
+import org.dromara.dynamictp.core.support.ExecutorAdapter;
+import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Work stealing executor backed by {@link ForkJoinPool}, suitable for cpu bound fan-out / fan-in tasks.
+ * corePoolSize is mapped to parallelism, which is changed in place on JDK19+. Before JDK19 the parallelism
+ * of ForkJoinPool can not be changed, a new pool is created when corePoolSize refreshed, and the old one is
+ * shutdown after queued tasks finished. Only one retired pool is kept at a time, a refresh arriving while
+ * it still runs tasks is applied by a later submit once it terminated.
+ * A task racing with the refresh and rejected by the retired pool is retried on the new one, and the
+ * termination of this executor waits for the retired pools as well.
+ * Workers are ForkJoinWorkerThreads, only name prefix, daemon and priority of a {@link NamedThreadFactory} apply,
+ * unless the thread factory is a ForkJoinWorkerThreadFactory too.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class WorkStealingDtpExecutor extends DtpExecutor {
+
+    private static final BlockingQueue<Runnable> UNSUPPORTED_QUEUE = new ExecutorAdapter.UnsupportedBlockingQueue();
+
+    /**
+     * ForkJoinPool#setParallelism since JDK19, null before.
+     */
+    private static final Method SET_PARALLELISM = setParallelismMethod();
+
+    private final ForkJoinPool.ForkJoinWorkerThreadFactory workerThreadFactory;
+
+    private volatile ForkJoinPool delegate;
+
+    /**
+     * Pools replaced on refresh, which may still be running their queued tasks.
+     */
+    private final Set<ForkJoinPool> retiredPools = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Parallelism of a refresh waiting for the retired pool to terminate, 0 if none.
+     */
+    private volatile int pendingParallelism;
+
+    private volatile boolean shutdown;
+
+    private volatile int maximumPoolSize;
+
+    private volatile int largestPoolSize;
+
+    /**
+     * Steal count of the pools replaced on refresh.
+     */
+    private volatile long retiredStealCount;
+
+    private final LongAdder taskCount = new LongAdder();
+
+    private final LongAdder completedTaskCount = new LongAdder();
+
+    public WorkStealingDtpExecutor(int corePoolSize,
+                                   int maximumPoolSize,
+                                   long keepAliveTime,
+                                   TimeUnit unit,
+                                   BlockingQueue<Runnable> workQueue) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                Executors.defaultThreadFactory(), new AbortPolicy());
+    }
+
+    public WorkStealingDtpExecutor(int corePoolSize,
+                                   int maximumPoolSize,
+                                   long keepAliveTime,
+                                   TimeUnit unit,
+                                   BlockingQueue<Runnable> workQueue,
+                                   ThreadFactory threadFactory,
+                                   RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+        this.workerThreadFactory = workerThreadFactory(threadFactory);
+        this.maximumPoolSize = maximumPoolSize;
+        this.delegate = newPool(corePoolSize);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        if (pendingParallelism > 0) {
+            applyPendingParallelism();
+        }
+        DtpRunnable dtpRunnable = (DtpRunnable) wrapTasks(command);
+        dtpRunnable.startQueueTimeoutTask(this);
+        taskCount.increment();
+        for (;;) {
+            ForkJoinPool pool = delegate;
+            try {
+                pool.execute(() -> runTask(dtpRunnable));
+                return;
+            } catch (RejectedExecutionException e) {
+                if (!retired(pool)) {
+                    taskCount.decrement();
+                    getRejectedExecutionHandler().rejectedExecution(dtpRunnable, this);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs the given fork join task, returning its result upon completion.
+     *
+     * @param task the task
+     * @param <T>  the type of the task's result
+     * @return the task's result
+     */
+    public <T> T invoke(ForkJoinTask<T> task) {
+        for (;;) {
+            ForkJoinPool pool = delegate;
+            try {
+                return pool.invoke(task);
+            } catch (RejectedExecutionException e) {
+                if (!retired(pool)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the pool was replaced on refresh, rather than shutdown with this executor.
+     */
+    private boolean retired(ForkJoinPool pool) {
+        return !shutdown && pool != delegate;
+    }
+
+    private void runTask(DtpRunnable task) {
+        int poolSize = delegate.getPoolSize();
+        if (poolSize > largestPoolSize) {
+            largestPoolSize = poolSize;
+        }
+        beforeExecute(Thread.currentThread(), task);
+        Throwable thrown = null;
+        try {
+            task.run();
+        } catch (RuntimeException | Error x) {
+            thrown = x;
+            throw x;
+        } finally {
+            afterExecute(task, thrown);
+            completedTaskCount.increment();
+        }
+    }
+
+    private ForkJoinPool newPool(int parallelism) {
+        return new ForkJoinPool(Math.max(1, parallelism), workerThreadFactory, null, true);
+    }
+
+    @Override
+    public void setCorePoolSize(int corePoolSize) {
+        int parallelism = Math.max(1, corePoolSize);
+        synchronized (this) {
+            ForkJoinPool pool = delegate;
+            if (shutdown) {
+                return;
+            }
+            if (pool.getParallelism() == parallelism) {
+                pendingParallelism = 0;
+                return;
+            }
+            if (setParallelism(pool, parallelism)) {
+                return;
+            }
+            if (retiredPoolsTerminated()) {
+                pendingParallelism = 0;
+                replacePool(parallelism);
+            } else {
+                pendingParallelism = parallelism;
+            }
+        }
+    }
+
+    private void applyPendingParallelism() {
+        if (!retiredPoolsTerminated()) {
+            return;
+        }
+        synchronized (this) {
+            int parallelism = pendingParallelism;
+            if (parallelism > 0 && !shutdown) {
+                pendingParallelism = 0;
+                replacePool(parallelism);
+            }
+        }
+    }
+
+    private void replacePool(int parallelism) {
+        ForkJoinPool old = delegate;
+        delegate = newPool(parallelism);
+        retiredStealCount += old.getStealCount();
+        retiredPools.add(old);
+        old.shutdown();
+    }
+
+    private boolean retiredPoolsTerminated() {
+        retiredPools.removeIf(ForkJoinPool::isTerminated);
+        return retiredPools.isEmpty();
+    }
+
+    @Override
+    public int getCorePoolSize() {
+        int pending = pendingParallelism;
+        return pending > 0 ? pending : delegate.getParallelism();
+    }
+
+    @Override
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+        resizeRunningTaskSlots(maximumPoolSize);
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return Math.max(maximumPoolSize, getCorePoolSize());
+    }
+
+    @Override
+    public int getPoolSize() {
+        return delegate.getPoolSize();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return delegate.getActiveThreadCount();
+    }
+
+    public int getRunningThreadCount() {
+        return delegate.getRunningThreadCount();
+    }
+
+    @Override
+    public int getLargestPoolSize() {
+        return largestPoolSize;
+    }
+
+    @Override
+    public long getTaskCount() {
+        return taskCount.sum();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return completedTaskCount.sum();
+    }
+
+    public long getStealCount() {
+        return retiredStealCount + delegate.getStealCount();
+    }
+
+    public long getQueuedSubmissionCount() {
+        return delegate.getQueuedSubmissionCount();
+    }
+
+    @Override
+    public BlockingQueue<Runnable> getQueue() {
+        return UNSUPPORTED_QUEUE;
+    }
+
+    @Override
+    public String getQueueType() {
+        return "ForkJoinWorkQueue";
+    }
+
+    @Override
+    public int getQueueSize() {
+        long size = delegate.getQueuedSubmissionCount() + delegate.getQueuedTaskCount();
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int getQueueRemainingCapacity() {
+        return Integer.MAX_VALUE - getQueueSize();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean prestartCoreThread() {
+        return false;
+    }
+
+    @Override
+    public int prestartAllCoreThreads() {
+        return 0;
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            pendingParallelism = 0;
+            delegate.shutdown();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        synchronized (this) {
+            shutdown = true;
+            pendingParallelism = 0;
+            List<Runnable> tasks = new ArrayList<>(delegate.shutdownNow());
+            for (ForkJoinPool pool : retiredPools) {
+                tasks.addAll(pool.shutdownNow());
+            }
+            return tasks;
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && delegate.isTerminated() && retiredPoolsTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ForkJoinPool pool : retiredPools) {
+            if (!pool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return delegate.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) && isTerminated();
+    }
+
+    /**
+     * Change the parallelism of the pool in place if supported.
+     *
+     * @return false if ForkJoinPool#setParallelism is not available
+     */
+    private static boolean setParallelism(ForkJoinPool pool, int parallelism) {
+        if (SET_PARALLELISM == null) {
+            return false;
+        }
+        try {
+            SET_PARALLELISM.invoke(pool, parallelism);
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static Method setParallelismMethod() {
+        try {
+            return ForkJoinPool.class.getMethod("setParallelism", int.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A plain ThreadFactory can not create ForkJoinWorkerThreads, adapt what it configures.
+     */
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory workerThreadFactory(ThreadFactory threadFactory) {
+        if (threadFactory instanceof ForkJoinPool.ForkJoinWorkerThreadFactory) {
+            return (ForkJoinPool.ForkJoinWorkerThreadFactory) threadFactory;
+        }
+        if (threadFactory instanceof NamedThreadFactory) {
+            NamedThreadFactory named = (NamedThreadFactory) threadFactory;
+            return new NamedWorkerThreadFactory(named.getNamePrefix(), named.isDaemon(), named.getPriority());
+        }
+        return new NamedWorkerThreadFactory("dtp-work-stealing", true, Thread.NORM_PRIORITY);
+    }
+
+    private static class NamedWorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private final String namePrefix;
+
+        private final boolean daemon;
+
+        private final int priority;
+
+        private final AtomicInteger seq = new AtomicInteger(1);
+
+        NamedWorkerThreadFactory(String namePrefix, boolean daemon, int priority) {
+            this.namePrefix = namePrefix;
+            this.daemon = daemon;
+            this.priority = priority;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) { };
+            thread.setName(namePrefix + "-" + seq.getAndIncrement());
+            thread.setDaemon(daemon);
+            thread.setPriority(priority);
+            return thread;
+        }
+    }
+}
@@ -44,6 +44,16 @@ public class QueueTimeoutTimerTask implements TimerTask {
 
     @Override
     public void run(Timeout timeout) {
+        // may be counted already if the task expired and is shed when dequeued
+        if (runnable.markQueueTimeout()) {
+            handle();
+        }
+    }
+
+    /**
+     * Count and alarm the queue timeout task, also called by {@link TimeoutScanner}.
+     */
+    public void handle() {
         dtpExecutor.incQueueTimeoutCount(1);
         AlarmManager.doAlarmAsync(dtpExecutor, NotifyItemEnum.QUEUE_TIMEOUT, runnable);
         log.warn("DynamicTp execute, queue timeout, tpName: {}, taskName: {}, traceId: {}",
@@ -47,6 +47,13 @@ public class RunTimeoutTimerTask implements TimerTask {
 
     @Override
     public void run(Timeout timeout) {
+        handle();
+    }
+
+    /**
+     * Count and alarm the run timeout task, also called by {@link TimeoutScanner}.
+     */
+    public void handle() {
         dtpExecutor.incRunTimeoutCount(1);
         AlarmManager.doAlarmAsync(dtpExecutor, NotifyItemEnum.RUN_TIMEOUT, runnable);
         log.warn("DynamicTp execute, run timeout, tpName: {}, taskName: {}, traceId: {}, stackTrace: {}",
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.timer;
+
+import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Slots that workers publish the running task into, scanned by {@link TimeoutScanner}
+ * to detect run timeout without registering a timer for each task.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+public class RunningTaskSlots {
+
+    private volatile AtomicReferenceArray<DtpRunnable> slots;
+
+    /**
+     * Slots replaced on resize, still scanned until the tasks occupying them finish.
+     */
+    private final List<AtomicReferenceArray<DtpRunnable>> retiredSlots = new CopyOnWriteArrayList<>();
+
+    public RunningTaskSlots(int maximumPoolSize) {
+        this.slots = new AtomicReferenceArray<>(sizeFor(maximumPoolSize));
+    }
+
+    /**
+     * Publish the task into a free slot, the task start time must be set before calling.
+     * Probing starts from a slot derived from current thread id, so a worker usually gets the same slot.
+     * If no slot is free, the task is not scanned and its run timeout is checked when it finishes.
+     * A slot taken in an array replaced meanwhile is given back and taken in the new one, the array
+     * may already be retired and dropped by the scanner.
+     *
+     * @param runnable the task about to run
+     */
+    public void occupy(DtpRunnable runnable) {
+        runnable.setRunThread(Thread.currentThread());
+        int start = (int) Thread.currentThread().getId();
+        AtomicReferenceArray<DtpRunnable> current = slots;
+        int idx;
+        while ((idx = occupy(current, start, runnable)) >= 0) {
+            AtomicReferenceArray<DtpRunnable> latest = slots;
+            if (latest == current) {
+                runnable.setSlot(current, idx);
+                return;
+            }
+            current.set(idx, null);
+            current = latest;
+        }
+    }
+
+    private static int occupy(AtomicReferenceArray<DtpRunnable> slots, int start, DtpRunnable runnable) {
+        int mask = slots.length() - 1;
+        for (int i = 0; i <= mask; i++) {
+            int idx = (start + i) & mask;
+            if (slots.get(idx) == null && slots.compareAndSet(idx, null, runnable)) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Release the slot occupied by the task, no-op if the task has not occupied one.
+     *
+     * @param runnable the finished task
+     */
+    public static void release(DtpRunnable runnable) {
+        AtomicReferenceArray<DtpRunnable> occupied = runnable.getSlots();
+        if (occupied != null) {
+            occupied.lazySet(runnable.getSlotIndex(), null);
+            runnable.setSlot(null, -1);
+        }
+    }
+
+    /**
+     * Grow slots when maximumPoolSize increased, the old slots are scanned until drained.
+     *
+     * @param maximumPoolSize new maximumPoolSize
+     */
+    public synchronized void resize(int maximumPoolSize) {
+        int size = sizeFor(maximumPoolSize);
+        AtomicReferenceArray<DtpRunnable> old = slots;
+        if (size > old.length()) {
+            // publish the new array before retiring the old one, a worker that still sees the old array
+            // after occupying a slot in it did so before the old array can be scanned as retired
+            slots = new AtomicReferenceArray<>(size);
+            retiredSlots.add(old);
+        }
+    }
+
+    /**
+     * Visit the running tasks in current and retired slots, retired slots found empty are dropped.
+     *
+     * @param action called with each running task
+     */
+    void forEachRunning(Consumer<DtpRunnable> action) {
+        visit(slots, action);
+        for (AtomicReferenceArray<DtpRunnable> retired : retiredSlots) {
+            if (!visit(retired, action)) {
+                retiredSlots.remove(retired);
+            }
+        }
+    }
+
+    private static boolean visit(AtomicReferenceArray<DtpRunnable> slots, Consumer<DtpRunnable> action) {
+        boolean occupied = false;
+        for (int i = 0; i < slots.length(); i++) {
+            DtpRunnable runnable = slots.get(i);
+            if (runnable != null) {
+                occupied = true;
+                action.accept(runnable);
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * Twice the maximumPoolSize rounded up to power of two, leaves room for nested tasks like
+     * ordered executor and keeps probing short.
+     */
+    private static int sizeFor(int maximumPoolSize) {
+        int n = Math.max(2, maximumPoolSize << 1);
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+}
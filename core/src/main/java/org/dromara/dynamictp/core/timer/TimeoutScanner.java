@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.core.timer;
+
+import org.dromara.dynamictp.core.support.ExecutorAdapter;
+import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.thread.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detect run and queue timeout by periodically scanning the running task slots and queue head
+ * of registered executors, so that no timer operation is needed on each task submission.
+ *
+ * @author agent
+ * @since 1.1.4
+ **/
+@Slf4j
+public class TimeoutScanner {
+
+    /**
+     * Scan interval, unit (ms), same as the tick duration of timeout timer.
+     */
+    private static final long SCAN_INTERVAL = 10;
+
+    private static final Set<DtpExecutor> EXECUTORS = ConcurrentHashMap.newKeySet();
+
+    private static ScheduledExecutorService scanExecutor;
+
+    private TimeoutScanner() { }
+
+    public static synchronized void register(DtpExecutor executor) {
+        EXECUTORS.add(executor);
+        if (scanExecutor == null || scanExecutor.isShutdown()) {
+            scanExecutor = new ScheduledThreadPoolExecutor(1,
+                    new NamedThreadFactory("dtp-timeout-scanner", true, Thread.MIN_PRIORITY));
+            scanExecutor.scheduleWithFixedDelay(TimeoutScanner::scan,
+                    SCAN_INTERVAL, SCAN_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static void unregister(DtpExecutor executor) {
+        EXECUTORS.remove(executor);
+    }
+
+    public static synchronized void destroy() {
+        EXECUTORS.clear();
+        if (scanExecutor != null) {
+            scanExecutor.shutdownNow();
+            scanExecutor = null;
+        }
+    }
+
+    private static void scan() {
+        long now = System.nanoTime();
+        for (DtpExecutor executor : EXECUTORS) {
+            if (executor.isTerminated()) {
+                EXECUTORS.remove(executor);
+                continue;
+            }
+            try {
+                scanRunning(executor, now);
+                scanQueueHead(executor, now);
+            } catch (Throwable e) {
+                log.error("DynamicTp timeout scan error, tpName: {}", executor.getThreadPoolName(), e);
+            }
+        }
+    }
+
+    private static void scanRunning(DtpExecutor executor, long now) {
+        long runTimeout = executor.getRunTimeout();
+        RunningTaskSlots runningTaskSlots = executor.getRunningTaskSlots();
+        if (runTimeout <= 0 || runningTaskSlots == null) {
+            return;
+        }
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(runTimeout);
+        runningTaskSlots.forEachRunning(runnable -> {
+            if (now - runnable.getStartTime() <= timeoutNanos) {
+                return;
+            }
+            Thread thread = runnable.getRunThread();
+            if (thread != null && runnable.markRunTimeout()) {
+                new RunTimeoutTimerTask(executor, runnable, thread).handle();
+            }
+        });
+    }
+
+    /**
+     * Only the queue head is checked on each scan, other timeout tasks are counted when they are dequeued.
+     */
+    private static void scanQueueHead(DtpExecutor executor, long now) {
+        long queueTimeout = executor.getQueueTimeout();
+        if (queueTimeout <= 0) {
+            return;
+        }
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        if (queue instanceof ExecutorAdapter.UnsupportedBlockingQueue) {
+            return;
+        }
+        Runnable head = queue.peek();
+        if (!(head instanceof DtpRunnable)) {
+            return;
+        }
+        DtpRunnable runnable = (DtpRunnable) head;
+        if (now - runnable.getSubmitTime() > TimeUnit.MILLISECONDS.toNanos(queueTimeout)
+                && runnable.markQueueTimeout()) {
+            new QueueTimeoutTimerTask(executor, runnable).handle();
+        }
+    }
+}
@@ -18,8 +18,10 @@
 package org.dromara.dynamictp.extension.opentelemetry.wrapper;
 
 import org.dromara.dynamictp.core.support.task.runnable.MdcRunnable;
+import org.dromara.dynamictp.core.support.task.wrapper.ContextCapturer;
 import org.dromara.dynamictp.core.support.task.wrapper.TaskWrapper;
 import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
 
 /**
  * OpenTelemetryWrapper related
@@ -27,7 +29,7 @@ import io.opentelemetry.context.Context;
  * @author weishaopeng
  * @since 1.1.3
  **/
-public class OpenTelemetryWrapper implements TaskWrapper {
+public class OpenTelemetryWrapper implements TaskWrapper, ContextCapturer {
 
     private static final String NAME = "OTel";
 
@@ -42,4 +44,25 @@ public class OpenTelemetryWrapper implements TaskWrapper {
         // 被wrap方法包装后，该Executor执行的所有Runnable都会跑在特定的context中
         return MdcRunnable.get(context.wrap(runnable));
     }
+
+    @Override
+    public Object capture() {
+        Context context = Context.current();
+        return context == Context.root() ? null : context;
+    }
+
+    @Override
+    public Object replay(Object captured) {
+        return ((Context) captured).makeCurrent();
+    }
+
+    @Override
+    public void restore(Object captured, Object backup) {
+        ((Scope) backup).close();
+    }
+
+    @Override
+    public boolean requireMdc() {
+        return true;
+    }
 }
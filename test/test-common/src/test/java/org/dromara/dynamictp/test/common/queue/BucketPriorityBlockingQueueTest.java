@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.common.queue;
+
+import org.dromara.dynamictp.common.queue.BucketPriorityBlockingQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BucketPriorityBlockingQueueTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class BucketPriorityBlockingQueueTest {
+
+    @Test
+    void testPriorityOrderAndFifo() {
+        BucketPriorityBlockingQueue<String> queue = new BucketPriorityBlockingQueue<>(10, 4, s -> s.charAt(0) - '0');
+        for (String s : Arrays.asList("2a", "0a", "3a", "2b", "0b", "9a", "1a")) {
+            Assertions.assertTrue(queue.offer(s));
+        }
+        Assertions.assertArrayEquals(new int[] {2, 1, 2, 2}, queue.sizes());
+        Assertions.assertEquals("0a", queue.peek());
+        List<String> polled = new ArrayList<>();
+        String s;
+        while ((s = queue.poll()) != null) {
+            polled.add(s);
+        }
+        Assertions.assertEquals(Arrays.asList("0a", "0b", "1a", "2a", "2b", "3a", "9a"), polled);
+        Assertions.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testCapacitySet() throws InterruptedException {
+        BucketPriorityBlockingQueue<String> queue = new BucketPriorityBlockingQueue<>(2);
+        Assertions.assertTrue(queue.offer("a"));
+        Assertions.assertTrue(queue.offer("b"));
+        Assertions.assertFalse(queue.offer("c"));
+        Assertions.assertFalse(queue.offer("c", 10, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(0, queue.remainingCapacity());
+
+        queue.setCapacity(3);
+        Assertions.assertEquals(3, queue.getCapacity());
+        Assertions.assertTrue(queue.offer("c"));
+        queue.setCapacity(1);
+        Assertions.assertEquals(3, queue.size());
+        Assertions.assertEquals(0, queue.remainingCapacity());
+        Assertions.assertFalse(queue.offer("d"));
+    }
+
+    @Test
+    void testRemoveAndDrain() {
+        BucketPriorityBlockingQueue<String> queue = new BucketPriorityBlockingQueue<>(10, 4, s -> s.charAt(0) - '0');
+        queue.addAll(Arrays.asList("1a", "3a", "1b", "0a"));
+        Assertions.assertTrue(queue.contains("1b"));
+        Assertions.assertTrue(queue.remove("1b"));
+        Assertions.assertFalse(queue.remove("1b"));
+        Assertions.assertEquals(0, queue.size(2));
+        Assertions.assertEquals(1, queue.size(1));
+        Assertions.assertArrayEquals(new Object[] {"0a", "1a", "3a"}, queue.toArray());
+
+        List<String> drained = new ArrayList<>();
+        Assertions.assertEquals(2, queue.drainTo(drained, 2));
+        Assertions.assertEquals(Arrays.asList("0a", "1a"), drained);
+        Assertions.assertEquals(1, queue.drainTo(drained));
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertThrows(NullPointerException.class, () -> queue.offer(null));
+    }
+}
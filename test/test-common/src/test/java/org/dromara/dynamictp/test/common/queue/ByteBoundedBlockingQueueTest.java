@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.common.queue;
+
+import org.dromara.dynamictp.common.em.QueueTypeEnum;
+import org.dromara.dynamictp.common.queue.ByteBoundedBlockingQueue;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.dromara.dynamictp.common.em.QueueTypeEnum.BYTE_BOUNDED_BLOCKING_QUEUE;
+
+/**
+ * ByteBoundedBlockingQueueTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class ByteBoundedBlockingQueueTest {
+
+    @Test
+    void testBuildByQueueType() {
+        Assertions.assertTrue(QueueTypeEnum.buildLbq("ByteBoundedBlockingQueue", 10) instanceof ByteBoundedBlockingQueue);
+    }
+
+    @Test
+    void testBoundedByBytes() {
+        ByteBoundedBlockingQueue<String> queue = newQueue(100, 10);
+        Assertions.assertTrue(queue.offer("aaaa"));
+        Assertions.assertTrue(queue.offer("bbbbbb"));
+        Assertions.assertEquals(10, queue.getBytes());
+        Assertions.assertFalse(queue.offer("c"));
+        Assertions.assertEquals(2, queue.getAdmitCount());
+        Assertions.assertEquals(1, queue.getRejectCount());
+
+        Assertions.assertEquals("aaaa", queue.poll());
+        Assertions.assertEquals(6, queue.getBytes());
+        Assertions.assertTrue(queue.offer("cccc"));
+        Assertions.assertFalse(queue.offer("d"));
+
+        queue.setByteCapacity(20);
+        Assertions.assertTrue(queue.offer("d"));
+        Assertions.assertEquals(11, queue.getBytes());
+        Assertions.assertTrue(queue.remove("cccc"));
+        Assertions.assertEquals(7, queue.getBytes());
+        List<String> drained = new ArrayList<>();
+        Assertions.assertEquals(2, queue.drainTo(drained));
+        Assertions.assertEquals(0, queue.getBytes());
+    }
+
+    @Test
+    void testOversizeAdmittedIntoEmptyQueue() {
+        ByteBoundedBlockingQueue<String> queue = newQueue(100, 10);
+        Assertions.assertTrue(queue.offer("oversize-element"));
+        Assertions.assertFalse(queue.offer("a"));
+        Assertions.assertEquals("oversize-element", queue.poll());
+        Assertions.assertTrue(queue.offer("a"));
+    }
+
+    @Test
+    void testBoundedByCount() {
+        ByteBoundedBlockingQueue<String> queue = newQueue(2, 100);
+        Assertions.assertTrue(queue.offer("a"));
+        Assertions.assertTrue(queue.offer("b"));
+        Assertions.assertFalse(queue.offer("c"));
+        queue.setCapacity(3);
+        Assertions.assertTrue(queue.offer("c"));
+        Assertions.assertArrayEquals(new Object[] {"a", "b", "c"}, queue.toArray());
+    }
+
+    @Test
+    void testPutWaitsForBytes() throws InterruptedException {
+        ByteBoundedBlockingQueue<String> queue = newQueue(100, 10);
+        queue.put("aaaaaaaa");
+        CountDownLatch putDone = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put("bbbbb");
+                putDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Assertions.assertFalse(putDone.await(50, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals("aaaaaaaa", queue.take());
+        Assertions.assertTrue(putDone.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals("bbbbb", queue.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSubmittedFutureCountsPayload() throws Exception {
+        DtpExecutor executor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("byteBoundedFuture")
+                .corePoolSize(1)
+                .maximumPoolSize(1)
+                .workQueue(BYTE_BOUNDED_BLOCKING_QUEUE.getName(), 10)
+                .buildDynamic();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ByteBoundedBlockingQueue<?> queue = (ByteBoundedBlockingQueue<?>) executor.getQueue();
+        try {
+            byte[] payload = new byte[1024 * 1024];
+            Future<Integer> callable = executor.submit(() -> payload.length);
+            long callableBytes = queue.getBytes();
+            Assertions.assertTrue(callableBytes > payload.length, "callable bytes " + callableBytes);
+
+            byte[] other = new byte[1024 * 1024];
+            Future<?> runnable = executor.submit(() -> other[0]++);
+            Assertions.assertTrue(queue.getBytes() - callableBytes > other.length, "runnable bytes " + queue.getBytes());
+
+            release.countDown();
+            Assertions.assertEquals(payload.length, callable.get(1, TimeUnit.SECONDS));
+            runnable.get(1, TimeUnit.SECONDS);
+            Assertions.assertEquals(0, queue.getBytes());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static ByteBoundedBlockingQueue<String> newQueue(int capacity, long byteCapacity) {
+        ByteBoundedBlockingQueue<String> queue = new ByteBoundedBlockingQueue<>(capacity, byteCapacity);
+        queue.setEstimator(task -> ((String) task).length());
+        return queue;
+    }
+}
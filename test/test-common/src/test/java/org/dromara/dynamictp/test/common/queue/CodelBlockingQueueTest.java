@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.common.queue;
+
+import org.dromara.dynamictp.common.em.QueueTypeEnum;
+import org.dromara.dynamictp.common.queue.CodelBlockingQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CodelBlockingQueueTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class CodelBlockingQueueTest {
+
+    @Test
+    void testBuildByQueueType() {
+        Assertions.assertTrue(QueueTypeEnum.buildLbq("CodelBlockingQueue", 10) instanceof CodelBlockingQueue);
+    }
+
+    @Test
+    void testNoDropWithoutStandingQueue() throws InterruptedException {
+        CodelBlockingQueue<Integer> queue = newQueue();
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+            Assertions.assertEquals(i, queue.poll());
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assertions.assertFalse(queue.isOverloaded());
+        Assertions.assertEquals(0, queue.getDropCount());
+    }
+
+    @Test
+    void testDropHeadWhenOverloaded() throws InterruptedException {
+        CodelBlockingQueue<Integer> queue = newQueue();
+        List<Integer> dropped = new ArrayList<>();
+        queue.setDropHandler(dropped::add);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        TimeUnit.MILLISECONDS.sleep(30);
+        // first interval had no standing queue
+        Assertions.assertEquals(0, queue.poll());
+        Assertions.assertFalse(queue.isOverloaded());
+        TimeUnit.MILLISECONDS.sleep(30);
+        Assertions.assertNull(queue.poll());
+        Assertions.assertTrue(queue.isOverloaded());
+        Assertions.assertTrue(queue.getMinSojourn() >= TimeUnit.MILLISECONDS.toNanos(30));
+        Assertions.assertEquals(Arrays.asList(1, 2, 3, 4), dropped);
+        Assertions.assertEquals(4, queue.getDropCount());
+        Assertions.assertEquals(10, queue.remainingCapacity());
+    }
+
+    @Test
+    void testDropFilterKeepsHead() throws InterruptedException {
+        CodelBlockingQueue<Integer> queue = newQueue();
+        List<Integer> dropped = new ArrayList<>();
+        queue.setDropHandler(dropped::add);
+        queue.setDropFilter(i -> i != 3);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        TimeUnit.MILLISECONDS.sleep(30);
+        Assertions.assertEquals(0, queue.poll());
+        TimeUnit.MILLISECONDS.sleep(30);
+        // drops stop at the element the filter keeps
+        Assertions.assertEquals(3, queue.poll());
+        Assertions.assertEquals(Arrays.asList(1, 2), dropped);
+        Assertions.assertNull(queue.poll());
+        Assertions.assertEquals(Arrays.asList(1, 2, 4), dropped);
+    }
+
+    @Test
+    void testAdaptiveLifoWhenOverloaded() throws InterruptedException {
+        CodelBlockingQueue<Integer> queue = newQueue();
+        queue.setAdaptiveLifo(true);
+        queue.addAll(Arrays.asList(0, 1, 2));
+        TimeUnit.MILLISECONDS.sleep(30);
+        Assertions.assertEquals(0, queue.poll());
+        TimeUnit.MILLISECONDS.sleep(30);
+        queue.addAll(Arrays.asList(10, 11, 12));
+        Assertions.assertEquals(12, queue.poll());
+        Assertions.assertTrue(queue.isOverloaded());
+        Assertions.assertEquals(2, queue.getDropCount());
+        Assertions.assertEquals(11, queue.poll());
+        Assertions.assertEquals(10, queue.poll());
+    }
+
+    @Test
+    void testDropCancelsFutureByDefault() throws InterruptedException {
+        CodelBlockingQueue<Runnable> queue = newQueue();
+        FutureTask<Integer> stale = new FutureTask<>(() -> 1);
+        queue.offer(() -> { });
+        queue.offer(stale);
+        TimeUnit.MILLISECONDS.sleep(30);
+        Assertions.assertNotNull(queue.poll());
+        TimeUnit.MILLISECONDS.sleep(30);
+        Assertions.assertNull(queue.poll());
+        Assertions.assertTrue(stale.isCancelled());
+    }
+
+    @Test
+    void testPutWaitsForCapacity() throws InterruptedException {
+        CodelBlockingQueue<Integer> queue = new CodelBlockingQueue<>(1);
+        queue.put(1);
+        CountDownLatch putDone = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(2);
+                putDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Assertions.assertFalse(putDone.await(50, TimeUnit.MILLISECONDS));
+        queue.setCapacity(2);
+        Assertions.assertTrue(putDone.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, queue.take());
+        Assertions.assertEquals(2, queue.poll(1, TimeUnit.SECONDS));
+        Assertions.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+
+        List<Integer> drained = new ArrayList<>();
+        queue.addAll(Arrays.asList(3, 4));
+        Assertions.assertTrue(queue.remove(3));
+        Assertions.assertEquals(1, queue.drainTo(drained));
+        Assertions.assertEquals(Arrays.asList(4), drained);
+    }
+
+    private static <E> CodelBlockingQueue<E> newQueue() {
+        CodelBlockingQueue<E> queue = new CodelBlockingQueue<>(10);
+        queue.setTargetMillis(5);
+        queue.setIntervalMillis(20);
+        return queue;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.common.queue;
+
+import org.dromara.dynamictp.common.em.QueueTypeEnum;
+import org.dromara.dynamictp.common.queue.FairBlockingQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FairBlockingQueueTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class FairBlockingQueueTest {
+
+    @Test
+    void testBuildByQueueType() {
+        Assertions.assertTrue(QueueTypeEnum.buildLbq("FairBlockingQueue", 10) instanceof FairBlockingQueue);
+    }
+
+    @Test
+    void testRoundRobinAcrossTenants() {
+        FairBlockingQueue<String> queue = newQueue(100);
+        for (int i = 0; i < 5; i++) {
+            queue.offer("a" + i);
+        }
+        queue.offer("b0");
+        queue.offer("c0");
+        queue.offer("b1");
+
+        List<String> order = drain(queue);
+        Assertions.assertEquals(listOf("a0", "b0", "c0", "a1", "b1", "a2", "a3", "a4"), order);
+    }
+
+    @Test
+    void testWeights() {
+        FairBlockingQueue<String> queue = newQueue(100);
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("a", 3);
+        queue.setWeights(weights);
+        for (int i = 0; i < 6; i++) {
+            queue.offer("a" + i);
+            queue.offer("b" + i);
+        }
+        List<String> order = drain(queue);
+        Assertions.assertEquals(listOf("a0", "a1", "a2", "b0", "a3", "a4", "a5", "b1", "b2", "b3", "b4", "b5"), order);
+    }
+
+    @Test
+    void testTenantCapacity() throws InterruptedException {
+        FairBlockingQueue<String> queue = newQueue(10);
+        Map<String, Integer> capacities = new HashMap<>();
+        capacities.put("a", 2);
+        queue.setCapacities(capacities, 3);
+
+        Assertions.assertTrue(queue.offer("a0"));
+        Assertions.assertTrue(queue.offer("a1"));
+        Assertions.assertFalse(queue.offer("a2"));
+        Assertions.assertFalse(queue.offer("a3", 10, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(queue.offer("b" + i));
+        }
+        Assertions.assertFalse(queue.offer("b3"));
+        Assertions.assertTrue(queue.offer("c0"));
+        Assertions.assertEquals(6, queue.size());
+        Assertions.assertEquals(4, queue.remainingCapacity());
+
+        Map<String, FairBlockingQueue.TenantStats> stats = queue.tenantStats();
+        Assertions.assertEquals(2, stats.get("a").getRejectCount());
+        Assertions.assertEquals(1, stats.get("b").getRejectCount());
+        Assertions.assertEquals(2, stats.get("a").getSize());
+
+        capacities.put("a", 3);
+        queue.setCapacities(capacities, 3);
+        Assertions.assertTrue(queue.offer("a2"));
+    }
+
+    @Test
+    void testTotalCapacity() throws InterruptedException {
+        FairBlockingQueue<String> queue = newQueue(2);
+        Assertions.assertTrue(queue.offer("a0"));
+        Assertions.assertTrue(queue.offer("b0"));
+        Assertions.assertFalse(queue.offer("c0"));
+
+        CountDownLatch put = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put("c0");
+                put.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Assertions.assertFalse(put.await(50, TimeUnit.MILLISECONDS));
+        queue.setCapacity(3);
+        Assertions.assertTrue(put.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(3, queue.size());
+    }
+
+    @Test
+    void testCappedTenantDoesNotSwallowWakeup() throws InterruptedException {
+        FairBlockingQueue<String> queue = newQueue(3);
+        Map<String, Integer> capacities = new HashMap<>();
+        capacities.put("a", 2);
+        queue.setCapacities(capacities, 3);
+        queue.offer("a0");
+        queue.offer("a1");
+        queue.offer("b0");
+
+        CountDownLatch capped = new CountDownLatch(1);
+        Thread cappedProducer = new Thread(() -> {
+            try {
+                queue.put("a2");
+                capped.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        cappedProducer.start();
+        Thread.sleep(50);
+
+        CountDownLatch put = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put("c0");
+                put.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Thread.sleep(50);
+
+        // frees total capacity but tenant a stays capped, the waiting producer of c must still proceed
+        Assertions.assertTrue(queue.remove("b0"));
+        Assertions.assertTrue(put.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, capped.getCount());
+
+        Assertions.assertEquals("a0", queue.poll());
+        Assertions.assertTrue(capped.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testWaitStatsAndEviction() throws InterruptedException {
+        FairBlockingQueue<String> queue = newQueue(10);
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("a", 2);
+        queue.setWeights(weights);
+        queue.offer("a0");
+        queue.offer("b0");
+        Thread.sleep(20);
+        drain(queue);
+
+        queue.refreshStats();
+        Map<String, FairBlockingQueue.TenantStats> stats = queue.tenantStats();
+        Assertions.assertTrue(stats.get("a").getWaitAvg() >= 20);
+        Assertions.assertTrue(stats.get("b").getWaitMax() >= 20);
+        Assertions.assertEquals(2, stats.get("a").getWeight());
+
+        // idle tenants without config are forgotten after a quiet window
+        queue.refreshStats();
+        stats = queue.tenantStats();
+        Assertions.assertTrue(stats.containsKey("a"));
+        Assertions.assertFalse(stats.containsKey("b"));
+        Assertions.assertEquals(0, stats.get("a").getWaitAvg());
+    }
+
+    @Test
+    void testTakeAndRemove() throws InterruptedException {
+        FairBlockingQueue<String> queue = newQueue(10);
+        queue.offer("a0");
+        queue.offer("a1");
+        queue.offer("b0");
+        Assertions.assertTrue(queue.contains("a1"));
+        Assertions.assertTrue(queue.remove("a1"));
+        Assertions.assertFalse(queue.contains("a1"));
+        Assertions.assertEquals(2, queue.toArray().length);
+        Assertions.assertEquals("a0", queue.peek());
+        Assertions.assertEquals("a0", queue.take());
+        Assertions.assertEquals("b0", queue.poll(10, TimeUnit.MILLISECONDS));
+        Assertions.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        Assertions.assertTrue(queue.isEmpty());
+    }
+
+    private static FairBlockingQueue<String> newQueue(int capacity) {
+        FairBlockingQueue<String> queue = new FairBlockingQueue<>(capacity);
+        queue.setTenantResolver(s -> s.substring(0, 1));
+        return queue;
+    }
+
+    private static List<String> drain(FairBlockingQueue<String> queue) {
+        List<String> list = new ArrayList<>();
+        queue.drainTo(list);
+        return list;
+    }
+
+    private static List<String> listOf(String... items) {
+        List<String> list = new ArrayList<>();
+        for (String item : items) {
+            list.add(item);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.common.queue;
+
+import org.dromara.dynamictp.common.queue.MemoryGuard;
+import org.dromara.dynamictp.common.queue.MemorySafeLinkedBlockingQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MemorySafeLinkedBlockingQueueTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class MemorySafeLinkedBlockingQueueTest {
+
+    @Test
+    void testAcceptWithEnoughMemory() {
+        MemorySafeLinkedBlockingQueue<Runnable> queue = new MemorySafeLinkedBlockingQueue<>(10, 1);
+        Assertions.assertTrue(MemoryGuard.freeMemory() > 0);
+        Assertions.assertFalse(queue.isMemoryExhausted());
+        Assertions.assertTrue(queue.offer(() -> { }));
+        Assertions.assertEquals(0, queue.getTripCount());
+    }
+
+    @Test
+    void testRejectWithHysteresis() {
+        // free memory of the guard never reaches the limit, so notifications can only keep it rejecting
+        Assumptions.assumeTrue(Runtime.getRuntime().maxMemory() < Integer.MAX_VALUE);
+        MemorySafeLinkedBlockingQueue<Runnable> queue = new MemorySafeLinkedBlockingQueue<>(10, Integer.MAX_VALUE);
+        Assertions.assertTrue(queue.isMemoryExhausted());
+        Assertions.assertEquals(1, queue.getTripCount());
+        Assertions.assertThrows(RejectedExecutionException.class, () -> queue.offer(() -> { }));
+
+        queue.onFreeMemory(Integer.MAX_VALUE + 1L);
+        Assertions.assertTrue(queue.isMemoryExhausted());
+        queue.onFreeMemory((long) (Integer.MAX_VALUE * MemorySafeLinkedBlockingQueue.RECOVER_RATIO) + 1);
+        Assertions.assertFalse(queue.isMemoryExhausted());
+        queue.onFreeMemory(0);
+        Assertions.assertTrue(queue.isMemoryExhausted());
+        Assertions.assertEquals(2, queue.getTripCount());
+
+        queue.setMaxFreeMemory(1);
+        Assertions.assertFalse(queue.isMemoryExhausted());
+        Assertions.assertTrue(queue.offer(() -> { }));
+    }
+
+    @Test
+    void testRefreshedByGc() throws InterruptedException {
+        Assumptions.assumeTrue(MemoryGuard.isEventDriven());
+        AtomicInteger updates = new AtomicInteger();
+        MemoryGuard.Listener listener = new MemoryGuard.Listener() {
+            @Override
+            public void onFreeMemory(long freeMemory) {
+                updates.incrementAndGet();
+            }
+
+            @Override
+            public long rejectThreshold() {
+                return 0;
+            }
+        };
+        MemoryGuard.register(listener);
+        int registered = updates.get();
+        System.gc();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (updates.get() == registered && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assertions.assertTrue(updates.get() > registered);
+        // live data after GC is watched by the collection usage threshold
+        Assertions.assertTrue(ManagementFactory.getMemoryPoolMXBeans().stream()
+                .anyMatch(pool -> pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()
+                        && pool.getCollectionUsageThreshold() > 0));
+    }
+
+    @Test
+    void testYoungGcKeepsRejecting() {
+        Assumptions.assumeTrue(Runtime.getRuntime().maxMemory() < Integer.MAX_VALUE);
+        MemoryPoolMXBean tenured = tenuredPool();
+        Assumptions.assumeTrue(tenured != null);
+        long max = tenured.getUsage().getMax() > 0 ? tenured.getUsage().getMax() : Runtime.getRuntime().maxMemory();
+        // free memory of the guard never recovers the queue, so only the stubbed GC below can change it
+        MemorySafeLinkedBlockingQueue<Runnable> queue = new MemorySafeLinkedBlockingQueue<>(10, (int) max);
+        queue.onFreeMemory(0);
+        Assertions.assertTrue(queue.isMemoryExhausted());
+
+        List<Long> updates = new CopyOnWriteArrayList<>();
+        MemoryGuard.Listener listener = new MemoryGuard.Listener() {
+            @Override
+            public void onFreeMemory(long freeMemory) {
+                updates.add(freeMemory);
+            }
+
+            @Override
+            public long rejectThreshold() {
+                return 0;
+            }
+        };
+        MemoryGuard.register(listener);
+
+        // a young collection empties the young pool but leaves the old generation as it was
+        long tenuredUsed = max - 1024;
+        Map<String, MemoryUsage> usageAfterGc = new HashMap<>();
+        usageAfterGc.put("young", new MemoryUsage(0, 0, max, max));
+        usageAfterGc.put(tenured.getName(), new MemoryUsage(0, tenuredUsed, tenuredUsed, max));
+        MemoryGuard.refreshAfterGc(usageAfterGc);
+        Assertions.assertTrue(updates.contains(1024L));
+        Assertions.assertTrue(queue.isMemoryExhausted());
+        Assertions.assertThrows(RejectedExecutionException.class, () -> queue.offer(() -> { }));
+    }
+
+    private static MemoryPoolMXBean tenuredPool() {
+        MemoryPoolMXBean tenured = null;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid() && pool.isUsageThresholdSupported()
+                    && (tenured == null || pool.getUsage().getMax() > tenured.getUsage().getMax())) {
+                tenured = pool;
+            }
+        }
+        return tenured;
+    }
+}
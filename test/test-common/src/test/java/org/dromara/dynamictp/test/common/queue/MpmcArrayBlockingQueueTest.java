@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.common.queue;
+
+import org.dromara.dynamictp.common.queue.MpmcArrayBlockingQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MpmcArrayBlockingQueueTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class MpmcArrayBlockingQueueTest {
+
+    @Test
+    void testCapacitySet() throws InterruptedException {
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(2);
+        Assertions.assertTrue(queue.offer(1));
+        Assertions.assertTrue(queue.offer(2));
+        Assertions.assertFalse(queue.offer(3));
+        Assertions.assertFalse(queue.offer(3, 10, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(0, queue.remainingCapacity());
+
+        queue.setCapacity(5000);
+        Assertions.assertEquals(5000, queue.getCapacity());
+        for (int i = 3; i <= 5000; i++) {
+            Assertions.assertTrue(queue.offer(i));
+        }
+        Assertions.assertFalse(queue.offer(5001));
+        Assertions.assertEquals(5000, queue.size());
+        queue.setCapacity(10);
+        Assertions.assertFalse(queue.offer(5001));
+        for (int i = 1; i <= 5000; i++) {
+            Assertions.assertEquals(i, queue.poll());
+        }
+        Assertions.assertNull(queue.poll());
+        Assertions.assertEquals(10, queue.remainingCapacity());
+    }
+
+    @Test
+    void testGrowOnLargeCapacity() {
+        // the ring doubles as it fills, an unbounded queue must not allocate for its capacity up front
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>();
+        int count = 10_000;
+        for (int i = 0; i < count; i++) {
+            Assertions.assertTrue(queue.offer(i));
+        }
+        Assertions.assertEquals(count, queue.size());
+        Assertions.assertEquals(Integer.MAX_VALUE - count, queue.remainingCapacity());
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals(i, queue.poll());
+        }
+        Assertions.assertNull(queue.poll());
+
+        MpmcArrayBlockingQueue<Integer> large = new MpmcArrayBlockingQueue<>(10_000_000);
+        for (int i = 0; i < 1025; i++) {
+            Assertions.assertTrue(large.offer(i));
+        }
+        Assertions.assertEquals(1025, large.size());
+        Assertions.assertEquals(0, large.poll());
+    }
+
+    @Test
+    void testRemoveAndDrain() {
+        MpmcArrayBlockingQueue<String> queue = new MpmcArrayBlockingQueue<>(10);
+        queue.addAll(Arrays.asList("a", "b", "c", "d"));
+        Assertions.assertEquals("a", queue.peek());
+        Assertions.assertTrue(queue.contains("b"));
+        Assertions.assertTrue(queue.remove("b"));
+        Assertions.assertFalse(queue.remove("b"));
+        Assertions.assertFalse(queue.contains("b"));
+        Assertions.assertArrayEquals(new Object[] {"a", "c", "d"}, queue.toArray());
+
+        List<String> drained = new ArrayList<>();
+        Assertions.assertEquals(2, queue.drainTo(drained, 2));
+        Assertions.assertEquals(Arrays.asList("a", "c"), drained);
+        Assertions.assertEquals(1, queue.drainTo(drained));
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertThrows(NullPointerException.class, () -> queue.offer(null));
+    }
+
+    @Test
+    void testRemoveFreesCapacity() throws InterruptedException {
+        MpmcArrayBlockingQueue<String> queue = new MpmcArrayBlockingQueue<>(3);
+        queue.addAll(Arrays.asList("a", "b", "c"));
+        Assertions.assertTrue(queue.remove("b"));
+        Assertions.assertTrue(queue.remove("c"));
+        // removed slots are not counted although consumers have not skipped them yet
+        Assertions.assertEquals(1, queue.size());
+        Assertions.assertEquals(2, queue.remainingCapacity());
+        Assertions.assertTrue(queue.offer("d"));
+        Assertions.assertTrue(queue.offer("e", 10, TimeUnit.MILLISECONDS));
+        Assertions.assertFalse(queue.offer("f"));
+        Assertions.assertEquals(3, queue.size());
+
+        Assertions.assertEquals("a", queue.poll());
+        Assertions.assertEquals("d", queue.poll());
+        Assertions.assertEquals("e", queue.poll());
+        Assertions.assertNull(queue.poll());
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertEquals(3, queue.remainingCapacity());
+    }
+
+    @Test
+    void testBlocking() throws Exception {
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> taken = executor.submit(() -> queue.take());
+            TimeUnit.MILLISECONDS.sleep(50);
+            Assertions.assertFalse(taken.isDone());
+            queue.put(1);
+            Assertions.assertEquals(1, taken.get(1, TimeUnit.SECONDS));
+
+            queue.put(2);
+            CountDownLatch putDone = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    queue.put(3);
+                    putDone.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Assertions.assertFalse(putDone.await(50, TimeUnit.MILLISECONDS));
+            queue.setCapacity(2);
+            Assertions.assertTrue(putDone.await(1, TimeUnit.SECONDS));
+            Assertions.assertEquals(2, queue.poll(1, TimeUnit.SECONDS));
+            Assertions.assertEquals(3, queue.poll(1, TimeUnit.SECONDS));
+            Assertions.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcurrentProducersAndConsumers() throws Exception {
+        int threads = 4;
+        int perProducer = 20000;
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(3000);
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        AtomicLong sum = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int p = 0; p < threads; p++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= perProducer; i++) {
+                        queue.put(i);
+                    }
+                    return null;
+                }));
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        sum.addAndGet(queue.take());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals((long) threads * perProducer * (perProducer + 1) / 2, sum.get());
+        Assertions.assertTrue(queue.isEmpty());
+    }
+}
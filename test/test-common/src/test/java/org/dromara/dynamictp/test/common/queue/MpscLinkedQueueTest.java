@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.common.queue;
+
+import org.dromara.dynamictp.common.queue.MpscLinkedQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * MpscLinkedQueueTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class MpscLinkedQueueTest {
+
+    @Test
+    void testFifo() {
+        MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<>();
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertNull(queue.poll());
+        for (int i = 0; i < 3; i++) {
+            queue.offer(i);
+        }
+        Assertions.assertEquals(3, queue.size());
+        Assertions.assertEquals(0, queue.peek());
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(i, queue.poll());
+        }
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertThrows(NullPointerException.class, () -> queue.offer(null));
+    }
+
+    @Test
+    void testIterator() {
+        MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<>();
+        Assertions.assertFalse(queue.iterator().hasNext());
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        queue.poll();
+        List<Integer> items = new ArrayList<>();
+        Iterator<Integer> it = queue.iterator();
+        queue.poll();
+        queue.offer(5);
+        it.forEachRemaining(items::add);
+        // weakly consistent, the element polled after creation is still returned, the one offered is seen
+        Assertions.assertEquals(Arrays.asList(1, 2, 3, 4, 5), items);
+        Assertions.assertThrows(NoSuchElementException.class, it::next);
+        Assertions.assertTrue(queue.contains(3));
+        Assertions.assertFalse(queue.contains(1));
+        Assertions.assertArrayEquals(new Object[] {2, 3, 4, 5}, queue.toArray());
+    }
+
+    @Test
+    void testRemoveByConsumer() {
+        MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<>();
+        for (int i = 0; i < 4; i++) {
+            queue.offer(i);
+        }
+        Assertions.assertTrue(queue.remove(1));
+        Assertions.assertTrue(queue.remove(3));
+        Assertions.assertFalse(queue.remove(3));
+        Assertions.assertEquals(2, queue.size());
+        Assertions.assertArrayEquals(new Object[] {0, 2}, queue.toArray());
+        Assertions.assertEquals(0, queue.poll());
+        Assertions.assertEquals(2, queue.peek());
+        Assertions.assertEquals(2, queue.poll());
+        // the removed tail is skipped
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertNull(queue.poll());
+        queue.offer(4);
+        Assertions.assertEquals(4, queue.poll());
+    }
+
+    @Test
+    void testConcurrentProducers() throws InterruptedException {
+        MpscLinkedQueue<long[]> queue = new MpscLinkedQueue<>();
+        int producers = 4;
+        int perProducer = 20000;
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    queue.offer(new long[] {producer, i});
+                }
+            }).start();
+        }
+        start.countDown();
+
+        long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] item = queue.poll();
+            if (item == null) {
+                Thread.yield();
+                continue;
+            }
+            // elements of one producer come out in offer order
+            Assertions.assertEquals(next[(int) item[0]]++, item[1]);
+            received++;
+        }
+        Assertions.assertNull(queue.poll());
+    }
+}
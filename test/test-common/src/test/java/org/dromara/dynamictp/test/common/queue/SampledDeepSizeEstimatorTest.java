@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.common.queue;
+
+import org.dromara.dynamictp.common.queue.SampledDeepSizeEstimator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SampledDeepSizeEstimatorTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class SampledDeepSizeEstimatorTest {
+
+    private final SampledDeepSizeEstimator estimator = new SampledDeepSizeEstimator();
+
+    @Test
+    void testPayloadOfTask() {
+        byte[] payload = new byte[2 * 1024 * 1024];
+        Runnable large = () -> consume(payload);
+        Runnable small = () -> consume(new byte[0]);
+        long largeSize = estimator.estimate(large);
+        Assertions.assertTrue(largeSize >= payload.length, "large: " + largeSize);
+        Assertions.assertTrue(largeSize < payload.length + 1024, "large: " + largeSize);
+        Assertions.assertTrue(estimator.estimate(small) < 1024);
+    }
+
+    @Test
+    void testSampledCollections() {
+        List<String> list = new ArrayList<>();
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            list.add("element-" + i);
+            map.put(i, "value-" + i);
+        }
+        long listSize = estimator.estimate(list);
+        // 10000 references plus 10000 strings of about 56 bytes
+        Assertions.assertTrue(listSize > 10000 * 50L && listSize < 10000 * 120L, "list: " + listSize);
+        long mapSize = estimator.estimate(map);
+        Assertions.assertTrue(mapSize > listSize, "map: " + mapSize);
+        Assertions.assertTrue(mapSize < 10000 * 250L, "map: " + mapSize);
+    }
+
+    @Test
+    void testSharedObjectsNotCounted() {
+        Holder holder = new Holder();
+        holder.thread = Thread.currentThread();
+        holder.self = holder;
+        Assertions.assertTrue(estimator.estimate(holder) <= 32);
+        Assertions.assertEquals(0, estimator.estimate(null));
+    }
+
+    @Test
+    void testCapturedBeanNotCounted() {
+        CacheService service = new CacheService();
+        byte[] payload = new byte[4096];
+        Runnable capturesBean = () -> service.lookup(payload.length);
+        long size = estimator.estimate(capturesBean);
+        Assertions.assertTrue(size >= payload.length && size < payload.length + 1024, "bean: " + size);
+        // a lambda declared in the bean captures it as this
+        Assertions.assertTrue(estimator.estimate(service.task(1)) < 1024);
+    }
+
+    @Test
+    void testCapturedOwnerNotCounted() {
+        Owner owner = new Owner();
+        Assertions.assertTrue(estimator.estimate(owner.lambdaTask()) < 1024);
+        Assertions.assertTrue(estimator.estimate(owner.innerTask()) < 1024);
+        // the owner is counted when it is the task itself
+        Assertions.assertTrue(estimator.estimate(owner) > 1024 * 1024);
+    }
+
+    private static void consume(byte[] payload) {
+        Assertions.assertNotNull(payload);
+    }
+
+    private static class Holder {
+
+        private Thread thread;
+
+        private Holder self;
+    }
+
+    @Service
+    static class CacheService {
+
+        private final Map<Integer, String> cache = new HashMap<>();
+
+        CacheService() {
+            for (int i = 0; i < 50_000; i++) {
+                cache.put(i, "value-" + i);
+            }
+        }
+
+        String lookup(int key) {
+            return cache.get(key);
+        }
+
+        Runnable task(int key) {
+            return () -> lookup(key);
+        }
+    }
+
+    private static class Owner {
+
+        private final byte[] state = new byte[2 * 1024 * 1024];
+
+        Runnable lambdaTask() {
+            return () -> consume(state);
+        }
+
+        Runnable innerTask() {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    consume(state);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.common.queue;
+
+import org.dromara.dynamictp.common.em.QueueTypeEnum;
+import org.dromara.dynamictp.common.queue.ShardedBlockingQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ShardedBlockingQueueTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class ShardedBlockingQueueTest {
+
+    @Test
+    void testBuildByQueueType() {
+        Assertions.assertTrue(QueueTypeEnum.buildLbq("ShardedBlockingQueue", 10) instanceof ShardedBlockingQueue);
+    }
+
+    @Test
+    void testCapacityAcrossShards() {
+        ShardedBlockingQueue<Integer> queue = new ShardedBlockingQueue<>(6, 4);
+        for (int i = 0; i < 6; i++) {
+            Assertions.assertTrue(queue.offer(i));
+        }
+        Assertions.assertFalse(queue.offer(6));
+        Assertions.assertEquals(6, Arrays.stream(queue.shardSizes()).sum());
+        Assertions.assertEquals(0, queue.remainingCapacity());
+
+        queue.setCapacity(8);
+        Assertions.assertTrue(queue.offer(6));
+        Assertions.assertTrue(queue.offer(7));
+        Assertions.assertFalse(queue.offer(8));
+
+        queue.setCapacity(4);
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertNotNull(queue.poll());
+            Assertions.assertFalse(queue.offer(8));
+        }
+        Assertions.assertNotNull(queue.poll());
+        Assertions.assertTrue(queue.offer(8));
+        Assertions.assertEquals(4, queue.size());
+    }
+
+    @Test
+    void testHomeShardAndSteal() throws InterruptedException {
+        ShardedBlockingQueue<Integer> queue = new ShardedBlockingQueue<>(10, 2);
+        // first poll assigns the home shard, later offers from this thread stay on it
+        Assertions.assertNull(queue.poll());
+        for (int i = 0; i < 3; i++) {
+            queue.offer(i);
+        }
+        int[] sizes = queue.shardSizes();
+        Assertions.assertTrue(sizes[0] == 3 || sizes[1] == 3);
+        Assertions.assertEquals(0, queue.poll());
+        Assertions.assertEquals(0, queue.getStealCount());
+
+        List<Integer> stolen = new ArrayList<>();
+        Thread thief = new Thread(() -> stolen.add(queue.poll()));
+        thief.start();
+        thief.join();
+        Assertions.assertEquals(Arrays.asList(1), stolen);
+        Assertions.assertEquals(1, queue.getStealCount());
+        Assertions.assertEquals(1, queue.size());
+    }
+
+    @Test
+    void testRemoveAndDrain() {
+        ShardedBlockingQueue<String> queue = new ShardedBlockingQueue<>(4, 3);
+        queue.addAll(Arrays.asList("a", "b", "c", "d"));
+        Assertions.assertTrue(queue.remove("b"));
+        Assertions.assertFalse(queue.contains("b"));
+        Assertions.assertEquals(3, queue.size());
+        Assertions.assertTrue(queue.offer("e"));
+
+        List<String> drained = new ArrayList<>();
+        Assertions.assertEquals(4, queue.drainTo(drained));
+        drained.sort(String::compareTo);
+        Assertions.assertEquals(Arrays.asList("a", "c", "d", "e"), drained);
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertNull(queue.peek());
+    }
+
+    @Test
+    void testPutWaitsForCapacity() throws InterruptedException {
+        ShardedBlockingQueue<Integer> queue = new ShardedBlockingQueue<>(1, 2);
+        queue.put(1);
+        CountDownLatch putDone = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(2);
+                putDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Assertions.assertFalse(putDone.await(50, TimeUnit.MILLISECONDS));
+        queue.setCapacity(2);
+        Assertions.assertTrue(putDone.await(1, TimeUnit.SECONDS));
+        // FIFO only holds within a shard
+        int first = queue.take();
+        int second = queue.poll(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(3, first + second);
+        Assertions.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testExecutorDrainsAllShards() throws InterruptedException {
+        int tasks = 2000;
+        ShardedBlockingQueue<Runnable> queue = new ShardedBlockingQueue<>(tasks, 4);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS, queue);
+        AtomicInteger done = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                done.incrementAndGet();
+                latch.countDown();
+            });
+        }
+        Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(tasks, done.get());
+        Assertions.assertEquals(0, queue.size());
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.common.queue;
+
+import org.dromara.dynamictp.common.em.QueueTypeEnum;
+import org.dromara.dynamictp.common.queue.VariableArrayBlockingQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VariableArrayBlockingQueueTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class VariableArrayBlockingQueueTest {
+
+    @Test
+    void testBuildByQueueType() {
+        Assertions.assertTrue(QueueTypeEnum.buildLbq("VariableArrayBlockingQueue", 10) instanceof VariableArrayBlockingQueue);
+    }
+
+    @Test
+    void testGrowKeepsOrder() {
+        VariableArrayBlockingQueue<Integer> queue = new VariableArrayBlockingQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(i);
+        }
+        // move the ring head so the elements wrap around
+        Assertions.assertEquals(0, queue.poll());
+        Assertions.assertEquals(1, queue.poll());
+        Assertions.assertTrue(queue.offer(4));
+        Assertions.assertTrue(queue.offer(5));
+        Assertions.assertFalse(queue.offer(6));
+
+        queue.setCapacity(8);
+        Assertions.assertEquals(4, queue.remainingCapacity());
+        for (int i = 6; i < 10; i++) {
+            Assertions.assertTrue(queue.offer(i));
+        }
+        Assertions.assertFalse(queue.offer(10));
+        Assertions.assertArrayEquals(new Object[] {2, 3, 4, 5, 6, 7, 8, 9}, queue.toArray());
+    }
+
+    @Test
+    void testShrinkRejectsUntilDrained() {
+        VariableArrayBlockingQueue<Integer> queue = new VariableArrayBlockingQueue<>(6);
+        for (int i = 0; i < 6; i++) {
+            queue.offer(i);
+        }
+        queue.setCapacity(3);
+        Assertions.assertEquals(6, queue.size());
+        Assertions.assertEquals(0, queue.remainingCapacity());
+        Assertions.assertFalse(queue.offer(6));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(i, queue.poll());
+            Assertions.assertFalse(queue.offer(6));
+        }
+        Assertions.assertEquals(3, queue.poll());
+        Assertions.assertTrue(queue.offer(6));
+        Assertions.assertFalse(queue.offer(7));
+        Assertions.assertArrayEquals(new Object[] {4, 5, 6}, queue.toArray());
+    }
+
+    @Test
+    void testRemoveAndDrain() {
+        VariableArrayBlockingQueue<String> queue = new VariableArrayBlockingQueue<>(4);
+        queue.addAll(Arrays.asList("x", "a", "b", "c"));
+        Assertions.assertEquals("x", queue.poll());
+        queue.offer("d");
+        Assertions.assertTrue(queue.remove("b"));
+        Assertions.assertFalse(queue.contains("b"));
+        Assertions.assertEquals("a", queue.peek());
+        Assertions.assertArrayEquals(new Object[] {"a", "c", "d"}, queue.toArray());
+        Assertions.assertTrue(queue.offer("e"));
+
+        List<String> drained = new ArrayList<>();
+        Assertions.assertEquals(4, queue.drainTo(drained));
+        Assertions.assertEquals(Arrays.asList("a", "c", "d", "e"), drained);
+        Assertions.assertNull(queue.peek());
+    }
+
+    @Test
+    void testPutWaitsForCapacity() throws InterruptedException {
+        VariableArrayBlockingQueue<Integer> queue = new VariableArrayBlockingQueue<>(1);
+        queue.put(1);
+        CountDownLatch putDone = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(2);
+                putDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Assertions.assertFalse(putDone.await(50, TimeUnit.MILLISECONDS));
+        queue.setCapacity(2);
+        Assertions.assertTrue(putDone.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, queue.take());
+        Assertions.assertEquals(2, queue.poll(1, TimeUnit.SECONDS));
+        Assertions.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+}
@@ -21,6 +21,8 @@ import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 /**
  * VariableLinkedBlockingQueueTest related
  *
@@ -36,4 +38,22 @@ class VariableLinkedBlockingQueueTest {
         queue.setCapacity(1000);
         Assertions.assertEquals(1000, queue.remainingCapacity() + queue.size());
     }
+
+    @Test
+    void testOfferAll() throws InterruptedException {
+        VariableLinkedBlockingQueue<String> queue = new VariableLinkedBlockingQueue<>(5);
+        queue.offer("a");
+        Assertions.assertEquals(3, queue.offerAll(Arrays.asList("b", "c", "d")));
+        Assertions.assertEquals(1, queue.offerAll(Arrays.asList("e", "f")));
+        Assertions.assertEquals(0, queue.offerAll(Arrays.asList("g")));
+        Assertions.assertEquals(5, queue.size());
+        for (String s : Arrays.asList("a", "b", "c", "d", "e")) {
+            Assertions.assertEquals(s, queue.take());
+        }
+        Assertions.assertEquals(2, queue.offerAll(Arrays.asList("x", "y")));
+        Assertions.assertTrue(queue.offer("z"));
+        Assertions.assertArrayEquals(new Object[] {"x", "y", "z"}, queue.toArray());
+        Assertions.assertThrows(NullPointerException.class, () -> queue.offerAll(Arrays.asList("n", null)));
+        Assertions.assertEquals(3, queue.size());
+    }
 }
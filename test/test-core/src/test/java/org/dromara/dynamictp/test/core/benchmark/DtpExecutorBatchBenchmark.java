@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.benchmark;
+
+import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.thread.NamedThreadFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares fanning out a batch of tasks by {@link DtpExecutor#executeAll} and by a loop of
+ * {@link DtpExecutor#execute(Runnable)}, each operation submits the batch and waits for completion.
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtpExecutorBatchBenchmark {
+
+    @Param({"50", "500"})
+    private int batchSize;
+
+    private DtpExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = new DtpExecutor(4, 4, 60, TimeUnit.SECONDS,
+                new VariableLinkedBlockingQueue<>(4096), new NamedThreadFactory("benchmark"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadPoolName("benchmark");
+        executor.prestartAllCoreThreads();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void executeLoop() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(batchSize);
+        for (Runnable task : tasks(latch)) {
+            executor.execute(task);
+        }
+        latch.await();
+    }
+
+    @Benchmark
+    public void executeAll() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(batchSize);
+        executor.executeAll(tasks(latch));
+        latch.await();
+    }
+
+    private List<Runnable> tasks(CountDownLatch latch) {
+        List<Runnable> tasks = new ArrayList<>(batchSize);
+        Runnable task = latch::countDown;
+        for (int i = 0; i < batchSize; i++) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DtpExecutorBatchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
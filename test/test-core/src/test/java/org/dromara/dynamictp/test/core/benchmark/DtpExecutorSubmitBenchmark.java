@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.dynamictp.test.core.benchmark;
+
+import com.google.common.collect.Lists;
+import org.dromara.dynamictp.common.ApplicationContextHolder;
+import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
+import org.dromara.dynamictp.common.timer.HashedWheelTimer;
+import org.dromara.dynamictp.core.support.task.wrapper.MdcTaskWrapper;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.thread.NamedThreadFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@link DtpExecutor#execute(Runnable)}, run with {@code -prof gc} to see allocation per task.
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtpExecutorSubmitBenchmark {
+
+    private static final Runnable NOOP = () -> { };
+
+    @Param({"none", "mdc"})
+    private String wrapper;
+
+    @Param({"false", "true"})
+    private boolean timeout;
+
+    private GenericApplicationContext context;
+
+    private DtpExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new GenericApplicationContext();
+        context.registerBean(HashedWheelTimer.class, () -> new HashedWheelTimer(
+                new NamedThreadFactory("benchmark-timeout", true), 10, TimeUnit.MILLISECONDS));
+        context.refresh();
+        new ApplicationContextHolder().setApplicationContext(context);
+
+        executor = new DtpExecutor(4, 4, 60, TimeUnit.SECONDS,
+                new VariableLinkedBlockingQueue<>(1024), new NamedThreadFactory("benchmark"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadPoolName("benchmark");
+        executor.setTaskWrappers("mdc".equals(wrapper) ?
+                Lists.newArrayList(new MdcTaskWrapper()) : Collections.emptyList());
+        if (timeout) {
+            executor.setRunTimeout(10_000);
+            executor.setQueueTimeout(10_000);
+        }
+        executor.prestartAllCoreThreads();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        context.close();
+    }
+
+    @Benchmark
+    public void execute() {
+        executor.execute(NOOP);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DtpExecutorSubmitBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
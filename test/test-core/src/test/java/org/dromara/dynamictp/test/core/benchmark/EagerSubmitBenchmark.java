@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.benchmark;
+
+import org.dromara.dynamictp.core.support.TaskQueue;
+import org.dromara.dynamictp.core.thread.EagerDtpExecutor;
+import org.dromara.dynamictp.core.thread.NamedThreadFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares submit latency of {@link EagerDtpExecutor} with the former eager mode, which counts
+ * submitted tasks in a shared counter and reads the pool size under the main lock on every offer.
+ * Both pools run at maximum size with a bounded queue, tasks that don't fit run in the caller.
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class EagerSubmitBenchmark {
+
+    private static final Runnable TASK = Thread::yield;
+
+    private EagerDtpExecutor eager;
+
+    private LegacyEagerExecutor legacy;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TaskQueue queue = new TaskQueue(1024);
+        eager = new EagerDtpExecutor(2, 8, 60, TimeUnit.SECONDS, queue,
+                new NamedThreadFactory("eager-benchmark"), new ThreadPoolExecutor.CallerRunsPolicy());
+        queue.setExecutor(eager);
+        eager.setThreadPoolName("eager-benchmark");
+        legacy = new LegacyEagerExecutor(2, 8, 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        eager.shutdownNow();
+        legacy.shutdownNow();
+    }
+
+    @Benchmark
+    public void eagerSubmit() {
+        eager.execute(TASK);
+    }
+
+    @Benchmark
+    public void legacyEagerSubmit() {
+        legacy.execute(TASK);
+    }
+
+    /**
+     * The eager mode as implemented before, kept here as the baseline.
+     */
+    private static class LegacyEagerExecutor extends ThreadPoolExecutor {
+
+        private final AtomicInteger submittedTaskCount = new AtomicInteger();
+
+        LegacyEagerExecutor(int core, int max, int capacity) {
+            super(core, max, 60, TimeUnit.SECONDS, new LegacyTaskQueue(capacity),
+                    new NamedThreadFactory("legacy-benchmark"), (r, e) -> {
+                        throw new RejectedExecutionException();
+                    });
+            ((LegacyTaskQueue) getQueue()).executor = this;
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            submittedTaskCount.decrementAndGet();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            submittedTaskCount.incrementAndGet();
+            try {
+                super.execute(command);
+            } catch (RejectedExecutionException rx) {
+                LegacyTaskQueue queue = (LegacyTaskQueue) getQueue();
+                if (!queue.force(command)) {
+                    submittedTaskCount.decrementAndGet();
+                    command.run();
+                }
+            }
+        }
+    }
+
+    private static class LegacyTaskQueue extends LinkedBlockingQueue<Runnable> {
+
+        private transient LegacyEagerExecutor executor;
+
+        LegacyTaskQueue(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public boolean offer(Runnable runnable) {
+            int currentPoolThreadSize = executor.getPoolSize();
+            if (currentPoolThreadSize == executor.getMaximumPoolSize()) {
+                return super.offer(runnable);
+            }
+            if (executor.submittedTaskCount.get() < currentPoolThreadSize) {
+                return super.offer(runnable);
+            }
+            if (currentPoolThreadSize < executor.getMaximumPoolSize()) {
+                return false;
+            }
+            return super.offer(runnable);
+        }
+
+        boolean force(Runnable runnable) {
+            return super.offer(runnable);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EagerSubmitBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
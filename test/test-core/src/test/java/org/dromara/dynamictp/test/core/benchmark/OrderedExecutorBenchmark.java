@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.benchmark;
+
+import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
+import org.dromara.dynamictp.core.thread.NamedThreadFactory;
+import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many producers submitting ordered tasks over a few keys to {@link OrderedDtpExecutor}, each operation
+ * submits a batch and waits for completion. batchSize 1 hands the parent thread back after every task,
+ * larger batches drain more tasks per scheduling turn, a lane only yields when other work waits in the parent queue.
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class OrderedExecutorBenchmark {
+
+    private static final int TASKS_PER_OP = 100;
+
+    private static final int KEYS = 16;
+
+    @Param({"1", "32", "256"})
+    private int batchSize;
+
+    private OrderedDtpExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = new OrderedDtpExecutor(4, 4, 60, TimeUnit.SECONDS,
+                new VariableLinkedBlockingQueue<>(1 << 16), new NamedThreadFactory("ordered-benchmark"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadPoolName("ordered-benchmark");
+        executor.setBatchSize(batchSize);
+        executor.prestartAllCoreThreads();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void orderedExecute() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(TASKS_PER_OP);
+        Runnable task = latch::countDown;
+        for (int i = 0; i < TASKS_PER_OP; i++) {
+            executor.execute(task, (Object) (i % KEYS));
+        }
+        latch.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderedExecutorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
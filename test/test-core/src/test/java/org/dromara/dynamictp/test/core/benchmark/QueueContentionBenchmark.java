@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.benchmark;
+
+import org.dromara.dynamictp.common.queue.MpmcArrayBlockingQueue;
+import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares offer / poll throughput of task queues under contention, this is where
+ * {@link VariableLinkedBlockingQueue}'s putLock and takeLock show up, run on a machine with enough cores.
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueContentionBenchmark {
+
+    private static final Runnable NOOP = () -> { };
+
+    @Param({"MpmcArrayBlockingQueue", "VariableLinkedBlockingQueue", "LinkedBlockingQueue"})
+    private String queueType;
+
+    private BlockingQueue<Runnable> queue;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        switch (queueType) {
+            case "MpmcArrayBlockingQueue":
+                queue = new MpmcArrayBlockingQueue<>(1 << 16);
+                break;
+            case "VariableLinkedBlockingQueue":
+                queue = new VariableLinkedBlockingQueue<>(1 << 16);
+                break;
+            default:
+                queue = new LinkedBlockingQueue<>(1 << 16);
+                break;
+        }
+    }
+
+    /**
+     * Each thread offers then polls, so the queue never fills up and both ends are contended.
+     */
+    @Benchmark
+    @Threads(16)
+    public Runnable offerPoll() {
+        queue.offer(NOOP);
+        return queue.poll();
+    }
+
+    /**
+     * Producers outnumber consumers, offers fail fast once the queue is full.
+     */
+    @Benchmark
+    @Group("producerHeavy")
+    @GroupThreads(8)
+    public boolean offer() {
+        return queue.offer(NOOP);
+    }
+
+    @Benchmark
+    @Group("producerHeavy")
+    @GroupThreads(2)
+    public Runnable poll() {
+        return queue.poll();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(QueueContentionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
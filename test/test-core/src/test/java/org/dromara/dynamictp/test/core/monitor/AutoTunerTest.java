@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.monitor;
+
+import org.dromara.dynamictp.common.entity.AutoTuneProps;
+import org.dromara.dynamictp.common.entity.DtpExecutorProps;
+import org.dromara.dynamictp.common.properties.DtpProperties;
+import org.dromara.dynamictp.core.DtpRegistry;
+import org.dromara.dynamictp.core.monitor.tuner.AutoTuner;
+import org.dromara.dynamictp.core.monitor.tuner.TuneRecommendation;
+import org.dromara.dynamictp.core.spring.EnableDynamicTp;
+import org.dromara.dynamictp.core.spring.YamlPropertySourceFactory;
+import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.dromara.dynamictp.common.em.QueueTypeEnum.VARIABLE_LINKED_BLOCKING_QUEUE;
+
+/**
+ * AutoTunerTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+@EnableDynamicTp
+@EnableAutoConfiguration
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = AutoTunerTest.class)
+@PropertySource(value = "classpath:/dynamic-tp-demo.yml", factory = YamlPropertySourceFactory.class)
+class AutoTunerTest {
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    private final String poolName = "autoTuneDtpExecutor" + SEQ.incrementAndGet();
+
+    private DtpExecutor executor;
+
+    private ExecutorWrapper wrapper;
+
+    private DtpExecutorProps props;
+
+    private AutoTuner autoTuner;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        executor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName(poolName)
+                .corePoolSize(2)
+                .maximumPoolSize(2)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 100)
+                .buildDynamic();
+        wrapper = ExecutorWrapper.of(executor);
+        DtpRegistry.listAllExecutors().put(poolName, wrapper);
+
+        AutoTuneProps tuneProps = new AutoTuneProps();
+        tuneProps.setEnabled(true);
+        tuneProps.setMaxPoolSize(6);
+        tuneProps.setStableSamples(2);
+        tuneProps.setCoolDownSeconds(0);
+        props = new DtpExecutorProps();
+        props.setThreadPoolName(poolName);
+        props.setCorePoolSize(2);
+        props.setMaximumPoolSize(2);
+        props.setQueueCapacity(100);
+        props.setAutoTune(tuneProps);
+        DtpProperties dtpProperties = new DtpProperties();
+        autoTuner = new AutoTuner(dtpProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+        DtpRegistry.listAllExecutors().remove(poolName);
+    }
+
+    @Test
+    void testDryRun() throws InterruptedException {
+        props.getAutoTune().setDryRun(true);
+        fill(6);
+        Assertions.assertNull(autoTuner.tune(wrapper, props));
+        TuneRecommendation recommendation = autoTuner.tune(wrapper, props);
+        Assertions.assertNotNull(recommendation);
+        Assertions.assertEquals(TuneRecommendation.Direction.UP, recommendation.getDirection());
+        Assertions.assertEquals(3, recommendation.getCorePoolSize());
+        Assertions.assertEquals(3, recommendation.getMaximumPoolSize());
+        Assertions.assertFalse(recommendation.isApplied());
+        Assertions.assertEquals(2, executor.getCorePoolSize());
+        Assertions.assertSame(recommendation, autoTuner.getRecommendations().get(poolName));
+    }
+
+    @Test
+    void testScaleUpAndCoolDown() throws InterruptedException {
+        fill(8);
+        autoTuner.tune(wrapper, props);
+        TuneRecommendation recommendation = autoTuner.tune(wrapper, props);
+        Assertions.assertNotNull(recommendation);
+        Assertions.assertTrue(recommendation.isApplied());
+        Assertions.assertEquals(3, executor.getCorePoolSize());
+        Assertions.assertEquals(3, executor.getMaximumPoolSize());
+
+        props.getAutoTune().setCoolDownSeconds(60);
+        TimeUnit.MILLISECONDS.sleep(50);
+        Assertions.assertNull(autoTuner.tune(wrapper, props));
+        Assertions.assertNull(autoTuner.tune(wrapper, props));
+        Assertions.assertEquals(3, executor.getCorePoolSize());
+    }
+
+    @Test
+    void testScaleUpWhenCoreLessThanMax() throws InterruptedException {
+        // threads above core never start before the queue is full
+        executor.setMaximumPoolSize(6);
+        props.setMaximumPoolSize(6);
+        fill(8);
+        Assertions.assertEquals(2, executor.getPoolSize());
+        autoTuner.tune(wrapper, props);
+        TuneRecommendation recommendation = autoTuner.tune(wrapper, props);
+        Assertions.assertNotNull(recommendation);
+        Assertions.assertEquals(TuneRecommendation.Direction.UP, recommendation.getDirection());
+        Assertions.assertEquals(3, executor.getCorePoolSize());
+        Assertions.assertEquals(6, executor.getMaximumPoolSize());
+    }
+
+    @Test
+    void testScaleDownWithHysteresis() {
+        executor.setMaximumPoolSize(4);
+        executor.setCorePoolSize(4);
+        Assertions.assertNull(autoTuner.tune(wrapper, props));
+        TuneRecommendation recommendation = autoTuner.tune(wrapper, props);
+        Assertions.assertNotNull(recommendation);
+        Assertions.assertEquals(TuneRecommendation.Direction.DOWN, recommendation.getDirection());
+        Assertions.assertEquals(3, executor.getCorePoolSize());
+        Assertions.assertEquals(3, executor.getMaximumPoolSize());
+    }
+
+    private void fill(int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        TimeUnit.MILLISECONDS.sleep(50);
+    }
+}
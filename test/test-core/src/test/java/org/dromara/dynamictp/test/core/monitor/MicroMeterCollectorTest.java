@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.monitor;
+
+import org.dromara.dynamictp.common.entity.ThreadPoolStats;
+import org.dromara.dynamictp.core.monitor.collector.MicroMeterCollector;
+import org.dromara.dynamictp.core.spring.EnableDynamicTp;
+import org.dromara.dynamictp.core.spring.YamlPropertySourceFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MicroMeterCollectorTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+@EnableDynamicTp
+@EnableAutoConfiguration
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = MicroMeterCollectorTest.class)
+@PropertySource(value = "classpath:/dynamic-tp-demo.yml", factory = YamlPropertySourceFactory.class)
+class MicroMeterCollectorTest {
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+        registry.close();
+    }
+
+    @Test
+    void testTenantTagCardinalityBounded() {
+        int tenants = MicroMeterCollector.MAX_TENANT_TAGS + 10;
+        Map<String, Integer> queueSize = new LinkedHashMap<>();
+        Map<String, Double> waitAvg = new LinkedHashMap<>();
+        Map<String, Double> waitMax = new LinkedHashMap<>();
+        Map<String, Long> rejectCount = new LinkedHashMap<>();
+        for (int i = 0; i < tenants; i++) {
+            queueSize.put("t" + i, 1);
+            waitAvg.put("t" + i, (double) i);
+            waitMax.put("t" + i, (double) i * 2);
+            rejectCount.put("t" + i, 1L);
+        }
+        ThreadPoolStats stats = ThreadPoolStats.builder()
+                .poolName("microMeterCollectorTest")
+                .tenantQueueSize(queueSize)
+                .tenantWaitAvg(waitAvg)
+                .tenantWaitMax(waitMax)
+                .tenantRejectCount(rejectCount)
+                .build();
+        new MicroMeterCollector().collect(stats);
+
+        Collection<Gauge> gauges = registry.find("thread.pool.tenant.queue.size")
+                .tag(MicroMeterCollector.POOL_NAME_TAG, "microMeterCollectorTest").gauges();
+        Assertions.assertEquals(MicroMeterCollector.MAX_TENANT_TAGS + 1, gauges.size());
+        Assertions.assertEquals(10, gauge("thread.pool.tenant.queue.size", MicroMeterCollector.OTHER_TENANT));
+        Assertions.assertEquals(10, gauge("thread.pool.tenant.reject.count", MicroMeterCollector.OTHER_TENANT));
+        Assertions.assertEquals((tenants - 1) * 2, gauge("thread.pool.tenant.queue.wait.max", MicroMeterCollector.OTHER_TENANT));
+        Assertions.assertEquals(1, gauge("thread.pool.tenant.queue.size", "t0"));
+        Assertions.assertNull(registry.find("thread.pool.tenant.queue.size")
+                .tag(MicroMeterCollector.TENANT_TAG, "t" + (tenants - 1)).gauge());
+    }
+
+    @Test
+    void testFeatureGaugesOnlyForTheirPools() {
+        new MicroMeterCollector().collect(ThreadPoolStats.builder()
+                .poolName("microMeterCollectorPlainTest")
+                .build());
+        new MicroMeterCollector().collect(ThreadPoolStats.builder()
+                .poolName("microMeterCollectorCodelTest")
+                .codelDropCount(3L)
+                .codelMinSojourn(1.5)
+                .codelOverloaded(true)
+                .build());
+
+        Assertions.assertNotNull(registry.find("thread.pool.queue.size")
+                .tag(MicroMeterCollector.POOL_NAME_TAG, "microMeterCollectorPlainTest").gauge());
+        for (String name : new String[] {"thread.pool.codel.overloaded", "thread.pool.steal.count",
+                "thread.pool.ordered.lane.skew", "thread.pool.memory.exhausted", "thread.pool.adaptive.limit"}) {
+            Assertions.assertNull(registry.find(name)
+                    .tag(MicroMeterCollector.POOL_NAME_TAG, "microMeterCollectorPlainTest").gauge(), name);
+        }
+        Assertions.assertEquals(3, registry.get("thread.pool.codel.drop.count")
+                .tag(MicroMeterCollector.POOL_NAME_TAG, "microMeterCollectorCodelTest").gauge().value());
+        Assertions.assertEquals(1, registry.get("thread.pool.codel.overloaded")
+                .tag(MicroMeterCollector.POOL_NAME_TAG, "microMeterCollectorCodelTest").gauge().value());
+        Assertions.assertNull(registry.find("thread.pool.steal.count")
+                .tag(MicroMeterCollector.POOL_NAME_TAG, "microMeterCollectorCodelTest").gauge());
+    }
+
+    private double gauge(String name, String tenant) {
+        return registry.get(name)
+                .tag(MicroMeterCollector.POOL_NAME_TAG, "microMeterCollectorTest")
+                .tag(MicroMeterCollector.TENANT_TAG, tenant).gauge().value();
+    }
+}
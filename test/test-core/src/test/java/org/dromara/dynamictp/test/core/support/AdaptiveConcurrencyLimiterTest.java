@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.support;
+
+import org.dromara.dynamictp.common.em.QueueTypeEnum;
+import org.dromara.dynamictp.common.entity.AdaptiveLimitProps;
+import org.dromara.dynamictp.common.entity.ThreadPoolStats;
+import org.dromara.dynamictp.core.converter.ExecutorConverter;
+import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.support.limit.AimdLimitAlgorithm;
+import org.dromara.dynamictp.core.support.limit.GradientLimitAlgorithm;
+import org.dromara.dynamictp.core.support.limit.LimitAlgorithm;
+import org.dromara.dynamictp.core.support.limit.LimitWindow;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdaptiveConcurrencyLimiterTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testAimd() {
+        AdaptiveLimitProps props = props(LimitAlgorithm.AIMD);
+        props.setLatencyThreshold(100);
+        LimitAlgorithm algorithm = LimitAlgorithm.of(props);
+        Assertions.assertTrue(algorithm instanceof AimdLimitAlgorithm);
+        Assertions.assertEquals(11, algorithm.update(10, new LimitWindow(10 * MS, 10, 100, false)));
+        // app limited
+        Assertions.assertEquals(10, algorithm.update(10, new LimitWindow(10 * MS, 2, 100, false)));
+        Assertions.assertEquals(9, algorithm.update(10, new LimitWindow(10 * MS, 10, 100, true)));
+        Assertions.assertEquals(9, algorithm.update(10, new LimitWindow(200 * MS, 10, 100, false)));
+    }
+
+    @Test
+    void testGradient() {
+        LimitAlgorithm algorithm = LimitAlgorithm.of(props(LimitAlgorithm.GRADIENT));
+        Assertions.assertTrue(algorithm instanceof GradientLimitAlgorithm);
+        int limit = 10;
+        for (int i = 0; i < 10; i++) {
+            limit = algorithm.update(limit, new LimitWindow(10 * MS, limit, 100, false));
+        }
+        Assertions.assertTrue(limit > 10);
+        int grown = limit;
+        // long term run time catches up after several windows, so only check the first ones
+        for (int i = 0; i < 4; i++) {
+            limit = algorithm.update(limit, new LimitWindow(50 * MS, limit, 100, false));
+        }
+        Assertions.assertTrue(limit < grown);
+    }
+
+    @Test
+    void testExecutorLimitAdjusted() throws InterruptedException {
+        AdaptiveLimitProps props = props(LimitAlgorithm.AIMD);
+        props.setMaxLimit(6);
+        props.setWindowMillis(5);
+        props.setMinWindowSamples(1);
+        DtpExecutor executor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("adaptiveLimitExecutor")
+                .corePoolSize(2)
+                .maximumPoolSize(4)
+                .adaptiveLimit(props)
+                .rejectEnhanced(false)
+                .notifyEnabled(false)
+                .buildDynamic();
+        Assertions.assertNotNull(executor.getAdaptiveLimiter());
+        Assertions.assertEquals(2, executor.getAdaptiveLimiter().getLimit());
+        Assertions.assertEquals(2, executor.getMaximumPoolSize());
+
+        CountDownLatch done = new CountDownLatch(400);
+        for (int i = 0; i < 400; i++) {
+            executor.execute(() -> {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        int limit = executor.getAdaptiveLimiter().getLimit();
+        Assertions.assertEquals(6, limit);
+        Assertions.assertEquals(limit, executor.getCorePoolSize());
+        Assertions.assertEquals(limit, executor.getMaximumPoolSize());
+        ThreadPoolStats stats = ExecutorConverter.toMetrics(ExecutorWrapper.of(executor));
+        Assertions.assertEquals(limit, stats.getAdaptiveLimit());
+        Assertions.assertTrue(stats.getAdaptiveLimitAdjustCount() >= 4);
+
+        executor.setAdaptiveLimit(null);
+        Assertions.assertNull(executor.getAdaptiveLimiter());
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testLimitRecoversFromRejectedBurst() throws InterruptedException {
+        AdaptiveLimitProps props = props(LimitAlgorithm.AIMD);
+        props.setMaxLimit(6);
+        props.setWindowMillis(5);
+        props.setMinWindowSamples(1);
+        DtpExecutor executor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("adaptiveLimitBurstExecutor")
+                .corePoolSize(2)
+                .maximumPoolSize(4)
+                .workQueue(QueueTypeEnum.VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 4)
+                .adaptiveLimit(props)
+                // counts rejections like the enhanced handler, without alarm
+                .rejectedExecutionHandler((r, e) -> {
+                    ((DtpExecutor) e).incRejectCount(1);
+                    throw new RejectedExecutionException();
+                })
+                .rejectEnhanced(false)
+                .notifyEnabled(false)
+                .buildDynamic();
+        int rejected = 0;
+        for (int round = 0; round < 100; round++) {
+            // bursts overflow the queue, rejections must not shrink the limit
+            for (int i = 0; i < 20; i++) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            TimeUnit.MILLISECONDS.sleep(1);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    rejected++;
+                }
+            }
+            TimeUnit.MILLISECONDS.sleep(2);
+        }
+        Assertions.assertTrue(rejected > 0);
+        Assertions.assertEquals(rejected, executor.getRejectedTaskCount());
+        Assertions.assertEquals(6, executor.getAdaptiveLimiter().getLimit());
+        executor.shutdownNow();
+    }
+
+    private static AdaptiveLimitProps props(String algorithm) {
+        AdaptiveLimitProps props = new AdaptiveLimitProps();
+        props.setAlgorithm(algorithm);
+        return props;
+    }
+}
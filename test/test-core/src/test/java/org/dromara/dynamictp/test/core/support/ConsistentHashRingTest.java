@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.support;
+
+import org.dromara.dynamictp.core.support.selector.ConsistentHashRing;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ConsistentHashRingTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 10000;
+
+    @Test
+    void testBalance() {
+        ConsistentHashRing<Integer> ring = new ConsistentHashRing<>(members(4));
+        int[] counts = new int[4];
+        for (int key = 0; key < KEYS; key++) {
+            counts[ring.select(key)]++;
+        }
+        for (int count : counts) {
+            Assertions.assertTrue(count > KEYS / 4 * 0.7 && count < KEYS / 4 * 1.3, "unbalanced " + count);
+        }
+    }
+
+    @Test
+    void testSmallIntegerKeysSpread() {
+        ConsistentHashRing<Integer> ring = new ConsistentHashRing<>(members(4));
+        int[] counts = new int[4];
+        for (int key = 0; key < 128; key++) {
+            counts[ring.select(key)]++;
+        }
+        for (int count : counts) {
+            Assertions.assertTrue(count > 10, "unbalanced " + count);
+        }
+    }
+
+    @Test
+    void testMinimalMovement() {
+        ConsistentHashRing<Integer> four = new ConsistentHashRing<>(members(4));
+        ConsistentHashRing<Integer> five = new ConsistentHashRing<>(members(5));
+        int moved = 0;
+        for (int key = 0; key < KEYS; key++) {
+            int from = four.select(key);
+            int to = five.select(key);
+            if (from != to) {
+                // keys only move to the added member
+                Assertions.assertEquals(4, to);
+                moved++;
+            }
+        }
+        Assertions.assertTrue(moved > KEYS / 5 * 0.7 && moved < KEYS / 5 * 1.3, "moved " + moved);
+    }
+
+    private static List<Integer> members(int n) {
+        List<Integer> members = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            members.add(i);
+        }
+        return members;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.support;
+
+import com.alibaba.ttl.TransmittableThreadLocal;
+import com.google.common.collect.Lists;
+import org.dromara.dynamictp.core.support.task.runnable.ContextSnapshotRunnable;
+import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
+import org.dromara.dynamictp.core.support.task.wrapper.ContextSnapshotTaskWrapper;
+import org.dromara.dynamictp.core.support.task.wrapper.MdcTaskWrapper;
+import org.dromara.dynamictp.core.support.task.wrapper.TaskWrapper;
+import org.dromara.dynamictp.core.support.task.wrapper.TtlTaskWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.dromara.dynamictp.common.constant.DynamicTpConst.TRACE_ID;
+
+/**
+ * ContextSnapshotTaskWrapperTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class ContextSnapshotTaskWrapperTest {
+
+    private static final TransmittableThreadLocal<String> TTL = new TransmittableThreadLocal<>();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        TTL.remove();
+        worker.shutdownNow();
+    }
+
+    @Test
+    void testMerge() {
+        TaskWrapper custom = r -> r;
+        List<TaskWrapper> merged = ContextSnapshotTaskWrapper.merge(
+                Lists.newArrayList(custom, new TtlTaskWrapper(), new MdcTaskWrapper()));
+        Assertions.assertEquals(2, merged.size());
+        Assertions.assertSame(custom, merged.get(0));
+        Assertions.assertTrue(merged.get(1) instanceof ContextSnapshotTaskWrapper);
+
+        List<TaskWrapper> plain = Lists.newArrayList(custom);
+        Assertions.assertSame(plain, ContextSnapshotTaskWrapper.merge(plain));
+    }
+
+    @Test
+    void testPropagateAndRestore() throws Exception {
+        TaskWrapper wrapper = ContextSnapshotTaskWrapper.merge(
+                Lists.newArrayList(new TtlTaskWrapper(), new MdcTaskWrapper())).get(0);
+        // start worker thread first, avoid inheriting ttl value on thread creation
+        worker.submit(() -> { }).get();
+        MDC.put("key", "value");
+        TTL.set("ttl");
+        AtomicReference<String> mdcValue = new AtomicReference<>();
+        AtomicReference<String> ttlValue = new AtomicReference<>();
+        Runnable task = wrapper.wrap(() -> {
+            mdcValue.set(MDC.get("key"));
+            ttlValue.set(TTL.get());
+        });
+        Assertions.assertTrue(task instanceof ContextSnapshotRunnable);
+
+        worker.submit(task).get();
+        Assertions.assertEquals("value", mdcValue.get());
+        Assertions.assertEquals("ttl", ttlValue.get());
+        Future<String[]> after = worker.submit(() -> new String[] {MDC.get("key"), TTL.get()});
+        Assertions.assertArrayEquals(new String[] {null, null}, after.get());
+    }
+
+    @Test
+    void testSnapshotPerTask() throws Exception {
+        TaskWrapper wrapper = ContextSnapshotTaskWrapper.merge(Lists.newArrayList(new MdcTaskWrapper())).get(0);
+        Runnable noop = () -> { };
+        Assertions.assertSame(noop, wrapper.wrap(noop));
+
+        MDC.put("key", "value");
+        AtomicReference<String> mdcValue = new AtomicReference<>();
+        Runnable first = wrapper.wrap(() -> mdcValue.set(MDC.get("key")));
+        MDC.put("key", "changed");
+        Runnable second = wrapper.wrap(() -> mdcValue.set(MDC.get("key")));
+        Assertions.assertNotSame(((ContextSnapshotRunnable) first).getSnapshot(),
+                ((ContextSnapshotRunnable) second).getSnapshot());
+        worker.submit(first).get();
+        Assertions.assertEquals("value", mdcValue.get());
+        worker.submit(second).get();
+        Assertions.assertEquals("changed", mdcValue.get());
+    }
+
+    @Test
+    void testSnapshotReusedWhileContextUnchanged() {
+        TaskWrapper wrapper = ContextSnapshotTaskWrapper.merge(Lists.newArrayList(new MdcTaskWrapper())).get(0);
+        MDC.put("key", "value");
+        Runnable first = wrapper.wrap(() -> { });
+        Runnable second = wrapper.wrap(() -> { });
+        Assertions.assertSame(((ContextSnapshotRunnable) first).getSnapshot(),
+                ((ContextSnapshotRunnable) second).getSnapshot());
+        MDC.put("key", "changed");
+        Runnable third = wrapper.wrap(() -> { });
+        Assertions.assertNotSame(((ContextSnapshotRunnable) first).getSnapshot(),
+                ((ContextSnapshotRunnable) third).getSnapshot());
+    }
+
+    @Test
+    void testReplayOnSameContext() {
+        TaskWrapper wrapper = ContextSnapshotTaskWrapper.merge(Lists.newArrayList(new MdcTaskWrapper())).get(0);
+        MDC.put("key", "value");
+        AtomicReference<String> during = new AtomicReference<>();
+        // caller runs, the worker context is the captured one already
+        wrapper.wrap(() -> {
+            during.set(MDC.get("key"));
+            MDC.put("inner", "i");
+        }).run();
+        Assertions.assertEquals("value", during.get());
+        Assertions.assertEquals("value", MDC.get("key"));
+        Assertions.assertEquals("i", MDC.get("inner"));
+    }
+
+    @Test
+    void testTraceIdFromSnapshot() {
+        TaskWrapper wrapper = ContextSnapshotTaskWrapper.merge(Lists.newArrayList(new MdcTaskWrapper())).get(0);
+        MDC.put(TRACE_ID, "trace");
+        DtpRunnable traced = new DtpRunnable(wrapper.wrap(() -> { }), null);
+        DtpRunnable mdcTraced = new DtpRunnable(new MdcTaskWrapper().wrap(() -> { }), null);
+        DtpRunnable plain = new DtpRunnable(() -> { }, null);
+        MDC.put(TRACE_ID, "changed");
+        Assertions.assertEquals("trace", traced.getTraceId());
+        Assertions.assertEquals("trace", mdcTraced.getTraceId());
+        Assertions.assertEquals("trace", plain.getTraceId());
+    }
+
+    @Test
+    void testReplayKeepsWorkerMdc() throws Exception {
+        TaskWrapper wrapper = ContextSnapshotTaskWrapper.merge(Lists.newArrayList(new MdcTaskWrapper())).get(0);
+        worker.submit(() -> {
+            MDC.put("worker", "w");
+            MDC.put("key", "old");
+        }).get();
+        MDC.put("key", "value");
+        AtomicReference<String[]> during = new AtomicReference<>();
+        worker.submit(wrapper.wrap(() -> during.set(new String[] {MDC.get("worker"), MDC.get("key")}))).get();
+        Assertions.assertArrayEquals(new String[] {"w", "value"}, during.get());
+        Future<String[]> after = worker.submit(() -> new String[] {MDC.get("worker"), MDC.get("key")});
+        Assertions.assertArrayEquals(new String[] {"w", "old"}, after.get());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.dynamictp.test.core.support;
+
+import org.dromara.dynamictp.core.support.HeavyHitterSketch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HeavyHitterSketchTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class HeavyHitterSketchTest {
+
+    @Test
+    void testTopKeys() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(3);
+        for (int round = 0; round < 1000; round++) {
+            sketch.record("hot1");
+            if (round % 2 == 0) {
+                sketch.record("hot2");
+            }
+            if (round % 4 == 0) {
+                sketch.record("hot3");
+            }
+            // a long tail of cold keys, far more than the sketch keeps
+            for (int i = 0; i < 10; i++) {
+                sketch.record(round * 10 + i);
+            }
+        }
+        Assertions.assertTrue(sketch.getTopKeys().isEmpty());
+        sketch.refresh();
+        Map<String, Long> top = sketch.getTopKeys();
+        List<String> keys = new ArrayList<>(top.keySet());
+        Assertions.assertEquals(3, keys.size());
+        Assertions.assertEquals("hot1", keys.get(0));
+        Assertions.assertEquals("hot2", keys.get(1));
+        Assertions.assertEquals("hot3", keys.get(2));
+        // count-min never underestimates
+        Assertions.assertTrue(top.get("hot1") >= 1000);
+        Assertions.assertTrue(top.get("hot1") < 1100);
+    }
+
+    @Test
+    void testSampledCountsScaled() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(3, 16);
+        for (int round = 0; round < 100_000; round++) {
+            sketch.record("hot1");
+            if (round % 2 == 0) {
+                sketch.record("hot2");
+            }
+            sketch.record(round);
+        }
+        sketch.refresh();
+        Map<String, Long> top = sketch.getTopKeys();
+        List<String> keys = new ArrayList<>(top.keySet());
+        Assertions.assertEquals("hot1", keys.get(0));
+        Assertions.assertEquals("hot2", keys.get(1));
+        Assertions.assertEquals(0, top.get("hot1") % 16);
+        Assertions.assertTrue(top.get("hot1") > 90_000 && top.get("hot1") < 110_000, "hot1 " + top.get("hot1"));
+        Assertions.assertTrue(top.get("hot2") > 45_000 && top.get("hot2") < 55_000, "hot2 " + top.get("hot2"));
+    }
+
+    @Test
+    void testRefreshStartsNewInterval() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch();
+        for (int i = 0; i < 100; i++) {
+            sketch.record("old");
+        }
+        sketch.refresh();
+        Assertions.assertEquals(100L, sketch.getTopKeys().get("old"));
+        sketch.record("new");
+        sketch.refresh();
+        Assertions.assertEquals(1, sketch.getTopKeys().size());
+        Assertions.assertEquals(1L, sketch.getTopKeys().get("new"));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.dynamictp.test.core.support;
+
+import org.dromara.dynamictp.core.support.LatencyRecorder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LatencyRecorderTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class LatencyRecorderTest {
+
+    @Test
+    void testRefresh() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        Assertions.assertEquals(0, recorder.getSnapshot().getCount());
+        for (int i = 1; i <= 100; i++) {
+            recorder.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        // not published until refreshed
+        Assertions.assertEquals(0, recorder.getSnapshot().getCount());
+
+        recorder.refresh();
+        LatencyRecorder.Snapshot snapshot = recorder.getSnapshot();
+        Assertions.assertEquals(100, snapshot.getCount());
+        Assertions.assertEquals(50, snapshot.getP50(), 1);
+        Assertions.assertEquals(99, snapshot.getP99(), 1);
+        Assertions.assertEquals(100, snapshot.getMax(), 1);
+
+        // next interval starts empty
+        recorder.refresh();
+        Assertions.assertEquals(0, recorder.getSnapshot().getCount());
+    }
+
+    @Test
+    void testClamp() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(-1);
+        recorder.record(TimeUnit.DAYS.toNanos(1));
+        recorder.refresh();
+        Assertions.assertEquals(2, recorder.getSnapshot().getCount());
+        Assertions.assertEquals(TimeUnit.HOURS.toMillis(1), recorder.getSnapshot().getMax(), 60_000);
+    }
+}
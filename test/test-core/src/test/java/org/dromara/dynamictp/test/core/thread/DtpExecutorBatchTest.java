@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.thread;
+
+import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DtpExecutorBatchTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class DtpExecutorBatchTest {
+
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    private DtpExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new DtpExecutor(2, 4, 60, TimeUnit.SECONDS, new VariableLinkedBlockingQueue<>(10),
+                (r, e) -> rejected.incrementAndGet());
+        executor.setThreadPoolName("batchDtpExecutor");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testExecuteAll() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(100);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(done::countDown);
+        }
+        for (int i = 0; i < 10; i++) {
+            // wait for the previous batch drained, so a batch never overflows the queue
+            while (!executor.getQueue().isEmpty()) {
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+            executor.executeAll(tasks.subList(i * 10, i * 10 + 10));
+        }
+        Assertions.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, executor.getPoolSize());
+        Assertions.assertEquals(0, rejected.get());
+    }
+
+    @Test
+    void testExecuteAllOverflow() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tasks.add(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        executor.executeAll(tasks);
+        // 2 core threads, 10 queued, 2 non-core threads, the others rejected one by one
+        Assertions.assertEquals(4, executor.getPoolSize());
+        Assertions.assertEquals(10, executor.getQueue().size());
+        Assertions.assertEquals(6, rejected.get());
+        release.countDown();
+    }
+
+    @Test
+    void testExecuteAllAfterShutdown() {
+        executor.shutdown();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(() -> { });
+        }
+        executor.executeAll(tasks);
+        Assertions.assertEquals(5, rejected.get());
+    }
+
+    @Test
+    void testSubmitAll() throws ExecutionException, InterruptedException {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int n = i;
+            tasks.add(() -> n * n);
+        }
+        List<Future<Integer>> futures = executor.submitAll(tasks);
+        Assertions.assertEquals(8, futures.size());
+        for (int i = 0; i < 8; i++) {
+            Assertions.assertEquals(i * i, futures.get(i).get());
+        }
+    }
+}
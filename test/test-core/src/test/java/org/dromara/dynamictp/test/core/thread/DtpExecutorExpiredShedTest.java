@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.thread;
+
+import org.dromara.dynamictp.common.em.ExpiredHandlerTypeEnum;
+import org.dromara.dynamictp.common.queue.CodelBlockingQueue;
+import org.dromara.dynamictp.core.reject.ExpiredTaskHandler;
+import org.dromara.dynamictp.core.spring.EnableDynamicTp;
+import org.dromara.dynamictp.core.spring.YamlPropertySourceFactory;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.support.task.callable.DeadlineCallable;
+import org.dromara.dynamictp.core.support.task.runnable.DeadlineRunnable;
+import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
+import org.dromara.dynamictp.core.support.task.runnable.NamedRunnable;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
+import org.dromara.dynamictp.core.thread.PriorityDtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DtpExecutorExpiredShedTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+@EnableDynamicTp
+@EnableAutoConfiguration
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = DtpExecutorExpiredShedTest.class)
+@PropertySource(value = "classpath:/dynamic-tp-demo.yml", factory = YamlPropertySourceFactory.class)
+class DtpExecutorExpiredShedTest {
+
+    private DtpExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testShedQueueTimeoutTasks() throws Exception {
+        executor = newExecutor("expiredShedQueueTimeout", 50, true);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        executor.execute(() -> await(release));
+        Future<Integer> future = executor.submit(ran::incrementAndGet);
+        executor.execute(ran::incrementAndGet);
+        TimeUnit.MILLISECONDS.sleep(200);
+        release.countDown();
+
+        Assertions.assertThrows(CancellationException.class, () -> future.get(1, TimeUnit.SECONDS));
+        awaitShed(2);
+        Future<Integer> fresh = executor.submit(ran::incrementAndGet);
+        Assertions.assertEquals(1, fresh.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, executor.getQueueTimeoutCount());
+        Assertions.assertEquals(2, executor.getRejectedTaskCount());
+        Assertions.assertEquals(1, ran.get());
+    }
+
+    @Test
+    void testShedTaskDeadline() throws Exception {
+        executor = newExecutor("expiredShedDeadline", 0, true);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        Future<String> expired = executor.submit(DeadlineCallable.of(() -> "expired", 50, TimeUnit.MILLISECONDS));
+        Future<String> alive = executor.submit(DeadlineCallable.of(() -> "alive", 10, TimeUnit.SECONDS));
+        Future<String> plain = executor.submit(() -> "plain");
+        TimeUnit.MILLISECONDS.sleep(200);
+        release.countDown();
+
+        Assertions.assertThrows(CancellationException.class, () -> expired.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals("alive", alive.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals("plain", plain.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, executor.getExpiredShedCount());
+        Assertions.assertEquals(1, executor.getQueueTimeoutCount());
+    }
+
+    @Test
+    void testShedTaskDeadlineOfPriorityExecutor() throws Exception {
+        executor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("expiredShedPriority")
+                .corePoolSize(1)
+                .maximumPoolSize(1)
+                .priority(true)
+                .shedExpiredTasks(true)
+                .buildDynamic();
+        Assertions.assertTrue(executor instanceof PriorityDtpExecutor);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        Future<String> expired = executor.submit(DeadlineCallable.of(() -> "expired", 50, TimeUnit.MILLISECONDS));
+        Future<String> alive = executor.submit(DeadlineCallable.of(() -> "alive", 10, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(200);
+        release.countDown();
+
+        Assertions.assertThrows(CancellationException.class, () -> expired.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals("alive", alive.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, executor.getExpiredShedCount());
+    }
+
+    @Test
+    void testExecuteWithPriorityKeepsSource() throws Exception {
+        executor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("expiredShedPriorityExecute")
+                .corePoolSize(1)
+                .maximumPoolSize(1)
+                .priority(true)
+                .shedExpiredTasks(true)
+                .buildDynamic();
+        PriorityDtpExecutor priorityExecutor = (PriorityDtpExecutor) executor;
+        List<Runnable> expired = new CopyOnWriteArrayList<>();
+        executor.setExpiredTaskHandler((task, dtpExecutor) -> expired.add(task));
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        priorityExecutor.execute(NamedRunnable.of(() -> { }, "named"), 0);
+        Runnable task = DeadlineRunnable.of(() -> { }, 10, TimeUnit.MILLISECONDS);
+        priorityExecutor.execute(task, 1);
+
+        DtpRunnable named = (DtpRunnable) executor.getQueue().peek();
+        Assertions.assertNotNull(named);
+        Assertions.assertEquals("named", named.getTaskName());
+        TimeUnit.MILLISECONDS.sleep(100);
+        release.countDown();
+        awaitShed(1);
+        Assertions.assertEquals(1, expired.size());
+        Assertions.assertSame(task, expired.get(0));
+    }
+
+    @Test
+    void testOrderedKeyProgressesAfterLaneExpired() throws InterruptedException {
+        for (String mode : new String[] {"lane", "key"}) {
+            executor = ThreadPoolBuilder.newBuilder()
+                    .threadPoolName("expiredShedOrdered-" + mode)
+                    .corePoolSize(1)
+                    .maximumPoolSize(1)
+                    .ordered(true)
+                    .orderedMode(mode)
+                    .queueTimeout(50)
+                    .shedExpiredTasks(true)
+                    .buildDynamic();
+            Assertions.assertTrue(executor instanceof OrderedDtpExecutor);
+            OrderedDtpExecutor ordered = (OrderedDtpExecutor) executor;
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger ran = new AtomicInteger();
+            executor.execute(() -> await(release));
+            ordered.execute(ran::incrementAndGet, "k");
+            TimeUnit.MILLISECONDS.sleep(200);
+            release.countDown();
+
+            // the expired task of the key is shed, the lane itself keeps running the later ones
+            awaitShed(1);
+            CountDownLatch done = new CountDownLatch(5);
+            for (int i = 0; i < 5; i++) {
+                ordered.execute(() -> {
+                    ran.incrementAndGet();
+                    done.countDown();
+                }, "k");
+            }
+            Assertions.assertTrue(done.await(1, TimeUnit.SECONDS), mode);
+            Assertions.assertEquals(5, ran.get(), mode);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCustomExpiredHandler() throws InterruptedException {
+        executor = newExecutor("expiredShedCustomHandler", 0, true);
+        List<Runnable> expired = new CopyOnWriteArrayList<>();
+        executor.setExpiredTaskHandler((task, dtpExecutor) -> expired.add(task));
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        Runnable task = DeadlineRunnable.of(() -> { }, 10, TimeUnit.MILLISECONDS);
+        executor.execute(task);
+        TimeUnit.MILLISECONDS.sleep(100);
+        release.countDown();
+        awaitShed(1);
+        Assertions.assertEquals(1, expired.size());
+        Assertions.assertSame(task, expired.get(0));
+
+        executor.setExpiredHandlerType(ExpiredHandlerTypeEnum.DISCARD_POLICY.getName());
+        Assertions.assertTrue(executor.getExpiredTaskHandler() instanceof ExpiredTaskHandler.DiscardPolicy);
+    }
+
+    @Test
+    void testExpiredTasksRunWhenShedDisabled() throws Exception {
+        executor = newExecutor("expiredShedDisabled", 50, false);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        Future<String> future = executor.submit(DeadlineCallable.of(() -> "late", 10, TimeUnit.MILLISECONDS));
+        TimeUnit.MILLISECONDS.sleep(200);
+        release.countDown();
+        Assertions.assertEquals("late", future.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, executor.getExpiredShedCount());
+        Assertions.assertEquals(1, executor.getQueueTimeoutCount());
+    }
+
+    @Test
+    void testCodelDroppedTasksShed() throws Exception {
+        executor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("expiredShedCodel")
+                .corePoolSize(1)
+                .maximumPoolSize(1)
+                .workQueue("CodelBlockingQueue", 100)
+                .codelTarget(5)
+                .codelInterval(20)
+                .buildDynamic();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(executor.submit(() -> sleep(25)));
+        }
+        TimeUnit.MILLISECONDS.sleep(30);
+        release.countDown();
+
+        futures.get(0).get(1, TimeUnit.SECONDS);
+        for (int i = 1; i < 5; i++) {
+            Future<?> future = futures.get(i);
+            Assertions.assertThrows(CancellationException.class, () -> future.get(1, TimeUnit.SECONDS));
+        }
+        awaitShed(4);
+        CodelBlockingQueue<Runnable> queue = (CodelBlockingQueue<Runnable>) executor.getQueue();
+        Assertions.assertEquals(4, queue.getDropCount());
+        Assertions.assertTrue(queue.isOverloaded());
+    }
+
+    @Test
+    void testCodelKeepsOrderedKeyExecutors() throws Exception {
+        executor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("expiredShedCodelOrdered")
+                .corePoolSize(1)
+                .maximumPoolSize(1)
+                .ordered(true)
+                .orderedMode("key")
+                .workQueue("CodelBlockingQueue", 100)
+                .codelTarget(5)
+                .codelInterval(20)
+                .buildDynamic();
+        OrderedDtpExecutor ordered = (OrderedDtpExecutor) executor;
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        CountDownLatch done = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            ordered.execute(() -> {
+                sleep(25);
+                done.countDown();
+            }, "k" + i);
+        }
+        TimeUnit.MILLISECONDS.sleep(30);
+        release.countDown();
+
+        // the key executors stay queued while overloaded, so every key keeps running
+        Assertions.assertTrue(done.await(2, TimeUnit.SECONDS));
+        CountDownLatch next = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            ordered.execute(next::countDown, "k" + i);
+        }
+        Assertions.assertTrue(next.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, executor.getExpiredShedCount());
+    }
+
+    private DtpExecutor newExecutor(String name, long queueTimeout, boolean shedExpiredTasks) {
+        return ThreadPoolBuilder.newBuilder()
+                .threadPoolName(name)
+                .corePoolSize(1)
+                .maximumPoolSize(1)
+                .queueTimeout(queueTimeout)
+                .shedExpiredTasks(shedExpiredTasks)
+                .buildDynamic();
+    }
+
+    private void awaitShed(long expected) throws InterruptedException {
+        for (int i = 0; i < 100 && executor.getExpiredShedCount() < expected; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assertions.assertEquals(expected, executor.getExpiredShedCount());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.thread;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.dromara.dynamictp.common.queue.FairBlockingQueue;
+import org.dromara.dynamictp.core.support.task.callable.TenantCallable;
+import org.dromara.dynamictp.core.support.task.runnable.TenantRunnable;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DtpExecutorTenantTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class DtpExecutorTenantTest {
+
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    private FairBlockingQueue<Runnable> queue;
+
+    private DtpExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        queue = new FairBlockingQueue<>(100);
+        executor = new DtpExecutor(1, 1, 60, TimeUnit.SECONDS, queue, (r, e) -> rejected.incrementAndGet());
+        executor.setThreadPoolName("tenantDtpExecutor");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testFairAcrossTenants() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> Uninterruptibles.awaitUninterruptibly(release));
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            String name = "a" + i;
+            executor.execute(TenantRunnable.of(() -> order.add(name), "a"));
+        }
+        Future<String> future = executor.submit(TenantCallable.of(() -> order.add("b0") ? "b0" : null, "b"));
+        release.countDown();
+
+        Assertions.assertEquals("b0", future.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, order.indexOf("b0") + 1);
+    }
+
+    @Test
+    void testTenantCapacity() {
+        queue.setCapacities(Collections.singletonMap("a", 1), 0);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> Uninterruptibles.awaitUninterruptibly(release));
+
+        executor.execute(TenantRunnable.of(() -> { }, "a"));
+        executor.execute(TenantRunnable.of(() -> { }, "a"));
+        executor.execute(TenantRunnable.of(() -> { }, "b"));
+        Assertions.assertEquals(1, rejected.get());
+        Assertions.assertEquals(1, queue.tenantStats().get("a").getRejectCount());
+        Assertions.assertEquals(1, queue.tenantStats().get("b").getSize());
+        release.countDown();
+    }
+}
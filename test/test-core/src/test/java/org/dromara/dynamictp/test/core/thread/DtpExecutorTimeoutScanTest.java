@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.thread;
+
+import org.dromara.dynamictp.core.spring.EnableDynamicTp;
+import org.dromara.dynamictp.core.spring.YamlPropertySourceFactory;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.timer.RunningTaskSlots;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DtpExecutorTimeoutScanTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+@EnableDynamicTp
+@EnableAutoConfiguration
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = DtpExecutorTimeoutScanTest.class)
+@PropertySource(value = "classpath:/dynamic-tp-demo.yml", factory = YamlPropertySourceFactory.class)
+class DtpExecutorTimeoutScanTest {
+
+    private DtpExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("timeoutScanDtpExecutor")
+                .corePoolSize(1)
+                .maximumPoolSize(1)
+                .runTimeout(50)
+                .queueTimeout(50)
+                .timeoutScanEnabled(true)
+                .buildDynamic();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testRunTimeoutWhileRunning() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        TimeUnit.MILLISECONDS.sleep(300);
+        Assertions.assertEquals(1, executor.getRunTimeoutCount());
+        release.countDown();
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assertions.assertEquals(1, executor.getRunTimeoutCount());
+    }
+
+    @Test
+    void testQueueTimeout() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        executor.execute(() -> {
+            await(release);
+            done.countDown();
+        });
+        executor.execute(done::countDown);
+        executor.execute(done::countDown);
+        TimeUnit.MILLISECONDS.sleep(300);
+        Assertions.assertTrue(executor.getQueueTimeoutCount() >= 1);
+        release.countDown();
+        Assertions.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, executor.getQueueTimeoutCount());
+        Assertions.assertEquals(1, executor.getRunTimeoutCount());
+    }
+
+    @Test
+    void testRunTimeoutWithoutFreeSlot() throws InterruptedException {
+        // occupy both slots, the task then runs without a slot
+        DtpRunnable[] occupants = new DtpRunnable[2];
+        for (int i = 0; i < occupants.length; i++) {
+            occupants[i] = new DtpRunnable(() -> { }, "occupant");
+            occupants[i].setStartTime(System.nanoTime() + TimeUnit.HOURS.toNanos(1));
+            executor.getRunningTaskSlots().occupy(occupants[i]);
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> {
+            sleep(150);
+            done.countDown();
+        });
+        Assertions.assertTrue(done.await(1, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(50);
+        Assertions.assertEquals(1, executor.getRunTimeoutCount());
+        for (DtpRunnable occupant : occupants) {
+            RunningTaskSlots.release(occupant);
+        }
+    }
+
+    @Test
+    void testRunTimeoutAfterResize() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        TimeUnit.MILLISECONDS.sleep(20);
+        executor.setMaximumPoolSize(8);
+        TimeUnit.MILLISECONDS.sleep(300);
+        // scanned in the retired slots while still running
+        Assertions.assertEquals(1, executor.getRunTimeoutCount());
+        release.countDown();
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assertions.assertEquals(1, executor.getRunTimeoutCount());
+    }
+
+    @Test
+    void testNoTimeout() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            executor.execute(done::countDown);
+        }
+        Assertions.assertTrue(done.await(1, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assertions.assertEquals(0, executor.getRunTimeoutCount());
+        Assertions.assertEquals(0, executor.getQueueTimeoutCount());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
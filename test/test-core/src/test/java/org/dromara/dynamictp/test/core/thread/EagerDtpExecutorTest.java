@@ -17,10 +17,15 @@
 
 package org.dromara.dynamictp.test.core.thread;
 
+import com.google.common.util.concurrent.Uninterruptibles;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.dynamictp.core.DtpRegistry;
 import org.dromara.dynamictp.core.spring.EnableDynamicTp;
 import org.dromara.dynamictp.core.spring.YamlPropertySourceFactory;
+import org.dromara.dynamictp.core.support.TaskQueue;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.thread.EagerDtpExecutor;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
@@ -28,8 +33,14 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.awaitility.Awaitility.await;
 
 /**
  * EagerDtpExecutorTest related
@@ -58,4 +69,129 @@ class EagerDtpExecutorTest {
             });
         }
     }
+
+    @Test
+    void testSpawnBeforeQueue() throws InterruptedException {
+        EagerDtpExecutor executor = (EagerDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("eagerStressExecutor")
+                .corePoolSize(1)
+                .maximumPoolSize(4)
+                .queueCapacity(10)
+                .ioIntensive(true)
+                .rejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy())
+                .rejectEnhanced(false)
+                .buildDynamic();
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> Uninterruptibles.awaitUninterruptibly(release));
+        }
+        Assertions.assertEquals(4, executor.getPoolSize());
+        Assertions.assertEquals(0, executor.getQueue().size());
+
+        executor.execute(() -> Uninterruptibles.awaitUninterruptibly(release));
+        Assertions.assertEquals(4, executor.getPoolSize());
+        Assertions.assertEquals(1, executor.getQueue().size());
+
+        release.countDown();
+        TaskQueue queue = (TaskQueue) executor.getQueue();
+        await().atMost(1, TimeUnit.SECONDS).until(() -> queue.getIdleWorkerCount() == 4);
+        // idle workers take new tasks, no more threads are created
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(done::countDown);
+        }
+        Assertions.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(4, executor.getLargestPoolSize());
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testNoSpuriousRejectNearMaximum() throws InterruptedException {
+        AtomicInteger rejected = new AtomicInteger();
+        EagerDtpExecutor executor = (EagerDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("eagerStressExecutor")
+                .corePoolSize(2)
+                .maximumPoolSize(8)
+                .queueCapacity(100_000)
+                .ioIntensive(true)
+                .rejectedExecutionHandler((r, e) -> rejected.incrementAndGet())
+                .rejectEnhanced(false)
+                .buildDynamic();
+        int producers = 8;
+        int tasksPerProducer = 5000;
+        CountDownLatch done = new CountDownLatch(producers * tasksPerProducer);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                Uninterruptibles.awaitUninterruptibly(start);
+                for (int i = 0; i < tasksPerProducer; i++) {
+                    executor.execute(() -> {
+                        Thread.yield();
+                        done.countDown();
+                    });
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+        Assertions.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, rejected.get());
+        Assertions.assertTrue(executor.getLargestPoolSize() <= 8);
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSubmitAtKeepAliveBoundary() throws InterruptedException {
+        EagerDtpExecutor executor = (EagerDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("eagerKeepAliveExecutor")
+                .corePoolSize(1)
+                .maximumPoolSize(4)
+                .keepAliveTime(2)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .queueCapacity(10)
+                .ioIntensive(true)
+                .rejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy())
+                .rejectEnhanced(false)
+                .buildDynamic();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> Uninterruptibles.awaitUninterruptibly(release));
+        try {
+            for (int i = 0; i < 500; i++) {
+                CountDownLatch done = new CountDownLatch(1);
+                executor.execute(done::countDown);
+                // a worker claimed as its poll times out must not exit leaving the task behind the blocked one,
+                // the pool stays below maximum size so a worker that left is replaced
+                Assertions.assertTrue(done.await(1, TimeUnit.SECONDS), "round " + i);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(1500 + i % 10 * 100));
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRejectWhenQueueFull() {
+        AtomicInteger rejected = new AtomicInteger();
+        EagerDtpExecutor executor = (EagerDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("eagerStressExecutor")
+                .corePoolSize(1)
+                .maximumPoolSize(2)
+                .queueCapacity(2)
+                .ioIntensive(true)
+                .rejectedExecutionHandler((r, e) -> rejected.incrementAndGet())
+                .rejectEnhanced(false)
+                .buildDynamic();
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> Uninterruptibles.awaitUninterruptibly(release));
+        }
+        Assertions.assertEquals(2, executor.getPoolSize());
+        Assertions.assertEquals(2, executor.getQueue().size());
+        Assertions.assertEquals(1, rejected.get());
+        release.countDown();
+        executor.shutdownNow();
+    }
 }
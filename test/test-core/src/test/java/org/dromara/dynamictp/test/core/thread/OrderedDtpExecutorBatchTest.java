@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.thread;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.dromara.dynamictp.common.em.QueueTypeEnum.VARIABLE_LINKED_BLOCKING_QUEUE;
+
+/**
+ * OrderedDtpExecutorBatchTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class OrderedDtpExecutorBatchTest {
+
+    private OrderedDtpExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testOrderPerKeyWithManyProducers() throws InterruptedException {
+        executor = (OrderedDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("orderedBatchExecutor")
+                .corePoolSize(4)
+                .maximumPoolSize(4)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 10_000)
+                .ordered(true)
+                .buildDynamic();
+        executor.setBatchSize(4);
+        int keys = 16;
+        int producers = 8;
+        int perProducer = 2000;
+        int[][] last = new int[producers][keys];
+        AtomicInteger disorder = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers * perProducer);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            new Thread(() -> {
+                Uninterruptibles.awaitUninterruptibly(start);
+                for (int i = 0; i < perProducer; i++) {
+                    final int key = i % keys;
+                    final int seq = i;
+                    // same producer and key go to the same child, so they must run in submit order
+                    executor.execute(() -> {
+                        if (last[producer][key] > seq) {
+                            disorder.incrementAndGet();
+                        }
+                        last[producer][key] = seq;
+                        done.countDown();
+                    }, (Object) (producer * keys + key));
+                }
+            }).start();
+        }
+        start.countDown();
+        Assertions.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, disorder.get());
+    }
+
+    @Test
+    void testYieldAfterBatch() throws InterruptedException {
+        executor = (OrderedDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("orderedBatchExecutor")
+                .corePoolSize(1)
+                .maximumPoolSize(1)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 100)
+                .ordered(true)
+                .buildDynamic();
+        executor.setBatchSize(2);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> Uninterruptibles.awaitUninterruptibly(release));
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(5);
+        for (int i = 0; i < 4; i++) {
+            String name = "a" + i;
+            executor.execute(() -> {
+                order.add(name);
+                done.countDown();
+            }, "a");
+        }
+        executor.execute(() -> {
+            order.add("u");
+            done.countDown();
+        });
+        release.countDown();
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        // the child yields the only parent thread after two tasks, so the unordered task runs in between
+        Assertions.assertEquals(listOf("a0", "a1", "u", "a2", "a3"), order);
+    }
+
+    @Test
+    void testOrderPerKeyThroughResize() throws InterruptedException {
+        executor = (OrderedDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("orderedBatchExecutor")
+                .corePoolSize(2)
+                .maximumPoolSize(2)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 100_000)
+                .ordered(true)
+                .buildDynamic();
+        executor.setMaximumPoolSize(6);
+        executor.setBatchSize(8);
+        int keys = 64;
+        int rounds = 300;
+        int[] last = new int[keys];
+        AtomicInteger disorder = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(keys * rounds);
+        Thread producer = new Thread(() -> {
+            for (int round = 0; round < rounds; round++) {
+                for (int key = 0; key < keys; key++) {
+                    final int k = key;
+                    final int seq = round;
+                    executor.execute(() -> {
+                        if (last[k] != seq) {
+                            disorder.incrementAndGet();
+                        }
+                        last[k] = seq + 1;
+                        Thread.yield();
+                        done.countDown();
+                    }, (Object) k);
+                }
+            }
+        });
+        producer.start();
+        int[] sizes = {4, 6, 1, 3};
+        for (int size : sizes) {
+            TimeUnit.MILLISECONDS.sleep(20);
+            executor.setCorePoolSize(size);
+            Assertions.assertEquals(size, executor.getChildCount());
+        }
+        Assertions.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, disorder.get());
+        producer.join();
+    }
+
+    private static List<String> listOf(String... items) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, items);
+        return list;
+    }
+}
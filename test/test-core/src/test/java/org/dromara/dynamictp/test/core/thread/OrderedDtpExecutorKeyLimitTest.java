@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.dynamictp.test.core.thread;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.dromara.dynamictp.common.em.OrderedModeEnum;
+import org.dromara.dynamictp.common.entity.ThreadPoolStats;
+import org.dromara.dynamictp.core.converter.ExecutorConverter;
+import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.dromara.dynamictp.common.em.QueueTypeEnum.VARIABLE_LINKED_BLOCKING_QUEUE;
+
+/**
+ * OrderedDtpExecutorKeyLimitTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class OrderedDtpExecutorKeyLimitTest {
+
+    private OrderedDtpExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrencyPerKey() throws InterruptedException {
+        executor = (OrderedDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("orderedKeyLimitConcurrencyExecutor")
+                .corePoolSize(8)
+                .maximumPoolSize(8)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 10_000)
+                .ordered(true)
+                .orderedMode(OrderedModeEnum.KEY_LIMIT.getName())
+                .orderedKeyConcurrency(2)
+                .rejectEnhanced(false)
+                .buildDynamic();
+        int keys = 3;
+        int perKey = 100;
+        AtomicInteger[] active = new AtomicInteger[keys];
+        AtomicInteger[] peak = new AtomicInteger[keys];
+        CountDownLatch done = new CountDownLatch(keys * perKey);
+        for (int key = 0; key < keys; key++) {
+            active[key] = new AtomicInteger();
+            peak[key] = new AtomicInteger();
+        }
+        for (int i = 0; i < perKey; i++) {
+            for (int key = 0; key < keys; key++) {
+                final int k = key;
+                executor.execute(() -> {
+                    peak[k].accumulateAndGet(active[k].incrementAndGet(), Math::max);
+                    Uninterruptibles.sleepUninterruptibly(1, TimeUnit.MILLISECONDS);
+                    active[k].decrementAndGet();
+                    done.countDown();
+                }, (Object) key);
+            }
+        }
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int key = 0; key < keys; key++) {
+            Assertions.assertEquals(2, peak[key].get(), "key " + key);
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveKeyCount() == 0);
+    }
+
+    @Test
+    void testLimitedKeyNotBlockOthers() throws InterruptedException {
+        executor = (OrderedDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("orderedKeyLimitBlockExecutor")
+                .corePoolSize(4)
+                .maximumPoolSize(4)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 10_000)
+                .ordered(true)
+                .orderedMode(OrderedModeEnum.KEY_LIMIT.getName())
+                .orderedKeyConcurrency(2)
+                .rejectEnhanced(false)
+                .buildDynamic();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                started.incrementAndGet();
+                Uninterruptibles.awaitUninterruptibly(release);
+            }, (Object) "slow");
+        }
+        int keys = 64;
+        CountDownLatch done = new CountDownLatch(keys);
+        for (int key = 0; key < keys; key++) {
+            executor.execute(done::countDown, (Object) key);
+        }
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, started.get());
+        Assertions.assertEquals(5, executor.getKeyBacklog("slow"));
+        Assertions.assertEquals(1, executor.getLimitedKeyCount());
+
+        ThreadPoolStats stats = ExecutorConverter.toMetrics(ExecutorWrapper.of(executor));
+        Assertions.assertEquals(1, stats.getOrderedLimitedKeyCount());
+        Assertions.assertEquals(5, stats.getOrderedMaxKeyBacklog());
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveKeyCount() == 0);
+        Assertions.assertEquals(5, started.get());
+        Assertions.assertEquals(0, executor.getLimitedKeyCount());
+    }
+
+    @Test
+    void testRefreshConcurrency() throws InterruptedException {
+        executor = (OrderedDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("orderedKeyLimitRefreshExecutor")
+                .corePoolSize(4)
+                .maximumPoolSize(4)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 10_000)
+                .ordered(true)
+                .orderedMode(OrderedModeEnum.KEY_LIMIT.getName())
+                .orderedKeyConcurrency(1)
+                .rejectEnhanced(false)
+                .buildDynamic();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> {
+                started.incrementAndGet();
+                Uninterruptibles.awaitUninterruptibly(release);
+            }, (Object) "key");
+        }
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assertions.assertEquals(1, started.get());
+        // waiting tasks start on a raised limit without new submissions
+        executor.setKeyConcurrency(3);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> started.get() == 3);
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assertions.assertEquals(3, started.get());
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveKeyCount() == 0);
+        Assertions.assertEquals(4, started.get());
+    }
+}
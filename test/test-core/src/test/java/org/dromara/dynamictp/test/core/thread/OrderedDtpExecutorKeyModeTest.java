@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.thread;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.dromara.dynamictp.common.em.OrderedModeEnum;
+import org.dromara.dynamictp.common.em.RejectedTypeEnum;
+import org.dromara.dynamictp.common.entity.ThreadPoolStats;
+import org.dromara.dynamictp.core.converter.ExecutorConverter;
+import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.dromara.dynamictp.common.em.QueueTypeEnum.VARIABLE_LINKED_BLOCKING_QUEUE;
+
+/**
+ * OrderedDtpExecutorKeyModeTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class OrderedDtpExecutorKeyModeTest {
+
+    private OrderedDtpExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSlowKeyNotBlockOthers() throws InterruptedException {
+        executor = (OrderedDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("orderedKeyModeSlowExecutor")
+                .corePoolSize(2)
+                .maximumPoolSize(2)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 10_000)
+                .ordered(true)
+                .orderedMode(OrderedModeEnum.KEY.getName())
+                .rejectEnhanced(false)
+                .buildDynamic();
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> Uninterruptibles.awaitUninterruptibly(release), (Object) "slow");
+        }
+        int keys = 64;
+        CountDownLatch done = new CountDownLatch(keys);
+        for (int key = 0; key < keys; key++) {
+            executor.execute(done::countDown, (Object) key);
+        }
+        // every other key runs on the second thread while the slow key holds the first one
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(3, executor.getKeyBacklog("slow"));
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveKeyCount() == 0);
+    }
+
+    @Test
+    void testOrderPerKeyAndEviction() throws InterruptedException {
+        executor = (OrderedDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("orderedKeyModeOrderExecutor")
+                .corePoolSize(4)
+                .maximumPoolSize(4)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 10_000)
+                .ordered(true)
+                .orderedMode(OrderedModeEnum.KEY.getName())
+                .rejectEnhanced(false)
+                .buildDynamic();
+        int keys = 32;
+        int producers = 4;
+        int perProducer = 2000;
+        int[][] last = new int[producers][keys];
+        AtomicInteger disorder = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers * perProducer);
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    final int key = i % keys;
+                    final int seq = i;
+                    executor.execute(() -> {
+                        if (last[producer][key] > seq) {
+                            disorder.incrementAndGet();
+                        }
+                        last[producer][key] = seq;
+                        done.countDown();
+                    }, (Object) (producer * keys + key));
+                }
+            }).start();
+        }
+        Assertions.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, disorder.get());
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveKeyCount() == 0);
+    }
+
+    @Test
+    void testCaps() throws InterruptedException {
+        executor = (OrderedDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("orderedKeyModeCapExecutor")
+                .corePoolSize(2)
+                .maximumPoolSize(2)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 10_000)
+                .ordered(true)
+                .orderedMode(OrderedModeEnum.KEY.getName())
+                .rejectEnhanced(false)
+                .buildDynamic();
+        executor.setMaxActiveKeys(2);
+        executor.setKeyCapacity(3);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> Uninterruptibles.awaitUninterruptibly(release), (Object) "a");
+        }
+        executor.execute(() -> Uninterruptibles.awaitUninterruptibly(release), (Object) "b");
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }, (Object) "a"));
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }, (Object) "c"));
+        Assertions.assertEquals(2, executor.getRejectedTaskCount());
+        Assertions.assertEquals(2, executor.getActiveKeyCount());
+
+        Map<String, Integer> top = executor.getTopKeyBacklogs(1);
+        Assertions.assertEquals(1, top.size());
+        Assertions.assertEquals(3, top.get("a"));
+        ThreadPoolStats stats = ExecutorConverter.toMetrics(ExecutorWrapper.of(executor));
+        Assertions.assertEquals(2, stats.getOrderedActiveKeyCount());
+        Assertions.assertEquals(3, stats.getOrderedMaxKeyBacklog());
+        Assertions.assertEquals(1, stats.getOrderedKeyBacklog().get("b"));
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveKeyCount() == 0);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(done::countDown, (Object) "c");
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testRejectedByParent() throws InterruptedException {
+        executor = (OrderedDtpExecutor) ThreadPoolBuilder.newBuilder()
+                .threadPoolName("orderedKeyModeParentRejectExecutor")
+                .corePoolSize(1)
+                .maximumPoolSize(1)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 1)
+                .ordered(true)
+                .orderedMode(OrderedModeEnum.KEY.getName())
+                .rejectedExecutionHandler(RejectedTypeEnum.ABORT_POLICY.getName())
+                .rejectEnhanced(false)
+                .buildDynamic();
+        executor.setKeyCapacity(10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+        });
+        Assertions.assertTrue(started.await(1, TimeUnit.SECONDS));
+        // fills the parent queue
+        executor.execute(() -> { });
+
+        AtomicInteger runs = new AtomicInteger();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(runs::incrementAndGet, (Object) "a"));
+        // the rejected task is neither queued nor reserved
+        Assertions.assertEquals(0, executor.getKeyBacklog("a"));
+        Assertions.assertEquals(0, executor.getActiveKeyCount());
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getQueue().isEmpty() && executor.getActiveCount() == 0);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(done::countDown, (Object) "a");
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, runs.get());
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveKeyCount() == 0);
+    }
+}
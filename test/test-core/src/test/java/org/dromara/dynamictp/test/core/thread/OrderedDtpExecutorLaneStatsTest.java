@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.dynamictp.test.core.thread;
+
+import org.dromara.dynamictp.common.entity.ThreadPoolStats;
+import org.dromara.dynamictp.common.queue.VariableLinkedBlockingQueue;
+import org.dromara.dynamictp.core.converter.ExecutorConverter;
+import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.thread.OrderedDtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderedDtpExecutorLaneStatsTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class OrderedDtpExecutorLaneStatsTest {
+
+    private static final int LANES = 4;
+
+    private OrderedDtpExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new OrderedDtpExecutor(LANES, LANES, 60, TimeUnit.SECONDS,
+                new VariableLinkedBlockingQueue<>(10_000));
+        executor.setThreadPoolName("orderedLaneStatsExecutor");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testLaneSkewAndHotKeys() throws InterruptedException {
+        int hot = 2000;
+        int cold = 20;
+        CountDownLatch done = new CountDownLatch(hot + cold * 8);
+        for (int i = 0; i < hot; i++) {
+            executor.execute(done::countDown, (Object) "hot");
+        }
+        for (int key = 0; key < 8; key++) {
+            for (int i = 0; i < cold; i++) {
+                executor.execute(done::countDown, (Object) key);
+            }
+        }
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.refreshLatency();
+
+        Assertions.assertEquals(LANES, executor.getLaneStats().size());
+        long throughput = executor.getLaneStats().stream().mapToLong(OrderedDtpExecutor.LaneStats::getThroughput).sum();
+        Assertions.assertEquals(hot + cold * 8, throughput);
+        // the hot lane carries more than 2000 of the 2160 tasks, about 3.7x the mean
+        Assertions.assertTrue(executor.getLaneSkew() > 3, "skew " + executor.getLaneSkew());
+        Assertions.assertEquals("hot", executor.getHotKeys().keySet().iterator().next());
+        // hot keys are sampled, the scaled count is an estimate
+        long hotCount = executor.getHotKeys().get("hot");
+        Assertions.assertTrue(hotCount > hot * 0.6 && hotCount < hot * 1.4, "hot count " + hotCount);
+
+        ThreadPoolStats stats = ExecutorConverter.toMetrics(ExecutorWrapper.of(executor));
+        Assertions.assertEquals(LANES, stats.getOrderedLaneThroughput().size());
+        Assertions.assertEquals(LANES, stats.getOrderedLaneQueueSize().size());
+        Assertions.assertEquals(executor.getLaneSkew(), stats.getOrderedLaneSkew());
+        Assertions.assertEquals(executor.getHotKeys(), stats.getOrderedHotKeys());
+
+        // the next interval has no load
+        executor.refreshLatency();
+        Assertions.assertEquals(0, executor.getLaneSkew());
+        Assertions.assertTrue(executor.getHotKeys().isEmpty());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.thread;
+
+import org.dromara.dynamictp.common.entity.ThreadPoolStats;
+import org.dromara.dynamictp.common.queue.BucketPriorityBlockingQueue;
+import org.dromara.dynamictp.core.converter.ExecutorConverter;
+import org.dromara.dynamictp.core.support.ExecutorType;
+import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.support.task.runnable.PriorityRunnable;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.thread.PriorityDtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PriorityDtpExecutorTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class PriorityDtpExecutorTest {
+
+    private PriorityDtpExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        DtpExecutor dtpExecutor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("priorityDtpExecutor")
+                .corePoolSize(1)
+                .maximumPoolSize(1)
+                .queueCapacity(10)
+                .priority(true)
+                .rejectEnhanced(false)
+                .buildDynamic();
+        Assertions.assertTrue(dtpExecutor instanceof PriorityDtpExecutor);
+        Assertions.assertTrue(dtpExecutor.getQueue() instanceof BucketPriorityBlockingQueue);
+        executor = (PriorityDtpExecutor) dtpExecutor;
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testExecutorType() {
+        Assertions.assertEquals(PriorityDtpExecutor.class, ExecutorType.getClass("priority"));
+    }
+
+    @Test
+    void testExecuteByPriority() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assertions.assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        executor.execute(() -> order.add("default"));
+        executor.execute(() -> order.add("low-1"), 7);
+        executor.execute(new TestTask("high-1", 0, order));
+        executor.execute(() -> order.add("low-2"), 7);
+        executor.execute(new TestTask("high-2", 0, order));
+        Future<String> future = executor.submit(() -> order.add("mid") ? "ok" : "fail", 2);
+
+        int[] sizes = executor.getPriorityQueueSizes();
+        Assertions.assertEquals(2, sizes[0]);
+        Assertions.assertEquals(1, sizes[2]);
+        Assertions.assertEquals(1, sizes[executor.getPriorityLevels() / 2]);
+        Assertions.assertEquals(2, sizes[7]);
+        ThreadPoolStats stats = ExecutorConverter.toMetrics(ExecutorWrapper.of(executor));
+        Assertions.assertEquals(2, stats.getPriorityQueueSize().get(0));
+        Assertions.assertEquals(6, stats.getQueueSize());
+
+        blocker.countDown();
+        Assertions.assertEquals("ok", future.get(1, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(50);
+        Assertions.assertEquals(Arrays.asList("high-1", "high-2", "mid", "default", "low-1", "low-2"), order);
+        executor.refreshLatency();
+        Assertions.assertEquals(2, executor.getPriorityWaitRecorder(0).getSnapshot().getCount());
+        Assertions.assertEquals(2, executor.getPriorityWaitRecorder(7).getSnapshot().getCount());
+    }
+
+    @Test
+    void testRefreshQueueCapacity() {
+        BucketPriorityBlockingQueue<Runnable> queue = (BucketPriorityBlockingQueue<Runnable>) executor.getQueue();
+        Assertions.assertEquals(10, queue.getCapacity());
+        queue.setCapacity(20);
+        Assertions.assertEquals(20, executor.getQueueCapacity());
+    }
+
+    private static class TestTask implements PriorityRunnable {
+
+        private final String name;
+
+        private final int priority;
+
+        private final List<String> order;
+
+        TestTask(String name, int priority, List<String> order) {
+            this.name = name;
+            this.priority = priority;
+            this.order = order;
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+
+        @Override
+        public void run() {
+            order.add(name);
+        }
+    }
+}
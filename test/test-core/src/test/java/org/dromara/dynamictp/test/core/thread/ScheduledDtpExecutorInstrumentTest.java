@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.dynamictp.test.core.thread;
+
+import org.dromara.dynamictp.core.support.task.runnable.DtpRunnable;
+import org.dromara.dynamictp.core.support.task.runnable.NamedRunnable;
+import org.dromara.dynamictp.core.support.task.wrapper.TaskWrapper;
+import org.dromara.dynamictp.core.thread.ScheduledDtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ScheduledDtpExecutorInstrumentTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class ScheduledDtpExecutorInstrumentTest {
+
+    private final AtomicInteger wrapCount = new AtomicInteger();
+
+    private final AtomicInteger wrappedRunCount = new AtomicInteger();
+
+    private ScheduledDtpExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ScheduledDtpExecutor(2, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                Thread::new, new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadPoolName("scheduledInstrumentExecutor");
+        executor.setTaskWrappers(Collections.singletonList(new TaskWrapper() {
+            @Override
+            public String name() {
+                return "counting";
+            }
+
+            @Override
+            public Runnable wrap(Runnable runnable) {
+                wrapCount.incrementAndGet();
+                return () -> {
+                    wrappedRunCount.incrementAndGet();
+                    runnable.run();
+                };
+            }
+        }));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testWrappedAndTimed() throws Exception {
+        CountDownLatch periodicRuns = new CountDownLatch(3);
+        ScheduledFuture<?> periodic = executor.scheduleAtFixedRate(periodicRuns::countDown, 0, 20, TimeUnit.MILLISECONDS);
+        ScheduledFuture<String> delayed = executor.schedule(() -> "done", 200, TimeUnit.MILLISECONDS);
+
+        Assertions.assertEquals("done", delayed.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(periodicRuns.await(5, TimeUnit.SECONDS));
+        periodic.cancel(false);
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        // wrapped once when scheduled, the wrapped task runs on each run
+        Assertions.assertEquals(2, wrapCount.get());
+        Assertions.assertTrue(wrappedRunCount.get() >= 4);
+        executor.refreshLatency();
+        // a cancelled run left in the queue is still taken and timed, as in other DtpExecutors
+        long runs = executor.getRunTimeRecorder().getSnapshot().getCount();
+        Assertions.assertTrue(runs >= wrappedRunCount.get() && runs <= wrappedRunCount.get() + 1, "runs " + runs);
+        Assertions.assertEquals(runs, executor.getQueueWaitRecorder().getSnapshot().getCount());
+        // queue wait is counted from the time a run is due, not from when it was scheduled
+        Assertions.assertTrue(executor.getQueueWaitRecorder().getSnapshot().getMax() < 150,
+                "queue wait " + executor.getQueueWaitRecorder().getSnapshot().getMax());
+        Assertions.assertEquals(runs, executor.getCompletedTaskCount());
+        Assertions.assertEquals("DelayedWorkQueue", executor.getQueueType());
+    }
+
+    @Test
+    void testResultAndCancel() throws Exception {
+        ScheduledFuture<String> failed = executor.schedule(() -> {
+            throw new IOException("failed");
+        }, 0, TimeUnit.MILLISECONDS);
+        ExecutionException ex = Assertions.assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(ex.getCause() instanceof IOException);
+
+        AtomicInteger ran = new AtomicInteger();
+        ScheduledFuture<?> cancelled = executor.schedule(ran::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+        Assertions.assertEquals(1, executor.getQueueSize());
+        Assertions.assertTrue(cancelled.cancel(false));
+        Assertions.assertTrue(cancelled.isCancelled());
+        TimeUnit.MILLISECONDS.sleep(200);
+        Assertions.assertEquals(0, ran.get());
+
+        Assertions.assertEquals("ok", executor.submit(() -> "ok").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testWrappedOnce() throws Exception {
+        AtomicReference<Runnable> executed = new AtomicReference<>();
+        ScheduledDtpExecutor recording = new ScheduledDtpExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), Thread::new, new ThreadPoolExecutor.AbortPolicy()) {
+            @Override
+            protected void beforeExecute(Thread t, Runnable r) {
+                executed.set(r);
+                super.beforeExecute(t, r);
+            }
+        };
+        recording.setThreadPoolName("scheduledWrappedOnceExecutor");
+        try {
+            ScheduledFuture<?> future = recording.schedule(NamedRunnable.of(() -> { }, "named"), 0, TimeUnit.MILLISECONDS);
+            future.get(5, TimeUnit.SECONDS);
+            // the scheduled future is the only DtpRunnable of the task, it keeps the name of the task
+            Assertions.assertSame(future, executed.get());
+            Assertions.assertEquals("named", ((DtpRunnable) future).getTaskName());
+        } finally {
+            recording.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRejectAndResize() {
+        AtomicReference<Runnable> rejectedTask = new AtomicReference<>();
+        AtomicReference<ThreadPoolExecutor> rejectedBy = new AtomicReference<>();
+        executor.setRejectedExecutionHandler((r, e) -> {
+            rejectedTask.set(r);
+            rejectedBy.set(e);
+            throw new RejectedExecutionException("rejected");
+        });
+        executor.setCorePoolSize(4);
+        Assertions.assertEquals(4, executor.getCorePoolSize());
+        executor.prestartAllCoreThreads();
+        Assertions.assertEquals(4, executor.getPoolSize());
+
+        executor.shutdown();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        // the refreshed handler gets the dtp executor and task, so rejections are counted and alarmed
+        Assertions.assertSame(executor, rejectedBy.get());
+        Assertions.assertTrue(rejectedTask.get() instanceof DtpRunnable);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.thread;
+
+import org.dromara.dynamictp.common.entity.ThreadPoolStats;
+import org.dromara.dynamictp.core.converter.ExecutorConverter;
+import org.dromara.dynamictp.core.support.ExecutorType;
+import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.thread.VirtualThreadDtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.dromara.dynamictp.common.em.QueueTypeEnum.VARIABLE_LINKED_BLOCKING_QUEUE;
+
+/**
+ * VirtualThreadDtpExecutorTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class VirtualThreadDtpExecutorTest {
+
+    private VirtualThreadDtpExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        DtpExecutor dtpExecutor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("virtualThreadDtpExecutor")
+                .corePoolSize(1)
+                .maximumPoolSize(2)
+                .workQueue(VARIABLE_LINKED_BLOCKING_QUEUE.getName(), 3)
+                .virtual(true)
+                .rejectEnhanced(false)
+                .buildDynamic();
+        Assertions.assertTrue(dtpExecutor instanceof VirtualThreadDtpExecutor);
+        executor = (VirtualThreadDtpExecutor) dtpExecutor;
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testExecutorType() {
+        Assertions.assertEquals(VirtualThreadDtpExecutor.class, ExecutorType.getClass("virtual"));
+    }
+
+    @Test
+    void testBoundedConcurrencyAndQueue() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        TimeUnit.MILLISECONDS.sleep(50);
+        Assertions.assertEquals(2, executor.getActiveCount());
+        Assertions.assertEquals(3, executor.getQueueSize());
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+        release.countDown();
+        Assertions.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, maxRunning.get());
+        TimeUnit.MILLISECONDS.sleep(50);
+        ThreadPoolStats stats = ExecutorConverter.toMetrics(ExecutorWrapper.of(executor));
+        Assertions.assertEquals(2, stats.getMaximumPoolSize());
+        Assertions.assertEquals(5, stats.getTaskCount());
+        Assertions.assertEquals(5, stats.getCompletedTaskCount());
+        Assertions.assertEquals(0, stats.getQueueSize());
+        Assertions.assertEquals(3, stats.getQueueCapacity());
+        Assertions.assertEquals(2, stats.getLargestPoolSize());
+    }
+
+    @Test
+    void testRefreshMaximumPoolSize() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        Assertions.assertFalse(started.await(50, TimeUnit.MILLISECONDS));
+        executor.setMaximumPoolSize(4);
+        Assertions.assertTrue(started.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(4, executor.getActiveCount());
+
+        executor.setMaximumPoolSize(1);
+        release.countDown();
+        TimeUnit.MILLISECONDS.sleep(50);
+        CountDownLatch done = new CountDownLatch(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        Assertions.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void testShutdown() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.isShutdown());
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, done.getCount());
+        Assertions.assertTrue(executor.isTerminated());
+    }
+
+    @Test
+    void testShutdownRacingWithSubmit() throws InterruptedException {
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger ran = new AtomicInteger();
+        CountDownLatch submitted = new CountDownLatch(4);
+        Thread[] submitters = new Thread[4];
+        for (int i = 0; i < submitters.length; i++) {
+            submitters[i] = new Thread(() -> {
+                for (int j = 0; j < 2000; j++) {
+                    try {
+                        executor.execute(ran::incrementAndGet);
+                        accepted.incrementAndGet();
+                    } catch (RejectedExecutionException ignored) {
+                        // queue full or shut down
+                    }
+                    if (j == 100) {
+                        submitted.countDown();
+                    }
+                }
+            });
+            submitters[i].start();
+        }
+        submitted.await();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        int ranAtTermination = ran.get();
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+        Assertions.assertEquals(accepted.get(), ranAtTermination);
+        Assertions.assertEquals(ranAtTermination, ran.get());
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.dynamictp.test.core.thread;
+
+import org.dromara.dynamictp.common.entity.ThreadPoolStats;
+import org.dromara.dynamictp.core.converter.ExecutorConverter;
+import org.dromara.dynamictp.core.support.ExecutorType;
+import org.dromara.dynamictp.core.support.ExecutorWrapper;
+import org.dromara.dynamictp.core.support.ThreadPoolBuilder;
+import org.dromara.dynamictp.core.thread.DtpExecutor;
+import org.dromara.dynamictp.core.thread.NamedThreadFactory;
+import org.dromara.dynamictp.core.thread.WorkStealingDtpExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+
+/**
+ * WorkStealingDtpExecutorTest related
+ *
+ * @author agent
+ * @since 1.1.4
+ */
+class WorkStealingDtpExecutorTest {
+
+    private WorkStealingDtpExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        DtpExecutor dtpExecutor = ThreadPoolBuilder.newBuilder()
+                .threadPoolName("workStealingDtpExecutor")
+                .corePoolSize(2)
+                .maximumPoolSize(4)
+                .workStealing(true)
+                .rejectEnhanced(false)
+                .buildDynamic();
+        Assertions.assertTrue(dtpExecutor instanceof WorkStealingDtpExecutor);
+        executor = (WorkStealingDtpExecutor) dtpExecutor;
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testExecutorType() {
+        Assertions.assertEquals(WorkStealingDtpExecutor.class, ExecutorType.getClass("work-stealing"));
+    }
+
+    @Test
+    void testExecuteAndStats() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            executor.execute(done::countDown);
+        }
+        Assertions.assertTrue(done.await(1, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(50);
+        ThreadPoolStats stats = ExecutorConverter.toMetrics(ExecutorWrapper.of(executor));
+        Assertions.assertEquals(2, stats.getCorePoolSize());
+        Assertions.assertEquals(4, stats.getMaximumPoolSize());
+        Assertions.assertEquals(100, stats.getTaskCount());
+        Assertions.assertEquals(100, stats.getCompletedTaskCount());
+        Assertions.assertEquals("ForkJoinWorkQueue", stats.getQueueType());
+        Assertions.assertTrue(stats.isDynamic());
+    }
+
+    @Test
+    void testRefreshParallelism() throws ExecutionException, InterruptedException {
+        executor.setCorePoolSize(3);
+        Assertions.assertEquals(3, executor.getCorePoolSize());
+        Assertions.assertEquals(6765, executor.submit(() -> executor.invoke(new Fibonacci(20))).get());
+        Assertions.assertEquals(1, executor.getCompletedTaskCount());
+    }
+
+    @Test
+    void testRejectAfterShutdown() {
+        executor.shutdown();
+        Assertions.assertThrows(RuntimeException.class, () -> executor.execute(() -> { }));
+        Assertions.assertEquals(0, executor.getTaskCount());
+    }
+
+    @Test
+    void testExecuteRacingRefresh() throws InterruptedException {
+        Thread refresher = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                executor.setCorePoolSize(2 + i % 2);
+            }
+        });
+        refresher.start();
+        int count = 20000;
+        CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            executor.execute(done::countDown);
+        }
+        refresher.join();
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(count, executor.getTaskCount());
+        Assertions.assertEquals(3, executor.getCorePoolSize());
+    }
+
+    @Test
+    void testRefreshWhileTaskRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assertions.assertTrue(started.await(1, TimeUnit.SECONDS));
+        executor.setCorePoolSize(3);
+        executor.setCorePoolSize(4);
+        Assertions.assertEquals(4, executor.getCorePoolSize());
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getCompletedTaskCount() == 1);
+        executor.submit(() -> { }).get(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(4, executor.getCorePoolSize());
+        Assertions.assertEquals(4, executor.getMaximumPoolSize());
+    }
+
+    @Test
+    void testRefreshAfterShutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.setCorePoolSize(5);
+        Assertions.assertEquals(2, executor.getCorePoolSize());
+        Assertions.assertTrue(executor.isShutdown());
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        Assertions.assertTrue(executor.isTerminated());
+    }
+
+    @Test
+    void testTerminationWaitsForRetiredPool() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assertions.assertTrue(started.await(1, TimeUnit.SECONDS));
+        executor.setCorePoolSize(3);
+        executor.shutdown();
+        Assertions.assertFalse(executor.awaitTermination(50, TimeUnit.MILLISECONDS));
+        Assertions.assertFalse(executor.isTerminated());
+        release.countDown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        Assertions.assertTrue(executor.isTerminated());
+        Assertions.assertEquals(1, executor.getCompletedTaskCount());
+    }
+
+    @Test
+    void testWorkerThreadFactory() throws Exception {
+        WorkStealingDtpExecutor named = new WorkStealingDtpExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("steal", true, Thread.MAX_PRIORITY),
+                new ThreadPoolExecutor.AbortPolicy());
+        try {
+            Thread worker = named.submit(Thread::currentThread).get();
+            Assertions.assertTrue(worker.getName().startsWith("steal-"));
+            Assertions.assertTrue(worker.isDaemon());
+            Assertions.assertEquals(Thread.MAX_PRIORITY, worker.getPriority());
+        } finally {
+            named.shutdownNow();
+        }
+    }
+
+    private static class Fibonacci extends RecursiveTask<Integer> {
+
+        private final int n;
+
+        Fibonacci(int n) {
+            this.n = n;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (n <= 1) {
+                return n;
+            }
+            Fibonacci f1 = new Fibonacci(n - 1);
+            f1.fork();
+            return new Fibonacci(n - 2).compute() + f1.join();
+        }
+    }
+}